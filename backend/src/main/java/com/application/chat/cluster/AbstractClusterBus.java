@@ -0,0 +1,150 @@
+package com.application.chat.cluster;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Interest bookkeeping shared by the transports: which keys this node is subscribed to,
+ * and which keys every remote node has advertised.
+ */
+public abstract class AbstractClusterBus implements ClusterBus {
+
+    protected final String nodeId;
+
+    private final Set<String> localInterest = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> remoteInterest = new ConcurrentHashMap<>(); // nodeId -> keys
+    private volatile Consumer<ClusterMessage> listener = m -> {};
+    private final List<Consumer<ClusterMessage>> directHandlers = new CopyOnWriteArrayList<>();
+    private final List<Runnable> membershipCallbacks = new CopyOnWriteArrayList<>();
+
+    protected AbstractClusterBus(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String localNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(Consumer<ClusterMessage> listener) {
+        this.listener = listener;
+        doStart();
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        for (Map.Entry<String, Set<String>> node : remoteInterest.entrySet()) {
+            if (node.getValue().contains(message.getInterestKey())) {
+                transmit(node.getKey(), message);
+            }
+        }
+    }
+
+    @Override
+    public void addInterest(String key) {
+        if (localInterest.add(key)) announceInterest(key, true);
+    }
+
+    @Override
+    public void removeInterest(String key) {
+        if (localInterest.remove(key)) announceInterest(key, false);
+    }
+
+    @Override
+    public boolean hasRemoteInterest(String key) {
+        for (Set<String> keys : remoteInterest.values()) {
+            if (keys.contains(key)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<String> remoteNodes() {
+        return Set.copyOf(remoteInterest.keySet());
+    }
+
+    @Override
+    public void sendToNode(String remoteNode, ClusterMessage message) {
+        if (!message.isDirect()) {
+            Map<String, String> headers = new HashMap<>(message.getHeaders());
+            headers.put(ClusterMessage.DIRECT_HEADER, nodeId);
+            message = new ClusterMessage(message.getInterestKey(), message.getDestination(), headers, message.getPayload());
+        }
+        transmit(remoteNode, message);
+    }
+
+    @Override
+    public void onDirectMessage(Consumer<ClusterMessage> handler) {
+        directHandlers.add(handler);
+    }
+
+    @Override
+    public void onMembershipChange(Runnable callback) {
+        membershipCallbacks.add(callback);
+    }
+
+    // =====================================================
+    // 🔌 TRANSPORT CALLBACKS
+    // =====================================================
+
+    protected Set<String> localInterestSnapshot() {
+        return Set.copyOf(localInterest);
+    }
+
+    protected void onNodeJoined(String remoteNode, Set<String> keys) {
+        Set<String> set = ConcurrentHashMap.newKeySet();
+        set.addAll(keys);
+        boolean isNew = remoteInterest.put(remoteNode, set) == null;
+        System.out.println("🌐 Cluster node joined: " + remoteNode + " (" + keys.size() + " interests)");
+        if (isNew) fireMembershipChange();
+    }
+
+    protected void onRemoteInterest(String remoteNode, String key, boolean add) {
+        Set<String> keys = remoteInterest.computeIfAbsent(remoteNode, n -> ConcurrentHashMap.newKeySet());
+        if (add) keys.add(key);
+        else keys.remove(key);
+    }
+
+    protected void onNodeLeft(String remoteNode) {
+        if (remoteInterest.remove(remoteNode) != null) {
+            System.out.println("🌐 Cluster node left: " + remoteNode);
+            fireMembershipChange();
+        }
+    }
+
+    protected void deliver(ClusterMessage message) {
+        try {
+            if (message.isDirect()) {
+                for (Consumer<ClusterMessage> handler : directHandlers) handler.accept(message);
+            } else {
+                listener.accept(message);
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️ Failed to deliver cluster message to " + message.getDestination() + ": " + e.getMessage());
+        }
+    }
+
+    private void fireMembershipChange() {
+        for (Runnable callback : membershipCallbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                System.out.println("⚠️ Cluster membership callback failed: " + e.getMessage());
+            }
+        }
+    }
+
+    protected abstract void doStart();
+
+    /** Queue {@code message} for {@code remoteNode}; must not block the caller. */
+    protected abstract void transmit(String remoteNode, ClusterMessage message);
+
+    /** Tell every other node that this node gained or lost subscribers for {@code key}. */
+    protected abstract void announceInterest(String key, boolean add);
+}
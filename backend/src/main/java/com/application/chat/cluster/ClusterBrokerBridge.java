@@ -0,0 +1,136 @@
+package com.application.chat.cluster;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connects the local {@code SimpleBroker} to the {@link ClusterBus}.
+ *
+ * - Outbound: every /topic/** and /user/** message sent on {@code brokerChannel} on this
+ *   node is also published to the nodes interested in it.
+ * - Inbound: messages from other nodes are replayed onto the local {@code brokerChannel},
+ *   tagged with {@link #ORIGIN_HEADER} so they are never published again. /user/{name}/...
+ *   messages then go through the normal user-destination resolution on the node where
+ *   that user is connected.
+ * - Interest: STOMP subscribe/unsubscribe/disconnect events are reference-counted per
+ *   interest key and announced when a key gains its first or loses its last subscriber.
+ */
+public class ClusterBrokerBridge implements ChannelInterceptor {
+
+    public static final String ORIGIN_HEADER = "clusterOrigin";
+
+    private final ClusterBus bus;
+    private final MessageChannel brokerChannel;
+
+    // sessionId -> (subscriptionId -> interest key)
+    private final Map<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> interestCounts = new HashMap<>(); // guarded by this
+
+    public ClusterBrokerBridge(ClusterBus bus, MessageChannel brokerChannel) {
+        this.bus = bus;
+        this.brokerChannel = brokerChannel;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        bus.start(this::onRemoteMessage);
+    }
+
+    // =====================================================
+    // 📤 LOCAL → CLUSTER
+    // =====================================================
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE) return message;
+        if (accessor.getHeader(ORIGIN_HEADER) != null) return message;
+
+        String destination = accessor.getDestination();
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))) {
+            return message; // resolved /queue/...-user{session} destinations are node-local
+        }
+        if (!(message.getPayload() instanceof byte[] payload)) return message;
+
+        Map<String, String> headers = new HashMap<>();
+        if (accessor.getContentType() != null) headers.put("content-type", accessor.getContentType().toString());
+        bus.publish(new ClusterMessage(ClusterMessage.interestKeyFor(destination), destination, headers, payload));
+        return message;
+    }
+
+    // =====================================================
+    // 📥 CLUSTER → LOCAL
+    // =====================================================
+
+    private void onRemoteMessage(ClusterMessage remote) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(remote.getDestination());
+        String contentType = remote.getHeaders().get("content-type");
+        if (contentType != null) accessor.setContentType(MimeType.valueOf(contentType));
+        accessor.setHeader(ORIGIN_HEADER, bus.localNodeId());
+        brokerChannel.send(MessageBuilder.createMessage(remote.getPayload(), accessor.getMessageHeaders()));
+    }
+
+    // =====================================================
+    // 👀 LOCAL INTEREST TRACKING
+    // =====================================================
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String key = interestKey(accessor.getDestination(), event.getUser());
+        if (key == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) return;
+
+        subscriptions.computeIfAbsent(accessor.getSessionId(), s -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), key);
+        retain(key);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> session = subscriptions.get(accessor.getSessionId());
+        if (session == null || accessor.getSubscriptionId() == null) return;
+        String key = session.remove(accessor.getSubscriptionId());
+        if (key != null) release(key);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> session = subscriptions.remove(event.getSessionId());
+        if (session == null) return;
+        for (String key : session.values()) release(key);
+    }
+
+    private synchronized void retain(String key) {
+        if (interestCounts.merge(key, 1, Integer::sum) == 1) bus.addInterest(key);
+    }
+
+    private synchronized void release(String key) {
+        Integer left = interestCounts.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+        if (left == null) bus.removeInterest(key);
+    }
+
+    private static String interestKey(String destination, Principal user) {
+        if (destination == null) return null;
+        if (destination.startsWith("/user/")) {
+            return user == null ? null : ClusterMessage.userInterestKey(user.getName());
+        }
+        return destination.startsWith("/topic/") ? destination : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.application.chat.cluster;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 🌐 Cross-node fan-out of broker messages.
+ *
+ * Each node advertises the interest keys it has local subscribers for (see
+ * {@link ClusterMessage#interestKeyFor}); {@link #publish} only ships a message to the
+ * nodes that advertised its key, so a node never receives traffic for rooms nobody on it
+ * is watching.
+ */
+public interface ClusterBus {
+
+    String localNodeId();
+
+    /** Starts the transport; {@code listener} receives messages published by other nodes. */
+    void start(Consumer<ClusterMessage> listener);
+
+    void publish(ClusterMessage message);
+
+    void addInterest(String key);
+
+    void removeInterest(String key);
+
+    /** Whether any other node currently has subscribers for {@code key}. */
+    boolean hasRemoteInterest(String key);
+
+    /** Other nodes this node currently has a live link from. */
+    Set<String> remoteNodes();
+
+    /** Sends {@code message} to one node regardless of interest; it arrives at that node's direct handler. */
+    void sendToNode(String nodeId, ClusterMessage message);
+
+    /** Adds a handler for messages sent with {@link #sendToNode}; each handler picks its own destinations. */
+    void onDirectMessage(Consumer<ClusterMessage> handler);
+
+    /** Called whenever a node joins or leaves. */
+    void onMembershipChange(Runnable callback);
+
+    void stop();
+}
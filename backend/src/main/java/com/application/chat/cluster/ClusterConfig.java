@@ -0,0 +1,49 @@
+package com.application.chat.cluster;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.MessageChannel;
+
+import java.util.List;
+
+/**
+ * Cluster fan-out, enabled with {@code chat.cluster.mode}:
+ * - none (default): single node, SimpleBroker only
+ * - in-process: nodes in the same JVM sharing {@code chat.cluster.name}
+ * - tcp: separate JVMs; e.g. run two instances with
+ *   {@code --server.port=8080 --chat.cluster.tcp.port=7701 --chat.cluster.tcp.peers=127.0.0.1:7702} and
+ *   {@code --server.port=8081 --chat.cluster.tcp.port=7702 --chat.cluster.tcp.peers=127.0.0.1:7701}
+ */
+@Configuration
+@ConditionalOnExpression("'${chat.cluster.mode:none}' != 'none'")
+public class ClusterConfig {
+
+    @Bean(destroyMethod = "stop")
+    public ClusterBus clusterBus(@Value("${chat.cluster.mode}") String mode,
+                                 @Value("${chat.cluster.name:chat}") String clusterName,
+                                 @Value("${chat.cluster.tcp.bind-host:127.0.0.1}") String bindHost,
+                                 @Value("${chat.cluster.tcp.port:7701}") int port,
+                                 @Value("${chat.cluster.node-id:}") String nodeId,
+                                 @Value("${chat.cluster.tcp.peers:}") List<String> peers,
+                                 @Value("${chat.cluster.batch-size:64}") int batchSize,
+                                 @Value("${chat.cluster.linger-ms:2}") long lingerMs,
+                                 @Value("${chat.cluster.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${chat.cluster.tcp.reconnect-ms:1000}") long reconnectMs) {
+        String id = nodeId.isBlank() ? bindHost + ":" + port : nodeId;
+        return switch (mode) {
+            case "in-process" -> new InProcessClusterBus(clusterName, id, batchSize, queueCapacity);
+            case "tcp" -> new TcpClusterBus(id, bindHost, port, peers, batchSize, lingerMs, queueCapacity, reconnectMs);
+            default -> throw new IllegalArgumentException("Unknown chat.cluster.mode: " + mode);
+        };
+    }
+
+    @Bean
+    public ClusterBrokerBridge clusterBrokerBridge(ClusterBus clusterBus,
+                                                   @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        return new ClusterBrokerBridge(clusterBus, brokerChannel);
+    }
+}
@@ -0,0 +1,51 @@
+package com.application.chat.cluster;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A broker message travelling between nodes: the STOMP destination it was sent to,
+ * the few headers needed to rebuild it (content-type), and the already-serialized payload.
+ */
+public class ClusterMessage {
+
+    /** Marks a message sent to one node with {@link ClusterBus#sendToNode} rather than fanned out by interest. */
+    public static final String DIRECT_HEADER = "cluster-direct";
+
+    private final String interestKey;
+    private final String destination;
+    private final Map<String, String> headers;
+    private final byte[] payload;
+
+    public ClusterMessage(String interestKey, String destination, Map<String, String> headers, byte[] payload) {
+        this.interestKey = interestKey;
+        this.destination = destination;
+        this.headers = headers == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.payload = payload;
+    }
+
+    public String getInterestKey() { return interestKey; }
+    public String getDestination() { return destination; }
+    public Map<String, String> getHeaders() { return headers; }
+    public byte[] getPayload() { return payload; }
+
+    public boolean isDirect() { return headers.containsKey(DIRECT_HEADER); }
+
+    /**
+     * Routing key for a destination: /user/{name}/... routes by user, everything else by
+     * the destination itself (e.g. /topic/messages/{roomId}).
+     */
+    public static String interestKeyFor(String destination) {
+        if (destination == null) return null;
+        if (destination.startsWith("/user/")) {
+            int end = destination.indexOf('/', "/user/".length());
+            return end < 0 ? destination : destination.substring(0, end);
+        }
+        return destination;
+    }
+
+    public static String userInterestKey(String username) {
+        return "/user/" + username;
+    }
+}
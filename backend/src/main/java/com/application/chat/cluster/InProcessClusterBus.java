@@ -0,0 +1,89 @@
+package com.application.chat.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Cluster bus between nodes living in the same JVM (several application contexts sharing
+ * a cluster name). Used for tests and for trying the cluster code paths without sockets.
+ * Each node drains its inbox on one thread, in batches.
+ */
+public class InProcessClusterBus extends AbstractClusterBus {
+
+    private static final Map<String, Map<String, InProcessClusterBus>> CLUSTERS = new ConcurrentHashMap<>();
+
+    private final String clusterName;
+    private final int batchSize;
+    private final BlockingQueue<ClusterMessage> inbox;
+    private volatile Thread dispatcher;
+
+    public InProcessClusterBus(String clusterName, String nodeId, int batchSize, int inboxCapacity) {
+        super(nodeId);
+        this.clusterName = clusterName;
+        this.batchSize = batchSize;
+        this.inbox = new LinkedBlockingQueue<>(inboxCapacity);
+    }
+
+    @Override
+    protected void doStart() {
+        dispatcher = new Thread(this::dispatch, "cluster-inproc-" + nodeId);
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        Map<String, InProcessClusterBus> nodes = CLUSTERS.computeIfAbsent(clusterName, c -> new ConcurrentHashMap<>());
+        synchronized (nodes) {
+            for (InProcessClusterBus other : nodes.values()) {
+                onNodeJoined(other.nodeId, other.localInterestSnapshot());
+                other.onNodeJoined(nodeId, localInterestSnapshot());
+            }
+            nodes.put(nodeId, this);
+        }
+    }
+
+    @Override
+    protected void transmit(String remoteNode, ClusterMessage message) {
+        InProcessClusterBus target = nodes().get(remoteNode);
+        if (target != null && !target.inbox.offer(message)) {
+            System.out.println("⚠️ Cluster inbox full on " + remoteNode + ", dropping message for " + message.getDestination());
+        }
+    }
+
+    @Override
+    protected void announceInterest(String key, boolean add) {
+        for (InProcessClusterBus other : nodes().values()) {
+            if (other != this) other.onRemoteInterest(nodeId, key, add);
+        }
+    }
+
+    @Override
+    public void stop() {
+        Map<String, InProcessClusterBus> nodes = nodes();
+        synchronized (nodes) {
+            nodes.remove(nodeId);
+            for (InProcessClusterBus other : nodes.values()) other.onNodeLeft(nodeId);
+        }
+        if (dispatcher != null) dispatcher.interrupt();
+    }
+
+    private Map<String, InProcessClusterBus> nodes() {
+        return CLUSTERS.getOrDefault(clusterName, Map.of());
+    }
+
+    private void dispatch() {
+        List<ClusterMessage> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(inbox.take());
+                inbox.drainTo(batch, batchSize - 1);
+                for (ClusterMessage message : batch) deliver(message);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.application.chat.cluster;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.services.RoomStateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 🧭 Decides which node owns a room and forwards sends (and typing keystrokes) for foreign
+ * rooms to their owner.
+ *
+ * Room ids are placed on a {@link ConsistentHashRing} of the live nodes. The owner is the
+ * only node that assigns sequences and keeps hot state for the room (see
+ * {@link RoomStateService}), which keeps per-room ordering on a single node. The ring is
+ * rebuilt whenever a node joins or leaves; state for rooms that moved away is dropped and
+ * reloaded lazily by the new owner. Without a cluster bus every room is local.
+ */
+@Component
+public class RoomAffinityRouter {
+
+    public static final String SEND_MESSAGE = "/app/send-message";
+    public static final String TYPING = "/app/typing";
+
+    /** Typing keystroke forwarded from the node the typist is connected to. */
+    public interface TypingHandler {
+        void onTyping(String roomId, String username, boolean typing);
+    }
+
+    private final ClusterBus bus;
+    private final RoomStateService roomStateService;
+    private final ObjectMapper objectMapper;
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+    private volatile Consumer<ChatMessage> forwardHandler = m -> {};
+    private volatile TypingHandler typingHandler = (roomId, username, typing) -> {};
+
+    public RoomAffinityRouter(ObjectProvider<ClusterBus> clusterBus,
+                              RoomStateService roomStateService,
+                              ObjectMapper objectMapper,
+                              @Value("${chat.cluster.virtual-nodes:128}") int virtualNodes) {
+        this.bus = clusterBus.getIfAvailable();
+        this.roomStateService = roomStateService;
+        this.objectMapper = objectMapper;
+        this.virtualNodes = virtualNodes;
+
+        if (bus != null) {
+            bus.onDirectMessage(this::onDirectMessage);
+            bus.onMembershipChange(this::rebalance);
+            rebalance();
+        }
+    }
+
+    /** Handler run on the owner for sends forwarded from other nodes; must not forward again. */
+    public void setForwardHandler(Consumer<ChatMessage> forwardHandler) {
+        this.forwardHandler = forwardHandler;
+    }
+
+    /** Handler run on the owner for typing forwarded from other nodes; must not forward again. */
+    public void setTypingHandler(TypingHandler typingHandler) {
+        this.typingHandler = typingHandler;
+    }
+
+    public boolean isLocal(String roomId) {
+        if (bus == null || roomId == null) return true;
+        String owner = ownerOf(roomId);
+        return owner == null || owner.equals(bus.localNodeId());
+    }
+
+    public String ownerOf(String roomId) {
+        ConsistentHashRing current = ring;
+        return current == null ? null : current.ownerOf(roomId);
+    }
+
+    /** Ships a send for a foreign room to its owner node. */
+    public void forward(ChatMessage message) {
+        String owner = ownerOf(message.getRoomId());
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(message);
+            bus.sendToNode(owner, new ClusterMessage(message.getRoomId(), SEND_MESSAGE,
+                    Map.of("content-type", "application/json"), payload));
+        } catch (Exception e) {
+            System.err.println("❌ Failed to forward message for room " + message.getRoomId() + " to " + owner + ": " + e.getMessage());
+        }
+    }
+
+    /** Ships a typing keystroke for a foreign room to its owner, which keeps the room's typers. */
+    public void forwardTyping(String roomId, String username, boolean typing) {
+        String owner = ownerOf(roomId);
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(Map.of("roomId", roomId, "username", username, "typing", typing));
+            bus.sendToNode(owner, new ClusterMessage(roomId, TYPING,
+                    Map.of("content-type", "application/json"), payload));
+        } catch (Exception e) {
+            System.err.println("❌ Failed to forward typing for room " + roomId + " to " + owner + ": " + e.getMessage());
+        }
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private void onDirectMessage(ClusterMessage clusterMessage) {
+        if (TYPING.equals(clusterMessage.getDestination())) {
+            onTypingForwarded(clusterMessage);
+            return;
+        }
+        if (!SEND_MESSAGE.equals(clusterMessage.getDestination())) return;
+        try {
+            ChatMessage message = objectMapper.readValue(clusterMessage.getPayload(), ChatMessage.class);
+            // The handler stores it locally without consulting the ring, so a send is
+            // forwarded at most once even while two nodes' rings disagree.
+            forwardHandler.accept(message);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to handle forwarded message: " + e.getMessage());
+        }
+    }
+
+    private void onTypingForwarded(ClusterMessage clusterMessage) {
+        try {
+            Map<?, ?> typing = objectMapper.readValue(clusterMessage.getPayload(), Map.class);
+            typingHandler.onTyping((String) typing.get("roomId"), (String) typing.get("username"),
+                    Boolean.TRUE.equals(typing.get("typing")));
+        } catch (Exception e) {
+            System.err.println("❌ Failed to handle forwarded typing: " + e.getMessage());
+        }
+    }
+
+    private synchronized void rebalance() {
+        Set<String> nodes = new HashSet<>(bus.remoteNodes());
+        nodes.add(bus.localNodeId());
+        ring = new ConsistentHashRing(nodes, virtualNodes);
+        roomStateService.retainOnly(this::isLocal);
+        System.out.println("🧭 Room ownership rebalanced across " + nodes.size() + " node(s)");
+    }
+}
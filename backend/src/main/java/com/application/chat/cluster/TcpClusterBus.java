@@ -0,0 +1,310 @@
+package com.application.chat.cluster;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster bus over plain TCP, for running several JVMs (on one machine or several).
+ *
+ * Every node listens on its own port and opens one outbound link to each configured peer.
+ * A node id is the "host:port" address it listens on, so peers are configured with the same
+ * strings the nodes announce. Links carry length-delimited frames:
+ * HELLO (node id + full interest snapshot), INTEREST (add/remove one key) and BATCH
+ * (up to {@code batchSize} messages collected for at most {@code lingerMs}).
+ * Outbound links reconnect on failure and resend their snapshot; messages queued for a
+ * peer beyond {@code queueCapacity} are dropped rather than blocking publishers.
+ */
+public class TcpClusterBus extends AbstractClusterBus {
+
+    static final byte HELLO = 1;
+    static final byte INTEREST = 2;
+    static final byte BATCH = 3;
+
+    private final String bindHost;
+    private final int port;
+    private final int batchSize;
+    private final long lingerMs;
+    private final int queueCapacity;
+    private final long reconnectMs;
+
+    private final Map<String, PeerLink> links = new ConcurrentHashMap<>();      // peer node id -> outbound link
+    private final Map<String, Socket> inbound = new ConcurrentHashMap<>();      // peer node id -> current inbound socket
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public TcpClusterBus(String nodeId, String bindHost, int port, Collection<String> peers,
+                         int batchSize, long lingerMs, int queueCapacity, long reconnectMs) {
+        super(nodeId);
+        this.bindHost = bindHost;
+        this.port = port;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.queueCapacity = queueCapacity;
+        this.reconnectMs = reconnectMs;
+        for (String peer : peers) {
+            String p = peer.trim();
+            if (!p.isEmpty() && !p.equals(nodeId)) links.put(p, new PeerLink(p));
+        }
+    }
+
+    // =====================================================
+    // 🚀 LIFECYCLE
+    // =====================================================
+
+    @Override
+    protected void doStart() {
+        running = true;
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(bindHost, port));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot bind cluster port " + bindHost + ":" + port, e);
+        }
+        startThread("cluster-accept", this::acceptLoop);
+        for (PeerLink link : links.values()) startThread("cluster-link-" + link.peer, link::run);
+        System.out.println("🌐 TCP cluster node " + nodeId + " listening, peers: " + links.keySet());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(serverSocket);
+        for (Socket s : inbound.values()) closeQuietly(s);
+        for (PeerLink link : links.values()) link.close();
+    }
+
+    // =====================================================
+    // 📤 OUTBOUND
+    // =====================================================
+
+    @Override
+    protected void transmit(String remoteNode, ClusterMessage message) {
+        PeerLink link = links.get(remoteNode);
+        if (link == null) {
+            System.out.println("⚠️ No cluster link configured for node " + remoteNode);
+            return;
+        }
+        link.enqueue(message);
+    }
+
+    @Override
+    protected void announceInterest(String key, boolean add) {
+        for (PeerLink link : links.values()) link.enqueue(new InterestChange(key, add));
+    }
+
+    private record InterestChange(String key, boolean add) {}
+
+    private final class PeerLink {
+        final String peer;
+        final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(queueCapacity);
+        volatile Socket socket;
+
+        PeerLink(String peer) {
+            this.peer = peer;
+        }
+
+        void enqueue(Object item) {
+            if (!queue.offer(item)) {
+                System.out.println("⚠️ Cluster link to " + peer + " is backed up, dropping " +
+                        (item instanceof ClusterMessage m ? m.getDestination() : item));
+            }
+        }
+
+        void run() {
+            while (running) {
+                try {
+                    socket = connect();
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    writeHello(out);
+                    pump(out);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    if (running) System.out.println("⚠️ Cluster link to " + peer + " lost: " + e.getMessage());
+                } finally {
+                    closeQuietly(socket);
+                }
+                sleepQuietly(reconnectMs);
+            }
+        }
+
+        private Socket connect() throws IOException, InterruptedException {
+            String[] hostPort = peer.split(":");
+            while (running) {
+                try {
+                    Socket s = new Socket();
+                    s.setTcpNoDelay(true);
+                    s.connect(new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1])), 2000);
+                    return s;
+                } catch (IOException e) {
+                    Thread.sleep(reconnectMs);
+                }
+            }
+            throw new SocketException("cluster bus stopped");
+        }
+
+        private void writeHello(DataOutputStream out) throws IOException {
+            Set<String> keys = localInterestSnapshot();
+            out.writeByte(HELLO);
+            out.writeUTF(nodeId);
+            out.writeInt(keys.size());
+            for (String key : keys) out.writeUTF(key);
+            out.flush();
+        }
+
+        private void pump(DataOutputStream out) throws IOException, InterruptedException {
+            List<ClusterMessage> batch = new ArrayList<>(batchSize);
+            Object pending = null;
+            while (running) {
+                Object item = pending != null ? pending : queue.take();
+                pending = null;
+
+                if (item instanceof InterestChange change) {
+                    out.writeByte(INTEREST);
+                    out.writeBoolean(change.add());
+                    out.writeUTF(change.key());
+                    out.flush();
+                    continue;
+                }
+
+                // Collect a batch: stop when full, when the linger time is up, or at the next interest change
+                batch.add((ClusterMessage) item);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Object next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    if (next instanceof ClusterMessage m) {
+                        batch.add(m);
+                    } else {
+                        pending = next;
+                        break;
+                    }
+                }
+                writeBatch(out, batch);
+                batch.clear();
+            }
+        }
+
+        void close() {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void writeBatch(DataOutputStream out, List<ClusterMessage> batch) throws IOException {
+        out.writeByte(BATCH);
+        out.writeInt(batch.size());
+        for (ClusterMessage m : batch) {
+            out.writeUTF(m.getInterestKey());
+            out.writeUTF(m.getDestination());
+            out.writeInt(m.getHeaders().size());
+            for (Map.Entry<String, String> h : m.getHeaders().entrySet()) {
+                out.writeUTF(h.getKey());
+                out.writeUTF(h.getValue());
+            }
+            out.writeInt(m.getPayload().length);
+            out.write(m.getPayload());
+        }
+        out.flush();
+    }
+
+    // =====================================================
+    // 📥 INBOUND
+    // =====================================================
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                startThread("cluster-in-" + socket.getRemoteSocketAddress(), () -> readLoop(socket));
+            } catch (IOException e) {
+                if (running) System.out.println("⚠️ Cluster accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String remoteNode = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            if (in.readByte() != HELLO) throw new IOException("expected HELLO");
+            remoteNode = in.readUTF();
+            int count = in.readInt();
+            Set<String> keys = new HashSet<>(count);
+            for (int i = 0; i < count; i++) keys.add(in.readUTF());
+
+            Socket previous = inbound.put(remoteNode, socket);
+            closeQuietly(previous);
+            onNodeJoined(remoteNode, keys);
+
+            while (running) {
+                byte type = in.readByte();
+                switch (type) {
+                    case INTEREST -> {
+                        boolean add = in.readBoolean();
+                        onRemoteInterest(remoteNode, in.readUTF(), add);
+                    }
+                    case BATCH -> {
+                        int size = in.readInt();
+                        for (int i = 0; i < size; i++) deliver(readMessage(in));
+                    }
+                    default -> throw new IOException("unknown cluster frame type " + type);
+                }
+            }
+        } catch (IOException e) {
+            // peer went away; it reconnects and re-announces itself
+        } finally {
+            // Only forget the node if a newer connection has not already replaced this one
+            if (remoteNode != null && inbound.remove(remoteNode, socket)) onNodeLeft(remoteNode);
+            closeQuietly(socket);
+        }
+    }
+
+    private static ClusterMessage readMessage(DataInputStream in) throws IOException {
+        String key = in.readUTF();
+        String destination = in.readUTF();
+        int headerCount = in.readInt();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) headers.put(in.readUTF(), in.readUTF());
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return new ClusterMessage(key, destination, headers, payload);
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private static void startThread(String name, Runnable task) {
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.application.chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🛡️ Load shedding for REST endpoints.
+ *
+ * Every endpoint group has its own {@link GradientLimiter}, so slow Mongo queries behind
+ * listing or search shrink only their own limit. Low-priority groups (listing, search) may
+ * in addition use at most {@code chat.limits.low-priority-share} of the total servlet
+ * budget, which keeps threads free for message sends and auth even when every limit is
+ * still growing. Shed requests get an immediate 503 with Retry-After, before security or
+ * any Mongo work runs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final List<Group> groups = new ArrayList<>();
+    private final int lowPriorityBudget;
+    private final AtomicInteger lowPriorityInflight = new AtomicInteger();
+
+    public AdaptiveConcurrencyFilter(
+            @Value("${chat.limits.initial:20}") int initialLimit,
+            @Value("${chat.limits.min:4}") int minLimit,
+            @Value("${chat.limits.max:200}") int maxLimit,
+            @Value("${chat.limits.smoothing:0.2}") double smoothing,
+            @Value("${server.tomcat.threads.max:200}") int servletThreads,
+            @Value("${chat.limits.low-priority-share:0.6}") double lowPriorityShare,
+            MeterRegistry meterRegistry) {
+        this.lowPriorityBudget = Math.max(1, (int) (servletThreads * lowPriorityShare));
+
+        // Critical paths start (and can never drop) higher than listing/search
+        groups.add(new Group("send", true, List.of("/chats/messages/send"),
+                new GradientLimiter(maxLimit, Math.max(minLimit, maxLimit / 4), maxLimit, smoothing)));
+        groups.add(new Group("auth", true, List.of("/auth/**"),
+                new GradientLimiter(maxLimit, Math.max(minLimit, maxLimit / 4), maxLimit, smoothing)));
+        groups.add(new Group("list", false, List.of("/chats/rooms/**", "/chats/*/messages", "/chats/private/list/**"),
+                new GradientLimiter(initialLimit, minLimit, maxLimit, smoothing)));
+        groups.add(new Group("search", false, List.of("/users/search/**"),
+                new GradientLimiter(initialLimit, minLimit, maxLimit, smoothing)));
+
+        for (Group group : groups) {
+            Gauge.builder("chat.limits.limit", group.limiter, GradientLimiter::getLimit)
+                    .tag("group", group.name)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("chat.limits.inflight", group.limiter, GradientLimiter::getInflight)
+                    .tag("group", group.name)
+                    .register(meterRegistry);
+            group.rejected = Counter.builder("chat.limits.rejected")
+                    .tag("group", group.name)
+                    .description("Requests shed with 503")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod()) || groupFor(request.getServletPath()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groupFor(request.getServletPath());
+
+        boolean lowPriority = !group.critical;
+        if (lowPriority && lowPriorityInflight.incrementAndGet() > lowPriorityBudget) {
+            lowPriorityInflight.decrementAndGet();
+            reject(group, response);
+            return;
+        }
+        if (!group.limiter.tryAcquire()) {
+            if (lowPriority) lowPriorityInflight.decrementAndGet();
+            reject(group, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            group.limiter.release(System.nanoTime() - start);
+            if (lowPriority) lowPriorityInflight.decrementAndGet();
+        }
+    }
+
+    private void reject(Group group, HttpServletResponse response) throws IOException {
+        group.rejected.increment();
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Server busy, please retry.\",\"group\":\"" + group.name + "\"}");
+    }
+
+    private Group groupFor(String path) {
+        for (Group group : groups) {
+            for (String pattern : group.patterns) {
+                if (MATCHER.match(pattern, path)) return group;
+            }
+        }
+        return null;
+    }
+
+    private static final class Group {
+        final String name;
+        final boolean critical;
+        final List<String> patterns;
+        final GradientLimiter limiter;
+        Counter rejected;
+
+        Group(String name, boolean critical, List<String> patterns, GradientLimiter limiter) {
+            this.name = name;
+            this.critical = critical;
+            this.patterns = patterns;
+            this.limiter = limiter;
+        }
+    }
+}
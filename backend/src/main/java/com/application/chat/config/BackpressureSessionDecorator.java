@@ -0,0 +1,300 @@
+package com.application.chat.config;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🚦 Per-session bounded outbound queue.
+ *
+ * {@link #sendMessage} never blocks the caller (outbound channel threads): frames are
+ * queued and written to the real socket by a single drain task per session. When the
+ * queue exceeds its message/byte limits, or the oldest frame has waited longer than the
+ * send time limit, the configured {@link SlowConsumerPolicy} is applied to this session
+ * only, so one stalled client cannot hold threads or memory needed by the others.
+ *
+ * COALESCE starts once the queue is past half of its limits, and only touches frames on
+ * the replaceable destinations (state snapshots whose newest frame supersedes the older
+ * ones); chat messages are never coalesced. Whatever the policy, a session whose socket
+ * write has been stuck for longer than the send time limit is closed with
+ * {@link #RESYNC_REQUIRED}: dropping frames cannot help a client that takes none. That is
+ * checked on every send and by {@link #checkStalled}, which {@link OutboundBackpressureManager}
+ * runs periodically, so a stuck session in a quiet room doesn't wait for its next frame.
+ */
+public class BackpressureSessionDecorator extends WebSocketSessionDecorator {
+
+    public static final CloseStatus RESYNC_REQUIRED =
+            CloseStatus.SESSION_NOT_RELIABLE.withReason("slow consumer: resync required");
+
+    private final Executor writerExecutor;
+    private final SlowConsumerPolicy policy;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long sendTimeLimitNanos;
+    private final List<String> replaceablePrefixes;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private long queuedBytes;                                   // guarded by queue
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    // Lag metrics
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private volatile long lastSendNanos;
+    private volatile boolean writing;
+    private volatile long writeStartedNanos;
+
+    public BackpressureSessionDecorator(WebSocketSession delegate,
+                                        Executor writerExecutor,
+                                        SlowConsumerPolicy policy,
+                                        int maxMessages,
+                                        long maxBytes,
+                                        long sendTimeLimitMs,
+                                        List<String> replaceablePrefixes) {
+        super(delegate);
+        this.writerExecutor = writerExecutor;
+        this.policy = policy;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.sendTimeLimitNanos = sendTimeLimitMs * 1_000_000L;
+        this.replaceablePrefixes = replaceablePrefixes;
+        this.lastSendNanos = System.nanoTime();
+    }
+
+    // =====================================================
+    // 📤 ENQUEUE (caller thread, never blocks on the socket)
+    // =====================================================
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing.get() || !isOpen()) return;
+
+        if (isWriteStalled()) {
+            disconnectSlowConsumer();
+            return;
+        }
+
+        boolean disconnect = false;
+        synchronized (queue) {
+            Pending pending = new Pending(message, System.nanoTime(), policy == SlowConsumerPolicy.COALESCE
+                    ? replaceableDestination(message) : null);
+            queue.addLast(pending);
+            queuedBytes += pending.size;
+
+            // Past the high-water mark, older frames for the same snapshot destination are stale
+            if (policy == SlowConsumerPolicy.COALESCE && isOverHighWater()) coalesce(pending);
+
+            if (isOverLimit()) {
+                if (policy == SlowConsumerPolicy.DISCONNECT) disconnect = true;
+                else dropOldest();
+            }
+        }
+
+        if (disconnect) {
+            disconnectSlowConsumer();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /** Closes the session if its socket write is stuck; called periodically, not only on send. */
+    public void checkStalled() {
+        if (closing.get() || !isOpen()) return;
+        if (isWriteStalled()) disconnectSlowConsumer();
+    }
+
+    private boolean isOverLimit() {
+        if (queue.size() > maxMessages || queuedBytes > maxBytes) return true;
+        Pending head = queue.peekFirst();
+        return head != null && System.nanoTime() - head.enqueuedNanos > sendTimeLimitNanos;
+    }
+
+    private boolean isOverHighWater() {
+        return queue.size() > maxMessages / 2 || queuedBytes > maxBytes / 2;
+    }
+
+    /** A socket write has been blocked for longer than the send time limit. */
+    private boolean isWriteStalled() {
+        return writing && System.nanoTime() - writeStartedNanos > sendTimeLimitNanos;
+    }
+
+    private void dropOldest() {
+        // Always keep the newest frame
+        while (queue.size() > 1 && isOverLimit()) {
+            Pending head = queue.pollFirst();
+            queuedBytes -= head.size;
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void coalesce(Pending newest) {
+        if (newest.destination == null) return;
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            Pending p = it.next();
+            if (p != newest && newest.destination.equals(p.destination)) {
+                it.remove();
+                queuedBytes -= p.size;
+                coalesced.incrementAndGet();
+            }
+        }
+    }
+
+    private void disconnectSlowConsumer() {
+        if (!closing.compareAndSet(false, true)) return;
+        synchronized (queue) {
+            dropped.addAndGet(queue.size());
+            queue.clear();
+            queuedBytes = 0;
+        }
+        System.out.println("⚠️ Disconnecting slow WebSocket consumer: " + getId());
+        // Closing may itself block on a stalled socket, so never do it on the caller thread
+        writerExecutor.execute(() -> {
+            try {
+                getDelegate().close(RESYNC_REQUIRED);
+            } catch (IOException e) {
+                System.out.println("⚠️ Failed to close slow consumer " + getId() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // =====================================================
+    // 🔁 DRAIN (one writer per session at a time)
+    // =====================================================
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            writerExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                if (next != null) queuedBytes -= next.size;
+            }
+
+            if (next == null) {
+                draining.set(false);
+                // Re-check: a producer may have enqueued after our poll but before the flag reset
+                synchronized (queue) {
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+                }
+                continue;
+            }
+
+            if (closing.get()) continue;
+            writeStartedNanos = System.nanoTime();
+            writing = true;
+            try {
+                getDelegate().sendMessage(next.message);
+                sent.incrementAndGet();
+                lastSendNanos = System.nanoTime();
+            } catch (Exception e) {
+                dropped.incrementAndGet();
+                System.out.println("⚠️ Outbound send failed for session " + getId() + ": " + e.getMessage());
+            } finally {
+                writing = false;
+            }
+        }
+    }
+
+    // =====================================================
+    // 📊 LAG METRICS
+    // =====================================================
+
+    public int getQueuedMessages() {
+        synchronized (queue) { return queue.size(); }
+    }
+
+    public long getQueuedBytes() {
+        synchronized (queue) { return queuedBytes; }
+    }
+
+    /** Age of the oldest frame still waiting to be written, in milliseconds. */
+    public long getLagMillis() {
+        synchronized (queue) {
+            Pending head = queue.peekFirst();
+            return head == null ? 0 : (System.nanoTime() - head.enqueuedNanos) / 1_000_000L;
+        }
+    }
+
+    public long getMillisSinceLastSend() {
+        return (System.nanoTime() - lastSendNanos) / 1_000_000L;
+    }
+
+    public long getSentCount() { return sent.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getCoalescedCount() { return coalesced.get(); }
+    public SlowConsumerPolicy getPolicy() { return policy; }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private String replaceableDestination(WebSocketMessage<?> message) {
+        String destination = stompDestination(message);
+        if (destination == null) return null;
+        for (String prefix : replaceablePrefixes) {
+            if (destination.startsWith(prefix)) return destination;
+        }
+        return null;
+    }
+
+    /** Extracts the STOMP "destination" header from an encoded frame without parsing the body. */
+    static String stompDestination(WebSocketMessage<?> message) {
+        String header;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            int end = payload.indexOf("\n\n");
+            header = end < 0 ? payload : payload.substring(0, end);
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] bytes = new byte[Math.min(buffer.remaining(), 1024)];
+            buffer.get(bytes);
+            header = new String(bytes, StandardCharsets.UTF_8);
+            int end = header.indexOf("\n\n");
+            if (end >= 0) header = header.substring(0, end);
+        } else {
+            return null;
+        }
+
+        int start = header.indexOf("\ndestination:");
+        if (start < 0) return null;
+        start += "\ndestination:".length();
+        int end = header.indexOf('\n', start);
+        return end < 0 ? header.substring(start) : header.substring(start, end);
+    }
+
+    private static final class Pending {
+        final WebSocketMessage<?> message;
+        final long enqueuedNanos;
+        final String destination;
+        final int size;
+
+        Pending(WebSocketMessage<?> message, long enqueuedNanos, String destination) {
+            this.message = Objects.requireNonNull(message);
+            this.enqueuedNanos = enqueuedNanos;
+            this.destination = destination;
+            this.size = message.getPayloadLength();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.application.chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🚦 Admission control for WebSocket connects.
+ *
+ * After a deploy every client reconnects at once. Each connect costs a handshake, JWT
+ * verification and an identity lookup, and those compete with live traffic. This node
+ * admits at most {@code max-concurrent} connects at a time. A permit is taken at the
+ * handshake and given back once the STOMP CONNECT has been authenticated, when the session
+ * ends, or after {@code max-hold-ms} if the client never sends a CONNECT.
+ *
+ * A handshake over the limit gets an immediate 503. Its Retry-After is drawn at random
+ * between {@code retry-min-seconds} and {@code retry-max-seconds}, so the rejected clients
+ * come back spread out instead of in a second wave.
+ */
+@Component
+public class ConnectAdmissionController implements DisposableBean {
+
+    static final String PERMIT_ATTRIBUTE = "connectPermit";
+
+    private final int maxConcurrent;
+    private final long maxHoldMs;
+    private final int retryMinSeconds;
+    private final int retryMaxSeconds;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "connect-admission");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 📊 admitted vs. turned away
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public ConnectAdmissionController(@Value("${chat.ws.admission.max-concurrent:256}") int maxConcurrent,
+                                      @Value("${chat.ws.admission.max-hold-ms:10000}") long maxHoldMs,
+                                      @Value("${chat.ws.admission.retry-min-seconds:1}") int retryMinSeconds,
+                                      @Value("${chat.ws.admission.retry-max-seconds:10}") int retryMaxSeconds,
+                                      MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxHoldMs = maxHoldMs;
+        this.retryMinSeconds = retryMinSeconds;
+        this.retryMaxSeconds = Math.max(retryMinSeconds, retryMaxSeconds);
+        this.timeouts.setRemoveOnCancelPolicy(true);
+
+        this.admitted = Counter.builder("chat.ws.admission").tag("result", "admitted")
+                .description("WebSocket connects admitted or turned away").register(meterRegistry);
+        this.rejected = Counter.builder("chat.ws.admission").tag("result", "rejected")
+                .description("WebSocket connects admitted or turned away").register(meterRegistry);
+        Gauge.builder("chat.ws.admission.inflight", inflight, AtomicInteger::get)
+                .description("Connects admitted and not yet authenticated").register(meterRegistry);
+    }
+
+    /** Claims a slot for a handshake and records it in the session attributes; false means reject. */
+    public boolean tryAdmit(Map<String, Object> attributes) {
+        while (true) {
+            int current = inflight.get();
+            if (current >= maxConcurrent) {
+                rejected.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) break;
+        }
+        Permit permit = new Permit();
+        attributes.put(PERMIT_ATTRIBUTE, permit);
+        permit.timeout = timeouts.schedule(permit::release, maxHoldMs, TimeUnit.MILLISECONDS);
+        admitted.increment();
+        return true;
+    }
+
+    /** Gives the session's slot back; safe to call more than once. */
+    public void release(Map<String, Object> attributes) {
+        if (attributes != null && attributes.get(PERMIT_ATTRIBUTE) instanceof Permit permit) permit.release();
+    }
+
+    /** Seconds a rejected client should wait, with jitter. */
+    public int retryAfterSeconds() {
+        return ThreadLocalRandom.current().nextInt(retryMinSeconds, retryMaxSeconds + 1);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        release(SimpMessageHeaderAccessor.getSessionAttributes(event.getMessage().getHeaders()));
+    }
+
+    int inflight() {
+        return inflight.get();
+    }
+
+    @Override
+    public void destroy() {
+        timeouts.shutdownNow();
+    }
+
+    private final class Permit {
+        private final AtomicBoolean held = new AtomicBoolean(true);
+        private volatile ScheduledFuture<?> timeout;
+
+        void release() {
+            if (!held.compareAndSet(true, false)) return;
+            inflight.decrementAndGet();
+            ScheduledFuture<?> pending = timeout;
+            if (pending != null) pending.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.application.chat.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.messaging.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * What a broker payload was made from, carried in a message header from the convert step
+ * to the client outbound channel, with its binary encodings computed on first use.
+ *
+ * Payloads sent through the messaging template keep the original object, so a CBOR or Smile
+ * session gets it serialized by the binary mapper directly. Frames relayed by other nodes
+ * only have their JSON bytes; those are streamed token by token into the binary format (no
+ * tree). The broker copies the header onto every subscriber's frame, so each payload is
+ * encoded at most once per codec; two sessions racing on it may both encode it, and the
+ * first result wins.
+ */
+final class EncodedPayload {
+
+    static final String HEADER = "chatPayloadSource";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Object source; // null when only the JSON is known
+    private final byte[] json;
+    private final AtomicReferenceArray<byte[]> encoded = new AtomicReferenceArray<>(StompCodec.values().length);
+
+    private EncodedPayload(Object source, byte[] json) {
+        this.source = source;
+        this.json = json;
+    }
+
+    static EncodedPayload of(Object source) {
+        return new EncodedPayload(source, null);
+    }
+
+    static EncodedPayload ofJson(byte[] json) {
+        return new EncodedPayload(null, json);
+    }
+
+    static EncodedPayload from(Message<?> message) {
+        return message.getHeaders().get(HEADER) instanceof EncodedPayload payload ? payload : null;
+    }
+
+    /** A coalesced batch: the list of the frames' objects when all have one, else the merged JSON. */
+    static EncodedPayload batch(List<Message<?>> messages, byte[] mergedJson) {
+        List<Object> sources = new ArrayList<>(messages.size());
+        for (Message<?> message : messages) {
+            EncodedPayload part = from(message);
+            if (part == null || part.source == null) return ofJson(mergedJson);
+            sources.add(part.source);
+        }
+        return of(sources);
+    }
+
+    /** The payload in {@code codec}, or {@code null} if it can't be encoded (then it stays JSON). */
+    byte[] encode(StompCodec codec) {
+        byte[] bytes = encoded.get(codec.ordinal());
+        if (bytes != null) return bytes;
+        try {
+            bytes = source != null ? codec.getMapper().writeValueAsBytes(source) : transcode(json, codec);
+        } catch (IOException e) {
+            System.out.println("⚠️ Failed to encode payload as " + codec + ": " + e.getMessage());
+            return null;
+        }
+        byte[] winner = encoded.compareAndExchange(codec.ordinal(), null, bytes);
+        return winner != null ? winner : bytes;
+    }
+
+    private static byte[] transcode(byte[] json, StompCodec codec) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = JSON.createParser(json);
+             JsonGenerator generator = codec.getMapper().getFactory().createGenerator(out)) {
+            while (parser.nextToken() != null) generator.copyCurrentEvent(parser);
+        }
+        return out.toByteArray();
+    }
+}
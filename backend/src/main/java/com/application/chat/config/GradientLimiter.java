@@ -0,0 +1,78 @@
+package com.application.chat.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit for one endpoint group, after the "gradient" algorithm.
+ *
+ * Two latency averages are kept: a fast one that follows current conditions and a slow
+ * one that approximates the no-queueing latency. Their ratio (capped at 1) says how much
+ * queueing the current limit causes; the limit is scaled by it and a small headroom of
+ * sqrt(limit) is added so it can probe upwards while latency stays flat. By Little's law
+ * a limit above throughput x base latency only adds wait time, so shrinking it sheds
+ * exactly the requests that would have queued.
+ */
+public class GradientLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    // Written under the monitor, read without it
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /** Claims a slot; false means the request should be shed. */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) return false;
+            if (inflight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /** Releases a slot claimed by {@link #tryAcquire()} and feeds its latency into the limit. */
+    public void release(long rttNanos) {
+        int inflightAtEnd = inflight.getAndDecrement();
+        onSample(rttNanos, inflightAtEnd);
+    }
+
+    synchronized void onSample(long rttNanos, int inflightAtEnd) {
+        if (rttNanos <= 0) return;
+        if (longRtt == 0) {
+            shortRtt = longRtt = rttNanos;
+            return;
+        }
+        shortRtt = shortRtt * 0.9 + rttNanos * 0.1;
+        longRtt = longRtt * 0.995 + rttNanos * 0.005;
+        // Let the baseline recover quickly once a slow period is over
+        if (longRtt > shortRtt * 2) longRtt = shortRtt * 2;
+
+        double current = limit;
+        // Don't grow the limit while it isn't being used (no evidence it would hold)
+        if (inflightAtEnd < current / 2 && shortRtt <= longRtt) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
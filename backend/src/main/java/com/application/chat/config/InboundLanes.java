@@ -0,0 +1,50 @@
+package com.application.chat.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for the client inbound channel with a separate lane for CONNECT frames.
+ *
+ * The channel hands every (frame, handler) pair to its executor as a
+ * {@link MessageHandlingRunnable}. CONNECTs go to a small pool of their own and everything
+ * else to the regular executor, so a reconnect storm queues behind itself and never in
+ * front of SEND frames. Per-session order is unaffected: a client sends nothing else until
+ * its CONNECTED frame has come back.
+ */
+public class InboundLanes implements Executor, DisposableBean {
+
+    private final Executor frames;
+    private final ExecutorService connects;
+
+    public InboundLanes(Executor frames, int connectThreads) {
+        this.frames = frames;
+        AtomicInteger count = new AtomicInteger();
+        this.connects = Executors.newFixedThreadPool(connectThreads, r -> {
+            Thread t = new Thread(r, "ws-connect-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof MessageHandlingRunnable handling
+                && SimpMessageHeaderAccessor.getMessageType(handling.getMessage().getHeaders()) == SimpMessageType.CONNECT) {
+            connects.execute(task);
+        } else {
+            frames.execute(task);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        connects.shutdownNow();
+        if (frames instanceof DisposableBean disposable) disposable.destroy();
+    }
+}
@@ -8,21 +8,34 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Component
 public class JwtUtils {
 
+    private record Verified(String subject, long expiresAtMs) {}
+
     private final SecretKey secretKey;
     private final long expirationMs;
+    private final Map<String, Verified> verified;
 
     public JwtUtils(@Value("${jwt.secret}") String secret,
-                    @Value("${jwt.expiration-ms}") long expirationMs) {
+                    @Value("${jwt.expiration-ms}") long expirationMs,
+                    @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize) {
         if (secret.length() < 64) {
             throw new IllegalArgumentException("JWT secret must be at least 64 characters for HS512 algorithm.");
         }
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.verified = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        });
     }
 
     // ✅ Generate token with USERNAME instead of email
@@ -62,6 +75,23 @@ public class JwtUtils {
                 .getBody();
     }
 
+    /**
+     * Subject of a valid token, remembering tokens already verified until they expire, so a
+     * client reconnecting with the same token skips the signature check. Throws like
+     * {@link #getClaimsFromJwtToken} when the token is invalid or expired.
+     */
+    public String verifiedSubject(String token) {
+        Verified hit = verified.get(token);
+        if (hit != null) {
+            if (hit.expiresAtMs() > System.currentTimeMillis()) return hit.subject();
+            verified.remove(token);
+        }
+        Claims claims = getClaimsFromJwtToken(token);
+        Date expiration = claims.getExpiration();
+        if (expiration != null) verified.put(token, new Verified(claims.getSubject(), expiration.getTime()));
+        return claims.getSubject();
+    }
+
     public SecretKey getSecretKey() {
         return secretKey;
     }
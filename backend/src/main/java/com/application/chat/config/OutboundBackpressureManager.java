@@ -0,0 +1,149 @@
+package com.application.chat.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToLongFunction;
+
+/**
+ * Wraps every WebSocket session in a {@link BackpressureSessionDecorator} and keeps
+ * track of them for lag metrics. Registered through
+ * {@code WebSocketTransportRegistration#addDecoratorFactory} in {@link WebSocketConfig}.
+ */
+@Component
+public class OutboundBackpressureManager implements DisposableBean {
+
+    private final SlowConsumerPolicy policy;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long sendTimeLimitMs;
+    private final List<String> replaceablePrefixes;
+
+    // Writers are only busy while a session has pending output. They are virtual threads
+    // whatever the execution mode: a stalled socket parks its own writer and costs no
+    // platform thread, and a reconnect storm cannot grow a pool without bound.
+    private final ExecutorService writerExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-writer-", 1).factory());
+
+    private final Map<String, BackpressureSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    public OutboundBackpressureManager(
+            @Value("${chat.ws.outbound.policy:DROP_OLDEST}") SlowConsumerPolicy policy,
+            @Value("${chat.ws.outbound.max-queued-messages:500}") int maxMessages,
+            @Value("${chat.ws.outbound.max-queued-bytes:1048576}") long maxBytes,
+            @Value("${chat.ws.outbound.send-time-limit-ms:10000}") long sendTimeLimitMs,
+            @Value("${chat.ws.outbound.coalesce-destinations:/user/queue/chats,/topic/typing/,/topic/receipts/}") List<String> replaceablePrefixes,
+            MeterRegistry meterRegistry) {
+        this.policy = policy;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.replaceablePrefixes = replaceablePrefixes;
+
+        Gauge.builder("chat.ws.outbound.sessions", sessions, Map::size)
+                .description("WebSocket sessions with a managed outbound queue")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.queued.messages", this, m -> m.sum(BackpressureSessionDecorator::getQueuedMessages))
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.queued.bytes", this, m -> m.sum(BackpressureSessionDecorator::getQueuedBytes))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.lag.max", this, m -> m.max(BackpressureSessionDecorator::getLagMillis))
+                .baseUnit("milliseconds")
+                .description("Age of the oldest unsent frame across all sessions")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.dropped", this, m -> m.sum(BackpressureSessionDecorator::getDroppedCount))
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.outbound.coalesced", this, m -> m.sum(BackpressureSessionDecorator::getCoalescedCount))
+                .register(meterRegistry);
+    }
+
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                BackpressureSessionDecorator decorated = new BackpressureSessionDecorator(
+                        session, writerExecutor, policy, maxMessages, maxBytes, sendTimeLimitMs, replaceablePrefixes);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(sessions.getOrDefault(session.getId(), session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(sessions.getOrDefault(session.getId(), session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                WebSocketSession decorated = sessions.remove(session.getId());
+                super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+            }
+        };
+    }
+
+    /** Catches sessions stuck on a socket write while nothing new is sent to them. */
+    @Scheduled(fixedDelayString = "${chat.ws.outbound.stall-check-interval-ms:1000}")
+    public void checkStalled() {
+        for (BackpressureSessionDecorator s : sessions.values()) s.checkStalled();
+    }
+
+    /** Per-session lag snapshot, exposed on the websocketlag actuator endpoint. */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (BackpressureSessionDecorator s : sessions.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sessionId", s.getId());
+            entry.put("user", s.getPrincipal() != null ? s.getPrincipal().getName() : null);
+            entry.put("policy", s.getPolicy());
+            entry.put("queuedMessages", s.getQueuedMessages());
+            entry.put("queuedBytes", s.getQueuedBytes());
+            entry.put("lagMs", s.getLagMillis());
+            entry.put("msSinceLastSend", s.getMillisSinceLastSend());
+            entry.put("sent", s.getSentCount());
+            entry.put("dropped", s.getDroppedCount());
+            entry.put("coalesced", s.getCoalescedCount());
+            result.add(entry);
+        }
+        result.sort(Comparator.comparingLong(e -> -((Long) e.get("lagMs"))));
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        writerExecutor.shutdownNow();
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private double sum(ToLongFunction<BackpressureSessionDecorator> f) {
+        long total = 0;
+        for (BackpressureSessionDecorator s : sessions.values()) total += f.applyAsLong(s);
+        return total;
+    }
+
+    private double max(ToLongFunction<BackpressureSessionDecorator> f) {
+        long max = 0;
+        for (BackpressureSessionDecorator s : sessions.values()) max = Math.max(max, f.applyAsLong(s));
+        return max;
+    }
+}
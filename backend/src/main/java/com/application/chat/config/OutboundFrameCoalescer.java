@@ -0,0 +1,213 @@
+package com.application.chat.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 📦 Optional outbound frame coalescing for bursty rooms.
+ *
+ * A client opts in by sending {@code batch:true} on its CONNECT frame. For such sessions,
+ * MESSAGE frames on the configured destinations are held per subscription for at most
+ * {@code chat.ws.batch.max-delay-ms} (or until {@code max-messages} are waiting) and then
+ * sent as one frame whose body is a JSON array of the original payloads, with a
+ * {@code batch:<count>} header. A lone message is sent unchanged, so a quiet room costs
+ * nothing but the delay bound.
+ *
+ * Registered on the client outbound channel ahead of {@link StompCodecNegotiator}, so a
+ * batch is transcoded to CBOR/Smile as a whole. The timer thread only notices that a batch
+ * is due; the send (and with it the transcoding) runs on the outbound channel's executor,
+ * so one slow batch doesn't hold back every other session's.
+ */
+@Component
+public class OutboundFrameCoalescer implements ChannelInterceptor, DisposableBean {
+
+    public static final String BATCH_HEADER = "batch";
+
+    // Marks frames this interceptor already handled, so re-sent batches pass straight through
+    private static final String COALESCED = "chatCoalesced";
+
+    private final List<String> destinationPrefixes;
+    private final int maxMessages;
+    private final long maxDelayMs;
+    private final MessageChannel clientOutboundChannel;
+    private final Executor clientOutboundExecutor;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ws-batch-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Sessions that asked for batching
+    private final Set<String> batchingSessions = ConcurrentHashMap.newKeySet();
+
+    // sessionId + subscriptionId -> frames waiting to go out
+    private final Map<String, Batch> buffers = new ConcurrentHashMap<>();
+
+    public OutboundFrameCoalescer(
+            @Value("${chat.ws.batch.destinations:/topic/messages/}") List<String> destinationPrefixes,
+            @Value("${chat.ws.batch.max-messages:50}") int maxMessages,
+            @Value("${chat.ws.batch.max-delay-ms:5}") long maxDelayMs,
+            @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            @Lazy @Qualifier("clientOutboundChannelExecutor") Executor clientOutboundExecutor) {
+        this.destinationPrefixes = destinationPrefixes;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.maxDelayMs = Math.max(1, maxDelayMs);
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.clientOutboundExecutor = clientOutboundExecutor;
+    }
+
+    // =====================================================
+    // 🤝 OPT-IN (inbound CONNECT)
+    // =====================================================
+
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                if (StompCommand.CONNECT.equals(accessor.getCommand())
+                        && "true".equalsIgnoreCase(accessor.getFirstNativeHeader(BATCH_HEADER))) {
+                    batchingSessions.add(accessor.getSessionId());
+                }
+                return message;
+            }
+        };
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Batch batch = buffers.remove(key(accessor.getSessionId(), accessor.getSubscriptionId()));
+        if (batch != null) flush(batch);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        batchingSessions.remove(sessionId);
+        buffers.keySet().removeIf(key -> key.startsWith(sessionId + '\u0000'));
+    }
+
+    // =====================================================
+    // 📤 BUFFERING (outbound MESSAGE frames)
+    // =====================================================
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (batchingSessions.isEmpty() || message.getHeaders().containsKey(COALESCED)) return message;
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE) return message;
+        if (!batchingSessions.contains(accessor.getSessionId())) return message;
+        if (!(message.getPayload() instanceof byte[]) || !isBatchDestination(accessor.getDestination())) return message;
+        if (accessor.getContentType() != null
+                && !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(accessor.getContentType())) return message;
+
+        Batch batch = buffers.computeIfAbsent(key(accessor.getSessionId(), accessor.getSubscriptionId()), k -> new Batch());
+        boolean full;
+        boolean first;
+        synchronized (batch) {
+            batch.messages.add(message);
+            full = batch.messages.size() >= maxMessages;
+            first = batch.messages.size() == 1;
+        }
+
+        if (full) {
+            flush(batch);
+        } else if (first) {
+            // The first frame of a batch starts the clock; nothing waits longer than maxDelayMs
+            flusher.schedule(() -> flushOnOutboundExecutor(batch), maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return null; // held back; sent by flush()
+    }
+
+    private void flushOnOutboundExecutor(Batch batch) {
+        try {
+            clientOutboundExecutor.execute(() -> flush(batch));
+        } catch (RejectedExecutionException e) {
+            flush(batch); // saturated or shutting down: still deliver, just on this thread
+        }
+    }
+
+    void flush(Batch batch) {
+        synchronized (batch) {
+            if (batch.messages.isEmpty()) return;
+            List<Message<?>> pending = batch.messages;
+            batch.messages = new ArrayList<>();
+            try {
+                // Sent under the lock so batches of one subscription leave in order
+                clientOutboundChannel.send(pending.size() == 1 ? passThrough(pending.get(0)) : merge(pending));
+            } catch (Exception e) {
+                System.out.println("⚠️ Failed to send batch of " + pending.size() + " frame(s): " + e.getMessage());
+            }
+        }
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    /** One MESSAGE frame carrying a JSON array of the payloads, headers taken from the first frame. */
+    static Message<byte[]> merge(List<Message<?>> messages) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('[');
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) body.write(',');
+            body.writeBytes((byte[]) messages.get(i).getPayload());
+        }
+        body.write(']');
+
+        byte[] json = body.toByteArray();
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(messages.get(0));
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(BATCH_HEADER, String.valueOf(messages.size()));
+        accessor.setHeader(COALESCED, Boolean.TRUE);
+        accessor.setHeader(EncodedPayload.HEADER, EncodedPayload.batch(messages, json));
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    private static Message<?> passThrough(Message<?> message) {
+        return MessageBuilder.fromMessage(message).setHeader(COALESCED, Boolean.TRUE).build();
+    }
+
+    private boolean isBatchDestination(String destination) {
+        if (destination == null) return false;
+        for (String prefix : destinationPrefixes) {
+            if (destination.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static String key(String sessionId, String subscriptionId) {
+        return sessionId + '\u0000' + subscriptionId;
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+    }
+
+    static final class Batch {
+        List<Message<?>> messages = new ArrayList<>();
+    }
+}
@@ -32,7 +32,7 @@ public class SecurityConfig {
                 // 🧩 Route rules
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints
-                        .requestMatchers("/auth/**", "/ws/**", "/app/**", "/topic/**").permitAll()
+                        .requestMatchers("/auth/**", "/ws/**", "/ws-native", "/ws-native/**", "/app/**", "/topic/**").permitAll()
                         // Protected routes
                         .requestMatchers("/chats/**", "/messages/**", "/users/**").authenticated()
                         // Everything else
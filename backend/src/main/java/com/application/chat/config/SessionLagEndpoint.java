@@ -0,0 +1,27 @@
+package com.application.chat.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 📊 /actuator/websocketlag — per-session outbound queue depth and lag, worst first.
+ */
+@Component
+@Endpoint(id = "websocketlag")
+public class SessionLagEndpoint {
+
+    private final OutboundBackpressureManager backpressureManager;
+
+    public SessionLagEndpoint(OutboundBackpressureManager backpressureManager) {
+        this.backpressureManager = backpressureManager;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> sessions() {
+        return backpressureManager.snapshot();
+    }
+}
@@ -0,0 +1,19 @@
+package com.application.chat.config;
+
+/**
+ * What to do when a WebSocket session's outbound queue exceeds its limits.
+ */
+public enum SlowConsumerPolicy {
+
+    /** Discard the oldest queued frames until the queue is back within limits. */
+    DROP_OLDEST,
+
+    /**
+     * Replace older queued frames for the same destination with the newest one
+     * (state snapshots such as chat lists and typing frames), then drop oldest if still over.
+     */
+    COALESCE,
+
+    /** Close the session with a "resync required" reason so the client reconnects and reloads. */
+    DISCONNECT
+}
@@ -0,0 +1,55 @@
+package com.application.chat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Payload encodings a STOMP session can negotiate at CONNECT. JSON stays the default;
+ * CBOR and Smile are binary (no quoting/escaping, compact numbers), and Smile also
+ * back-references repeated field names and short strings. The binary mappers write dates
+ * as epoch timestamps rather than ISO strings.
+ */
+public enum StompCodec {
+
+    JSON(MimeTypeUtils.APPLICATION_JSON, null),
+    CBOR(new MimeType("application", "cbor"), new CBORMapper()),
+    SMILE(new MimeType("application", "x-jackson-smile"), new SmileMapper());
+
+    private final MimeType mimeType;
+    private final ObjectMapper mapper;
+
+    StompCodec(MimeType mimeType, ObjectMapper mapper) {
+        this.mimeType = mimeType;
+        this.mapper = mapper == null ? null : mapper
+                .findAndRegisterModules()
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    public MimeType getMimeType() { return mimeType; }
+
+    /** Binary mapper for this codec, {@code null} for JSON. */
+    public ObjectMapper getMapper() { return mapper; }
+
+    public boolean isBinary() { return this != JSON; }
+
+    /** Picks a codec from a CONNECT {@code content-type} / {@code accept} header value. */
+    public static StompCodec fromHeader(String value) {
+        if (value == null || value.isBlank()) return JSON;
+        for (String candidate : value.split(",")) {
+            MimeType mime;
+            try {
+                mime = MimeTypeUtils.parseMimeType(candidate.trim());
+            } catch (Exception e) {
+                continue;
+            }
+            for (StompCodec codec : values()) {
+                if (codec.isBinary() && codec.mimeType.equalsTypeAndSubtype(mime)) return codec;
+            }
+        }
+        return JSON;
+    }
+}
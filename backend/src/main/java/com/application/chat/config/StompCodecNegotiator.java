@@ -0,0 +1,202 @@
+package com.application.chat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🗜️ Per-session payload codec.
+ *
+ * A client connected to /ws-native may ask for CBOR or Smile by sending
+ * {@code content-type:application/cbor} (or {@code accept:...}) on its CONNECT frame.
+ * Outbound MESSAGE frames on the configured destinations are then sent as binary frames
+ * with a {@code codec} header, encoded once per payload (not once per subscriber) from the
+ * object the payload was converted from (see {@link EncodedPayload}). Inbound SEND frames
+ * in those encodings are read by {@link #messageConverters()}. Sessions that ask for
+ * nothing keep plain JSON.
+ */
+@Component
+public class StompCodecNegotiator implements ChannelInterceptor {
+
+    public static final String CODEC_HEADER = "codec";
+
+    private final ObjectMapper jsonMapper;
+    private final List<String> destinationPrefixes;
+
+    // sessionId -> negotiated codec (JSON sessions are not tracked)
+    private final Map<String, StompCodec> sessionCodecs = new ConcurrentHashMap<>();
+
+    public StompCodecNegotiator(
+            ObjectMapper jsonMapper,
+            @Value("${chat.ws.codec.destinations:/topic/messages/,/user/queue/private}") List<String> destinationPrefixes) {
+        this.jsonMapper = jsonMapper;
+        this.destinationPrefixes = destinationPrefixes;
+    }
+
+    // =====================================================
+    // 🤝 NEGOTIATION (inbound CONNECT)
+    // =====================================================
+
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                if (!StompCommand.CONNECT.equals(accessor.getCommand())) return message;
+
+                Map<String, Object> attributes = accessor.getSessionAttributes();
+                boolean nativeTransport = attributes != null
+                        && WebSocketConfig.NATIVE_TRANSPORT.equals(attributes.get(WebSocketConfig.TRANSPORT_ATTRIBUTE));
+
+                String requested = accessor.getFirstNativeHeader("content-type");
+                if (requested == null) requested = accessor.getFirstNativeHeader("accept");
+                StompCodec codec = StompCodec.fromHeader(requested);
+
+                // SockJS can only carry text frames, so binary codecs need the native endpoint
+                if (codec.isBinary() && nativeTransport) {
+                    sessionCodecs.put(accessor.getSessionId(), codec);
+                    System.out.println("🗜️ Session " + accessor.getSessionId() + " negotiated " + codec);
+                }
+                return message;
+            }
+        };
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessionCodecs.remove(event.getSessionId());
+    }
+
+    // =====================================================
+    // 🧾 SOURCE (convert step / broker channel)
+    // =====================================================
+
+    /**
+     * The JSON converter for payloads sent through the messaging template. It serializes
+     * objects with the application's ObjectMapper like the default one, and keeps the object
+     * in the {@link EncodedPayload} header for the binary codecs. Strings and byte arrays are
+     * left to the default converters.
+     */
+    public MessageConverter brokerConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter() {
+            @Override
+            protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+                return !(payload instanceof String) && !(payload instanceof byte[]) && super.canConvertTo(payload, headers);
+            }
+
+            @Override
+            public Message<?> toMessage(Object payload, MessageHeaders headers, Object conversionHint) {
+                Message<?> message = super.toMessage(payload, headers, conversionHint);
+                if (message == null) return null;
+                MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
+                if (accessor != null && accessor.isMutable()) {
+                    accessor.setHeader(EncodedPayload.HEADER, EncodedPayload.of(payload));
+                    return message;
+                }
+                return MessageBuilder.fromMessage(message).setHeader(EncodedPayload.HEADER, EncodedPayload.of(payload)).build();
+            }
+        };
+        converter.setObjectMapper(jsonMapper);
+        return converter;
+    }
+
+    /** Broker channel: JSON relayed from other nodes has no object behind it, only its bytes. */
+    public ChannelInterceptor brokerInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (!(message.getPayload() instanceof byte[] json) || EncodedPayload.from(message) != null) return message;
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                if (accessor.getMessageType() != SimpMessageType.MESSAGE) return message;
+                if (accessor.getContentType() == null
+                        || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(accessor.getContentType())) return message;
+                return MessageBuilder.fromMessage(message).setHeader(EncodedPayload.HEADER, EncodedPayload.ofJson(json)).build();
+            }
+        };
+    }
+
+    // =====================================================
+    // 📤 ENCODING (outbound MESSAGE frames)
+    // =====================================================
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (sessionCodecs.isEmpty()) return message;
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE) return message;
+
+        StompCodec codec = sessionCodecs.get(accessor.getSessionId());
+        if (codec == null || !(message.getPayload() instanceof byte[])) return message;
+        if (!isCodecDestination(subscribedDestination(accessor))) return message;
+        if (accessor.getContentType() != null
+                && !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(accessor.getContentType())) return message;
+
+        EncodedPayload source = EncodedPayload.from(message);
+        byte[] encoded = source == null ? null : source.encode(codec);
+        if (encoded == null) return message;
+
+        // octet-stream makes StompSubProtocolHandler send a binary WebSocket frame
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(CODEC_HEADER, codec.getMimeType().toString());
+        return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+    }
+
+    public StompCodec codecFor(String sessionId) {
+        return sessionCodecs.getOrDefault(sessionId, StompCodec.JSON);
+    }
+
+    /** Converters for inbound SEND frames encoded as CBOR or Smile; registered ahead of the JSON default. */
+    public List<MessageConverter> messageConverters() {
+        List<MessageConverter> converters = new ArrayList<>();
+        for (StompCodec codec : StompCodec.values()) {
+            if (!codec.isBinary()) continue;
+            MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(codec.getMimeType());
+            converter.setObjectMapper(codec.getMapper());
+            // Never claim messages without an explicit content-type; those stay JSON
+            converter.setStrictContentTypeMatch(true);
+            converters.add(converter);
+        }
+        return converters;
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    /**
+     * The destination the client subscribed to. User destinations reach this channel already
+     * resolved to the session's queue (/queue/private-user{session}); the broker keeps the
+     * /user/... form in the simpOrigDestination header, which is also what the client sees.
+     */
+    private static String subscribedDestination(SimpMessageHeaderAccessor accessor) {
+        Object original = accessor.getHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        return original instanceof String destination ? destination : accessor.getDestination();
+    }
+
+    private boolean isCodecDestination(String destination) {
+        if (destination == null) return false;
+        for (String prefix : destinationPrefixes) {
+            if (destination.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+}
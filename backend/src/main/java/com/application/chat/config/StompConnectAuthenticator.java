@@ -0,0 +1,123 @@
+package com.application.chat.config;
+
+import com.application.chat.services.IdentityCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * 🔐 Authenticates STOMP CONNECT frames on the CONNECT lane, not on the transport thread.
+ *
+ * Spring only picks up a CONNECT's user when it is set in {@code preSend}, which runs on the
+ * WebSocket transport thread. So {@code preSend} merely attaches a {@link Pending} principal
+ * holding the token; the signature check and the e-mail → username lookup (a Mongo query on
+ * a cache miss) run in {@code beforeHandle}, on the lane thread the frame is dispatched to
+ * (see {@link InboundLanes}). A client sends nothing before its CONNECTED frame, so the name
+ * is always resolved before anything reads it.
+ *
+ * The channel dispatches a frame once per handler; the first dispatch authenticates, the
+ * others reuse the outcome. A rejected token gets an ERROR frame (which closes the session)
+ * and the CONNECT is not handled. The admission permit is returned once authentication is
+ * done, so it also bounds how many connects wait on the lane.
+ */
+@Component
+public class StompConnectAuthenticator implements ExecutorChannelInterceptor {
+
+    static final String TOKEN_ATTRIBUTE = "jwtToken";
+
+    private final JwtUtils jwtUtils;
+    private final IdentityCache identityCache;
+    private final ConnectAdmissionController connectAdmission;
+    private final MessageChannel clientOutboundChannel;
+
+    public StompConnectAuthenticator(JwtUtils jwtUtils,
+                                     IdentityCache identityCache,
+                                     ConnectAdmissionController connectAdmission,
+                                     @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel) {
+        this.jwtUtils = jwtUtils;
+        this.identityCache = identityCache;
+        this.connectAdmission = connectAdmission;
+        this.clientOutboundChannel = clientOutboundChannel;
+    }
+
+    /** Transport thread: no verification here, only the placeholder. */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (!StompCommand.CONNECT.equals(accessor.getCommand())) return message;
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        String token = attributes == null ? null : (String) attributes.get(TOKEN_ATTRIBUTE);
+        if (token == null) {
+            System.out.println("❌ No JWT found in WebSocket handshake!");
+            connectAdmission.release(attributes);
+            return message;
+        }
+        accessor.setUser(new Pending(token));
+        return message;
+    }
+
+    /** Lane thread: verify and resolve, or keep the CONNECT from being handled. */
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (!StompCommand.CONNECT.equals(accessor.getCommand())) return message;
+        if (!(accessor.getUser() instanceof Pending pending)) return message;
+        return authenticate(pending, accessor) ? message : null;
+    }
+
+    private boolean authenticate(Pending pending, StompHeaderAccessor accessor) {
+        synchronized (pending) {
+            if (pending.done) return pending.name != null;
+            pending.done = true;
+            try {
+                // Cached per token until it expires: reconnects skip the signature check
+                String identifier = jwtUtils.verifiedSubject(pending.token); // could be email or username
+                pending.name = identityCache.resolve(identifier);
+                System.out.println("✅ WebSocket authenticated as username: " + pending.name);
+                return true;
+            } catch (Exception e) {
+                System.out.println("❌ Invalid WebSocket JWT: " + e.getMessage());
+                reject(accessor.getSessionId());
+                return false;
+            } finally {
+                // authenticated (or not): the connect no longer counts against admission
+                connectAdmission.release(accessor.getSessionAttributes());
+            }
+        }
+    }
+
+    private void reject(String sessionId) {
+        StompHeaderAccessor error = StompHeaderAccessor.create(StompCommand.ERROR);
+        error.setMessage("Invalid or expired token");
+        error.setSessionId(sessionId);
+        error.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(new byte[0], error.getMessageHeaders()));
+    }
+
+    /** The CONNECT's user until the lane has authenticated it; the name is set exactly once. */
+    static final class Pending implements Principal {
+        private final String token;
+        private volatile String name;
+        private boolean done; // guarded by this
+
+        Pending(String token) {
+            this.token = token;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
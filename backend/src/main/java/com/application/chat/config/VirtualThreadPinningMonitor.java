@@ -0,0 +1,75 @@
+package com.application.chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 📌 Pinning diagnostics for virtual-thread mode.
+ *
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process and logs the offending
+ * stack (a virtual thread that blocked while it could not unmount from its carrier, e.g.
+ * inside native code or a class initializer), and counts them in {@code chat.vthreads.pinned}.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+    private final Duration threshold;
+    private final int stackDepth;
+    private final Counter pinnedCounter;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${chat.vthreads.pinned-threshold-ms:20}") long thresholdMs,
+                                       @Value("${chat.vthreads.pinned-stack-depth:8}") int stackDepth,
+                                       MeterRegistry meterRegistry) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.stackDepth = stackDepth;
+        this.pinnedCounter = Counter.builder("chat.vthreads.pinned")
+                .description("Virtual threads pinned to their carrier longer than the threshold")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::report);
+        stream.startAsync();
+        System.out.println("🧵 Virtual-thread mode on; reporting pinning longer than " + threshold.toMillis() + " ms");
+    }
+
+    private void report(RecordedEvent event) {
+        pinnedCounter.increment();
+
+        StringBuilder sb = new StringBuilder("📌 Virtual thread pinned for ")
+                .append(event.getDuration().toMillis()).append(" ms");
+        if (event.getThread() != null) sb.append(" on ").append(event.getThread().getJavaName());
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(stackDepth, frames.size()); i++) {
+                RecordedFrame f = frames.get(i);
+                sb.append("\n    at ").append(f.getMethod().getType().getName())
+                        .append('.').append(f.getMethod().getName())
+                        .append(':').append(f.getLineNumber());
+            }
+        }
+        System.out.println(sb);
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) stream.close();
+    }
+}
@@ -1,25 +1,28 @@
 package com.application.chat.config;
 
-import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.MessageChannel;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.messaging.simp.stomp.StompCommand;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.messaging.support.ChannelInterceptor;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.*;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import com.application.chat.repositories.UserRepository;
-import com.application.chat.models.User;
+import com.application.chat.cluster.ClusterBrokerBridge;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -28,16 +31,49 @@ import java.util.Optional;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private OutboundBackpressureManager backpressureManager;
 
     @Autowired
-    private UserRepository userRepository;
+    private StompCodecNegotiator codecNegotiator;
+
+    @Autowired
+    private OutboundFrameCoalescer frameCoalescer;
+
+    @Autowired
+    private ObjectProvider<ClusterBrokerBridge> clusterBrokerBridge;
+
+    @Autowired
+    private ConnectAdmissionController connectAdmission;
+
+    @Autowired
+    private StompConnectAuthenticator connectAuthenticator;
+
+    // Session attribute recording which endpoint the client came through
+    public static final String TRANSPORT_ATTRIBUTE = "wsTransport";
+    public static final String NATIVE_TRANSPORT = "native";
+
+    @Value("${chat.ws.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${chat.ws.connect.lane-threads:2}")
+    private int connectLaneThreads;
+
+    // Same switch Spring Boot uses for Tomcat and the application task executor
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
 
     /**
-     * ✅ Custom handshake interceptor that extracts JWT from query param
+     * ✅ Custom handshake interceptor that extracts JWT from query param, after admission
+     * control: over the node's connect limit the handshake is refused with 503 + Retry-After.
      */
     public static class JwtHandshakeInterceptor implements HandshakeInterceptor {
 
+        private final ConnectAdmissionController admission;
+
+        public JwtHandshakeInterceptor(ConnectAdmissionController admission) {
+            this.admission = admission;
+        }
+
         @Override
         public boolean beforeHandshake(
                 ServerHttpRequest request,
@@ -45,10 +81,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 WebSocketHandler wsHandler,
                 Map<String, Object> attributes) {
 
-            String query = request.getURI().getQuery();
-            if (query != null && query.contains("token=")) {
-                String token = query.split("token=")[1].split("&")[0];
-                attributes.put("jwtToken", token);
+            if (!admission.tryAdmit(attributes)) {
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()));
+                return false;
+            }
+
+            if (request.getURI().getPath().endsWith("/ws-native")) {
+                attributes.put(TRANSPORT_ATTRIBUTE, NATIVE_TRANSPORT);
+            }
+
+            String token = UriComponentsBuilder.fromUri(request.getURI()).build()
+                    .getQueryParams().getFirst("token");
+            if (token != null && !token.isEmpty()) {
+                attributes.put(StompConnectAuthenticator.TOKEN_ATTRIBUTE, token);
                 System.out.println("🟢 JWT token found in handshake: "
                         + token.substring(0, Math.min(10, token.length())) + "...");
             } else {
@@ -67,12 +113,21 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         }
     }
 
+    /**
+     * /ws keeps SockJS (and its streaming/polling fallbacks) for legacy clients.
+     * /ws-native is plain WebSocket: no SockJS framing or JSON escaping of STOMP frames,
+     * and frames with a binary content-type go out as binary WebSocket messages.
+     */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
-                .addInterceptors(new JwtHandshakeInterceptor())
+                .addInterceptors(new JwtHandshakeInterceptor(connectAdmission))
                 .withSockJS();
+
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new JwtHandshakeInterceptor(connectAdmission));
     }
 
     @Override
@@ -80,41 +135,78 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.enableSimpleBroker("/topic", "/queue");
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
+
+        // Multi-node: mirror broker traffic to the other nodes that have subscribers for it
+        clusterBrokerBridge.ifAvailable(bridge -> registry.configureBrokerChannel().interceptors(bridge));
+        registry.configureBrokerChannel().interceptors(codecNegotiator.brokerInterceptor());
+    }
+
+    /** Container buffers for raw WebSocket text and binary frames (native endpoint and SockJS websocket transport). */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(messageSizeLimit);
+        container.setMaxBinaryMessageBufferSize(messageSizeLimit);
+        return container;
+    }
+
+    /**
+     * Outbound limits. Every session gets its own bounded queue (see {@link BackpressureSessionDecorator})
+     * so a slow client only ever affects itself. Spring's send buffer/time limits are not set: they
+     * wrap that queue, whose sends never block, so they could never trip; the queue enforces its own.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(backpressureManager::decorate);
     }
 
+    /**
+     * Outbound frames are interceptor work and a hand-off to the session's queue, which never
+     * blocks on the socket (see {@link BackpressureSessionDecorator}); in virtual-thread mode
+     * they run on virtual threads like the rest of the stack.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-outbound-"));
+        }
+        // Batch first, then transcode: a coalesced batch is encoded once as a whole
+        registration.interceptors(frameCoalescer, codecNegotiator);
+    }
+
+    /**
+     * The JSON converter that keeps the payload object for the binary codecs goes first;
+     * then CBOR/Smile converters for inbound SEND frames. JSON defaults are kept.
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(0, codecNegotiator.brokerConverter());
+        messageConverters.addAll(codecNegotiator.messageConverters());
+        return true;
+    }
+
+    /**
+     * Handlers block on Mongo (and sometimes SMTP), so in virtual-thread mode each inbound
+     * frame gets its own virtual thread instead of waiting for a slot in the platform pool;
+     * otherwise they share a pool sized like Spring's default inbound executor. Either way
+     * CONNECT frames get their own lane (see {@link InboundLanes}), and their token check and
+     * identity lookup run there too (see {@link StompConnectAuthenticator}), so a reconnect
+     * storm never holds the transport threads.
+     */
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(new ChannelInterceptor() {
-            @Override
-            public Message<?> preSend(Message<?> message, MessageChannel channel) {
-                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
-
-                if (StompCommand.CONNECT.equals(accessor.getCommand())) {
-                    String token = (String) accessor.getSessionAttributes().get("jwtToken");
-
-                    if (token != null) {
-                        try {
-                            Claims claims = jwtUtils.getClaimsFromJwtToken(token);
-                            String identifier = claims.getSubject(); // could be email or username
-
-                            // ✅ Resolve actual username (not email)
-                            String username = userRepository.findByEmail(identifier)
-                                    .map(User::getUsername)
-                                    .orElse(identifier); // fallback if token already holds username
-
-                            accessor.setUser(() -> username);
-                            SecurityContextHolder.clearContext();
-
-                            System.out.println("✅ WebSocket authenticated as username: " + username);
-                        } catch (Exception e) {
-                            System.out.println("❌ Invalid WebSocket JWT: " + e.getMessage());
-                        }
-                    } else {
-                        System.out.println("❌ No JWT found in WebSocket handshake!");
-                    }
-                }
-                return message;
-            }
-        });
+        if (virtualThreads) {
+            registration.executor(new InboundLanes(new VirtualThreadTaskExecutor("ws-inbound-"), connectLaneThreads));
+        } else {
+            ThreadPoolTaskExecutor frames = new ThreadPoolTaskExecutor();
+            frames.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+            frames.setAllowCoreThreadTimeOut(true);
+            frames.setThreadNamePrefix("clientInboundChannel-");
+            frames.initialize();
+            registration.executor(new InboundLanes(frames, connectLaneThreads));
+        }
+        registration.interceptors(connectAuthenticator);
+        registration.interceptors(codecNegotiator.inboundInterceptor(), frameCoalescer.inboundInterceptor());
     }
 }
@@ -0,0 +1,188 @@
+package com.application.chat.controllers;
+
+import com.application.chat.config.JwtUtils;
+import com.application.chat.models.Attachment;
+import com.application.chat.models.User;
+import com.application.chat.services.AttachmentService;
+import com.application.chat.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunked attachment upload and ranged download.
+ *
+ * 1. POST /attachments {filename, contentType, size, roomId} → upload id, chunkSize, chunkCount
+ * 2. PUT /attachments/{id}/chunks/{index} with the raw chunk bytes (any order, retry freely)
+ * 3. GET /attachments/{id} shows missing chunks when resuming
+ * 4. POST /attachments/{id}/complete, then send the id in ChatMessage.attachmentIds
+ * 5. GET /attachments/{id}/content streams the file (Range, ETag / If-None-Match); only
+ *    allow-listed types are served inline, the rest as a download of application/octet-stream
+ */
+@RestController
+@RequestMapping("/attachments")
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class AttachmentController {
+
+    private final AttachmentService attachmentService;
+    private final UserService userService;
+    private final JwtUtils jwtUtils;
+
+    public AttachmentController(AttachmentService attachmentService, UserService userService, JwtUtils jwtUtils) {
+        this.attachmentService = attachmentService;
+        this.userService = userService;
+        this.jwtUtils = jwtUtils;
+    }
+
+    /** ✅ Start an upload. */
+    @PostMapping
+    public ResponseEntity<?> create(@RequestBody Map<String, Object> body,
+                                    @RequestHeader("Authorization") String authHeader) {
+        try {
+            long size = body.get("size") instanceof Number n ? n.longValue() : -1;
+            Attachment attachment = attachmentService.create(currentUser(authHeader),
+                    (String) body.get("roomId"),
+                    (String) body.get("filename"),
+                    (String) body.get("contentType"),
+                    size);
+            return ResponseEntity.status(201).body(manifest(attachment));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** ✅ Upload one chunk; the body is streamed to GridFS, never read into memory. */
+    @PutMapping(value = "/{id}/chunks/{index}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String id,
+                                         @PathVariable int index,
+                                         HttpServletRequest request,
+                                         @RequestHeader("Authorization") String authHeader) throws IOException {
+        try {
+            Attachment attachment = attachmentService.storeChunk(id, currentUser(authHeader), index, request.getInputStream());
+            return ResponseEntity.ok(manifest(attachment));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** ✅ Seal the upload once every chunk is in. */
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable String id,
+                                      @RequestHeader("Authorization") String authHeader) {
+        try {
+            return ResponseEntity.ok(manifest(attachmentService.complete(id, currentUser(authHeader))));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** ✅ Upload state, including the chunks still missing (for resuming). */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id,
+                                    @RequestHeader("Authorization") String authHeader) {
+        try {
+            return ResponseEntity.ok(manifest(attachmentService.getOwnedOrReadable(id, currentUser(authHeader))));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** ✅ Download. Supports a single byte range and conditional requests; content never changes. */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<?> download(@PathVariable String id,
+                                      @RequestHeader("Authorization") String authHeader,
+                                      @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                      @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        Attachment attachment;
+        try {
+            attachment = attachmentService.getReadable(id, currentUser(authHeader));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+
+        String etag = attachment.etag();
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etag))) {
+            return ResponseEntity.status(304).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        long length = attachment.getSize();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        // A stale If-Range means "send the whole thing"
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(416)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
+
+        long from = start;
+        long to = end;
+        StreamingResponseBody body = out -> attachmentService.copyRange(attachment, from, to, out);
+
+        // Uploaded bytes are untrusted: anything the browser could run is downloaded, never rendered
+        boolean inline = attachmentService.isInline(attachment);
+        ContentDisposition disposition = (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(attachment.getFilename(), StandardCharsets.UTF_8).build();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? 206 : 200)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .contentType(inline ? MediaType.parseMediaType(attachment.getContentType()) : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(to - from + 1);
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + from + "-" + to + "/" + length);
+        }
+        return response.body(body);
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private String currentUser(String authHeader) {
+        String identifier = jwtUtils.extractUsername(authHeader.replace("Bearer ", ""));
+        // Tokens carry the email; attachments are owned by username like messages are
+        return userService.findByEmail(identifier).map(User::getUsername).orElse(identifier);
+    }
+
+    private static Map<String, Object> manifest(Attachment attachment) {
+        return Map.of(
+                "id", attachment.getId(),
+                "filename", attachment.getFilename(),
+                "contentType", attachment.getContentType(),
+                "size", attachment.getSize(),
+                "chunkSize", attachment.getChunkSize(),
+                "chunkCount", attachment.getChunkCount(),
+                "missingChunks", attachment.missingChunks(),
+                "status", attachment.getStatus());
+    }
+}
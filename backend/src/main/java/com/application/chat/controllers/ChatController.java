@@ -1,18 +1,27 @@
 package com.application.chat.controllers;
 
+import com.application.chat.cluster.RoomAffinityRouter;
 import com.application.chat.dtos.CreateGroupDTO;
 import com.application.chat.dtos.ModifyGroupDTO;
+import com.application.chat.dtos.RoomBatchDTO;
 import com.application.chat.models.ChatMessage;
 import com.application.chat.models.ChatRoom;
 import com.application.chat.services.ChatService;
+import com.application.chat.services.EntityVersionService;
+import com.application.chat.services.ReceiptService;
+import com.application.chat.services.SendRateLimiter;
 import com.application.chat.config.JwtUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * 💬 ChatController — REST endpoints for chat management
@@ -27,13 +36,25 @@ public class ChatController {
     private final ChatService chatService;
     private final JwtUtils jwtUtils;
     private final SimpMessagingTemplate messagingTemplate;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final ReceiptService receiptService;
+    private final SendRateLimiter sendRateLimiter;
+    private final EntityVersionService entityVersionService;
 
     public ChatController(ChatService chatService,
                           JwtUtils jwtUtils,
-                          SimpMessagingTemplate messagingTemplate) {
+                          SimpMessagingTemplate messagingTemplate,
+                          RoomAffinityRouter roomAffinityRouter,
+                          ReceiptService receiptService,
+                          SendRateLimiter sendRateLimiter,
+                          EntityVersionService entityVersionService) {
         this.chatService = chatService;
         this.jwtUtils = jwtUtils;
         this.messagingTemplate = messagingTemplate;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.receiptService = receiptService;
+        this.sendRateLimiter = sendRateLimiter;
+        this.entityVersionService = entityVersionService;
     }
 
     /* ==========================================================
@@ -68,11 +89,14 @@ public class ChatController {
         return ResponseEntity.ok(chatService.removeMember(id, adminUsername, memberToRemove));
     }
 
-    /** ✅ Get group details. */
+    /** ✅ Get group details (ETag / If-None-Match aware). */
     @GetMapping("/group/details/{groupId}")
-    public ResponseEntity<?> getGroupDetails(@PathVariable String groupId) {
+    public ResponseEntity<?> getGroupDetails(@PathVariable String groupId,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> unchanged = entityVersionService.notModified(EntityVersionService.ROOM, groupId, ifNoneMatch);
+        if (unchanged.isPresent()) return notModified(unchanged.get());
         try {
-            return ResponseEntity.ok(chatService.getGroupById(groupId));
+            return withEtag(chatService.getGroupById(groupId));
         } catch (RuntimeException e) {
             return ResponseEntity.status(404).body("Group not found");
         }
@@ -90,6 +114,18 @@ public class ChatController {
         }
     }
 
+    /** ✅ Set how many days a group keeps its messages (0 = forever, omit to reset). */
+    @PostMapping("/group/{groupId}/retention")
+    public ResponseEntity<?> setRetention(@PathVariable String groupId,
+                                          @RequestParam String adminUsername,
+                                          @RequestParam(required = false) Integer days) {
+        try {
+            return ResponseEntity.ok(chatService.setRetention(groupId, adminUsername, days));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
 
     /* ==========================================================
        💬 PRIVATE CHAT ENDPOINTS (One-to-One)
@@ -137,13 +173,88 @@ public class ChatController {
     /** ✅ Get all chat rooms (private + group) for a user. */
     @GetMapping("/rooms/{username}")
     public ResponseEntity<List<Map<String, Object>>> getUserChatRooms(@PathVariable String username) {
-        return ResponseEntity.ok(chatService.getAllUserChatRooms(username));
+        return ResponseEntity.ok(chatService.getUserChatRooms(username));
     }
 
-    /** ✅ Get all messages for a specific room. */
+    /**
+     * ✅ Get messages for a specific room: the whole history, or one page when {@code before}
+     * (ISO-8601 instant, exclusive) or {@code limit} is given. Pages are oldest first; pass the
+     * first message's timestamp as the next {@code before}.
+     */
     @GetMapping("/{roomId}/messages")
-    public ResponseEntity<List<ChatMessage>> getMessages(@PathVariable String roomId) {
-        return ResponseEntity.ok(chatService.getMessages(roomId));
+    public ResponseEntity<?> getMessages(@PathVariable String roomId,
+                                         @RequestParam(required = false) String before,
+                                         @RequestParam(required = false) Integer limit) {
+        if (before == null && limit == null) return ResponseEntity.ok(chatService.getMessages(roomId));
+        try {
+            Instant cursor = before == null ? null : Instant.parse(before);
+            return ResponseEntity.ok(chatService.getMessagesPage(roomId, cursor, limit));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "before must be an ISO-8601 instant"));
+        }
+    }
+
+    /**
+     * ✅ Details and latest messages of several of the caller's rooms in one response, for the
+     * first screen after login. Rooms the caller can't see are listed under {@code missing}.
+     */
+    @PostMapping("/rooms/batch")
+    public ResponseEntity<?> getRoomsBatch(@RequestBody RoomBatchDTO body,
+                                           @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String requester = jwtUtils.extractUsername(token);
+        try {
+            return ResponseEntity.ok(chatService.getRoomsBatch(requester, body.getRoomIds(), body.getLimit()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * ✅ Messages that @mention the caller, newest first. Pass the last message's timestamp
+     * as the next {@code before} (ISO-8601 instant, exclusive).
+     */
+    @GetMapping("/mentions")
+    public ResponseEntity<?> getMentions(@RequestParam(required = false) String before,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String requester = jwtUtils.extractUsername(token);
+        try {
+            Instant cursor = before == null ? null : Instant.parse(before);
+            return ResponseEntity.ok(chatService.getMentions(requester, cursor, limit));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "before must be an ISO-8601 instant"));
+        }
+    }
+
+    /** ✅ Search message text across the caller's rooms, or within {@code roomId}. */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(@RequestParam String q,
+                                            @RequestParam(required = false) String roomId,
+                                            @RequestParam(required = false) Integer page,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String requester = jwtUtils.extractUsername(token);
+        try {
+            return ResponseEntity.ok(chatService.searchMessages(requester, q, roomId, page, size));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** ✅ Read/delivery high-water marks of every member of a room (members only). */
+    @GetMapping("/{roomId}/receipts")
+    public ResponseEntity<?> getReceipts(@PathVariable String roomId,
+                                         @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String requester = jwtUtils.extractUsername(token);
+        try {
+            return ResponseEntity.ok(receiptService.getReceipts(roomId, requester));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     /** ✅ Send a message (REST fallback). Usually used if WS fails. */
@@ -158,6 +269,16 @@ public class ChatController {
         String content = body.get("content");
         String receiverUsername = body.get("receiverUsername");
 
+        // 🚦 Per-user rate limit, checked before any Mongo work
+        SendRateLimiter.Kind kind = receiverUsername != null && !receiverUsername.isEmpty()
+                ? SendRateLimiter.Kind.PRIVATE : SendRateLimiter.Kind.GROUP;
+        long retryAfterMs = sendRateLimiter.tryAcquire(senderUsername, kind);
+        if (retryAfterMs > 0) {
+            return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf((retryAfterMs + 999) / 1000))
+                    .body(Map.of("error", "rate_limited", "retryAfterMs", retryAfterMs));
+        }
+
         // 🧠 For private chat without roomId, find or create one
         if ((roomId == null || roomId.isEmpty()) && receiverUsername != null && !receiverUsername.isEmpty()) {
             ChatRoom privateRoom = chatService.createPrivateChat(senderUsername, receiverUsername);
@@ -172,6 +293,12 @@ public class ChatController {
         msg.setContent(content);
         msg.setTimestamp(Instant.now());
 
+        // 🧭 Another node owns this room: hand it over and acknowledge without waiting
+        if (!roomAffinityRouter.isLocal(roomId)) {
+            roomAffinityRouter.forward(msg);
+            return ResponseEntity.accepted().body(msg);
+        }
+
         ChatMessage saved = chatService.saveMessage(msg);
 
         // 🧭 Notify via WebSocket as well (optional)
@@ -180,15 +307,32 @@ public class ChatController {
         return ResponseEntity.ok(saved);
     }
 
-    /** ✅ Get details of any chat room (private or group). */
+    /** ✅ Get details of any chat room (private or group); ETag / If-None-Match aware. */
 @GetMapping("/room/{roomId}")
-public ResponseEntity<?> getRoomById(@PathVariable String roomId) {
+public ResponseEntity<?> getRoomById(@PathVariable String roomId,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    Optional<String> unchanged = entityVersionService.notModified(EntityVersionService.ROOM, roomId, ifNoneMatch);
+    if (unchanged.isPresent()) return notModified(unchanged.get());
     try {
         ChatRoom room = chatService.getRoomById(roomId);
-        return ResponseEntity.ok(room);
+        return withEtag(room);
     } catch (RuntimeException e) {
         return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
     }
 }
 
+    private ResponseEntity<ChatRoom> withEtag(ChatRoom room) {
+        return ResponseEntity.ok()
+                .eTag(entityVersionService.served(EntityVersionService.ROOM, room.getId(), room.getVersion()))
+                .cacheControl(EntityVersionService.CACHE_CONTROL)
+                .body(room);
+    }
+
+    private static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(EntityVersionService.CACHE_CONTROL)
+                .build();
+    }
+
 }
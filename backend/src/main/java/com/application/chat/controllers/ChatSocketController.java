@@ -1,31 +1,70 @@
 package com.application.chat.controllers;
 
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.dtos.ReceiptDTO;
+import com.application.chat.dtos.TypingDTO;
 import com.application.chat.models.ChatMessage;
 import com.application.chat.models.ChatRoom;
 import com.application.chat.services.ChatService;
+import com.application.chat.services.ReceiptService;
+import com.application.chat.services.SendRateLimiter;
+import com.application.chat.services.TypingIndicatorService;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import java.security.Principal;
 import java.time.Instant;
+import java.util.Map;
 
 @Controller
 public class ChatSocketController {
 
     private final ChatService chatService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TypingIndicatorService typingIndicatorService;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final ReceiptService receiptService;
+    private final SendRateLimiter sendRateLimiter;
 
-    public ChatSocketController(ChatService chatService, SimpMessagingTemplate messagingTemplate) {
+    public ChatSocketController(ChatService chatService,
+                                SimpMessagingTemplate messagingTemplate,
+                                TypingIndicatorService typingIndicatorService,
+                                RoomAffinityRouter roomAffinityRouter,
+                                ReceiptService receiptService,
+                                SendRateLimiter sendRateLimiter) {
         this.chatService = chatService;
         this.messagingTemplate = messagingTemplate;
+        this.typingIndicatorService = typingIndicatorService;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.receiptService = receiptService;
+        this.sendRateLimiter = sendRateLimiter;
+        // Sends forwarded by other nodes are stored here without another ownership check
+        // (already rate limited on the node the sender is connected to)
+        roomAffinityRouter.setForwardHandler(this::processForwarded);
     }
 
     /**
      * Handles incoming WebSocket messages for private and group chats.
+     * Over-limit sends are answered on /user/queue/errors before any Mongo or broker work.
      */
     @MessageMapping("/send-message")
-    public void handleIncomingMessage(@Payload ChatMessage message) {
+    public void handleIncomingMessage(@Payload ChatMessage message, Principal principal) {
+        String sender = principal != null ? principal.getName() : message.getSenderUsername();
+        long retryAfterMs = sendRateLimiter.tryAcquire(sender, SendRateLimiter.kindOf(message));
+        if (retryAfterMs > 0) {
+            if (sender != null) {
+                messagingTemplate.convertAndSendToUser(sender, "/queue/errors", Map.of(
+                        "error", "rate_limited",
+                        "retryAfterMs", retryAfterMs));
+            }
+            return;
+        }
+        processMessage(message);
+    }
+
+    private void processMessage(ChatMessage message) {
         try {
             message.setTimestamp(Instant.now());
 
@@ -41,28 +80,84 @@ public class ChatSocketController {
                 message.setRoomId(privateRoom.getId());
             }
 
-            // ✅ 2. Save message in DB
-            ChatMessage savedMessage = chatService.saveMessage(message);
-
-            String roomId = savedMessage.getRoomId();
-            String sender = savedMessage.getSenderUsername();
-            String receiver = savedMessage.getReceiverUsername();
-
-            System.out.println("💬 WS message saved for room: " + roomId + 
-                               " | sender: " + sender + " | receiver: " + receiver);
-
-            // ✅ 3. Broadcast message to all room subscribers (sender + receiver)
-            messagingTemplate.convertAndSend("/topic/messages/" + roomId, savedMessage);
-
-            // ✅ 4. Send private copies (optional, helps ensure sender/receiver both update UI)
-            if (receiver != null && !receiver.isEmpty()) {
-                messagingTemplate.convertAndSendToUser(receiver, "/queue/private", savedMessage);
+            // ✅ 2. Rooms owned by another node are handled there (ordering + hot state)
+            if (!roomAffinityRouter.isLocal(message.getRoomId())) {
+                roomAffinityRouter.forward(message);
+                return;
             }
-            messagingTemplate.convertAndSendToUser(sender, "/queue/private", savedMessage);
 
+            saveAndBroadcast(message);
         } catch (Exception e) {
             System.err.println("❌ Error handling WebSocket message: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    /**
+     * A send another node forwarded because its ring says this node owns the room. It is
+     * stored here even if our ring briefly disagrees (rebalance in progress): forwarding it
+     * again could bounce it between the two nodes forever.
+     */
+    private void processForwarded(ChatMessage message) {
+        try {
+            if (message.getRoomId() == null || message.getRoomId().isEmpty()) {
+                System.out.println("⚠️ Dropping forwarded message without a roomId from " + message.getSenderUsername());
+                return;
+            }
+            if (message.getTimestamp() == null) message.setTimestamp(Instant.now());
+            saveAndBroadcast(message);
+        } catch (Exception e) {
+            System.err.println("❌ Error handling forwarded message: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void saveAndBroadcast(ChatMessage message) {
+        // ✅ 3. Save message in DB
+        ChatMessage savedMessage = chatService.saveMessage(message);
+
+        String roomId = savedMessage.getRoomId();
+        String sender = savedMessage.getSenderUsername();
+        String receiver = savedMessage.getReceiverUsername();
+
+        typingIndicatorService.clear(roomId, sender);
+
+        System.out.println("💬 WS message saved for room: " + roomId + 
+                           " | sender: " + sender + " | receiver: " + receiver);
+
+        // ✅ 4. Broadcast message to all room subscribers (sender + receiver)
+        messagingTemplate.convertAndSend("/topic/messages/" + roomId, savedMessage);
+
+        // ✅ 5. Send private copies (optional, helps ensure sender/receiver both update UI)
+        if (receiver != null && !receiver.isEmpty()) {
+            messagingTemplate.convertAndSendToUser(receiver, "/queue/private", savedMessage);
+        }
+        messagingTemplate.convertAndSendToUser(sender, "/queue/private", savedMessage);
+    }
+
+    /**
+     * Typing indicator keystrokes. Kept in memory only and fanned out as one
+     * coalesced frame per room per interval on /topic/typing/{roomId}.
+     */
+    @MessageMapping("/typing")
+    public void handleTyping(@Payload TypingDTO typing, Principal principal) {
+        if (principal == null || typing == null) return;
+        typingIndicatorService.onTyping(typing.getRoomId(), principal.getName(), typing.isTyping());
+    }
+
+    /** Read receipt: everything in the room up to {@code sequence} was read. Aggregated, flushed in bulk. */
+    @MessageMapping("/receipts/read")
+    public void handleReadReceipt(@Payload ReceiptDTO receipt, Principal principal) {
+        if (principal == null || receipt == null) return;
+        if (!receiptService.isMember(receipt.getRoomId(), principal.getName())) return;
+        receiptService.markRead(receipt.getRoomId(), principal.getName(), receipt.getSequence());
+    }
+
+    /** Delivery receipt: everything in the room up to {@code sequence} reached the client. */
+    @MessageMapping("/receipts/delivered")
+    public void handleDeliveryReceipt(@Payload ReceiptDTO receipt, Principal principal) {
+        if (principal == null || receipt == null) return;
+        if (!receiptService.isMember(receipt.getRoomId(), principal.getName())) return;
+        receiptService.markDelivered(receipt.getRoomId(), principal.getName(), receipt.getSequence());
+    }
 }
@@ -1,24 +1,27 @@
 package com.application.chat.controllers;
 
 import com.application.chat.models.User;
-import com.application.chat.repositories.UserRepository;
+import com.application.chat.services.EntityVersionService;
 import com.application.chat.services.UserService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userService;
-    private final UserRepository userRepository;
+    private final EntityVersionService entityVersionService;
 
-    public UserController(UserService userService, UserRepository userRepository) {
+    public UserController(UserService userService, EntityVersionService entityVersionService) {
         this.userService = userService;
-        this.userRepository = userRepository;
+        this.entityVersionService = entityVersionService;
     }
 
     // ✅ Get all users (for search or group creation)
@@ -28,11 +31,22 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
-    // ✅ Get user by ID
+    // ✅ Get user by ID (304 when If-None-Match still matches, without reading the user)
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable String id) {
+    public ResponseEntity<User> getUserById(@PathVariable String id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> unchanged = entityVersionService.notModified(EntityVersionService.USER, id, ifNoneMatch);
+        if (unchanged.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(unchanged.get())
+                    .cacheControl(EntityVersionService.CACHE_CONTROL)
+                    .build();
+        }
         User user = userService.getUserById(id);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok()
+                .eTag(entityVersionService.served(EntityVersionService.USER, user.getId(), user.getVersion()))
+                .cacheControl(EntityVersionService.CACHE_CONTROL)
+                .body(user);
     }
 
     // ✅ Search users by username (case-insensitive partial match)
@@ -47,7 +61,7 @@ public class UserController {
     // ✅ Get username by email (used by frontend to resolve display name)
     @GetMapping("/by-email")
     public ResponseEntity<Map<String, String>> getUsernameByEmail(@RequestParam String email) {
-        return userRepository.findByEmail(email)
+        return userService.findByEmail(email)
                 .map(user -> ResponseEntity.ok(Map.of("username", user.getUsername())))
                 .orElse(ResponseEntity.notFound().build());
     }
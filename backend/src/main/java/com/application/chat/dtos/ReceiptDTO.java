@@ -0,0 +1,24 @@
+package com.application.chat.dtos;
+
+/**
+ * Read / delivery acknowledgement sent on /app/receipts/read or /app/receipts/delivered.
+ * One receipt covers every message in the room up to {@code sequence}.
+ */
+public class ReceiptDTO {
+
+    private String roomId;
+    private long sequence;
+
+    public ReceiptDTO() {}
+
+    public ReceiptDTO(String roomId, long sequence) {
+        this.roomId = roomId;
+        this.sequence = sequence;
+    }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+}
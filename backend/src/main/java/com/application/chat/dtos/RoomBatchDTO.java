@@ -0,0 +1,35 @@
+package com.application.chat.dtos;
+
+import java.util.List;
+
+/**
+ * DTO for loading several rooms at once: their details plus the newest {@code limit} messages.
+ */
+public class RoomBatchDTO {
+
+    private List<String> roomIds; // IDs of the rooms to load
+    private Integer limit;        // Messages per room (server default when null)
+
+    public RoomBatchDTO() {}
+
+    public RoomBatchDTO(List<String> roomIds, Integer limit) {
+        this.roomIds = roomIds;
+        this.limit = limit;
+    }
+
+    public List<String> getRoomIds() {
+        return roomIds;
+    }
+
+    public void setRoomIds(List<String> roomIds) {
+        this.roomIds = roomIds;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,23 @@
+package com.application.chat.dtos;
+
+/**
+ * Payload sent by clients on /app/typing. Never persisted.
+ */
+public class TypingDTO {
+
+    private String roomId;   // Room the user is typing in
+    private boolean typing;  // true on keystroke, false when input is cleared/sent
+
+    public TypingDTO() {}
+
+    public TypingDTO(String roomId, boolean typing) {
+        this.roomId = roomId;
+        this.typing = typing;
+    }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public boolean isTyping() { return typing; }
+    public void setTyping(boolean typing) { this.typing = typing; }
+}
@@ -0,0 +1,54 @@
+package com.application.chat.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An immutable, compressed run of one room's oldest messages (cold tier, see
+ * MessageArchiveService). The header fields are the index: reads list a room's headers
+ * and only fetch and inflate {@code data} for the segments whose time range they need.
+ */
+@Document(collection = "message_archive")
+@CompoundIndex(name = "room_from", def = "{'roomId': 1, 'from': 1}")
+public class ArchiveSegment {
+
+    @Id
+    private String id;
+
+    private String roomId;
+    private Instant from;      // oldest message timestamp
+    private Instant to;        // newest message timestamp
+    private int count;
+    private Long maxSequence;  // keeps the room's sequence counter alive once the hot tier is empty
+    private Instant createdAt;
+    private byte[] data;       // gzip'd JSON lines, oldest first; null in header-only reads
+
+    public ArchiveSegment() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public Instant getFrom() { return from; }
+    public void setFrom(Instant from) { this.from = from; }
+
+    public Instant getTo() { return to; }
+    public void setTo(Instant to) { this.to = to; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public Long getMaxSequence() { return maxSequence; }
+    public void setMaxSequence(Long maxSequence) { this.maxSequence = maxSequence; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public byte[] getData() { return data; }
+    public void setData(byte[] data) { this.data = data; }
+}
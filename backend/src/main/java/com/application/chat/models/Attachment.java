@@ -0,0 +1,97 @@
+package com.application.chat.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manifest of a chunked upload. Every chunk is stored as its own GridFS file; the manifest
+ * keeps their ids in order, so a download streams the chunk files back to back and a
+ * resumed upload only resends the chunks that are missing.
+ */
+@Document(collection = "attachments")
+public class Attachment {
+
+    public enum Status { UPLOADING, COMPLETE }
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String ownerUsername;
+    private String roomId;
+    private String filename;
+    private String contentType;
+    private long size;       // declared by the client up front, checked on completion
+    private int chunkSize;   // every chunk but the last has exactly this many bytes
+    private int chunkCount;
+
+    // index -> GridFS file id / byte count (null / 0 while missing)
+    private List<String> chunkFileIds = new ArrayList<>();
+    private List<Long> chunkLengths = new ArrayList<>();
+
+    private Status status = Status.UPLOADING;
+    private Instant createdAt;
+    private Instant completedAt;
+
+    public Attachment() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    public int getChunkCount() { return chunkCount; }
+    public void setChunkCount(int chunkCount) { this.chunkCount = chunkCount; }
+
+    public List<String> getChunkFileIds() { return chunkFileIds; }
+    public void setChunkFileIds(List<String> chunkFileIds) { this.chunkFileIds = chunkFileIds; }
+
+    public List<Long> getChunkLengths() { return chunkLengths; }
+    public void setChunkLengths(List<Long> chunkLengths) { this.chunkLengths = chunkLengths; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+
+    // ===================== Helpers =====================
+
+    /** Indices of chunks not received yet, for resuming. */
+    public List<Integer> missingChunks() {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            if (i >= chunkFileIds.size() || chunkFileIds.get(i) == null) missing.add(i);
+        }
+        return missing;
+    }
+
+    /** Strong validator for downloads; content never changes once complete. */
+    public String etag() {
+        return "\"" + id + "-" + size + "\"";
+    }
+}
@@ -1,14 +1,18 @@
 package com.application.chat.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.time.Instant;
+import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Document(collection = "chat_messages")
+// ✅ Serves room history, paging, archival and retention scans
+@CompoundIndex(name = "room_timestamp", def = "{'roomId': 1, 'timestamp': 1}")
 public class ChatMessage {
 
     @Id
@@ -19,6 +23,8 @@ public class ChatMessage {
     private String receiverUsername; // ✅ NEW FIELD for private chats
     private String content;
     private Instant timestamp;
+    private Long sequence; // per-room, assigned by the room's owner node
+    private List<String> attachmentIds; // completed uploads, see Attachment (bytes live in GridFS)
 
     public ChatMessage() {}
 
@@ -37,6 +43,7 @@ public class ChatMessage {
 
     // ===================== Getters / Setters =====================
     public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
 
     public String getRoomId() { return roomId; }
     public void setRoomId(String roomId) { this.roomId = roomId; }
@@ -52,4 +59,10 @@ public class ChatMessage {
 
     public Instant getTimestamp() { return timestamp; }
     public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+
+    public List<String> getAttachmentIds() { return attachmentIds; }
+    public void setAttachmentIds(List<String> attachmentIds) { this.attachmentIds = attachmentIds; }
 }
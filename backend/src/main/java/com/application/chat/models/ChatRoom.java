@@ -1,5 +1,6 @@
 package com.application.chat.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -23,6 +24,14 @@ public class ChatRoom {
     // ✅ Added field
     private String pairKey; // unique for private chats (e.g., "alice-bob")
 
+    // ✅ Retention: days to keep messages (null = default for the room kind, 0 = forever)
+    private Integer retentionDays;
+    // highest sequence deleted by retention, so the counter never restarts in an emptied room
+    private Long sequenceFloor;
+
+    // Bumped by the RoomStore on every save; the ETag of the room endpoints
+    private long version;
+
     public ChatRoom() {}
 
     public ChatRoom(String name, boolean isPrivate, boolean isGroup, String adminUsername, List<String> members) {
@@ -55,6 +64,16 @@ public class ChatRoom {
     public String getPairKey() { return pairKey; }
     public void setPairKey(String pairKey) { this.pairKey = pairKey; }
 
+    public Integer getRetentionDays() { return retentionDays; }
+    public void setRetentionDays(Integer retentionDays) { this.retentionDays = retentionDays; }
+
+    @JsonIgnore // bookkeeping only, and raised without a version bump
+    public Long getSequenceFloor() { return sequenceFloor; }
+    public void setSequenceFloor(Long sequenceFloor) { this.sequenceFloor = sequenceFloor; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public boolean isAdmin(String username) {
         return admins != null && admins.contains(username);
     }
@@ -0,0 +1,58 @@
+package com.application.chat.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One @mention of a user: a pointer to the message, no copy of its text, so a message
+ * removed by retention leaves nothing readable behind.
+ */
+@Document(collection = "mentions")
+@CompoundIndex(name = "user_timestamp", def = "{'username': 1, 'timestamp': -1}")
+public class Mention {
+
+    @Id
+    private String id;
+
+    private String username;
+    private String roomId;
+    private String messageId;
+    private String senderUsername;
+    private Long sequence;
+    private Instant timestamp;
+
+    public Mention() {}
+
+    public Mention(String username, ChatMessage message) {
+        this.username = username;
+        this.roomId = message.getRoomId();
+        this.messageId = message.getId();
+        this.senderUsername = message.getSenderUsername();
+        this.sequence = message.getSequence();
+        this.timestamp = message.getTimestamp();
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public String getMessageId() { return messageId; }
+    public void setMessageId(String messageId) { this.messageId = messageId; }
+
+    public String getSenderUsername() { return senderUsername; }
+    public void setSenderUsername(String senderUsername) { this.senderUsername = senderUsername; }
+
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+}
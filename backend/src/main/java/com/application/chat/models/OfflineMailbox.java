@@ -0,0 +1,61 @@
+package com.application.chat.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pointers to private messages that arrived while the user had no WebSocket session.
+ * Only the newest entries are kept (see OfflineMailboxService); {@code total} counts
+ * everything ever recorded so an overflow can be detected.
+ */
+@Document(collection = "offline_mailboxes")
+public class OfflineMailbox {
+
+    @Id
+    private String id; // username
+
+    private List<Entry> entries = new ArrayList<>();
+    private long total;
+    private Instant updatedAt;
+
+    public OfflineMailbox() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public List<Entry> getEntries() { return entries; }
+    public void setEntries(List<Entry> entries) { this.entries = entries; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    public static class Entry {
+        private String messageId;
+        private String roomId;
+        private Long sequence;
+
+        public Entry() {}
+
+        public Entry(String messageId, String roomId, Long sequence) {
+            this.messageId = messageId;
+            this.roomId = roomId;
+            this.sequence = sequence;
+        }
+
+        public String getMessageId() { return messageId; }
+        public void setMessageId(String messageId) { this.messageId = messageId; }
+
+        public String getRoomId() { return roomId; }
+        public void setRoomId(String roomId) { this.roomId = roomId; }
+
+        public Long getSequence() { return sequence; }
+        public void setSequence(Long sequence) { this.sequence = sequence; }
+    }
+}
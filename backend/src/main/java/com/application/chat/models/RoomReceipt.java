@@ -0,0 +1,49 @@
+package com.application.chat.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * High-water marks of one user in one room: everything up to these sequences has been
+ * delivered to / read by the user. Id is "{roomId}:{username}".
+ */
+@Document(collection = "room_receipts")
+public class RoomReceipt {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String roomId;
+    private String username;
+    private long readSequence;
+    private long deliveredSequence;
+    private Instant updatedAt;
+
+    public RoomReceipt() {}
+
+    public static String idFor(String roomId, String username) {
+        return roomId + ":" + username;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public long getReadSequence() { return readSequence; }
+    public void setReadSequence(long readSequence) { this.readSequence = readSequence; }
+
+    public long getDeliveredSequence() { return deliveredSequence; }
+    public void setDeliveredSequence(long deliveredSequence) { this.deliveredSequence = deliveredSequence; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
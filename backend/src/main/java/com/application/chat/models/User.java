@@ -16,6 +16,9 @@ public class User {
 
     private String password; // Hashed password
 
+    // ✅ Bumped by the UserStore on every save; the ETag of GET /users/{id}
+    private long version;
+
     public User() {}
 
     public User(String username, String email, String password) {
@@ -45,6 +48,13 @@ public class User {
         this.email = email;
     }
 
+    public long getVersion() {
+        return version;
+    }
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getPassword() {
         return password;
     }
@@ -0,0 +1,7 @@
+package com.application.chat.repositories;
+
+import com.application.chat.models.Attachment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface AttachmentRepository extends MongoRepository<Attachment, String> {
+}
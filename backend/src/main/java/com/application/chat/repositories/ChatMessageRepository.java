@@ -1,9 +1,28 @@
 package com.application.chat.repositories;
 
 import com.application.chat.models.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
     List<ChatMessage> findByRoomIdOrderByTimestampAsc(String roomId);
+
+    // Latest messages first (used to warm a room's hot state)
+    List<ChatMessage> findByRoomIdOrderByTimestampDesc(String roomId, Pageable pageable);
+
+    // History pages and archival/retention walks, all on the (roomId, timestamp) index
+    List<ChatMessage> findByRoomIdAndTimestampBeforeOrderByTimestampDesc(String roomId, Instant before, Pageable pageable);
+    List<ChatMessage> findByRoomIdAndTimestampBeforeOrderByTimestampAsc(String roomId, Instant before, Pageable pageable);
+    List<ChatMessage> findByRoomIdAndTimestamp(String roomId, Instant timestamp);
+
+    // Ids, sequences and attachment ids only, oldest first (retention)
+    @Query(value = "{ 'roomId': ?0, 'timestamp': { $lt: ?1 } }", fields = "{ '_id': 1, 'sequence': 1, 'attachmentIds': 1 }", sort = "{ 'timestamp': 1 }")
+    List<ChatMessage> findRefsByRoomIdBefore(String roomId, Instant before, Pageable pageable);
+
+    // Highest sequence assigned so far in a room
+    Optional<ChatMessage> findTopByRoomIdOrderBySequenceDesc(String roomId);
 }
@@ -1,6 +1,7 @@
 package com.application.chat.repositories;
 
 import com.application.chat.models.ChatRoom;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +12,8 @@ public interface ChatRoomRepository extends MongoRepository<ChatRoom, String> {
     Optional<ChatRoom> findByNameAndIsPrivate(String name, boolean isPrivate);
 
     Optional<ChatRoom> findByPairKey(String pairKey);
+
+    // Paging through every room by id (background jobs)
+    List<ChatRoom> findAllByOrderByIdAsc(Pageable pageable);
+    List<ChatRoom> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
 }
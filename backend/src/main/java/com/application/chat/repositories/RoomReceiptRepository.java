@@ -0,0 +1,9 @@
+package com.application.chat.repositories;
+
+import com.application.chat.models.RoomReceipt;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.List;
+
+public interface RoomReceiptRepository extends MongoRepository<RoomReceipt, String> {
+    List<RoomReceipt> findByRoomId(String roomId);
+}
@@ -0,0 +1,277 @@
+package com.application.chat.search;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.services.MessageArchiveService;
+import com.application.chat.services.MessageHistoryService;
+import com.application.chat.storage.MessageStore;
+import com.application.chat.storage.RoomStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 🔎 Full-text search over message history.
+ *
+ * Messages saved on this node are indexed right away from the send path. On startup the
+ * index is loaded from its last snapshot under {@code chat.search.dir} and then caught up
+ * by paging every room's history newest first until a page is already fully indexed; without
+ * a snapshot the same walk builds the whole index. Rooms owned by other nodes never pass
+ * through this node's send path, so they are caught up the same way every
+ * {@code refresh-interval-ms}.
+ *
+ * Results are limited to rooms the requester is a member of. A hit is resolved from the hot
+ * store, then from the archive; hits found in neither were deleted and are dropped from the
+ * index. Retention removes what it purges from the hot tier right away. Removed messages are
+ * compacted out of the index before a snapshot once they reach {@code compact-deleted-ratio}
+ * of it.
+ */
+@Service
+public class MessageSearchService implements DisposableBean {
+
+    private static final String SNAPSHOT = "index.bin";
+    private static final int ROOM_PAGE = 500;
+
+    private final RoomStore roomStore;
+    private final MessageStore messageStore;
+    private final MessageHistoryService messageHistoryService;
+    private final MessageArchiveService messageArchiveService;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final boolean enabled;
+    private final Path snapshot;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int scanPageSize;
+    private final double compactDeletedRatio;
+    private final SearchIndex index;
+
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean catchingUp = new AtomicBoolean();
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long savedChanges;
+    private final Timer queryTimer;
+
+    public MessageSearchService(RoomStore roomStore,
+                                MessageStore messageStore,
+                                MessageHistoryService messageHistoryService,
+                                MessageArchiveService messageArchiveService,
+                                RoomAffinityRouter roomAffinityRouter,
+                                @Value("${chat.search.enabled:true}") boolean enabled,
+                                @Value("${chat.search.dir:data/search}") String dir,
+                                @Value("${chat.search.page-size:20}") int defaultPageSize,
+                                @Value("${chat.search.max-page-size:100}") int maxPageSize,
+                                @Value("${chat.search.scan-page-size:500}") int scanPageSize,
+                                @Value("${chat.search.compact-deleted-ratio:0.1}") double compactDeletedRatio,
+                                MeterRegistry meterRegistry) {
+        this.roomStore = roomStore;
+        this.messageStore = messageStore;
+        this.messageHistoryService = messageHistoryService;
+        this.messageArchiveService = messageArchiveService;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.enabled = enabled;
+        this.snapshot = Paths.get(dir).resolve(SNAPSHOT);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.scanPageSize = scanPageSize;
+        this.compactDeletedRatio = compactDeletedRatio;
+        this.index = enabled ? loadSnapshot() : new SearchIndex();
+
+        this.queryTimer = Timer.builder("chat.search.query")
+                .description("Latency of a search, hit resolution included").register(meterRegistry);
+        Gauge.builder("chat.search.docs", index, SearchIndex::size)
+                .description("Messages in the search index").register(meterRegistry);
+    }
+
+    private SearchIndex loadSnapshot() {
+        if (!Files.exists(snapshot)) return new SearchIndex();
+        long started = System.nanoTime();
+        try {
+            SearchIndex loaded = SearchIndex.load(snapshot);
+            System.out.println("🔎 Loaded search index (" + loaded.size() + " messages) in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️ Search index snapshot unreadable, rebuilding: " + e.getMessage());
+            return new SearchIndex();
+        }
+    }
+
+    // =====================================================
+    // ✍️ INDEXING
+    // =====================================================
+
+    /** Called from the send path once the message is stored. */
+    public void index(ChatMessage message) {
+        if (!enabled || message.getId() == null || message.getRoomId() == null) return;
+        if (index.add(message.getId(), message.getRoomId(), message.getTimestamp(), message.getContent())) {
+            changes.incrementAndGet();
+        }
+    }
+
+    /** Called by retention for messages it deleted. */
+    public void remove(Collection<String> messageIds) {
+        if (!enabled || messageIds.isEmpty()) return;
+        if (index.remove(messageIds) > 0) changes.incrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        catchUp(roomId -> true);
+    }
+
+    /** Picks up messages of rooms whose sends went through other nodes. */
+    @Scheduled(fixedDelayString = "${chat.search.refresh-interval-ms:60000}",
+               initialDelayString = "${chat.search.refresh-interval-ms:60000}")
+    public void refresh() {
+        catchUp(roomId -> !roomAffinityRouter.isLocal(roomId));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.search.snapshot-interval-ms:300000}",
+               initialDelayString = "${chat.search.snapshot-interval-ms:300000}")
+    public void scheduleSnapshot() {
+        if (enabled) indexer.execute(this::saveSnapshot);
+    }
+
+    private void catchUp(Predicate<String> rooms) {
+        if (!enabled || !catchingUp.compareAndSet(false, true)) return;
+        indexer.execute(() -> {
+            long started = System.nanoTime();
+            long added = 0;
+            try {
+                String after = null;
+                List<String> ids;
+                do {
+                    ids = roomStore.findIdsAfter(after, ROOM_PAGE);
+                    for (String roomId : ids) {
+                        if (Thread.currentThread().isInterrupted()) return;
+                        if (rooms.test(roomId)) added += catchUpRoom(roomId);
+                    }
+                    if (!ids.isEmpty()) after = ids.get(ids.size() - 1);
+                } while (ids.size() == ROOM_PAGE);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Search index catch-up failed: " + e.getMessage());
+            } finally {
+                catchingUp.set(false);
+            }
+            if (added > 0) {
+                System.out.println("🔎 Indexed " + added + " message(s) in "
+                        + (System.nanoTime() - started) / 1_000_000 + " ms");
+            }
+        });
+    }
+
+    /** Walks the room's history newest first until a whole page is already indexed. */
+    private long catchUpRoom(String roomId) {
+        long added = 0;
+        List<ChatMessage> page = messageHistoryService.scan(roomId, null, scanPageSize);
+        while (!page.isEmpty()) {
+            int fresh = 0;
+            for (ChatMessage m : page) {
+                if (m.getId() != null && index.add(m.getId(), roomId, m.getTimestamp(), m.getContent())) fresh++;
+            }
+            added += fresh;
+            if (fresh == 0 || page.size() < scanPageSize) break;
+            page = messageHistoryService.scan(roomId, page.get(page.size() - 1).getTimestamp(), scanPageSize);
+        }
+        if (added > 0) changes.addAndGet(added);
+        return added;
+    }
+
+    private void saveSnapshot() {
+        long current = changes.get();
+        if (current == savedChanges) return;
+        int dropped = index.compact(compactDeletedRatio);
+        if (dropped > 0) System.out.println("🔎 Compacted " + dropped + " deleted message(s) out of the search index");
+        try {
+            index.save(snapshot);
+            savedChanges = current;
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not write search index snapshot: " + e.getMessage());
+        }
+    }
+
+    // =====================================================
+    // 🔍 QUERIES
+    // =====================================================
+
+    /**
+     * One page of messages matching every word of {@code query}, best first, from the rooms
+     * {@code username} belongs to (or just {@code roomId} when given).
+     */
+    public Map<String, Object> search(String username, String query, String roomId, Integer page, Integer size) {
+        if (!enabled) throw new RuntimeException("Search is disabled");
+        if (query == null || query.isBlank()) throw new RuntimeException("Query is required");
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+
+        return queryTimer.record(() -> {
+            Set<String> scope = new HashSet<>();
+            for (ChatRoom room : roomStore.findByMembersContaining(username)) scope.add(room.getId());
+            if (roomId != null) {
+                if (!scope.contains(roomId)) throw new RuntimeException("Not a member of this room");
+                scope = Set.of(roomId);
+            }
+
+            SearchIndex.Page hits = index.search(query, scope, pageNumber * pageSize, pageSize);
+            return Map.of(
+                    "total", hits.total(),
+                    "page", pageNumber,
+                    "size", pageSize,
+                    "results", resolve(hits.hits())
+            );
+        });
+    }
+
+    private List<Map<String, Object>> resolve(List<SearchIndex.Hit> hits) {
+        Map<String, ChatMessage> found = new HashMap<>();
+        for (ChatMessage m : messageStore.findAllById(hits.stream().map(SearchIndex.Hit::messageId).toList())) {
+            found.put(m.getId(), m);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(hits.size());
+        for (SearchIndex.Hit hit : hits) {
+            ChatMessage message = found.get(hit.messageId());
+            if (message == null) {
+                message = messageArchiveService.findArchived(hit.roomId(), hit.messageId(), hit.timestamp()).orElse(null);
+            }
+            if (message == null) {
+                index.remove(hit.messageId());
+                changes.incrementAndGet();
+                continue;
+            }
+            results.add(Map.of("message", message, "score", hit.score()));
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        indexer.shutdownNow();
+        // let a snapshot already being written finish before writing the final one
+        indexer.awaitTermination(10, TimeUnit.SECONDS);
+        if (enabled) saveSnapshot();
+    }
+}
@@ -0,0 +1,110 @@
+package com.application.chat.search;
+
+import java.util.Arrays;
+
+/**
+ * The documents containing one term, in ascending doc order, stored as varint pairs of
+ * (doc gap, term frequency). Most gaps fit in one or two bytes, so a posting costs about
+ * 2-3 bytes instead of the 8 of a plain int pair.
+ *
+ * Append-only: bytes below {@link #size()} never change and growing copies into a new array,
+ * so a reader that captured {@code (bytes(), size())} under the index lock can keep decoding
+ * them after the lock is released (snapshots rely on this).
+ */
+final class PostingList {
+
+    private byte[] bytes;
+    private int size;
+    private int count;
+    private int lastDoc = -1;
+
+    PostingList() {
+        this.bytes = new byte[8];
+    }
+
+    PostingList(byte[] bytes, int count, int lastDoc) {
+        this.bytes = bytes;
+        this.size = bytes.length;
+        this.count = count;
+        this.lastDoc = lastDoc;
+    }
+
+    /** {@code doc} must be greater than every doc added before. */
+    void add(int doc, int frequency) {
+        if (doc <= lastDoc) throw new IllegalArgumentException("Postings must be added in doc order");
+        ensureCapacity(10);
+        size = writeVarint(bytes, size, doc - lastDoc);
+        size = writeVarint(bytes, size, frequency);
+        lastDoc = doc;
+        count++;
+    }
+
+    /** Number of documents (the term's document frequency). */
+    int count() { return count; }
+
+    int lastDoc() { return lastDoc; }
+
+    byte[] bytes() { return bytes; }
+
+    int size() { return size; }
+
+    Cursor cursor() {
+        return new Cursor(bytes, size);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    /** Forward-only decoder over a captured (bytes, size) view. */
+    static final class Cursor {
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+        private int doc = -1;
+        private int frequency;
+
+        Cursor(byte[] bytes, int end) {
+            this.bytes = bytes;
+            this.end = end;
+        }
+
+        /** Moves to the next posting; false once exhausted. */
+        boolean next() {
+            if (pos >= end) return false;
+            doc += readVarint();
+            frequency = readVarint();
+            return true;
+        }
+
+        /** Moves to the first posting with a doc of at least {@code target}. */
+        boolean advance(int target) {
+            while (doc < target) {
+                if (!next()) return false;
+            }
+            return true;
+        }
+
+        int doc() { return doc; }
+
+        int frequency() { return frequency; }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+}
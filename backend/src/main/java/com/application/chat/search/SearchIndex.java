@@ -0,0 +1,390 @@
+package com.application.chat.search;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over message content.
+ *
+ * Every message gets a dense doc number in the order it was added; each term maps to a
+ * compressed {@link PostingList} of the docs containing it. Per-doc columns (message id,
+ * room, timestamp in epoch nanos, length) live in parallel arrays. A query is the conjunction of its terms,
+ * walked rarest term first, restricted to the caller's rooms and ranked by BM25 with newer
+ * messages first on ties.
+ *
+ * Deletes only mark the doc; its postings stay until {@link #compact} renumbers the live docs
+ * and rewrites the postings without the dead ones. Adds, deletes and compaction take the
+ * write lock, queries and snapshots the read lock.
+ */
+public class SearchIndex {
+
+    private static final int MAGIC = 0x43534931; // "CSI1"
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public record Hit(String messageId, String roomId, Instant timestamp, double score) {}
+
+    public record Page(long total, List<Hit> hits) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docsByMessageId = new HashMap<>();
+    private String[] messageIds = new String[1024];
+    private int[] rooms = new int[1024];
+    private long[] timestamps = new long[1024];
+    private int[] lengths = new int[1024];
+    private int docCount;
+    private BitSet deleted = new BitSet();
+    private int liveDocs;
+    private long liveLength;
+
+    private final List<String> roomIds = new ArrayList<>();
+    private final Map<String, Integer> roomOrdinals = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    // =====================================================
+    // ✍️ WRITES
+    // =====================================================
+
+    /** Indexes the message unless it is already indexed; returns whether it was added. */
+    public boolean add(String messageId, String roomId, Instant timestamp, String content) {
+        List<String> tokens = Tokenizer.tokens(content);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) frequencies.merge(token, 1, Integer::sum);
+
+        lock.writeLock().lock();
+        try {
+            if (docsByMessageId.containsKey(messageId)) return false;
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            docsByMessageId.put(messageId, doc);
+            messageIds[doc] = messageId;
+            rooms[doc] = roomOrdinal(roomId);
+            timestamps[doc] = timestamp == null ? 0 : timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano();
+            lengths[doc] = tokens.size();
+            liveDocs++;
+            liveLength += tokens.size();
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new PostingList()).add(doc, tf));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Hides the message from results. */
+    public void remove(String messageId) {
+        remove(List.of(messageId));
+    }
+
+    /** Hides the messages from results; returns how many were indexed and still live. */
+    public int remove(Collection<String> messageIds) {
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            for (String messageId : messageIds) {
+                Integer doc = docsByMessageId.get(messageId);
+                if (doc == null || deleted.get(doc)) continue;
+                deleted.set(doc);
+                liveDocs--;
+                liveLength -= lengths[doc];
+                removed++;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops deleted docs for good once they make up at least {@code minDeletedRatio} of the
+     * index: live docs are renumbered in order, every posting list is rewritten without the
+     * dead ones and their message ids are forgotten. Returns how many docs were dropped.
+     *
+     * New arrays and posting lists are built rather than changed in place, so a snapshot
+     * still writing a view it took earlier is unaffected.
+     */
+    public int compact(double minDeletedRatio) {
+        lock.writeLock().lock();
+        try {
+            int dead = deleted.cardinality();
+            if (dead == 0 || dead < minDeletedRatio * docCount) return 0;
+
+            int[] remap = new int[docCount];
+            int capacity = Math.max(1024, liveDocs);
+            String[] liveIds = new String[capacity];
+            int[] liveRooms = new int[capacity];
+            long[] liveTimestamps = new long[capacity];
+            int[] liveLengths = new int[capacity];
+            int live = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                    continue;
+                }
+                remap[doc] = live;
+                liveIds[live] = messageIds[doc];
+                liveRooms[live] = rooms[doc];
+                liveTimestamps[live] = timestamps[doc];
+                liveLengths[live] = lengths[doc];
+                live++;
+            }
+
+            Iterator<Map.Entry<String, PostingList>> terms = postings.entrySet().iterator();
+            while (terms.hasNext()) {
+                Map.Entry<String, PostingList> term = terms.next();
+                PostingList kept = new PostingList();
+                PostingList.Cursor cursor = term.getValue().cursor();
+                while (cursor.next()) {
+                    int doc = remap[cursor.doc()];
+                    if (doc >= 0) kept.add(doc, cursor.frequency());
+                }
+                if (kept.count() == 0) terms.remove();
+                else term.setValue(kept);
+            }
+
+            docsByMessageId.clear();
+            for (int doc = 0; doc < live; doc++) docsByMessageId.put(liveIds[doc], doc);
+            messageIds = liveIds;
+            rooms = liveRooms;
+            timestamps = liveTimestamps;
+            lengths = liveLengths;
+            docCount = live;
+            deleted = new BitSet();
+            return dead;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String messageId) {
+        lock.readLock().lock();
+        try {
+            return docsByMessageId.containsKey(messageId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int roomOrdinal(String roomId) {
+        return roomOrdinals.computeIfAbsent(roomId, id -> {
+            roomIds.add(id);
+            return roomIds.size() - 1;
+        });
+    }
+
+    private void ensureCapacity(int docs) {
+        if (docs <= messageIds.length) return;
+        int capacity = Math.max(messageIds.length * 2, docs);
+        messageIds = Arrays.copyOf(messageIds, capacity);
+        rooms = Arrays.copyOf(rooms, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    // =====================================================
+    // 🔍 QUERIES
+    // =====================================================
+
+    /**
+     * Messages in {@code roomScope} containing every term of {@code query}, best first.
+     * {@code total} counts all matches, not only the returned page.
+     */
+    public Page search(String query, Collection<String> roomScope, int offset, int limit) {
+        List<String> terms = Tokenizer.tokens(query).stream().distinct().toList();
+        if (terms.isEmpty() || roomScope.isEmpty() || limit <= 0) return new Page(0, List.of());
+
+        lock.readLock().lock();
+        try {
+            BitSet allowedRooms = new BitSet();
+            for (String roomId : roomScope) {
+                Integer ordinal = roomOrdinals.get(roomId);
+                if (ordinal != null) allowedRooms.set(ordinal);
+            }
+            if (allowedRooms.isEmpty()) return new Page(0, List.of());
+
+            PostingList[] lists = new PostingList[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) return new Page(0, List.of());
+            }
+            Arrays.sort(lists, Comparator.comparingInt(PostingList::count));
+
+            double[] idf = new double[lists.length];
+            PostingList.Cursor[] cursors = new PostingList.Cursor[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + (liveDocs - lists[i].count() + 0.5) / (lists[i].count() + 0.5));
+                cursors[i] = lists[i].cursor();
+            }
+            double avgLength = liveDocs == 0 ? 1 : Math.max(1.0, (double) liveLength / liveDocs);
+
+            int keep = offset + limit;
+            PriorityQueue<Scored> top = new PriorityQueue<>(keep + 1, Scored.WORST_FIRST);
+            long total = 0;
+
+            PostingList.Cursor lead = cursors[0];
+            outer:
+            while (lead.next()) {
+                int target = lead.doc();
+                for (int i = 1; i < cursors.length; i++) {
+                    PostingList.Cursor c = cursors[i];
+                    if (!c.advance(target)) break outer;
+                    if (c.doc() > target) {
+                        // Leapfrog: move the rarest list up to this candidate and check again
+                        if (!lead.advance(c.doc())) break outer;
+                        target = lead.doc();
+                        i = 0;
+                    }
+                }
+                if (deleted.get(target) || !allowedRooms.get(rooms[target])) continue;
+
+                double norm = K1 * (1 - B + B * lengths[target] / avgLength);
+                double score = 0;
+                for (int i = 0; i < cursors.length; i++) {
+                    int tf = cursors[i].frequency();
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                total++;
+                top.add(new Scored(target, score, timestamps[target]));
+                if (top.size() > keep) top.poll();
+            }
+
+            List<Scored> ranked = new ArrayList<>(top);
+            ranked.sort(Scored.WORST_FIRST.reversed());
+            List<Hit> hits = new ArrayList<>(Math.max(0, ranked.size() - offset));
+            for (int i = offset; i < ranked.size(); i++) {
+                Scored s = ranked.get(i);
+                hits.add(new Hit(messageIds[s.doc], roomIds.get(rooms[s.doc]),
+                        Instant.ofEpochSecond(0, s.timestamp), s.score));
+            }
+            return new Page(total, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Scored(int doc, double score, long timestamp) {
+        static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+                .thenComparingLong(Scored::timestamp);
+    }
+
+    // =====================================================
+    // 💾 SNAPSHOTS
+    // =====================================================
+
+    /**
+     * Writes the index to {@code file} (via a temp file and an atomic rename). Only a cheap
+     * view is taken under the read lock; the append-only arrays are written after releasing
+     * it, so writers are not held up for the duration of the disk write.
+     */
+    public void save(Path file) throws IOException {
+        int docs;
+        String[] ids;
+        int[] docRooms;
+        long[] docTimestamps;
+        int[] docLengths;
+        BitSet deletedDocs;
+        List<String> roomList;
+        List<TermView> terms;
+
+        lock.readLock().lock();
+        try {
+            docs = docCount;
+            ids = messageIds;
+            docRooms = rooms;
+            docTimestamps = timestamps;
+            docLengths = lengths;
+            deletedDocs = (BitSet) deleted.clone();
+            roomList = List.copyOf(roomIds);
+            terms = new ArrayList<>(postings.size());
+            postings.forEach((term, list) ->
+                    terms.add(new TermView(term, list.bytes(), list.size(), list.count(), list.lastDoc())));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(docs);
+            for (int doc = 0; doc < docs; doc++) {
+                out.writeUTF(ids[doc]);
+                out.writeInt(docRooms[doc]);
+                out.writeLong(docTimestamps[doc]);
+                out.writeInt(docLengths[doc]);
+            }
+            long[] deletedWords = deletedDocs.toLongArray();
+            out.writeInt(deletedWords.length);
+            for (long word : deletedWords) out.writeLong(word);
+            out.writeInt(roomList.size());
+            for (String roomId : roomList) out.writeUTF(roomId);
+            out.writeInt(terms.size());
+            for (TermView term : terms) {
+                out.writeUTF(term.term());
+                out.writeInt(term.count());
+                out.writeInt(term.lastDoc());
+                out.writeInt(term.size());
+                out.write(term.bytes(), 0, term.size());
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** A posting list frozen under the lock: {@code count} and {@code lastDoc} move on append. */
+    private record TermView(String term, byte[] bytes, int size, int count, int lastDoc) {}
+
+    /** Reads an index written by {@link #save}. */
+    public static SearchIndex load(Path file) throws IOException {
+        SearchIndex index = new SearchIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a search index: " + file);
+            int docs = in.readInt();
+            index.ensureCapacity(docs);
+            for (int doc = 0; doc < docs; doc++) {
+                index.messageIds[doc] = in.readUTF();
+                index.rooms[doc] = in.readInt();
+                index.timestamps[doc] = in.readLong();
+                index.lengths[doc] = in.readInt();
+                index.docsByMessageId.put(index.messageIds[doc], doc);
+            }
+            index.docCount = docs;
+            long[] deletedWords = new long[in.readInt()];
+            for (int i = 0; i < deletedWords.length; i++) deletedWords[i] = in.readLong();
+            index.deleted = BitSet.valueOf(deletedWords);
+            int roomCount = in.readInt();
+            for (int i = 0; i < roomCount; i++) index.roomOrdinal(in.readUTF());
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                int count = in.readInt();
+                int lastDoc = in.readInt();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                index.postings.put(term, new PostingList(bytes, count, lastDoc));
+            }
+        }
+        for (int doc = 0; doc < index.docCount; doc++) {
+            if (index.deleted.get(doc)) continue;
+            index.liveDocs++;
+            index.liveLength += index.lengths[doc];
+        }
+        return index;
+    }
+}
@@ -0,0 +1,38 @@
+package com.application.chat.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits message text into index terms: NFKC-normalized, lower-cased runs of letters and
+ * digits. Messages and queries go through the same rules, so "Café", "CAFÉ" and "café"
+ * all match.
+ */
+final class Tokenizer {
+
+    static final int MAX_TERM_LENGTH = 40;
+
+    private Tokenizer() {}
+
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); ) {
+            int cp = i < normalized.length() ? normalized.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(cp)) {
+                if (start < 0) start = i;
+            } else if (start >= 0) {
+                // Very long runs are hashes, URLs or base64, nobody searches for those
+                if (i - start <= MAX_TERM_LENGTH) tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+            i += i < normalized.length() ? Character.charCount(cp) : 1;
+        }
+        return tokens;
+    }
+}
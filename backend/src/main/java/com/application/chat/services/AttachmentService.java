@@ -0,0 +1,341 @@
+package com.application.chat.services;
+
+import com.application.chat.models.Attachment;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.repositories.AttachmentRepository;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import com.application.chat.storage.RoomStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 📎 Chunked, resumable attachment uploads stored in GridFS.
+ *
+ * The client declares the file size up front and gets an upload id, a chunk size and a
+ * chunk count. Each chunk is streamed straight from the request into its own GridFS file
+ * (GridFS itself buffers one 255 KB GridFS chunk at a time), so no request holds more than
+ * that in heap. Chunks can arrive in any order and be resent; the upload is sealed by
+ * {@link #complete}. Messages then reference it through {@link ChatMessage#getAttachmentIds()}.
+ * Only available with Mongo storage, since the bytes live in GridFS.
+ *
+ * Uploads go to a room the uploader is a member of. Any well-formed content type is
+ * accepted, but only those in {@code chat.attachments.inline-types} are shown inline on
+ * download; everything else (HTML, SVG, scripts...) is served as a file download.
+ */
+@Service
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class AttachmentService {
+
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    private final GridFsTemplate gridFsTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final AttachmentRepository attachmentRepository;
+    private final RoomStore roomStore;
+    private final long maxSize;
+    private final int chunkSize;
+    private final long uploadTtlHours;
+    private final Set<String> inlineTypes;
+
+    public AttachmentService(GridFsTemplate gridFsTemplate,
+                             MongoTemplate mongoTemplate,
+                             AttachmentRepository attachmentRepository,
+                             RoomStore roomStore,
+                             @Value("${chat.attachments.max-size:26214400}") long maxSize,
+                             @Value("${chat.attachments.chunk-size:1048576}") int chunkSize,
+                             @Value("${chat.attachments.upload-ttl-hours:24}") long uploadTtlHours,
+                             @Value("${chat.attachments.inline-types:image/png,image/jpeg,image/gif,image/webp,video/mp4,audio/mpeg,application/pdf,text/plain}") List<String> inlineTypes) {
+        this.gridFsTemplate = gridFsTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.attachmentRepository = attachmentRepository;
+        this.roomStore = roomStore;
+        this.maxSize = maxSize;
+        this.chunkSize = chunkSize;
+        this.uploadTtlHours = uploadTtlHours;
+        this.inlineTypes = new HashSet<>(inlineTypes);
+    }
+
+    // =====================================================
+    // 📤 UPLOAD
+    // =====================================================
+
+    public Attachment create(String owner, String roomId, String filename, String contentType, long size) {
+        if (size <= 0) throw new RuntimeException("Attachment size must be positive");
+        if (size > maxSize) throw new RuntimeException("Attachment exceeds the " + maxSize + " byte limit");
+        if (roomId != null && !roomStore.findById(roomId)
+                .map(ChatRoom::getMembers)
+                .map(members -> members.contains(owner))
+                .orElse(false)) {
+            throw new RuntimeException("Not a member of this room");
+        }
+        MediaType type = parseContentType(contentType);
+
+        int chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+
+        Attachment attachment = new Attachment();
+        attachment.setOwnerUsername(owner);
+        attachment.setRoomId(roomId);
+        attachment.setFilename(filename != null && !filename.isBlank() ? filename : "attachment");
+        attachment.setContentType(type.toString());
+        attachment.setSize(size);
+        attachment.setChunkSize(chunkSize);
+        attachment.setChunkCount(chunkCount);
+        attachment.setChunkFileIds(new ArrayList<>(Collections.nCopies(chunkCount, null)));
+        attachment.setChunkLengths(new ArrayList<>(Collections.nCopies(chunkCount, 0L)));
+        attachment.setCreatedAt(Instant.now());
+        return attachmentRepository.save(attachment);
+    }
+
+    /** Whether the attachment's type may be rendered by the browser rather than downloaded. */
+    public boolean isInline(Attachment attachment) {
+        try {
+            MediaType type = MediaType.parseMediaType(attachment.getContentType());
+            return inlineTypes.contains(type.getType() + "/" + type.getSubtype());
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static MediaType parseContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) return MediaType.APPLICATION_OCTET_STREAM;
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            if (type.isWildcardType() || type.isWildcardSubtype()) throw new RuntimeException("Invalid content type: " + contentType);
+            return type;
+        } catch (InvalidMediaTypeException e) {
+            throw new RuntimeException("Invalid content type: " + contentType);
+        }
+    }
+
+    /** Streams one chunk into GridFS. Resending an index replaces the earlier copy. */
+    public Attachment storeChunk(String id, String owner, int index, InputStream body) {
+        Attachment attachment = getOwned(id, owner);
+        if (attachment.getStatus() != Attachment.Status.UPLOADING) {
+            throw new RuntimeException("Attachment already completed");
+        }
+        if (index < 0 || index >= attachment.getChunkCount()) {
+            throw new RuntimeException("Chunk index out of range: " + index);
+        }
+
+        long expected = expectedChunkLength(attachment, index);
+        CountingInputStream counted = new CountingInputStream(body, expected);
+        Document metadata = new Document("attachmentId", id).append("index", index);
+        ObjectId fileId = gridFsTemplate.store(counted, id + "." + index, attachment.getContentType(), metadata);
+
+        if (counted.count != expected) {
+            gridFsTemplate.delete(byId(fileId));
+            throw new RuntimeException("Chunk " + index + " must be " + expected + " bytes, got " + counted.count);
+        }
+
+        // Positional update so parallel chunk uploads never overwrite each other's slots
+        Update update = new Update()
+                .set("chunkFileIds." + index, fileId.toHexString())
+                .set("chunkLengths." + index, counted.count);
+        Attachment before = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("status").is(Attachment.Status.UPLOADING)),
+                update, Attachment.class);
+        if (before == null) {
+            gridFsTemplate.delete(byId(fileId));
+            throw new RuntimeException("Attachment already completed");
+        }
+
+        String replaced = before.getChunkFileIds().get(index);
+        if (replaced != null) gridFsTemplate.delete(byId(new ObjectId(replaced)));
+
+        return mongoTemplate.findById(id, Attachment.class);
+    }
+
+    public Attachment complete(String id, String owner) {
+        Attachment attachment = getOwned(id, owner);
+        if (attachment.getStatus() == Attachment.Status.COMPLETE) return attachment;
+
+        List<Integer> missing = attachment.missingChunks();
+        if (!missing.isEmpty()) throw new RuntimeException("Missing chunks: " + missing);
+
+        Attachment completed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("status").is(Attachment.Status.UPLOADING)),
+                new Update().set("status", Attachment.Status.COMPLETE).set("completedAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                Attachment.class);
+        return completed != null ? completed : getOrThrow(id);
+    }
+
+    // =====================================================
+    // 📥 DOWNLOAD
+    // =====================================================
+
+    /** Completed attachment the user may read: the uploader, or a member of the room it was shared in. */
+    public Attachment getReadable(String id, String username) {
+        Attachment attachment = getOrThrow(id);
+        if (attachment.getStatus() != Attachment.Status.COMPLETE) throw new RuntimeException("Attachment not found");
+        if (username.equals(attachment.getOwnerUsername())) return attachment;
+
+        boolean member = attachment.getRoomId() != null && roomStore.findById(attachment.getRoomId())
+                .map(ChatRoom::getMembers)
+                .map(members -> members.contains(username))
+                .orElse(false);
+        if (!member) throw new RuntimeException("Attachment not found");
+        return attachment;
+    }
+
+    /** Upload state for the uploader, or for readers once it's complete. */
+    public Attachment getOwnedOrReadable(String id, String username) {
+        Attachment attachment = getOrThrow(id);
+        return username.equals(attachment.getOwnerUsername()) ? attachment : getReadable(id, username);
+    }
+
+    /** Writes bytes [start, endInclusive] by streaming only the GridFS chunk files that overlap them. */
+    public void copyRange(Attachment attachment, long start, long endInclusive, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER];
+        long chunk = attachment.getChunkSize();
+
+        for (int i = (int) (start / chunk); i < attachment.getChunkCount(); i++) {
+            long chunkStart = i * chunk;
+            if (chunkStart > endInclusive) break;
+
+            long skip = Math.max(0, start - chunkStart);
+            long remaining = Math.min(chunkStart + attachment.getChunkLengths().get(i) - 1, endInclusive)
+                    - (chunkStart + skip) + 1;
+
+            GridFSFile file = gridFsTemplate.findOne(byId(new ObjectId(attachment.getChunkFileIds().get(i))));
+            if (file == null) throw new IOException("Chunk " + i + " of " + attachment.getId() + " is missing");
+
+            try (InputStream in = gridFsTemplate.getResource(file).getInputStream()) {
+                in.skipNBytes(skip);
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) throw new IOException("Chunk " + i + " of " + attachment.getId() + " is truncated");
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+    }
+
+    // =====================================================
+    // 💬 MESSAGE REFERENCES
+    // =====================================================
+
+    /** A message may only reference completed uploads of its sender, shared in the same room. */
+    public void requireUsable(ChatMessage message) {
+        List<String> ids = message.getAttachmentIds();
+        if (ids == null || ids.isEmpty()) return;
+
+        for (String id : ids) {
+            Attachment attachment = getOrThrow(id);
+            if (attachment.getStatus() != Attachment.Status.COMPLETE) {
+                throw new RuntimeException("Attachment not completed: " + id);
+            }
+            if (!Objects.equals(attachment.getOwnerUsername(), message.getSenderUsername())) {
+                throw new RuntimeException("Attachment belongs to another user: " + id);
+            }
+            if (attachment.getRoomId() == null) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id).and("roomId").is(null)),
+                        new Update().set("roomId", message.getRoomId()), Attachment.class);
+            } else if (!attachment.getRoomId().equals(message.getRoomId())) {
+                throw new RuntimeException("Attachment belongs to another room: " + id);
+            }
+        }
+    }
+
+    // =====================================================
+    // 🧹 ABANDONED UPLOADS / EXPIRED MESSAGES
+    // =====================================================
+
+    @Scheduled(fixedDelayString = "${chat.attachments.cleanup-interval-ms:3600000}")
+    public void purgeAbandoned() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(uploadTtlHours));
+        List<Attachment> stale = mongoTemplate.find(Query.query(Criteria.where("status").is(Attachment.Status.UPLOADING)
+                .and("createdAt").lt(cutoff)), Attachment.class);
+        for (Attachment attachment : stale) delete(attachment);
+        if (!stale.isEmpty()) System.out.println("🧹 Purged " + stale.size() + " abandoned upload(s)");
+    }
+
+    /** Deletes the attachments and their GridFS chunks (retention, with the messages that referenced them). */
+    public void deleteAll(Collection<String> ids) {
+        if (ids.isEmpty()) return;
+        for (Attachment attachment : attachmentRepository.findAllById(ids)) delete(attachment);
+    }
+
+    private void delete(Attachment attachment) {
+        for (String fileId : attachment.getChunkFileIds()) {
+            if (fileId != null) gridFsTemplate.delete(byId(new ObjectId(fileId)));
+        }
+        attachmentRepository.deleteById(attachment.getId());
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private Attachment getOrThrow(String id) {
+        return attachmentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Attachment not found"));
+    }
+
+    private Attachment getOwned(String id, String owner) {
+        Attachment attachment = getOrThrow(id);
+        if (!attachment.getOwnerUsername().equals(owner)) throw new RuntimeException("Attachment not found");
+        return attachment;
+    }
+
+    private static long expectedChunkLength(Attachment attachment, int index) {
+        long start = (long) index * attachment.getChunkSize();
+        return Math.min(attachment.getChunkSize(), attachment.getSize() - start);
+    }
+
+    private static Query byId(ObjectId id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    /** Counts bytes and fails the GridFS upload (which then removes its chunks) past the limit. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        long count;
+
+        CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) advance(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) advance(n);
+            return n;
+        }
+
+        private void advance(long n) throws IOException {
+            count += n;
+            if (count > limit) throw new IOException("Chunk larger than " + limit + " bytes");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.application.chat.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 🧮 Coalesces /user/queue/chats pushes.
+ *
+ * A group mutation only marks its members as stale. The first mark of a user schedules one
+ * push {@code debounce-ms} later, and further marks within that window are absorbed. The
+ * payload is computed when the push goes out, so it always carries the latest state:
+ * adding 20 members one by one costs each member one chat-list push instead of 20.
+ *
+ * There is no timer per user. Every window has the same length, so deadlines come out in
+ * the order users were marked; they sit in one FIFO queue that a single ticker thread
+ * drains every {@code tick-ms}. A mark is O(1) and the timer cost stays the same for any
+ * number of users.
+ *
+ * The ticker only decides who is due. Computing a payload reads rooms and history, so the
+ * pushes run on a small pool ({@code push-threads}), or on virtual threads in virtual-thread
+ * mode, and one slow chat list does not hold up everyone else's. A user has at most one
+ * push in flight; one that comes due meanwhile waits another window, so pushes never
+ * overtake each other.
+ */
+@Service
+public class ChatListPushCoalescer implements DisposableBean {
+
+    private record Pending(String username, long due) {}
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long debounceNanos;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "chat-list-push");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService pushes;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile Function<String, Object> payload = username -> null;
+
+    // 📊 marks vs. pushes actually sent
+    private final Counter requested;
+    private final Counter pushed;
+
+    public ChatListPushCoalescer(SimpMessagingTemplate messagingTemplate,
+                                 @Value("${chat.chat-list.debounce-ms:250}") long debounceMs,
+                                 @Value("${chat.chat-list.tick-ms:50}") long tickMs,
+                                 @Value("${chat.chat-list.push-threads:4}") int pushThreads,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                 MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMs);
+        if (virtualThreads) {
+            this.pushes = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-list-push-", 0).factory());
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(pushThreads, pushThreads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), // at most one queued push per user
+                    r -> {
+                        Thread t = new Thread(r, "chat-list-push-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.pushes = pool;
+        }
+
+        this.requested = Counter.builder("chat.chatlist.requested")
+                .description("Chat-list updates requested by group changes").register(meterRegistry);
+        this.pushed = Counter.builder("chat.chatlist.pushed")
+                .description("Chat-list payloads actually pushed").register(meterRegistry);
+        Gauge.builder("chat.chatlist.pending", pending, Set::size)
+                .description("Users waiting for a chat-list push").register(meterRegistry);
+
+        ticker.scheduleWithFixedDelay(() -> flushDue(System.nanoTime()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Computes a user's chat list at push time (set by ChatService). */
+    public void setPayload(Function<String, Object> payload) {
+        this.payload = payload;
+    }
+
+    /** Marks the user's chat list as changed; the push follows within the debounce window. */
+    public void request(String username) {
+        requested.increment();
+        if (pending.add(username)) queue.add(new Pending(username, System.nanoTime() + debounceNanos));
+    }
+
+    /** Hands out a push for every user whose window has closed by {@code now} (System.nanoTime()). */
+    void flushDue(long now) {
+        Pending head;
+        while ((head = queue.peek()) != null && head.due() - now <= 0) {
+            queue.poll();
+            String username = head.username();
+            if (!inFlight.add(username)) {
+                // the previous push is still running: stay marked and look again a window later
+                queue.add(new Pending(username, now + debounceNanos));
+                continue;
+            }
+            // unmark first: a change from here on schedules another push rather than being lost
+            pending.remove(username);
+            try {
+                pushes.execute(() -> {
+                    try {
+                        push(username);
+                    } finally {
+                        inFlight.remove(username);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(username); // shutting down
+            }
+        }
+    }
+
+    private void push(String username) {
+        try {
+            Object chats = payload.apply(username);
+            if (chats == null) return;
+            messagingTemplate.convertAndSendToUser(username, "/queue/chats", chats);
+            pushed.increment();
+        } catch (Exception e) {
+            System.out.println("⚠️ Failed to push chat update to " + username + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+        pushes.shutdownNow();
+    }
+}
@@ -1,38 +1,83 @@
 package com.application.chat.services;
 
+import com.application.chat.cluster.RoomAffinityRouter;
 import com.application.chat.models.ChatMessage;
 import com.application.chat.models.ChatRoom;
 import com.application.chat.models.User;
-import com.application.chat.repositories.ChatMessageRepository;
-import com.application.chat.repositories.ChatRoomRepository;
-import com.application.chat.repositories.UserRepository;
+import com.application.chat.search.MessageSearchService;
+import com.application.chat.storage.MessageStore;
+import com.application.chat.storage.RoomStore;
+import com.application.chat.storage.UserStore;
 import com.application.chat.config.JwtUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class ChatService {
 
-    private final ChatRoomRepository chatRoomRepository;
-    private final ChatMessageRepository chatMessageRepository;
-    private final UserRepository userRepository;
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+
+    private final RoomStore roomStore;
+    private final MessageStore messageStore;
+    private final MessageHistoryService messageHistoryService;
+    private final UserStore userStore;
     private final SimpMessagingTemplate messagingTemplate;
     private final JwtUtils jwtUtils;
-
-    public ChatService(ChatRoomRepository chatRoomRepository,
-                       ChatMessageRepository chatMessageRepository,
-                       UserRepository userRepository,
+    private final RoomStateService roomStateService;
+    private final OfflineMailboxService offlineMailboxService;
+    private final ObjectProvider<AttachmentService> attachmentService;
+    private final MessageSearchService messageSearchService;
+    private final MentionService mentionService;
+    private final ChatListPushCoalescer chatListPushCoalescer;
+    private final EntityVersionService entityVersionService;
+    private final RoomBatchService roomBatchService;
+    private final SessionPrewarmService sessionPrewarmService;
+    private final IdentityCache identityCache;
+    private final RoomAffinityRouter roomAffinityRouter;
+
+    public ChatService(RoomStore roomStore,
+                       MessageStore messageStore,
+                       MessageHistoryService messageHistoryService,
+                       UserStore userStore,
                        SimpMessagingTemplate messagingTemplate,
-                       JwtUtils jwtUtils) {
-        this.chatRoomRepository = chatRoomRepository;
-        this.chatMessageRepository = chatMessageRepository;
-        this.userRepository = userRepository;
+                       JwtUtils jwtUtils,
+                       RoomStateService roomStateService,
+                       OfflineMailboxService offlineMailboxService,
+                       ObjectProvider<AttachmentService> attachmentService,
+                       MessageSearchService messageSearchService,
+                       MentionService mentionService,
+                       ChatListPushCoalescer chatListPushCoalescer,
+                       EntityVersionService entityVersionService,
+                       RoomBatchService roomBatchService,
+                       SessionPrewarmService sessionPrewarmService,
+                       IdentityCache identityCache,
+                       RoomAffinityRouter roomAffinityRouter) {
+        this.roomStore = roomStore;
+        this.messageStore = messageStore;
+        this.messageHistoryService = messageHistoryService;
+        this.userStore = userStore;
         this.messagingTemplate = messagingTemplate;
         this.jwtUtils = jwtUtils;
+        this.roomStateService = roomStateService;
+        this.offlineMailboxService = offlineMailboxService;
+        this.attachmentService = attachmentService;
+        this.messageSearchService = messageSearchService;
+        this.mentionService = mentionService;
+        this.chatListPushCoalescer = chatListPushCoalescer;
+        this.entityVersionService = entityVersionService;
+        this.roomBatchService = roomBatchService;
+        this.sessionPrewarmService = sessionPrewarmService;
+        this.identityCache = identityCache;
+        this.roomAffinityRouter = roomAffinityRouter;
+        chatListPushCoalescer.setPayload(this::getAllUserChatRooms);
+        sessionPrewarmService.setChatList(this::getAllUserChatRooms);
     }
 
     // =====================================================
@@ -40,8 +85,8 @@ public class ChatService {
     // =====================================================
 
     public ChatRoom createGroup(String groupName, String creatorIdentifier, List<String> memberInputs) {
-        User creator = userRepository.findByEmail(creatorIdentifier)
-                .or(() -> userRepository.findByUsername(creatorIdentifier))
+        User creator = userStore.findByEmail(creatorIdentifier)
+                .or(() -> userStore.findByUsername(creatorIdentifier))
                 .orElseThrow(() -> new RuntimeException("Creator not found: " + creatorIdentifier));
 
         String creatorUsername = creator.getUsername();
@@ -65,59 +110,85 @@ public class ChatService {
         group.setPrivate(false);
         group.setGroup(true);
 
-        ChatRoom saved = chatRoomRepository.save(group);
+        ChatRoom saved = roomStore.save(group);
         broadcastGroupUpdate(saved);
         return saved;
     }
 
     public ChatRoom addMembers(String groupId, List<String> inputs) {
-        ChatRoom group = getGroupById(groupId);
-        validateGroup(group);
-
-        Set<String> newMembers = new HashSet<>(group.getMembers());
-        for (String input : inputs) {
-            String username = normalizeUsername(input);
-            if (username != null) newMembers.add(username);
-        }
-
-        group.setMembers(new ArrayList<>(newMembers));
-        ChatRoom updated = chatRoomRepository.save(group);
+        ChatRoom updated = updateGroup(groupId, group -> {
+            Set<String> newMembers = new HashSet<>(group.getMembers());
+            for (String input : inputs) {
+                String username = normalizeUsername(input);
+                if (username != null) newMembers.add(username);
+            }
+            group.setMembers(new ArrayList<>(newMembers));
+        });
         broadcastGroupUpdate(updated);
         return updated;
     }
 
     public ChatRoom removeMember(String groupId, String adminUsername, String memberToRemove) {
-        ChatRoom group = getGroupById(groupId);
-        validateGroup(group);
-
-        if (!group.getAdmins().contains(adminUsername))
-            throw new RuntimeException("Only admins can remove members.");
+        ChatRoom updated = updateGroup(groupId, group -> {
+            if (!group.getAdmins().contains(adminUsername))
+                throw new RuntimeException("Only admins can remove members.");
 
-        group.getMembers().remove(memberToRemove);
-        group.getAdmins().remove(memberToRemove);
-
-        ChatRoom updated = chatRoomRepository.save(group);
+            group.getMembers().remove(memberToRemove);
+            group.getAdmins().remove(memberToRemove);
+        });
         broadcastGroupUpdate(updated);
+        // no longer a member, so not reached above: their warmed and pushed lists still show the group
+        sessionPrewarmService.invalidate(memberToRemove);
+        chatListPushCoalescer.request(memberToRemove);
         return updated;
     }
 
     public ChatRoom assignAdmin(String groupId, String adminUsername, String newAdminUsername) {
-        ChatRoom group = getGroupById(groupId);
-        validateGroup(group);
-
-        if (!group.getAdmins().contains(adminUsername))
-            throw new RuntimeException("Only admins can promote.");
-        if (!group.getMembers().contains(newAdminUsername))
-            throw new RuntimeException("New admin must be a member.");
-
-        if (!group.getAdmins().contains(newAdminUsername))
-            group.getAdmins().add(newAdminUsername);
-
-        ChatRoom updated = chatRoomRepository.save(group);
+        ChatRoom updated = updateGroup(groupId, group -> {
+            if (!group.getAdmins().contains(adminUsername))
+                throw new RuntimeException("Only admins can promote.");
+            if (!group.getMembers().contains(newAdminUsername))
+                throw new RuntimeException("New admin must be a member.");
+
+            if (!group.getAdmins().contains(newAdminUsername))
+                group.getAdmins().add(newAdminUsername);
+        });
         broadcastGroupUpdate(updated);
         return updated;
     }
 
+    /** Days the group keeps messages; 0 keeps them forever, null falls back to the default. */
+    public ChatRoom setRetention(String groupId, String adminUsername, Integer days) {
+        ChatRoom updated = updateGroup(groupId, group -> {
+            if (!group.getAdmins().contains(adminUsername))
+                throw new RuntimeException("Only admins can change retention.");
+            if (days != null && days < 0)
+                throw new RuntimeException("Retention days cannot be negative.");
+
+            group.setRetentionDays(days);
+        });
+        entityVersionService.updated(EntityVersionService.ROOM, updated.getId(), updated.getVersion());
+        return updated;
+    }
+
+    /**
+     * Reads the group, applies {@code change} and saves it. When another write got in between
+     * (the store's version check failed) the change is re-applied to a fresh copy, so
+     * concurrent edits are neither lost nor given the same version.
+     */
+    private ChatRoom updateGroup(String groupId, Consumer<ChatRoom> change) {
+        for (int attempt = 1; ; attempt++) {
+            ChatRoom group = getGroupById(groupId);
+            validateGroup(group);
+            change.accept(group);
+            try {
+                return roomStore.save(group);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) throw new RuntimeException("Group is being changed by someone else, try again.");
+            }
+        }
+    }
+
     // =====================================================
     // 💬 MESSAGE OPERATIONS
     // =====================================================
@@ -131,19 +202,34 @@ public class ChatService {
             msg.setReceiverUsername(normalizeUsername(msg.getReceiverUsername()));
         }
 
+        // ✅ Attachments are referenced by id only; the bytes stay in GridFS (Mongo storage only)
+        if (msg.getAttachmentIds() != null && !msg.getAttachmentIds().isEmpty()) {
+            AttachmentService attachments = attachmentService.getIfAvailable();
+            if (attachments == null) throw new RuntimeException("Attachments are not available with this storage");
+            attachments.requireUsable(msg);
+        }
+
+        // ✅ Per-room ordering (this node owns the room, see RoomAffinityRouter)
+        if (msg.getRoomId() != null) {
+            msg.setSequence(roomStateService.nextSequence(msg.getRoomId()));
+        }
+
         // ✅ Save message in DB
-        ChatMessage saved = chatMessageRepository.save(msg);
+        ChatMessage saved = messageStore.save(msg);
+        roomStateService.append(saved);
+        messageSearchService.index(saved);
 
         // ✅ Private Chat
         if (msg.getReceiverUsername() != null && !msg.getReceiverUsername().isEmpty()) {
             System.out.println("📩 Private message: " + msg.getSenderUsername() + " → " + msg.getReceiverUsername());
 
-            // Send to receiver
+            // Send to receiver (or keep a pointer for them if they are offline)
             messagingTemplate.convertAndSendToUser(
                     msg.getReceiverUsername(),
                     "/queue/private",
                     saved
             );
+            offlineMailboxService.recordIfOffline(msg.getReceiverUsername(), saved);
 
             // Also send to sender (for instant UI update)
             messagingTemplate.convertAndSendToUser(
@@ -157,13 +243,42 @@ public class ChatService {
         else if (msg.getRoomId() != null) {
             System.out.println("📢 Group message in room " + msg.getRoomId());
             messagingTemplate.convertAndSend("/topic/messages/" + msg.getRoomId(), saved);
+            mentionService.onMessage(saved);
         }
 
         return saved;
     }
 
     public List<ChatMessage> getMessages(String roomId) {
-        return chatMessageRepository.findByRoomIdOrderByTimestampAsc(roomId);
+        return messageHistoryService.all(roomId);
+    }
+
+    /**
+     * One page of history older than {@code before}, oldest first (hot and archived tiers).
+     * The newest page of a room this node owns comes from its recent-message cache when it can.
+     */
+    public List<ChatMessage> getMessagesPage(String roomId, Instant before, Integer limit) {
+        if (before == null && roomAffinityRouter.isLocal(roomId)) {
+            Optional<List<ChatMessage>> cached = roomStateService.cachedRecent(roomId, messageHistoryService.pageSize(limit));
+            if (cached.isPresent()) return cached.get();
+        }
+        return messageHistoryService.page(roomId, before, limit);
+    }
+
+    /** Details and newest {@code limit} messages of several of the requester's rooms at once. */
+    public Map<String, Object> getRoomsBatch(String requester, List<String> roomIds, Integer limit) {
+        return roomBatchService.load(normalizeUsername(requester), roomIds, limit);
+    }
+
+    /** Messages mentioning the requester, newest first. */
+    public List<ChatMessage> getMentions(String requester, Instant before, Integer limit) {
+        return mentionService.mentionsOf(normalizeUsername(requester), before, limit);
+    }
+
+    /** Full-text search over the requester's rooms (or one of them), best matches first. */
+    public Map<String, Object> searchMessages(String requester, String query, String roomId,
+                                              Integer page, Integer size) {
+        return messageSearchService.search(normalizeUsername(requester), query, roomId, page, size);
     }
 
     // =====================================================
@@ -181,7 +296,7 @@ public class ChatService {
     String pairKey = buildPrivateChatName(sUser, rUser);
 
     // ✅ Check if one already exists
-    Optional<ChatRoom> existing = chatRoomRepository.findByPairKey(pairKey);
+    Optional<ChatRoom> existing = roomStore.findByPairKey(pairKey);
     if (existing.isPresent()) {
         return existing.get();
     }
@@ -195,7 +310,10 @@ public class ChatService {
     room.setAdmins(Collections.emptyList());
     room.setMembers(List.of(sUser, rUser));
 
-    return chatRoomRepository.save(room);
+    ChatRoom saved = roomStore.save(room);
+    sessionPrewarmService.invalidate(sUser);
+    sessionPrewarmService.invalidate(rUser);
+    return saved;
 }
 
 
@@ -204,7 +322,7 @@ public class ChatService {
     // =====================================================
 
     public List<Map<String, Object>> getPrivateChatsForUser(String username) {
-        List<ChatRoom> all = chatRoomRepository.findByMembersContaining(username);
+        List<ChatRoom> all = roomStore.findByMembersContaining(username);
         Set<String> seen = new HashSet<>();
         List<Map<String, Object>> privateChats = new ArrayList<>();
 
@@ -232,7 +350,7 @@ public class ChatService {
     }
 
     public List<Map<String, Object>> getGroupChatsForUser(String username) {
-        List<ChatRoom> allRooms = chatRoomRepository.findByMembersContaining(username);
+        List<ChatRoom> allRooms = roomStore.findByMembersContaining(username);
 
         return allRooms.stream()
                 .filter(ChatRoom::isGroup)
@@ -246,6 +364,11 @@ public class ChatService {
                 .collect(Collectors.toList());
     }
 
+    /** The user's chat list for the REST call, taken from the connect-time pre-warm when fresh. */
+    public List<Map<String, Object>> getUserChatRooms(String username) {
+        return sessionPrewarmService.takeChatList(username).orElseGet(() -> getAllUserChatRooms(username));
+    }
+
     public List<Map<String, Object>> getAllUserChatRooms(String username) {
         List<Map<String, Object>> all = new ArrayList<>();
         all.addAll(getPrivateChatsForUser(username));
@@ -270,14 +393,7 @@ public class ChatService {
     }
 
     private String normalizeUsername(String input) {
-        if (input == null) return null;
-        input = input.trim();
-        if (input.contains("@")) {
-            return userRepository.findByEmail(input)
-                    .map(User::getUsername)
-                    .orElse(input);
-        }
-        return input;
+        return identityCache.resolve(input);
     }
 
     private boolean containsBoth(List<String> members, String a, String b) {
@@ -292,23 +408,19 @@ public class ChatService {
     }
 
     public ChatRoom getGroupById(String id) {
-        return chatRoomRepository.findById(id)
+        return roomStore.findById(id)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + id));
     }
 
     private void broadcastGroupUpdate(ChatRoom group) {
+        roomStateService.updateMembers(group);
+        entityVersionService.updated(EntityVersionService.ROOM, group.getId(), group.getVersion());
         if (group.getMembers() == null) return;
 
+        // Debounced per user: a burst of changes ends in one push of the latest chat list
         for (String member : group.getMembers()) {
-            try {
-                messagingTemplate.convertAndSendToUser(
-                        member,
-                        "/queue/chats",
-                        getAllUserChatRooms(member)
-                );
-            } catch (Exception e) {
-                System.out.println("⚠️ Failed to push chat update to " + member + ": " + e.getMessage());
-            }
+            sessionPrewarmService.invalidate(member);
+            chatListPushCoalescer.request(member);
         }
     }
 
@@ -316,7 +428,7 @@ public class ChatService {
 // 🧭 FETCH CHAT ROOM BY ID
 // =====================================================
 public ChatRoom getRoomById(String roomId) {
-    return chatRoomRepository.findById(roomId)
+    return roomStore.findById(roomId)
             .orElseThrow(() -> new RuntimeException("Chat room not found: " + roomId));
 }
 
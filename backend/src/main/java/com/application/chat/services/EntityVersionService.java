@@ -0,0 +1,118 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.ClusterMessage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🏷️ ETags for the room and user detail endpoints.
+ *
+ * The ETag is the document's {@code version}, which the stores bump on every save. The
+ * current version of recently served or written documents is remembered here (LRU), so an
+ * {@code If-None-Match} that still matches is answered with 304 without reading the
+ * document. Writes record their new version and send it to the other cluster nodes; an
+ * entry only ever moves to a higher version, so a slow read finishing after a write cannot
+ * bring the old one back. Entries also expire after {@code chat.etag.ttl-ms}, which bounds
+ * how stale a node can be if a cluster message is lost.
+ */
+@Service
+public class EntityVersionService {
+
+    public static final String ROOM = "room";
+    public static final String USER = "user";
+
+    static final String UPDATED = "/cluster/etag-updated";
+
+    /** Clients may keep the body but must revalidate before each use. */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private record Known(long version, long expiresAt) {}
+
+    private final ClusterBus bus;
+    private final long ttlNanos;
+    private final Map<String, Known> known;
+
+    public EntityVersionService(ObjectProvider<ClusterBus> clusterBus,
+                                @Value("${chat.etag.max-entries:100000}") int maxEntries,
+                                @Value("${chat.etag.ttl-ms:30000}") long ttlMs) {
+        this.bus = clusterBus.getIfAvailable();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.known = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Known> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        if (bus != null) bus.onDirectMessage(this::onDirectMessage);
+    }
+
+    /** ETag of a version, e.g. {@code "7"}. */
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * The current ETag when {@code ifNoneMatch} matches it, so the request can be answered
+     * with 304 without reading the document; empty when unknown, expired or changed.
+     */
+    public Optional<String> notModified(String kind, String id, String ifNoneMatch) {
+        if (ifNoneMatch == null || id == null) return Optional.empty();
+        Known entry = known.get(kind + ":" + id);
+        if (entry == null) return Optional.empty();
+        if (entry.expiresAt() - System.nanoTime() < 0) {
+            known.remove(kind + ":" + id);
+            return Optional.empty();
+        }
+        String etag = etag(entry.version());
+        return matches(ifNoneMatch, etag) ? Optional.of(etag) : Optional.empty();
+    }
+
+    /** Remembers the version being served and returns its ETag. */
+    public String served(String kind, String id, long version) {
+        remember(kind + ":" + id, version);
+        return etag(version);
+    }
+
+    /** Called after a save, on every node. */
+    public void updated(String kind, String id, long version) {
+        if (id == null) return;
+        remember(kind + ":" + id, version);
+        if (bus == null) return;
+        byte[] payload = (kind + ":" + id + "@" + version).getBytes(StandardCharsets.UTF_8);
+        for (String node : bus.remoteNodes()) {
+            bus.sendToNode(node, new ClusterMessage(UPDATED, UPDATED, Map.of(), payload));
+        }
+    }
+
+    private void remember(String key, long version) {
+        Known fresh = new Known(version, System.nanoTime() + ttlNanos);
+        known.merge(key, fresh, (old, now) -> now.version() >= old.version() ? now : old);
+    }
+
+    private void onDirectMessage(ClusterMessage message) {
+        if (!UPDATED.equals(message.getDestination())) return;
+        String update = new String(message.getPayload(), StandardCharsets.UTF_8);
+        int at = update.lastIndexOf('@');
+        remember(update.substring(0, at), Long.parseLong(update.substring(at + 1)));
+    }
+
+    /** If-None-Match is a list of (possibly weak) tags, or "*". */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
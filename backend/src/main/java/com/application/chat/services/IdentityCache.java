@@ -0,0 +1,53 @@
+package com.application.chat.services;
+
+import com.application.chat.models.User;
+import com.application.chat.storage.UserStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 🪪 E-mail → username, for JWT subjects on the WebSocket CONNECT and on REST calls. A
+ * subject is whatever the token was issued for: a username, or an e-mail where login passes
+ * one to {@code JwtUtils.generateJwtToken}. Usernames pass straight through; e-mails are
+ * looked up once. Neither field changes after registration, so a found mapping stays valid
+ * and is kept in an LRU of {@code chat.identity.max-entries}. Unknown identifiers are not
+ * remembered: the user may register a moment later.
+ */
+@Service
+public class IdentityCache {
+
+    private final UserStore userStore;
+    private final Map<String, String> usernames;
+
+    public IdentityCache(UserStore userStore,
+                         @Value("${chat.identity.max-entries:100000}") int maxEntries) {
+        this.userStore = userStore;
+        this.usernames = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /** The username behind an e-mail; anything else (already a username, unknown) comes back as is. */
+    public String resolve(String identifier) {
+        if (identifier == null) return null;
+        String key = identifier.trim();
+        if (!key.contains("@")) return key;
+
+        String cached = usernames.get(key);
+        if (cached != null) return cached;
+        return userStore.findByEmail(key)
+                .map(User::getUsername)
+                .map(username -> {
+                    usernames.put(key, username);
+                    return username;
+                })
+                .orElse(key);
+    }
+}
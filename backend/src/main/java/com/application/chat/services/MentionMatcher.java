@@ -0,0 +1,129 @@
+package com.application.chat.services;
+
+import java.util.*;
+
+/**
+ * Finds {@code @username} mentions of a room's members in one pass over the text
+ * (Aho-Corasick): the cost depends on the text length, not on how many members the room
+ * has. Matching ignores case; a mention must not be glued to a preceding word (so e-mail
+ * addresses don't count) nor continue into a longer name. When two members' names start at
+ * the same {@code @}, e.g. "bob" and "bob.smith", only the longer one counts.
+ *
+ * Immutable once built; RoomStateService keeps one per room and rebuilds it when the member
+ * list changes.
+ */
+public final class MentionMatcher {
+
+    private static final int ROOT = 0;
+
+    private final List<String> members;
+    private final String[] usernames;
+    private final Map<Long, Integer> edges = new HashMap<>();
+    private final int[] depth;
+    private final int[] fail;
+    private final int[] output;      // index into usernames, -1 when no pattern ends here
+    private final int[] outputLink;  // nearest node on the fail chain with an output, ROOT if none
+
+    public MentionMatcher(List<String> members) {
+        this.members = members;
+
+        List<String> names = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int capacity = 1;
+        for (String member : members) {
+            if (member == null || member.isBlank()) continue;
+            String name = member.trim();
+            if (!seen.add(lower(name))) continue;
+            names.add(name);
+            capacity += name.length() + 1;
+        }
+        this.usernames = names.toArray(String[]::new);
+        this.depth = new int[capacity];
+        this.fail = new int[capacity];
+        this.output = new int[capacity];
+        this.outputLink = new int[capacity];
+        Arrays.fill(output, -1);
+
+        // trie of "@name" patterns, remembering each node's parent and incoming char
+        int[] parent = new int[capacity];
+        char[] via = new char[capacity];
+        int nodes = 1;
+        for (int u = 0; u < usernames.length; u++) {
+            String pattern = "@" + usernames[u];
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                Integer next = edges.get(key(node, c));
+                if (next == null) {
+                    next = nodes++;
+                    edges.put(key(node, c), next);
+                    parent[next] = node;
+                    via[next] = c;
+                    depth[next] = depth[node] + 1;
+                }
+                node = next;
+            }
+            output[node] = u;
+        }
+
+        // failure links in breadth-first order, so a parent's link is always ready first
+        Integer[] order = new Integer[nodes - 1];
+        for (int i = 1; i < nodes; i++) order[i - 1] = i;
+        Arrays.sort(order, Comparator.comparingInt(n -> depth[n]));
+        for (int node : order) {
+            int p = parent[node];
+            if (p != ROOT) {
+                int f = fail[p];
+                Integer next;
+                while ((next = edges.get(key(f, via[node]))) == null && f != ROOT) f = fail[f];
+                fail[node] = next == null || next == node ? ROOT : next;
+            }
+            int f = fail[node];
+            outputLink[node] = output[f] >= 0 ? f : outputLink[f];
+        }
+    }
+
+    /** The member list this matcher was built from (compared by identity to detect changes). */
+    public List<String> members() {
+        return members;
+    }
+
+    /** Members mentioned in {@code text}, as spelled in the member list. */
+    public Set<String> find(String text) {
+        if (text == null || usernames.length == 0 || text.indexOf('@') < 0) return Set.of();
+
+        Map<Integer, Integer> longestAt = new HashMap<>(); // start index -> node
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            Integer next;
+            while ((next = edges.get(key(state, c))) == null && state != ROOT) state = fail[state];
+            state = next == null ? ROOT : next;
+
+            for (int node = output[state] >= 0 ? state : outputLink[state]; node != ROOT; node = outputLink[node]) {
+                int start = i - depth[node] + 1;
+                if (start > 0 && isNameChar(text.charAt(start - 1))) continue;
+                if (i + 1 < text.length() && isNameChar(text.charAt(i + 1))) continue;
+                longestAt.merge(start, node, (a, b) -> depth[a] >= depth[b] ? a : b);
+            }
+        }
+
+        Set<String> mentioned = new LinkedHashSet<>();
+        for (int node : longestAt.values()) mentioned.add(usernames[output[node]]);
+        return mentioned;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static long key(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+
+    private static String lower(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) chars[i] = Character.toLowerCase(chars[i]);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,159 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.Mention;
+import com.application.chat.storage.MentionStore;
+import com.application.chat.storage.MessageStore;
+import com.application.chat.storage.RoomStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 📣 @mentions in group rooms.
+ *
+ * On the send path the room's MentionMatcher (kept by RoomStateService, rebuilt when the
+ * member list changes) picks out mentioned members in one pass over the text. Each of them
+ * gets a small frame on /user/queue/mentions, so they are alerted without following every
+ * message of a big room, and a Mention entry backs their "my mentions" list.
+ */
+@Service
+public class MentionService {
+
+    private static final int MAX_SCAN_BATCHES = 10;
+
+    private final RoomStateService roomStateService;
+    private final MentionStore mentionStore;
+    private final MessageStore messageStore;
+    private final MessageArchiveService messageArchiveService;
+    private final RoomStore roomStore;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int previewChars;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public MentionService(RoomStateService roomStateService,
+                          MentionStore mentionStore,
+                          MessageStore messageStore,
+                          MessageArchiveService messageArchiveService,
+                          RoomStore roomStore,
+                          SimpMessagingTemplate messagingTemplate,
+                          @Value("${chat.mentions.preview-chars:120}") int previewChars,
+                          @Value("${chat.mentions.page-size:50}") int defaultPageSize,
+                          @Value("${chat.mentions.max-page-size:200}") int maxPageSize) {
+        this.roomStateService = roomStateService;
+        this.mentionStore = mentionStore;
+        this.messageStore = messageStore;
+        this.messageArchiveService = messageArchiveService;
+        this.roomStore = roomStore;
+        this.messagingTemplate = messagingTemplate;
+        this.previewChars = previewChars;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // =====================================================
+    // 📣 SEND PATH
+    // =====================================================
+
+    /** Called by ChatService once a group message is stored; private messages already reach their one reader. */
+    public void onMessage(ChatMessage saved) {
+        if (saved.getRoomId() == null || saved.getContent() == null || saved.getContent().indexOf('@') < 0) return;
+
+        Set<String> mentioned = new LinkedHashSet<>(roomStateService.mentionMatcher(saved.getRoomId()).find(saved.getContent()));
+        mentioned.remove(saved.getSenderUsername());
+        if (mentioned.isEmpty()) return;
+
+        List<Mention> mentions = new ArrayList<>(mentioned.size());
+        for (String username : mentioned) mentions.add(new Mention(username, saved));
+        try {
+            mentionStore.saveAll(mentions);
+        } catch (RuntimeException e) {
+            // the message itself is stored; a missing index entry is not worth failing the send
+            System.out.println("⚠️ Could not record mentions in room " + saved.getRoomId() + ": " + e.getMessage());
+        }
+
+        Map<String, Object> frame = frame(saved);
+        for (String username : mentioned) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/mentions", frame);
+        }
+        System.out.println("📣 " + mentioned.size() + " mention(s) in room " + saved.getRoomId());
+    }
+
+    private Map<String, Object> frame(ChatMessage m) {
+        String content = m.getContent();
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("messageId", m.getId());
+        frame.put("roomId", m.getRoomId());
+        frame.put("senderUsername", m.getSenderUsername());
+        frame.put("sequence", m.getSequence());
+        frame.put("timestamp", m.getTimestamp());
+        frame.put("preview", content.length() <= previewChars ? content : content.substring(0, previewChars) + "…");
+        return frame;
+    }
+
+    // =====================================================
+    // 📋 MY MENTIONS
+    // =====================================================
+
+    /**
+     * Messages mentioning {@code username}, newest first, from rooms the user is still a
+     * member of. Pass the last message's timestamp as the next {@code before}.
+     *
+     * Mentions from rooms the user left, or of messages retention deleted, are skipped, so
+     * the store is read in batches until the page is full, the store runs out or
+     * {@link #MAX_SCAN_BATCHES} batches were read.
+     */
+    public List<ChatMessage> mentionsOf(String username, Instant before, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        Set<String> rooms = null;
+        List<ChatMessage> messages = new ArrayList<>(size);
+        Instant cursor = before;
+
+        for (int batch = 0; batch < MAX_SCAN_BATCHES && messages.size() < size; batch++) {
+            int fetch = size * 2;
+            List<Mention> mentions = mentionStore.findByUsernameBefore(username, cursor, fetch);
+            if (mentions.isEmpty()) break;
+            if (rooms == null) {
+                rooms = new HashSet<>();
+                for (ChatRoom room : roomStore.findByMembersContaining(username)) rooms.add(room.getId());
+            }
+
+            List<Mention> visible = new ArrayList<>(mentions.size());
+            for (Mention mention : mentions) {
+                if (rooms.contains(mention.getRoomId())) visible.add(mention);
+            }
+            Map<String, ChatMessage> found = new HashMap<>();
+            if (!visible.isEmpty()) {
+                for (ChatMessage m : messageStore.findAllById(visible.stream().map(Mention::getMessageId).toList())) {
+                    found.put(m.getId(), m);
+                }
+            }
+
+            List<String> gone = new ArrayList<>();
+            for (Mention mention : visible) {
+                if (messages.size() >= size) break;
+                ChatMessage message = found.get(mention.getMessageId());
+                if (message == null) {
+                    message = messageArchiveService
+                            .findArchived(mention.getRoomId(), mention.getMessageId(), mention.getTimestamp())
+                            .orElse(null);
+                }
+                if (message == null) {
+                    gone.add(mention.getId()); // deleted by retention
+                } else {
+                    messages.add(message);
+                }
+            }
+            if (!gone.isEmpty()) mentionStore.deleteAllById(gone);
+
+            if (mentions.size() < fetch) break;
+            cursor = mentions.get(mentions.size() - 1).getTimestamp();
+        }
+        return messages;
+    }
+}
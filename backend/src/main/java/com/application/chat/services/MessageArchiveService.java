@@ -0,0 +1,255 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ArchiveSegment;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.storage.ArchiveStore;
+import com.application.chat.storage.MessageStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 🧊 Cold tier of the message history.
+ *
+ * Old messages are moved out of the hot store into immutable, gzip'd per-room segments
+ * (ArchiveStore). Each segment header carries its time range, so a history read lists the
+ * room's headers and inflates only the segments that overlap the page it needs; recently
+ * inflated segments are kept in a small LRU because paging walks them one page at a time.
+ * {@link MessageHistoryService} stitches this tier and the hot one together.
+ */
+@Service
+public class MessageArchiveService {
+
+    private final ArchiveStore archiveStore;
+    private final MessageStore messageStore;
+    private final ObjectMapper objectMapper;
+    private final int segmentMaxBytes;
+    private final Map<String, List<ChatMessage>> inflated;
+
+    public MessageArchiveService(ArchiveStore archiveStore,
+                                 MessageStore messageStore,
+                                 ObjectMapper objectMapper,
+                                 @Value("${chat.archive.segment-max-bytes:4194304}") int segmentMaxBytes,
+                                 @Value("${chat.archive.cache-segments:64}") int cacheSegments) {
+        this.archiveStore = archiveStore;
+        this.messageStore = messageStore;
+        this.objectMapper = objectMapper;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.inflated = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<ChatMessage>> eldest) {
+                return size() > cacheSegments;
+            }
+        });
+    }
+
+    // =====================================================
+    // 📦 ARCHIVING
+    // =====================================================
+
+    /**
+     * Moves the room's messages older than {@code cutoff} into segments, {@code batchSize}
+     * at a time, and returns how many were moved. Each segment is written before its
+     * messages are deleted from the hot store.
+     */
+    public long archiveRoom(String roomId, Instant cutoff, int batchSize) {
+        // A crash between writing a segment and the delete leaves its messages in both tiers;
+        // only the room's newest segment can be affected, so skip whatever it already holds.
+        Set<String> inNewestSegment = newestSegmentIds(roomId);
+        long moved = 0;
+
+        while (true) {
+            List<ChatMessage> batch = messageStore.findOldestBefore(roomId, cutoff, batchSize);
+            if (batch.isEmpty()) break;
+            boolean full = batch.size() == batchSize;
+            if (full) batch = withoutTrailingTie(batch);
+
+            List<String> duplicates = new ArrayList<>();
+            List<ChatMessage> fresh = new ArrayList<>(batch.size());
+            for (ChatMessage m : batch) {
+                if (inNewestSegment.contains(m.getId())) duplicates.add(m.getId());
+                else fresh.add(m);
+            }
+            if (!duplicates.isEmpty()) messageStore.deleteAllById(duplicates);
+
+            for (List<ChatMessage> chunk : bySize(fresh)) {
+                ArchiveSegment segment = archiveStore.save(segmentOf(roomId, chunk));
+                List<String> ids = chunk.stream().map(ChatMessage::getId).toList();
+                messageStore.deleteAllById(ids);
+                inNewestSegment = new HashSet<>(ids);
+                moved += chunk.size();
+                System.out.println("🧊 Archived " + chunk.size() + " message(s) of room " + roomId
+                        + " into segment " + segment.getId());
+            }
+            if (!full) break;
+        }
+        return moved;
+    }
+
+    /**
+     * A full batch must not end halfway through a run of equal timestamps, or the hot and
+     * cold tiers would share a timestamp and a history cursor could skip messages.
+     */
+    private static List<ChatMessage> withoutTrailingTie(List<ChatMessage> batch) {
+        Instant last = batch.get(batch.size() - 1).getTimestamp();
+        int end = batch.size();
+        while (end > 0 && batch.get(end - 1).getTimestamp().equals(last)) end--;
+        return end == 0 ? batch : batch.subList(0, end);
+    }
+
+    private List<List<ChatMessage>> bySize(List<ChatMessage> messages) {
+        List<List<ChatMessage>> chunks = new ArrayList<>();
+        List<ChatMessage> current = new ArrayList<>();
+        long bytes = 0;
+        for (ChatMessage m : messages) {
+            int size = line(m).length;
+            if (!current.isEmpty() && bytes + size > segmentMaxBytes) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                bytes = 0;
+            }
+            current.add(m);
+            bytes += size;
+        }
+        if (!current.isEmpty()) chunks.add(current);
+        return chunks;
+    }
+
+    private ArchiveSegment segmentOf(String roomId, List<ChatMessage> messages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            for (ChatMessage m : messages) gzip.write(line(m));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ArchiveSegment segment = new ArchiveSegment();
+        segment.setRoomId(roomId);
+        segment.setFrom(messages.get(0).getTimestamp());
+        segment.setTo(messages.get(messages.size() - 1).getTimestamp());
+        segment.setCount(messages.size());
+        segment.setMaxSequence(messages.stream()
+                .map(ChatMessage::getSequence)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .orElse(null));
+        segment.setCreatedAt(Instant.now());
+        segment.setData(out.toByteArray());
+        return segment;
+    }
+
+    private byte[] line(ChatMessage m) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(m);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // =====================================================
+    // 📖 READS
+    // =====================================================
+
+    /** Cold messages older than {@code before} (any age when null), newest first; same contract as MessageStore. */
+    public List<ChatMessage> findPageBefore(String roomId, Instant before, int limit) {
+        List<ArchiveSegment> headers = archiveStore.findHeadersByRoomId(roomId);
+        List<ChatMessage> page = new ArrayList<>();
+        Instant last = null;
+        for (int s = headers.size() - 1; s >= 0; s--) {
+            ArchiveSegment header = headers.get(s);
+            if (before != null && !header.getFrom().isBefore(before)) continue;
+            List<ChatMessage> messages = inflate(header);
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                ChatMessage m = messages.get(i);
+                if (before != null && !m.getTimestamp().isBefore(before)) continue;
+                if (page.size() >= limit && !m.getTimestamp().equals(last)) return page;
+                page.add(m);
+                last = m.getTimestamp();
+            }
+        }
+        return page;
+    }
+
+    /** Every archived message of the room, oldest first. */
+    public List<ChatMessage> findAll(String roomId) {
+        List<ChatMessage> all = new ArrayList<>();
+        for (ArchiveSegment header : archiveStore.findHeadersByRoomId(roomId)) all.addAll(inflate(header));
+        return all;
+    }
+
+    /** One archived message, looked up by its exact timestamp: only the segments holding it are read. */
+    public Optional<ChatMessage> findArchived(String roomId, String id, Instant timestamp) {
+        for (ChatMessage m : findPageBefore(roomId, timestamp.plusNanos(1), 1)) {
+            if (id.equals(m.getId())) return Optional.of(m);
+        }
+        return Optional.empty();
+    }
+
+    /** Segments whose newest message is older than {@code cutoff} (retention). */
+    public List<ArchiveSegment> findExpiredSegments(String roomId, Instant cutoff) {
+        return archiveStore.findHeadersByRoomId(roomId).stream()
+                .filter(header -> header.getTo().isBefore(cutoff))
+                .toList();
+    }
+
+    /** Attachment ids referenced by the segment's messages, so retention can delete them with it. */
+    public List<String> attachmentIds(ArchiveSegment header) {
+        List<String> ids = new ArrayList<>();
+        for (ChatMessage m : inflate(header)) {
+            if (m.getAttachmentIds() != null) ids.addAll(m.getAttachmentIds());
+        }
+        return ids;
+    }
+
+    public void deleteSegment(ArchiveSegment header) {
+        archiveStore.deleteById(header.getId());
+        inflated.remove(header.getId());
+    }
+
+    /** Highest sequence ever archived for the room, from the headers alone. */
+    public Optional<Long> lastSequence(String roomId) {
+        return archiveStore.findHeadersByRoomId(roomId).stream()
+                .map(ArchiveSegment::getMaxSequence)
+                .filter(Objects::nonNull)
+                .max(Long::compare);
+    }
+
+    private Set<String> newestSegmentIds(String roomId) {
+        List<ArchiveSegment> headers = archiveStore.findHeadersByRoomId(roomId);
+        if (headers.isEmpty()) return Set.of();
+        Set<String> ids = new HashSet<>();
+        for (ChatMessage m : inflate(headers.get(headers.size() - 1))) ids.add(m.getId());
+        return ids;
+    }
+
+    private List<ChatMessage> inflate(ArchiveSegment header) {
+        List<ChatMessage> cached = inflated.get(header.getId());
+        if (cached != null) return cached;
+
+        ArchiveSegment segment = archiveStore.findById(header.getId()).orElse(null);
+        if (segment == null) return List.of(); // expired by retention since the headers were listed
+        List<ChatMessage> messages = new ArrayList<>(segment.getCount());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(segment.getData())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) messages.add(objectMapper.readValue(line, ChatMessage.class));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + header.getId(), e);
+        }
+        List<ChatMessage> result = Collections.unmodifiableList(messages);
+        inflated.put(header.getId(), result);
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.storage.RoomStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ⏳ Background job that walks every room and moves messages older than
+ * {@code chat.archive.after-days} into the cold tier (MessageArchiveService). Each node
+ * only archives the rooms it owns, so cluster members never archive the same room twice.
+ * A pass runs on its own thread, so a long one never holds up other scheduled jobs.
+ */
+@Service
+public class MessageArchiver implements DisposableBean {
+
+    private static final int ROOM_PAGE = 500;
+
+    private final MessageArchiveService messageArchiveService;
+    private final RoomStore roomStore;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final boolean enabled;
+    private final Duration age;
+    private final int batchSize;
+
+    private final ExecutorService archiver = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "message-archiver");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public MessageArchiver(MessageArchiveService messageArchiveService,
+                           RoomStore roomStore,
+                           RoomAffinityRouter roomAffinityRouter,
+                           @Value("${chat.archive.enabled:false}") boolean enabled,
+                           @Value("${chat.archive.after-days:30}") long afterDays,
+                           @Value("${chat.archive.batch-size:1000}") int batchSize) {
+        this.messageArchiveService = messageArchiveService;
+        this.roomStore = roomStore;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.enabled = enabled;
+        this.age = Duration.ofDays(afterDays);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.archive.interval-ms:3600000}",
+               initialDelayString = "${chat.archive.initial-delay-ms:60000}")
+    public void scheduleArchive() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        archiver.execute(() -> {
+            try {
+                archiveOldMessages();
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Archive pass failed: " + e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    void archiveOldMessages() {
+        Instant cutoff = Instant.now().minus(age);
+        long started = System.nanoTime();
+        long moved = 0;
+        int rooms = 0;
+
+        String after = null;
+        List<String> ids;
+        do {
+            ids = roomStore.findIdsAfter(after, ROOM_PAGE);
+            for (String roomId : ids) {
+                if (Thread.currentThread().isInterrupted()) return;
+                if (!roomAffinityRouter.isLocal(roomId)) continue;
+                try {
+                    long n = messageArchiveService.archiveRoom(roomId, cutoff, batchSize);
+                    if (n > 0) {
+                        moved += n;
+                        rooms++;
+                    }
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ Archiving room " + roomId + " failed: " + e.getMessage());
+                }
+            }
+            if (!ids.isEmpty()) after = ids.get(ids.size() - 1);
+        } while (ids.size() == ROOM_PAGE);
+
+        if (moved > 0) {
+            System.out.println("🧊 Archive pass moved " + moved + " message(s) from " + rooms + " room(s) in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        archiver.shutdownNow();
+    }
+}
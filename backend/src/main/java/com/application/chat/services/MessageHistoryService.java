@@ -0,0 +1,92 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.storage.MessageStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 📜 Room history across both tiers: the hot MessageStore holds recent traffic and
+ * MessageArchiveService holds everything that aged out. Everything in the cold tier is
+ * older than everything left in the hot one, so reads go hot first and only fall through
+ * to the cold tier once the hot one runs out.
+ */
+@Service
+public class MessageHistoryService {
+
+    private final MessageStore messageStore;
+    private final MessageArchiveService messageArchiveService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public MessageHistoryService(MessageStore messageStore,
+                                 MessageArchiveService messageArchiveService,
+                                 @Value("${chat.history.page-size:50}") int defaultPageSize,
+                                 @Value("${chat.history.max-page-size:200}") int maxPageSize) {
+        this.messageStore = messageStore;
+        this.messageArchiveService = messageArchiveService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /** Whole history, oldest first. */
+    public List<ChatMessage> all(String roomId) {
+        List<ChatMessage> cold = messageArchiveService.findAll(roomId);
+        List<ChatMessage> hot = messageStore.findByRoomId(roomId);
+        if (cold.isEmpty()) return hot;
+        List<ChatMessage> all = new ArrayList<>(cold.size() + hot.size());
+        Set<String> seen = new HashSet<>();
+        for (ChatMessage m : cold) if (seen.add(m.getId())) all.add(m);
+        for (ChatMessage m : hot) if (seen.add(m.getId())) all.add(m);
+        return all;
+    }
+
+    /**
+     * Messages older than {@code before} (the newest when null), oldest first. Pass the first
+     * message's timestamp as the next {@code before}; a page may run past {@code limit} to
+     * keep messages sharing that timestamp together.
+     */
+    public List<ChatMessage> page(String roomId, Instant before, Integer limit) {
+        List<ChatMessage> page = newestFirst(roomId, before, pageSize(limit));
+        Collections.reverse(page);
+        return page;
+    }
+
+    /** The page size {@link #page} uses for a requested {@code limit}. */
+    public int pageSize(Integer limit) {
+        return limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    /** The newest {@code limit} messages, newest first. */
+    public List<ChatMessage> latest(String roomId, int limit) {
+        return newestFirst(roomId, null, limit);
+    }
+
+    /** Like {@link #page} but newest first and without the page size cap (background scans). */
+    public List<ChatMessage> scan(String roomId, Instant before, int limit) {
+        return newestFirst(roomId, before, limit);
+    }
+
+    /** Highest sequence assigned in the room, even when its messages have all been archived. */
+    public long lastSequence(String roomId) {
+        long hot = messageStore.findLastBySequence(roomId).map(ChatMessage::getSequence).orElse(0L);
+        long cold = messageArchiveService.lastSequence(roomId).orElse(0L);
+        return Math.max(hot, cold);
+    }
+
+    private List<ChatMessage> newestFirst(String roomId, Instant before, int limit) {
+        List<ChatMessage> page = new ArrayList<>(messageStore.findPageBefore(roomId, before, limit));
+        if (page.size() >= limit) return page;
+
+        // The hot tier ran out before the page filled up: the rest is in the cold tier
+        Set<String> seen = new HashSet<>();
+        for (ChatMessage m : page) seen.add(m.getId());
+        for (ChatMessage m : messageArchiveService.findPageBefore(roomId, before, limit - page.size())) {
+            if (seen.add(m.getId())) page.add(m);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,190 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.ClusterMessage;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.OfflineMailbox;
+import com.application.chat.storage.MailboxStore;
+import com.application.chat.storage.MessageStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 📬 Store-and-forward for private messages whose receiver is offline.
+ *
+ * While a user has no session (on any node), each private message adds a small pointer
+ * (message id, room, sequence) to their mailbox document. The mailbox keeps only the
+ * newest {@code maxEntries} pointers; when more arrived than were kept, the drain tells
+ * the client to resync instead. When the user subscribes to /user/queue/mailbox again,
+ * the messages are pushed there as a few batched frames, and each batch's entries are
+ * removed from the mailbox only after its frame was handed to the broker.
+ *
+ * Drains read Mongo, so they run on their own small pool rather than the broker's
+ * heartbeat scheduler. A sender can find the receiver offline just before they come back
+ * and store the pointer after their drain has read the mailbox. So the sender checks
+ * presence again after storing and drains at once if the receiver is connected here, and
+ * every subscribe is followed by a second pass one delay later for receivers whose
+ * presence reached the sender's node late.
+ */
+@Service
+public class OfflineMailboxService implements DisposableBean {
+
+    static final String MAILBOX_DESTINATION = "/user/queue/mailbox";
+
+    private final MailboxStore mailboxStore;
+    private final MessageStore messageStore;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final ObjectProvider<ClusterBus> clusterBus;
+    private final ScheduledThreadPoolExecutor drainer;
+    private final int maxEntries;
+    private final int batchSize;
+    private final long drainDelayMs;
+    // username -> whether another pass was asked for while a drain is running
+    private final Map<String, Boolean> draining = new ConcurrentHashMap<>();
+
+    public OfflineMailboxService(MailboxStore mailboxStore,
+                                 MessageStore messageStore,
+                                 SimpMessagingTemplate messagingTemplate,
+                                 SimpUserRegistry userRegistry,
+                                 ObjectProvider<ClusterBus> clusterBus,
+                                 @Value("${chat.mailbox.max-entries:500}") int maxEntries,
+                                 @Value("${chat.mailbox.batch-size:100}") int batchSize,
+                                 @Value("${chat.mailbox.drain-delay-ms:250}") long drainDelayMs,
+                                 @Value("${chat.mailbox.drain-threads:2}") int drainThreads) {
+        this.mailboxStore = mailboxStore;
+        this.messageStore = messageStore;
+        this.messagingTemplate = messagingTemplate;
+        this.userRegistry = userRegistry;
+        this.clusterBus = clusterBus;
+        this.maxEntries = maxEntries;
+        this.batchSize = batchSize;
+        this.drainDelayMs = drainDelayMs;
+
+        AtomicInteger count = new AtomicInteger();
+        this.drainer = new ScheduledThreadPoolExecutor(drainThreads, r -> {
+            Thread t = new Thread(r, "mailbox-drain-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // =====================================================
+    // 👀 PRESENCE
+    // =====================================================
+
+    /** Connected here, or subscribed to its user queues on another node. */
+    public boolean isOnline(String username) {
+        if (username == null) return false;
+        if (userRegistry.getUser(username) != null) return true;
+        ClusterBus bus = clusterBus.getIfAvailable();
+        return bus != null && bus.hasRemoteInterest(ClusterMessage.userInterestKey(username));
+    }
+
+    // =====================================================
+    // 📥 RECORD
+    // =====================================================
+
+    public void recordIfOffline(String receiver, ChatMessage saved) {
+        if (receiver == null || receiver.isEmpty() || isOnline(receiver)) return;
+
+        OfflineMailbox.Entry entry = new OfflineMailbox.Entry(saved.getId(), saved.getRoomId(), saved.getSequence());
+        mailboxStore.push(receiver, entry, maxEntries);
+
+        // came back while we stored it: their subscribe's drain may already have read the mailbox
+        if (userRegistry.getUser(receiver) != null) schedule(receiver, 0);
+    }
+
+    // =====================================================
+    // 📤 DRAIN
+    // =====================================================
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (event.getUser() == null || !MAILBOX_DESTINATION.equals(accessor.getDestination())) return;
+
+        String username = event.getUser().getName();
+        // Give the SUBSCRIBE a moment to reach the broker before pushing to it, then look
+        // again for pointers stored by senders that still saw the user offline
+        schedule(username, drainDelayMs);
+        schedule(username, 2 * drainDelayMs);
+    }
+
+    public void drain(String username) {
+        // a second tab subscribing meanwhile must not deliver the same entries again, but
+        // whatever arrived after the running pass read the mailbox gets one more pass
+        Boolean again = draining.compute(username, (u, running) -> running != null);
+        if (again) return;
+        try {
+            do {
+                drainOnce(username);
+            } while (draining.computeIfPresent(username, (u, more) -> more ? Boolean.FALSE : null) != null);
+        } catch (RuntimeException e) {
+            draining.remove(username);
+            throw e;
+        }
+    }
+
+    private void schedule(String username, long delayMs) {
+        try {
+            drainer.schedule(() -> drain(username), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down: the entries stay for the next subscribe
+        }
+    }
+
+    private void drainOnce(String username) {
+        OfflineMailbox mailbox = mailboxStore.peek(username).orElse(null);
+        if (mailbox == null || mailbox.getEntries().isEmpty()) return;
+
+        long dropped = Math.max(0, mailbox.getTotal() - mailbox.getEntries().size());
+        boolean overflow = dropped > 0;
+        List<String> ids = mailbox.getEntries().stream().map(OfflineMailbox.Entry::getMessageId).toList();
+        int batches = (ids.size() + batchSize - 1) / batchSize;
+
+        for (int i = 0; i < batches; i++) {
+            List<String> chunk = ids.subList(i * batchSize, Math.min(ids.size(), (i + 1) * batchSize));
+            List<ChatMessage> messages = new ArrayList<>(messageStore.findAllById(chunk));
+            messages.sort(Comparator.comparing(ChatMessage::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+            Map<String, Object> frame = new LinkedHashMap<>();
+            frame.put("batch", i + 1);
+            frame.put("batches", batches);
+            frame.put("messages", messages);
+            // Only the newest pointers were kept: older ones must come from room history
+            frame.put("resync", overflow);
+            try {
+                messagingTemplate.convertAndSendToUser(username, "/queue/mailbox", frame);
+            } catch (RuntimeException e) {
+                // what is left stays in the mailbox for the next subscribe
+                System.out.println("⚠️ Mailbox drain for " + username + " stopped at batch " + (i + 1) + ": " + e.getMessage());
+                return;
+            }
+            // the overflow is accounted with the first batch, which carried the resync flag
+            mailboxStore.ack(username, chunk, chunk.size() + (i == 0 ? dropped : 0));
+        }
+
+        System.out.println("📬 Drained " + ids.size() + " offline message(s) for " + username
+                + (overflow ? " (overflow, resync requested)" : ""));
+    }
+
+    @Override
+    public void destroy() {
+        drainer.shutdownNow();
+    }
+}
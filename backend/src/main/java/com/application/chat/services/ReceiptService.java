@@ -0,0 +1,189 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.RoomReceipt;
+import com.application.chat.storage.ReceiptStore;
+import com.application.chat.storage.RoomStore;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ✅ Read and delivery receipts, aggregated in memory.
+ *
+ * Receipts are high-water marks (a sequence number per user per room), so any number of
+ * acks from one reader within a flush interval collapse into one pending entry. Every
+ * interval the pending marks are written with a single bulk of {@code $max} upserts
+ * ({@link ReceiptStore#upsertMax}) and announced as one frame per room on
+ * /topic/receipts/{roomId}. Store writes and
+ * frames therefore grow with active readers per interval, not with messages or acks.
+ *
+ * Only members ack, and never past the newest message of the room. The owner of a room
+ * answers both from its hot state; other nodes keep a short-lived copy of the member list
+ * and last sequence, re-read when it expires or when an ack runs past it.
+ */
+@Service
+public class ReceiptService {
+
+    private static final int REMOTE_ROOMS = 10_000;
+    private static final long REMOTE_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ReceiptStore receiptStore;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomStore roomStore;
+    private final RoomStateService roomStateService;
+    private final MessageHistoryService messageHistoryService;
+    private final RoomAffinityRouter roomAffinityRouter;
+
+    // roomId -> username -> marks not yet flushed
+    private final Map<String, Map<String, Marks>> pending = new ConcurrentHashMap<>();
+
+    // roomId -> members and last sequence of rooms another node owns
+    private final Map<String, RoomView> remoteRooms = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RoomView> eldest) {
+            return size() > REMOTE_ROOMS;
+        }
+    });
+
+    public ReceiptService(ReceiptStore receiptStore,
+                          SimpMessagingTemplate messagingTemplate,
+                          RoomStore roomStore,
+                          RoomStateService roomStateService,
+                          MessageHistoryService messageHistoryService,
+                          RoomAffinityRouter roomAffinityRouter) {
+        this.receiptStore = receiptStore;
+        this.messagingTemplate = messagingTemplate;
+        this.roomStore = roomStore;
+        this.roomStateService = roomStateService;
+        this.messageHistoryService = messageHistoryService;
+        this.roomAffinityRouter = roomAffinityRouter;
+    }
+
+    // =====================================================
+    // 📥 ACKS (memory only)
+    // =====================================================
+
+    public void markRead(String roomId, String username, long sequence) {
+        record(roomId, username, sequence, true);
+    }
+
+    public void markDelivered(String roomId, String username, long sequence) {
+        record(roomId, username, sequence, false);
+    }
+
+    public boolean isMember(String roomId, String username) {
+        if (roomId == null || username == null) return false;
+        return view(roomId, 0).members().contains(username);
+    }
+
+    private void record(String roomId, String username, long sequence, boolean read) {
+        if (roomId == null || username == null || sequence <= 0) return;
+        // A client can't mark messages that don't exist yet
+        long upTo = Math.min(sequence, view(roomId, sequence).sequence());
+        if (upTo <= 0) return;
+        merge(roomId, username, read ? upTo : 0, upTo); // read implies delivered
+    }
+
+    private void merge(String roomId, String username, long read, long delivered) {
+        // compute() is atomic with the remove() in flush(), so no ack is lost in between
+        pending.compute(roomId, (id, users) -> {
+            if (users == null) users = new HashMap<>();
+            Marks marks = users.computeIfAbsent(username, u -> new Marks());
+            marks.read = Math.max(marks.read, read);
+            marks.delivered = Math.max(marks.delivered, delivered);
+            return users;
+        });
+    }
+
+    /** Members and newest sequence of the room, at least as fresh as {@code sequence} needs. */
+    private RoomView view(String roomId, long sequence) {
+        if (roomAffinityRouter.isLocal(roomId)) {
+            return new RoomView(roomStateService.members(roomId), roomStateService.currentSequence(roomId), 0);
+        }
+        long now = System.nanoTime();
+        RoomView view = remoteRooms.get(roomId);
+        if (view == null || view.sequence() < sequence || now - view.loadedAt() > REMOTE_TTL_NANOS) {
+            List<String> members = roomStore.findById(roomId)
+                    .map(ChatRoom::getMembers)
+                    .map(List::copyOf)
+                    .orElse(List.of());
+            view = new RoomView(members, messageHistoryService.lastSequence(roomId), now);
+            remoteRooms.put(roomId, view);
+        }
+        return view;
+    }
+
+    // =====================================================
+    // 💾 PERIODIC BULK FLUSH
+    // =====================================================
+
+    @Scheduled(fixedDelayString = "${chat.receipts.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        Map<String, Map<String, Marks>> batch = new HashMap<>();
+        for (String roomId : new ArrayList<>(pending.keySet())) {
+            Map<String, Marks> users = pending.remove(roomId);
+            if (users != null && !users.isEmpty()) batch.put(roomId, users);
+        }
+        if (batch.isEmpty()) return;
+
+        Instant now = Instant.now();
+        List<RoomReceipt> writes = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Marks>> room : batch.entrySet()) {
+            for (Map.Entry<String, Marks> user : room.getValue().entrySet()) {
+                Marks marks = user.getValue();
+                RoomReceipt receipt = new RoomReceipt();
+                receipt.setId(RoomReceipt.idFor(room.getKey(), user.getKey()));
+                receipt.setRoomId(room.getKey());
+                receipt.setUsername(user.getKey());
+                receipt.setReadSequence(marks.read);
+                receipt.setDeliveredSequence(marks.delivered);
+                receipt.setUpdatedAt(now);
+                writes.add(receipt);
+            }
+        }
+
+        try {
+            receiptStore.upsertMax(writes);
+        } catch (Exception e) {
+            System.out.println("⚠️ Failed to flush " + writes.size() + " receipt(s): " + e.getMessage());
+            // Put them back; $max makes a retry harmless
+            batch.forEach((roomId, users) -> users.forEach((username, marks) ->
+                    merge(roomId, username, marks.read, marks.delivered)));
+            return;
+        }
+
+        // One coalesced update per room for the senders
+        for (Map.Entry<String, Map<String, Marks>> room : batch.entrySet()) {
+            Map<String, Object> receipts = new LinkedHashMap<>();
+            room.getValue().forEach((username, marks) ->
+                    receipts.put(username, Map.of("read", marks.read, "delivered", marks.delivered)));
+            messagingTemplate.convertAndSend("/topic/receipts/" + room.getKey(),
+                    Map.of("roomId", room.getKey(), "receipts", receipts));
+        }
+    }
+
+    // =====================================================
+    // 📋 QUERIES
+    // =====================================================
+
+    public List<RoomReceipt> getReceipts(String roomId, String requester) {
+        if (!isMember(roomId, requester)) throw new RuntimeException("Not a member of this room");
+        return receiptStore.findByRoomId(roomId);
+    }
+
+    private record RoomView(List<String> members, long sequence, long loadedAt) {}
+
+    private static final class Marks {
+        long read;
+        long delivered;
+    }
+}
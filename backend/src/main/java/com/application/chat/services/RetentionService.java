@@ -0,0 +1,266 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ArchiveSegment;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.search.MessageSearchService;
+import com.application.chat.storage.MessageRef;
+import com.application.chat.storage.MessageStore;
+import com.application.chat.storage.RoomStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 🗑️ Per-room message retention.
+ *
+ * A room keeps messages for {@link ChatRoom#getRetentionDays()} days, or for the default of
+ * its kind ({@code chat.retention.private-days} / {@code group-days}); 0 keeps them forever.
+ * A sweep walks the rooms this node owns and deletes expired messages oldest first, in
+ * bulk batches found through the (roomId, timestamp) index, and drops archived segments
+ * that expired as a whole.
+ *
+ * Deletes are paced to {@code max-deletes-per-second} over the whole sweep, not per room:
+ * every batch, however small, spends from the same budget, so thousands of rooms with a few
+ * expired messages each are throttled like one big room. The pause grows while batches take
+ * longer than {@code max-batch-latency-ms}, i.e. while the store is busy with live traffic.
+ * Sweeps run on their own thread so the pauses never hold up other scheduled jobs.
+ *
+ * With Mongo storage the attachments of purged messages go with them, batch by batch.
+ */
+@Service
+public class RetentionService implements DisposableBean {
+
+    private static final int ROOM_PAGE = 500;
+    private static final int MAX_BACKOFF = 64;
+
+    private final RoomStore roomStore;
+    private final MessageStore messageStore;
+    private final MessageArchiveService messageArchiveService;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final RoomStateService roomStateService;
+    private final MessageSearchService messageSearchService;
+    private final ObjectProvider<AttachmentService> attachmentService;
+    private final boolean enabled;
+    private final int privateDays;
+    private final int groupDays;
+    private final int batchSize;
+    private final double maxDeletesPerSecond;
+    private final long maxBatchLatencyNanos;
+
+    private final ExecutorService sweeper = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "retention-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private int backoff = 1; // sweeper thread only
+    private long nextSlot = System.nanoTime(); // sweeper thread only: when the budget allows the next delete
+
+    // 📊 progress
+    private final Counter deletedHot;
+    private final Counter deletedCold;
+    private final Timer batchTimer;
+    private final AtomicLong roomsSwept = new AtomicLong();
+    private final AtomicLong pauseMs = new AtomicLong();
+    private final AtomicLong lastSweepCompleted = new AtomicLong();
+
+    public RetentionService(RoomStore roomStore,
+                            MessageStore messageStore,
+                            MessageArchiveService messageArchiveService,
+                            RoomAffinityRouter roomAffinityRouter,
+                            RoomStateService roomStateService,
+                            MessageSearchService messageSearchService,
+                            ObjectProvider<AttachmentService> attachmentService,
+                            @Value("${chat.retention.enabled:true}") boolean enabled,
+                            @Value("${chat.retention.private-days:0}") int privateDays,
+                            @Value("${chat.retention.group-days:0}") int groupDays,
+                            @Value("${chat.retention.batch-size:200}") int batchSize,
+                            @Value("${chat.retention.max-deletes-per-second:500}") double maxDeletesPerSecond,
+                            @Value("${chat.retention.max-batch-latency-ms:50}") long maxBatchLatencyMs,
+                            MeterRegistry meterRegistry) {
+        this.roomStore = roomStore;
+        this.messageStore = messageStore;
+        this.messageArchiveService = messageArchiveService;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.roomStateService = roomStateService;
+        this.messageSearchService = messageSearchService;
+        this.attachmentService = attachmentService;
+        this.enabled = enabled;
+        this.privateDays = privateDays;
+        this.groupDays = groupDays;
+        this.batchSize = batchSize;
+        this.maxDeletesPerSecond = maxDeletesPerSecond;
+        this.maxBatchLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchLatencyMs);
+
+        this.deletedHot = Counter.builder("chat.retention.deleted").tag("tier", "hot")
+                .description("Messages deleted by retention").register(meterRegistry);
+        this.deletedCold = Counter.builder("chat.retention.deleted").tag("tier", "cold")
+                .description("Messages deleted by retention").register(meterRegistry);
+        this.batchTimer = Timer.builder("chat.retention.batch")
+                .description("Latency of one bulk delete").register(meterRegistry);
+        Gauge.builder("chat.retention.rooms.swept", roomsSwept, AtomicLong::get)
+                .description("Rooms visited by the current (or last) sweep").register(meterRegistry);
+        Gauge.builder("chat.retention.pause.ms", pauseMs, AtomicLong::get)
+                .description("Current pause between delete batches").register(meterRegistry);
+        Gauge.builder("chat.retention.last.sweep", lastSweepCompleted, AtomicLong::get)
+                .description("Epoch seconds when the last sweep finished").register(meterRegistry);
+    }
+
+    // =====================================================
+    // ⏱️ SCHEDULING
+    // =====================================================
+
+    @Scheduled(fixedDelayString = "${chat.retention.interval-ms:3600000}",
+               initialDelayString = "${chat.retention.initial-delay-ms:120000}")
+    public void scheduleSweep() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        sweeper.execute(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Retention sweep failed: " + e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    void sweep() {
+        long started = System.nanoTime();
+        long deleted = 0;
+        roomsSwept.set(0);
+        nextSlot = started;
+
+        String after = null;
+        List<String> ids;
+        do {
+            ids = roomStore.findIdsAfter(after, ROOM_PAGE);
+            for (String roomId : ids) {
+                if (Thread.currentThread().isInterrupted()) return;
+                if (!roomAffinityRouter.isLocal(roomId)) continue;
+                ChatRoom room = roomStore.findById(roomId).orElse(null);
+                if (room == null) continue;
+                int days = retentionDays(room);
+                roomsSwept.incrementAndGet();
+                if (days <= 0) continue;
+                try {
+                    deleted += purge(room, Instant.now().minus(Duration.ofDays(days)));
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ Retention of room " + roomId + " failed: " + e.getMessage());
+                }
+            }
+            if (!ids.isEmpty()) after = ids.get(ids.size() - 1);
+        } while (ids.size() == ROOM_PAGE);
+
+        lastSweepCompleted.set(Instant.now().getEpochSecond());
+        if (deleted > 0) {
+            System.out.println("🗑️ Retention sweep deleted " + deleted + " message(s) across " + roomsSwept.get()
+                    + " room(s) in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+    }
+
+    int retentionDays(ChatRoom room) {
+        if (room.getRetentionDays() != null) return room.getRetentionDays();
+        return room.isPrivate() ? privateDays : groupDays;
+    }
+
+    /** Deletes the room's messages older than {@code cutoff} from both tiers; returns how many. */
+    long purge(ChatRoom room, Instant cutoff) {
+        String roomId = room.getId();
+        long deleted = 0;
+
+        while (true) {
+            List<MessageRef> expired = messageStore.findOldestRefsBefore(roomId, cutoff, batchSize);
+            if (expired.isEmpty()) break;
+            // Floor first: if we crash after the delete, the sequence still can't go backwards
+            raiseFloor(roomId, expired.stream().map(MessageRef::sequence));
+
+            List<String> ids = expired.stream().map(MessageRef::id).toList();
+            long t0 = System.nanoTime();
+            messageStore.deleteAllById(ids);
+            long latency = System.nanoTime() - t0;
+            messageSearchService.remove(ids);
+            deleteAttachments(expired.stream().map(MessageRef::attachmentIds));
+            batchTimer.record(latency, TimeUnit.NANOSECONDS);
+            deletedHot.increment(expired.size());
+            deleted += expired.size();
+
+            if (!pace(expired.size(), t0, latency)) break;
+            if (expired.size() < batchSize) break;
+        }
+
+        List<ArchiveSegment> segments = messageArchiveService.findExpiredSegments(roomId, cutoff);
+        if (!segments.isEmpty()) {
+            raiseFloor(roomId, segments.stream().map(ArchiveSegment::getMaxSequence));
+            AttachmentService attachments = attachmentService.getIfAvailable();
+            for (ArchiveSegment segment : segments) {
+                List<String> attachmentIds = attachments == null ? List.of() : messageArchiveService.attachmentIds(segment);
+                messageArchiveService.deleteSegment(segment);
+                if (attachments != null) attachments.deleteAll(attachmentIds);
+                deletedCold.increment(segment.getCount());
+                deleted += segment.getCount();
+            }
+        }
+        if (deleted > 0) roomStateService.dropBefore(roomId, cutoff);
+        return deleted;
+    }
+
+    private void deleteAttachments(Stream<List<String>> ids) {
+        AttachmentService attachments = attachmentService.getIfAvailable();
+        if (attachments == null) return;
+        attachments.deleteAll(ids.filter(Objects::nonNull).flatMap(List::stream).toList());
+    }
+
+    private void raiseFloor(String roomId, Stream<Long> sequences) {
+        sequences.filter(Objects::nonNull).max(Long::compare)
+                .ifPresent(max -> roomStore.raiseSequenceFloor(roomId, max));
+    }
+
+    /**
+     * Charges a batch that started at {@code startNanos} to the sweep-wide deletes-per-second
+     * budget, stretched by a backoff factor that doubles on every slow batch and halves on
+     * every fast one, and sleeps until the budget has room again. Time spent between batches
+     * (room lookups, idle rooms) is not saved up as credit. Returns false when interrupted
+     * (shutdown).
+     */
+    private boolean pace(int deletes, long startNanos, long latencyNanos) {
+        backoff = latencyNanos > maxBatchLatencyNanos
+                ? Math.min(backoff * 2, MAX_BACKOFF)
+                : Math.max(backoff / 2, 1);
+        long budgetNanos = (long) (deletes * 1_000_000_000L / maxDeletesPerSecond);
+        if (nextSlot - startNanos < 0) nextSlot = startNanos;
+        nextSlot += budgetNanos * backoff;
+        long sleepNanos = Math.max(0, nextSlot - System.nanoTime());
+        pauseMs.set(TimeUnit.NANOSECONDS.toMillis(sleepNanos));
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,142 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.RoomStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 📦 Details and latest messages of several rooms in one call, for a client's first screen.
+ *
+ * The rooms come back from one {@code $in} query. An {@code $in} over messages cannot stop at
+ * N per room, so the messages are one index-bounded "newest N" query per room instead, all of
+ * them started at the same time as the room query: the call costs about one round trip rather
+ * than one per room. Rooms this node owns and already holds in memory are answered from
+ * RoomStateService without a query.
+ *
+ * The queries run on a small pool of their own; when it is saturated the caller's thread runs
+ * the query itself, which slows that request down instead of queueing without bound.
+ */
+@Service
+public class RoomBatchService implements DisposableBean {
+
+    private final RoomStore roomStore;
+    private final MessageHistoryService messageHistoryService;
+    private final RoomStateService roomStateService;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final int maxRooms;
+    private final int defaultMessages;
+    private final int maxMessages;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    public RoomBatchService(RoomStore roomStore,
+                            MessageHistoryService messageHistoryService,
+                            RoomStateService roomStateService,
+                            RoomAffinityRouter roomAffinityRouter,
+                            @Value("${chat.rooms.batch.max-rooms:50}") int maxRooms,
+                            @Value("${chat.rooms.batch.messages:20}") int defaultMessages,
+                            @Value("${chat.rooms.batch.max-messages:100}") int maxMessages,
+                            @Value("${chat.rooms.batch.parallelism:8}") int parallelism,
+                            @Value("${chat.rooms.batch.timeout-ms:5000}") long timeoutMs) {
+        this.roomStore = roomStore;
+        this.messageHistoryService = messageHistoryService;
+        this.roomStateService = roomStateService;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.maxRooms = maxRooms;
+        this.defaultMessages = defaultMessages;
+        this.maxMessages = maxMessages;
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4),
+                r -> {
+                    Thread t = new Thread(r, "room-batch-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * {@code {rooms: [{room, messages}], missing: [ids]}} in the order asked for. Messages are
+     * oldest first, like a history page. Rooms that don't exist or that {@code username} is
+     * not a member of are listed under {@code missing} and nothing else is said about them.
+     */
+    public Map<String, Object> load(String username, List<String> roomIds, Integer limit) {
+        if (roomIds == null || roomIds.isEmpty()) throw new RuntimeException("roomIds required");
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(roomIds));
+        ids.removeIf(Objects::isNull);
+        if (ids.size() > maxRooms) throw new RuntimeException("At most " + maxRooms + " rooms per batch");
+        int size = limit == null ? defaultMessages : Math.max(0, Math.min(limit, maxMessages));
+
+        CompletableFuture<List<ChatRoom>> rooms = CompletableFuture.supplyAsync(() -> roomStore.findAllById(ids), executor);
+        Map<String, CompletableFuture<List<ChatMessage>>> messages = new HashMap<>();
+        for (String id : ids) messages.put(id, latest(id, size));
+
+        List<CompletableFuture<?>> all = new ArrayList<>(messages.values());
+        all.add(rooms);
+        try {
+            CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            all.forEach(f -> f.cancel(false));
+            throw new RuntimeException("Loading " + ids.size() + " rooms timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading rooms");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to load rooms: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        Map<String, ChatRoom> byId = new HashMap<>();
+        for (ChatRoom room : rooms.join()) {
+            if (room.getMembers() != null && room.getMembers().contains(username)) byId.put(room.getId(), room);
+        }
+
+        List<Map<String, Object>> found = new ArrayList<>(byId.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            ChatRoom room = byId.get(id);
+            if (room == null) {
+                missing.add(id);
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("room", room);
+            entry.put("messages", messages.get(id).join());
+            found.add(entry);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rooms", found);
+        result.put("missing", missing);
+        return result;
+    }
+
+    private CompletableFuture<List<ChatMessage>> latest(String roomId, int size) {
+        if (size == 0) return CompletableFuture.completedFuture(List.of());
+        if (roomAffinityRouter.isLocal(roomId)) {
+            Optional<List<ChatMessage>> cached = roomStateService.cachedRecent(roomId, size);
+            if (cached.isPresent()) return CompletableFuture.completedFuture(cached.get());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            List<ChatMessage> newest = new ArrayList<>(messageHistoryService.latest(roomId, size));
+            Collections.reverse(newest);
+            return newest;
+        }, executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,246 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.RoomStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 🔥 Hot per-room state kept by the node that owns the room: the message sequence
+ * counter, the most recent messages, the member list and its @mention matcher.
+ *
+ * State is loaded lazily from storage the first time a room is touched on this node and
+ * dropped when the room moves to another node (see {@code RoomAffinityRouter}), when it has
+ * not been touched for {@code state-idle-ms}, or, least recently used first, when more than
+ * {@code state-max-entries} rooms are held. A room used within the last few seconds is never
+ * evicted: a send may hold a sequence taken from it that is not stored yet, and a reload
+ * would hand out that sequence again. A rebalance drops such rooms anyway (they are owned
+ * elsewhere now), but keeps their counters for a while, so a room that comes straight back
+ * resumes above them.
+ */
+@Service
+public class RoomStateService {
+
+    private static final long IN_USE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final MessageHistoryService messageHistoryService;
+    private final RoomStore roomStore;
+    private final int recentLimit;
+    private final int maxEntries;
+    private final long idleNanos;
+
+    private final Map<String, RoomState> rooms = new ConcurrentHashMap<>();
+
+    // rooms a rebalance dropped while in use -> the last sequence handed out here
+    private final Map<String, DroppedCounter> dropped = new ConcurrentHashMap<>();
+
+    public RoomStateService(MessageHistoryService messageHistoryService,
+                            RoomStore roomStore,
+                            @Value("${chat.rooms.recent-messages:50}") int recentLimit,
+                            @Value("${chat.rooms.state-max-entries:20000}") int maxEntries,
+                            @Value("${chat.rooms.state-idle-ms:1800000}") long idleMs) {
+        this.messageHistoryService = messageHistoryService;
+        this.roomStore = roomStore;
+        this.recentLimit = recentLimit;
+        this.maxEntries = maxEntries;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+    }
+
+    // =====================================================
+    // 🔢 SEQUENCE
+    // =====================================================
+
+    public long nextSequence(String roomId) {
+        return state(roomId).sequence.incrementAndGet();
+    }
+
+    /** The last sequence handed out (this node owns the room). */
+    public long currentSequence(String roomId) {
+        return state(roomId).sequence.get();
+    }
+
+    // =====================================================
+    // 💬 RECENT MESSAGES
+    // =====================================================
+
+    public void append(ChatMessage saved) {
+        if (saved.getRoomId() == null) return;
+        RoomState state = state(saved.getRoomId());
+        synchronized (state.recent) {
+            // state reloaded after the save already holds it (sends may land out of order,
+            // so look back past the tail down to the first older sequence)
+            Iterator<ChatMessage> newestFirst = state.recent.descendingIterator();
+            while (newestFirst.hasNext()) {
+                ChatMessage m = newestFirst.next();
+                if (Objects.equals(m.getId(), saved.getId())) return;
+                if (m.getSequence() != null && saved.getSequence() != null && m.getSequence() < saved.getSequence()) break;
+            }
+            state.recent.addLast(saved);
+            while (state.recent.size() > recentLimit) state.recent.pollFirst();
+        }
+    }
+
+    /** Most recent messages of the room, oldest first. */
+    public List<ChatMessage> recentMessages(String roomId) {
+        RoomState state = state(roomId);
+        synchronized (state.recent) {
+            return new ArrayList<>(state.recent);
+        }
+    }
+
+    /**
+     * The newest {@code limit} messages, oldest first, when this node already holds the
+     * room's state and the cache can answer exactly what a history page would; empty
+     * otherwise. Never loads anything. Like a page, the answer runs past {@code limit} rather
+     * than splitting messages that share a timestamp.
+     */
+    public Optional<List<ChatMessage>> cachedRecent(String roomId, int limit) {
+        RoomState state = rooms.get(roomId);
+        if (state == null || !state.loaded || limit > recentLimit) return Optional.empty();
+        synchronized (state.recent) {
+            List<ChatMessage> all = new ArrayList<>(state.recent);
+            int from = Math.max(0, all.size() - limit);
+            while (from > 0 && Objects.equals(all.get(from - 1).getTimestamp(), all.get(from).getTimestamp())) from--;
+            // a full cache doesn't know what lies just before its oldest message
+            if (from == 0 && all.size() >= recentLimit) return Optional.empty();
+            return Optional.of(all.subList(from, all.size()));
+        }
+    }
+
+    /** Loads the room's state now, so the next request for it is served from memory. */
+    public void warm(String roomId) {
+        state(roomId);
+    }
+
+    /** Forgets cached messages older than {@code cutoff} (deleted by retention). */
+    public void dropBefore(String roomId, Instant cutoff) {
+        RoomState state = rooms.get(roomId);
+        if (state == null) return;
+        synchronized (state.recent) {
+            state.recent.removeIf(m -> m.getTimestamp() != null && m.getTimestamp().isBefore(cutoff));
+        }
+    }
+
+    // =====================================================
+    // 👥 MEMBERSHIP
+    // =====================================================
+
+    public List<String> members(String roomId) {
+        return state(roomId).members;
+    }
+
+    /** @mention matcher for the current member list, rebuilt on first use after a change. */
+    public MentionMatcher mentionMatcher(String roomId) {
+        RoomState state = state(roomId);
+        List<String> members = state.members;
+        MentionMatcher matcher = state.mentions;
+        if (matcher == null || matcher.members() != members) {
+            matcher = new MentionMatcher(members);
+            state.mentions = matcher;
+        }
+        return matcher;
+    }
+
+    public void updateMembers(ChatRoom room) {
+        RoomState state = rooms.get(room.getId());
+        if (state != null) state.members = room.getMembers() == null ? List.of() : List.copyOf(room.getMembers());
+    }
+
+    // =====================================================
+    // ♻️ REBALANCING
+    // =====================================================
+
+    /** Drops state for rooms this node no longer owns. */
+    public void retainOnly(Predicate<String> owned) {
+        long now = System.nanoTime();
+        rooms.entrySet().removeIf(e -> {
+            if (owned.test(e.getKey())) return false;
+            RoomState state = e.getValue();
+            // a send here may not have stored its sequence yet; should the room come back, go past it
+            if (state.loaded && now - state.lastAccess < IN_USE_NANOS) {
+                dropped.put(e.getKey(), new DroppedCounter(state.sequence.get(), now));
+            }
+            return true;
+        });
+    }
+
+    public int size() {
+        return rooms.size();
+    }
+
+    /** Drops idle rooms, then the least recently used ones while over the limit. */
+    @Scheduled(fixedDelayString = "${chat.rooms.state-sweep-interval-ms:60000}",
+               initialDelayString = "${chat.rooms.state-sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        rooms.entrySet().removeIf(e -> now - e.getValue().lastAccess > idleNanos);
+        dropped.values().removeIf(d -> now - d.droppedAt() >= IN_USE_NANOS);
+
+        int excess = rooms.size() - maxEntries;
+        if (excess <= 0) return;
+        List<Map.Entry<String, RoomState>> byAge = new ArrayList<>(rooms.entrySet());
+        byAge.sort(Comparator.comparingLong(e -> e.getValue().lastAccess - now));
+        for (Map.Entry<String, RoomState> e : byAge) {
+            if (excess <= 0 || now - e.getValue().lastAccess < IN_USE_NANOS) break;
+            if (rooms.remove(e.getKey(), e.getValue())) excess--;
+        }
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private RoomState state(String roomId) {
+        RoomState state = rooms.computeIfAbsent(roomId, id -> new RoomState());
+        state.lastAccess = System.nanoTime();
+        if (!state.loaded) load(roomId, state);
+        return state;
+    }
+
+    private void load(String roomId, RoomState state) {
+        synchronized (state) {
+            if (state.loaded) return;
+
+            Optional<ChatRoom> room = roomStore.findById(roomId);
+
+            // Retention may have deleted every message; its floor keeps the counter moving up,
+            // and so does what this node handed out before a rebalance took the room away
+            DroppedCounter handedOut = dropped.remove(roomId);
+            long floor = Math.max(room.map(ChatRoom::getSequenceFloor).orElse(0L),
+                    handedOut == null ? 0 : handedOut.sequence());
+            state.sequence.set(Math.max(messageHistoryService.lastSequence(roomId), floor));
+
+            List<ChatMessage> latest = messageHistoryService.latest(roomId, recentLimit);
+            synchronized (state.recent) {
+                for (int i = latest.size() - 1; i >= 0; i--) state.recent.addLast(latest.get(i));
+            }
+
+            state.members = room
+                    .map(ChatRoom::getMembers)
+                    .map(List::copyOf)
+                    .orElse(List.of());
+
+            state.loaded = true;
+        }
+    }
+
+    private record DroppedCounter(long sequence, long droppedAt) {}
+
+    private static final class RoomState {
+        final AtomicLong sequence = new AtomicLong();
+        final ArrayDeque<ChatMessage> recent = new ArrayDeque<>();
+        volatile List<String> members = List.of();
+        volatile MentionMatcher mentions;
+        volatile boolean loaded;
+        volatile long lastAccess = System.nanoTime();
+    }
+}
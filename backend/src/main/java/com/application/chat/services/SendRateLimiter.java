@@ -0,0 +1,119 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🚦 Per-user send rate limit, one token bucket per user and message kind.
+ *
+ * Implemented as GCRA: each bucket is a single {@link AtomicLong} holding the
+ * "theoretical arrival time" and is updated with a CAS, so checks never lock and cost
+ * one map lookup. A bucket whose arrival time is in the past is indistinguishable from a
+ * fresh one, which is what makes idle eviction lossless. Eviction only runs in the
+ * scheduled sweep; while the map is full, users without a bucket are turned away.
+ */
+@Service
+public class SendRateLimiter {
+
+    public enum Kind { PRIVATE, GROUP }
+
+    private final Map<Kind, Limit> limits = new EnumMap<>(Kind.class);
+    private final int maxBuckets;
+
+    // username + kind -> theoretical arrival time (nanoTime)
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final Map<Kind, Counter> rejected = new EnumMap<>(Kind.class);
+
+    public SendRateLimiter(
+            @Value("${chat.ratelimit.private.per-second:5}") double privatePerSecond,
+            @Value("${chat.ratelimit.private.burst:20}") int privateBurst,
+            @Value("${chat.ratelimit.group.per-second:3}") double groupPerSecond,
+            @Value("${chat.ratelimit.group.burst:10}") int groupBurst,
+            @Value("${chat.ratelimit.max-users:100000}") int maxBuckets,
+            MeterRegistry meterRegistry) {
+        limits.put(Kind.PRIVATE, new Limit(privatePerSecond, privateBurst));
+        limits.put(Kind.GROUP, new Limit(groupPerSecond, groupBurst));
+        this.maxBuckets = maxBuckets;
+
+        for (Kind kind : Kind.values()) {
+            rejected.put(kind, Counter.builder("chat.ratelimit.rejected")
+                    .tag("kind", kind.name().toLowerCase())
+                    .description("Sends rejected by the per-user rate limit")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("chat.ratelimit.buckets", buckets, Map::size)
+                .description("Users with a non-idle send bucket")
+                .register(meterRegistry);
+    }
+
+    /** Private when addressed to a user; everything else counts against the group limit. */
+    public static Kind kindOf(ChatMessage message) {
+        String receiver = message.getReceiverUsername();
+        return receiver != null && !receiver.isEmpty() ? Kind.PRIVATE : Kind.GROUP;
+    }
+
+    /**
+     * Takes one token from the user's bucket.
+     *
+     * @return 0 if the send is allowed, otherwise how many milliseconds until it would be
+     */
+    public long tryAcquire(String username, Kind kind) {
+        if (username == null) return 0;
+        Limit limit = limits.get(kind);
+        if (limit.intervalNanos <= 0) return 0; // disabled
+
+        String key = kind.ordinal() + ":" + username;
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            if (buckets.size() >= maxBuckets) {
+                // Fail closed until the next sweep frees room: a flood of new identities must
+                // neither grow the map without bound nor make every send scan it
+                rejected.get(kind).increment();
+                return TimeUnit.NANOSECONDS.toMillis(limit.intervalNanos) + 1;
+            }
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = start + limit.intervalNanos;
+            long ahead = next - now;
+            if (ahead > limit.toleranceNanos) {
+                rejected.get(kind).increment();
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(ahead - limit.toleranceNanos));
+            }
+            if (tat.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /** Drops buckets that have fully refilled; they carry no state a fresh bucket wouldn't. */
+    @Scheduled(fixedDelayString = "${chat.ratelimit.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(tat -> tat.get() == Long.MIN_VALUE || tat.get() - now <= 0);
+    }
+
+    private static final class Limit {
+        final long intervalNanos;   // one token every intervalNanos
+        final long toleranceNanos;  // how far ahead of "now" the bucket may run: the burst
+
+        Limit(double perSecond, int burst) {
+            this.intervalNanos = perSecond > 0 ? (long) (1_000_000_000L / perSecond) : 0;
+            this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 🔥 Pre-warms a user's caches as soon as their STOMP session is connected, while the
+ * client is still subscribing: the first chat-list and history requests then come from
+ * memory.
+ *
+ * The CONNECT itself already resolved the user's identity through IdentityCache. From here
+ * the chat list is computed and parked for the user's next GET /chats/rooms (taken once,
+ * dropped after {@code chat-list-ttl-ms} or as soon as one of their rooms changes on this
+ * node), and the state of up to {@code rooms} of their rooms owned by this node is loaded
+ * into RoomStateService.
+ *
+ * Warming is only an optimisation, so it runs on a small pool of its own with a bounded
+ * queue: during a reconnect storm the overflow is skipped and counted rather than queued.
+ */
+@Service
+public class SessionPrewarmService implements DisposableBean {
+
+    private record Warm(List<Map<String, Object>> chats, long expiresAt) {}
+
+    private static final Warm PENDING = new Warm(null, 0);
+
+    private final RoomStateService roomStateService;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final boolean enabled;
+    private final int maxRooms;
+    private final long ttlNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Warm> chatLists;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile Function<String, List<Map<String, Object>>> chatList = username -> List.of();
+
+    // 📊 warmed vs. skipped because the pool was full
+    private final Counter warmed;
+    private final Counter skipped;
+
+    public SessionPrewarmService(RoomStateService roomStateService,
+                                 RoomAffinityRouter roomAffinityRouter,
+                                 @Value("${chat.prewarm.enabled:true}") boolean enabled,
+                                 @Value("${chat.prewarm.rooms:10}") int maxRooms,
+                                 @Value("${chat.prewarm.chat-list-ttl-ms:10000}") long ttlMs,
+                                 @Value("${chat.prewarm.threads:2}") int threads,
+                                 @Value("${chat.prewarm.queue-size:1000}") int queueSize,
+                                 @Value("${chat.prewarm.max-entries:10000}") int maxEntries,
+                                 MeterRegistry meterRegistry) {
+        this.roomStateService = roomStateService;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.enabled = enabled;
+        this.maxRooms = maxRooms;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.chatLists = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Warm> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        this.warmed = Counter.builder("chat.prewarm.sessions").tag("result", "warmed")
+                .description("Sessions whose caches were pre-warmed on connect").register(meterRegistry);
+        this.skipped = Counter.builder("chat.prewarm.sessions").tag("result", "skipped")
+                .description("Sessions whose caches were pre-warmed on connect").register(meterRegistry);
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "session-prewarm-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Computes a user's chat list (set by ChatService). */
+    public void setChatList(Function<String, List<Map<String, Object>>> chatList) {
+        this.chatList = chatList;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (!enabled || user == null) return;
+        String username = user.getName();
+        // a second tab connecting right after the first finds everything warm already
+        if (!inFlight.add(username)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    warm(username);
+                } finally {
+                    inFlight.remove(username);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(username);
+            skipped.increment();
+        }
+    }
+
+    /** The chat list warmed for this user, if still fresh; handed out once. */
+    public Optional<List<Map<String, Object>>> takeChatList(String username) {
+        Warm warm = chatLists.remove(username);
+        if (warm == null || warm.chats() == null || warm.expiresAt() - System.nanoTime() < 0) return Optional.empty();
+        return Optional.of(warm.chats());
+    }
+
+    /** The user's chat list changed: a warmed copy (or one being computed) must not be served. */
+    public void invalidate(String username) {
+        chatLists.remove(username);
+    }
+
+    void warm(String username) {
+        try {
+            // PENDING marks the computation; an invalidate meanwhile removes it and the result is dropped
+            chatLists.put(username, PENDING);
+            List<Map<String, Object>> chats = chatList.apply(username);
+            chatLists.replace(username, PENDING, new Warm(chats, System.nanoTime() + ttlNanos));
+
+            int loaded = 0;
+            for (Map<String, Object> chat : chats) {
+                if (loaded >= maxRooms) break;
+                String roomId = (String) chat.get("id");
+                if (roomId == null || !roomAffinityRouter.isLocal(roomId)) continue;
+                roomStateService.warm(roomId);
+                loaded++;
+            }
+            warmed.increment();
+        } catch (RuntimeException e) {
+            chatLists.remove(username, PENDING);
+            System.out.println("⚠️ Pre-warm for " + username + " failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,151 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.RoomAffinityRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ⌨️ Ephemeral "who is typing" state per room.
+ *
+ * Keystrokes only refresh an expiry timestamp in memory; nothing is written to Mongo
+ * and nothing is sent to the broker on the hot path. A periodic flush publishes at most
+ * one coalesced frame per room per interval to /topic/typing/{roomId}, and only when the
+ * set of typing users actually changed (someone started, stopped or expired).
+ *
+ * A room's typers are kept on the node that owns the room (see {@link RoomAffinityRouter}):
+ * keystrokes for foreign rooms are forwarded there, so a single node publishes the full
+ * list instead of every node publishing the typers connected to it. Only members of the
+ * room count, and at most {@code max-rooms} rooms are tracked; past that, keystrokes for
+ * rooms without typers are dropped until the flush retires idle ones.
+ */
+@Service
+public class TypingIndicatorService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomStateService roomStateService;
+    private final RoomAffinityRouter roomAffinityRouter;
+    private final long ttlMs;
+    private final int maxRooms;
+
+    // roomId -> typing state
+    private final Map<String, RoomTyping> rooms = new ConcurrentHashMap<>();
+
+    public TypingIndicatorService(SimpMessagingTemplate messagingTemplate,
+                                  RoomStateService roomStateService,
+                                  RoomAffinityRouter roomAffinityRouter,
+                                  @Value("${chat.typing.ttl-ms:5000}") long ttlMs,
+                                  @Value("${chat.typing.max-rooms:100000}") int maxRooms) {
+        this.messagingTemplate = messagingTemplate;
+        this.roomStateService = roomStateService;
+        this.roomAffinityRouter = roomAffinityRouter;
+        this.ttlMs = ttlMs;
+        this.maxRooms = maxRooms;
+        // Keystrokes forwarded by other nodes land here, on the owner, without another ownership check
+        roomAffinityRouter.setTypingHandler(this::record);
+    }
+
+    // =====================================================
+    // ⌨️ INBOUND (hot path — memory only)
+    // =====================================================
+
+    public void onTyping(String roomId, String username, boolean typing) {
+        if (roomId == null || roomId.isEmpty() || username == null) return;
+        if (!roomAffinityRouter.isLocal(roomId)) {
+            roomAffinityRouter.forwardTyping(roomId, username, typing);
+            return;
+        }
+        record(roomId, username, typing);
+    }
+
+    /** Called on the owner when a message is sent so the sender's indicator clears on the next flush. */
+    public void clear(String roomId, String username) {
+        if (roomId == null || username == null) return;
+        update(roomId, username, false);
+    }
+
+    private void record(String roomId, String username, boolean typing) {
+        if (roomId == null || username == null) return;
+        if (typing && !roomStateService.members(roomId).contains(username)) return;
+        update(roomId, username, typing);
+    }
+
+    private void update(String roomId, String username, boolean typing) {
+        // compute() is atomic with the idle removal in flush(), so a keystroke can't land in a dropped state
+        if (typing) {
+            if (rooms.size() >= maxRooms && !rooms.containsKey(roomId)) return;
+            rooms.compute(roomId, (id, state) -> {
+                if (state == null) state = new RoomTyping();
+                Long previous = state.expiries.put(username, System.currentTimeMillis() + ttlMs);
+                if (previous == null) state.dirty = true; // only a *new* typer changes the frame
+                return state;
+            });
+        } else {
+            rooms.computeIfPresent(roomId, (id, state) -> {
+                if (state.expiries.remove(username) != null) state.dirty = true;
+                return state;
+            });
+        }
+    }
+
+    // =====================================================
+    // 📢 COALESCED FAN-OUT
+    // =====================================================
+
+    @Scheduled(fixedDelayString = "${chat.typing.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<String, RoomTyping> entry : rooms.entrySet()) {
+            String roomId = entry.getKey();
+            RoomTyping state = entry.getValue();
+
+            // Moved to another node in a rebalance: the new owner collects its typers from now on
+            if (!roomAffinityRouter.isLocal(roomId)) {
+                rooms.remove(roomId);
+                continue;
+            }
+
+            if (state.expiries.entrySet().removeIf(e -> e.getValue() <= now)) {
+                state.dirty = true;
+            }
+
+            if (state.dirty) {
+                state.dirty = false;
+                List<String> typing = new ArrayList<>(state.expiries.keySet());
+                Collections.sort(typing);
+
+                if (!typing.equals(state.lastPublished)) {
+                    state.lastPublished = typing;
+                    try {
+                        messagingTemplate.convertAndSend("/topic/typing/" + roomId,
+                                Map.of("roomId", roomId, "users", typing));
+                    } catch (Exception e) {
+                        System.out.println("⚠️ Failed to push typing update for room " + roomId + ": " + e.getMessage());
+                    }
+                }
+            }
+
+            // Drop idle rooms so the map only holds rooms with recent activity
+            rooms.computeIfPresent(roomId, (id, s) -> s.isIdle() ? null : s);
+        }
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private static final class RoomTyping {
+        final Map<String, Long> expiries = new ConcurrentHashMap<>(); // username -> expiry millis
+        volatile boolean dirty;
+        volatile List<String> lastPublished = List.of();
+
+        boolean isIdle() {
+            return expiries.isEmpty() && !dirty && lastPublished.isEmpty();
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.application.chat.services;
 
 import com.application.chat.models.User;
-import com.application.chat.repositories.UserRepository;
+import com.application.chat.storage.UserStore;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -13,17 +14,20 @@ import java.util.*;
 @Service
 public class UserService implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserStore userStore;
     private final PasswordEncoder passwordEncoder;
+    private final EntityVersionService entityVersionService;
 
     // In-memory OTP storage: email -> OTP
     private final Map<String, String> otpStore = new HashMap<>();
 
     private final SecureRandom secureRandom = new SecureRandom();
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
-        this.userRepository = userRepository;
+    public UserService(UserStore userStore, PasswordEncoder passwordEncoder,
+                       EntityVersionService entityVersionService) {
+        this.userStore = userStore;
         this.passwordEncoder = passwordEncoder;
+        this.entityVersionService = entityVersionService;
     }
 
     // ========================= REGISTER =========================
@@ -31,39 +35,38 @@ public class UserService implements UserDetailsService {
     public User registerUser(User user) {
         Objects.requireNonNull(user, "User cannot be null");
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        return userStore.save(user);
     }
 
     // ========================= FINDERS =========================
 
     // ✅ Find user by username (used for reference)
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username); 
-        // The method findByUsername(String) is undefined for the type UserRepositoryJava(67108964)
+        return userStore.findByUsername(username);
 
     }
 
     // ✅ Find user by email (for login and group creation)
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userStore.findByEmail(email);
     }
 
     // ✅ Fetch user by ID
     public User getUserById(String userId) {
-        return userRepository.findById(userId)
+        return userStore.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
     }
 
     // ✅ List all users
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return userStore.findAll();
     }
 
     // ========================= SPRING SECURITY =========================
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         // Login using email
-        User user = userRepository.findByEmail(email)
+        User user = userStore.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
         return new org.springframework.security.core.userdetails.User(
@@ -77,7 +80,7 @@ public class UserService implements UserDetailsService {
 
     // ✅ Generate OTP
     public String generateOtp(String email) {
-        userRepository.findByEmail(email)
+        userStore.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Email not found"));
 
         int otpInt = 100000 + secureRandom.nextInt(900000); // 6-digit OTP
@@ -94,11 +97,20 @@ public class UserService implements UserDetailsService {
             throw new RuntimeException("Invalid OTP");
         }
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        String encoded = passwordEncoder.encode(newPassword);
+        User saved = null;
+        // A concurrent save of the same user fails the version check: re-read and apply again
+        for (int attempt = 1; saved == null; attempt++) {
+            User user = userStore.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            user.setPassword(encoded);
+            try {
+                saved = userStore.save(user);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= 5) throw new RuntimeException("User is being changed concurrently, try again.");
+            }
+        }
+        entityVersionService.updated(EntityVersionService.USER, saved.getId(), saved.getVersion());
         otpStore.remove(email);
     }
 }
@@ -0,0 +1,20 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.ArchiveSegment;
+
+import java.util.List;
+import java.util.Optional;
+
+/** Cold-tier message segments (see MessageArchiveService). Segments are never modified once saved, only deleted whole. */
+public interface ArchiveStore {
+
+    ArchiveSegment save(ArchiveSegment segment);
+
+    /** The room's segments without {@code data}, oldest first. */
+    List<ArchiveSegment> findHeadersByRoomId(String roomId);
+
+    /** One segment including its {@code data}. */
+    Optional<ArchiveSegment> findById(String id);
+
+    void deleteById(String id);
+}
@@ -0,0 +1,23 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.OfflineMailbox;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/** Offline mailboxes (see OfflineMailboxService). */
+public interface MailboxStore {
+
+    /** Appends an entry, keeping only the newest {@code maxEntries}, and counts it in {@code total}. */
+    void push(String username, OfflineMailbox.Entry entry, int maxEntries);
+
+    /** The user's mailbox, left in place until its entries are acknowledged. */
+    Optional<OfflineMailbox> peek(String username);
+
+    /**
+     * Removes the entries for {@code messageIds} once they were delivered and takes
+     * {@code accounted} off {@code total}; the mailbox goes away when no entries are left.
+     * Entries pushed in the meantime are kept.
+     */
+    void ack(String username, Collection<String> messageIds, long accounted);
+}
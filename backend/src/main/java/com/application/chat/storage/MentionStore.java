@@ -0,0 +1,19 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.Mention;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/** Per-user @mention index (see MentionService). */
+public interface MentionStore {
+
+    /** Inserts in one round trip, assigning ids. */
+    void saveAll(Collection<Mention> mentions);
+
+    /** The user's mentions older than {@code before} (no bound when null), newest first. */
+    List<Mention> findByUsernameBefore(String username, Instant before, int limit);
+
+    void deleteAllById(Collection<String> ids);
+}
@@ -0,0 +1,6 @@
+package com.application.chat.storage;
+
+import java.util.List;
+
+/** Just enough of a message to delete it, its attachments, and keep its room's sequence counter monotonic. */
+public record MessageRef(String id, Long sequence, List<String> attachmentIds) {}
@@ -0,0 +1,47 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.ChatMessage;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chat message persistence, selected by {@code chat.storage.messages} (defaults to
+ * {@code chat.storage.type}): Mongo (default), in-memory, or the local memory-mapped log
+ * ({@code log}, see MessageLogStore).
+ */
+public interface MessageStore {
+
+    /** Inserts (assigning an id) or replaces by id. */
+    ChatMessage save(ChatMessage message);
+
+    /** Whole room history, oldest first; equal timestamps keep insertion order. */
+    List<ChatMessage> findByRoomId(String roomId);
+
+    /** The newest {@code limit} messages of a room, newest first. */
+    List<ChatMessage> findLatestByRoomId(String roomId, int limit);
+
+    /**
+     * One page of history older than {@code before} (no bound when null), newest first. A page
+     * never ends inside a run of equal timestamps; it grows past {@code limit} instead, so
+     * the oldest timestamp of a page is a lossless cursor for the next one.
+     */
+    List<ChatMessage> findPageBefore(String roomId, Instant before, int limit);
+
+    /** Up to {@code limit} timestamped messages older than {@code before}, oldest first. */
+    List<ChatMessage> findOldestBefore(String roomId, Instant before, int limit);
+
+    /** Like {@link #findOldestBefore} but without the message bodies (retention sweeps). */
+    List<MessageRef> findOldestRefsBefore(String roomId, Instant before, int limit);
+
+    /** Message with the highest sequence in the room. */
+    Optional<ChatMessage> findLastBySequence(String roomId);
+
+    /** Messages for the given ids; unknown ids are skipped, order is unspecified. */
+    List<ChatMessage> findAllById(Collection<String> ids);
+
+    /** Deletes in one round trip; unknown ids are ignored. */
+    void deleteAllById(Collection<String> ids);
+}
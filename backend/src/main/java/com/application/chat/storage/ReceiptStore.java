@@ -0,0 +1,15 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.RoomReceipt;
+
+import java.util.Collection;
+import java.util.List;
+
+/** Read/delivery high-water marks (see ReceiptService). */
+public interface ReceiptStore {
+
+    /** Upserts every mark in one round trip; stored sequences only ever move up. */
+    void upsertMax(Collection<RoomReceipt> receipts);
+
+    List<RoomReceipt> findByRoomId(String roomId);
+}
@@ -0,0 +1,41 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.ChatRoom;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chat room persistence. {@code pairKey} is unique: saving a second room with an existing
+ * pair key throws {@link org.springframework.dao.DuplicateKeyException} in every implementation.
+ */
+public interface RoomStore {
+
+    /**
+     * Inserts or replaces, bumping {@code version} (documents stored before versions existed count as 0).
+     * A replace only succeeds if the stored version is still the one this copy was read at;
+     * otherwise an {@link org.springframework.dao.OptimisticLockingFailureException} is thrown
+     * and the caller re-reads.
+     */
+    ChatRoom save(ChatRoom room);
+
+    Optional<ChatRoom> findById(String id);
+
+    /** The rooms among {@code ids} that exist, in no particular order (one {@code $in} query). */
+    List<ChatRoom> findAllById(Collection<String> ids);
+
+    Optional<ChatRoom> findByPairKey(String pairKey);
+
+    /** Rooms whose members contain exactly this username. */
+    List<ChatRoom> findByMembersContaining(String username);
+
+    /**
+     * Raises {@code sequenceFloor} to {@code sequence} unless it is already higher, without touching
+     * other fields. A raise bumps the version, so a copy loaded before it can't write the old floor back.
+     */
+    void raiseSequenceFloor(String roomId, long sequence);
+
+    /** Room ids in ascending order, starting after {@code afterId} (from the start when null), for background walks. */
+    List<String> findIdsAfter(String afterId, int limit);
+}
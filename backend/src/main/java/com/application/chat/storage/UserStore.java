@@ -0,0 +1,25 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.User;
+
+import java.util.List;
+import java.util.Optional;
+
+/** User persistence. */
+public interface UserStore {
+
+    /**
+     * Inserts or replaces, bumping {@code version}. A replace only succeeds if the stored
+     * version is still the one this copy was read at; otherwise an
+     * {@link org.springframework.dao.OptimisticLockingFailureException} is thrown.
+     */
+    User save(User user);
+
+    Optional<User> findById(String id);
+
+    Optional<User> findByEmail(String email);
+
+    Optional<User> findByUsername(String username);
+
+    List<User> findAll();
+}
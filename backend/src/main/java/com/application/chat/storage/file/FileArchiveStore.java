@@ -0,0 +1,150 @@
+package com.application.chat.storage.file;
+
+import com.application.chat.models.ArchiveSegment;
+import com.application.chat.storage.ArchiveStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Cold-tier segments on local disk, for deployments without Mongo. Each room has a
+ * directory holding, per segment, the compressed data ({id}.gz) and a small JSON header
+ * ({id}.json). The header is written last, so a segment exists once its header does;
+ * all headers are loaded at startup and serve as the index.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "memory")
+public class FileArchiveStore implements ArchiveStore {
+
+    private static final Comparator<ArchiveSegment> ORDER =
+            Comparator.comparing(ArchiveSegment::getFrom).thenComparing(ArchiveSegment::getId);
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<ArchiveSegment>> headers = new ConcurrentHashMap<>();
+    private final Map<String, String> roomBySegment = new ConcurrentHashMap<>();
+
+    public FileArchiveStore(@Value("${chat.archive.dir:data/archive}") String dir, ObjectMapper objectMapper) {
+        this.dir = Path.of(dir);
+        this.objectMapper = objectMapper;
+        loadHeaders();
+    }
+
+    @Override
+    public ArchiveSegment save(ArchiveSegment segment) {
+        if (segment.getId() == null) segment.setId(new ObjectId().toHexString());
+        Path roomDir = roomDir(segment.getRoomId());
+        try {
+            Files.createDirectories(roomDir);
+            writeAtomically(roomDir.resolve(segment.getId() + ".gz"), segment.getData());
+
+            ArchiveSegment header = headerOf(segment);
+            writeAtomically(roomDir.resolve(segment.getId() + ".json"), objectMapper.writeValueAsBytes(header));
+            headers.compute(segment.getRoomId(), (room, list) -> {
+                List<ArchiveSegment> updated = list == null ? new ArrayList<>() : new ArrayList<>(list);
+                updated.add(header);
+                updated.sort(ORDER);
+                return List.copyOf(updated);
+            });
+            roomBySegment.put(header.getId(), header.getRoomId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write archive segment for room " + segment.getRoomId(), e);
+        }
+        return segment;
+    }
+
+    @Override
+    public List<ArchiveSegment> findHeadersByRoomId(String roomId) {
+        return headers.getOrDefault(roomId, List.of()).stream().map(FileArchiveStore::headerOf).toList();
+    }
+
+    @Override
+    public Optional<ArchiveSegment> findById(String id) {
+        String roomId = roomBySegment.get(id);
+        if (roomId == null) return Optional.empty();
+        for (ArchiveSegment header : headers.getOrDefault(roomId, List.of())) {
+            if (!header.getId().equals(id)) continue;
+            try {
+                ArchiveSegment segment = headerOf(header);
+                segment.setData(Files.readAllBytes(roomDir(roomId).resolve(id + ".gz")));
+                return Optional.of(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archive segment " + id, e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Header first: once it is gone the segment no longer exists, even if the data file lingers. */
+    @Override
+    public void deleteById(String id) {
+        String roomId = roomBySegment.remove(id);
+        if (roomId == null) return;
+        headers.computeIfPresent(roomId, (room, list) -> {
+            List<ArchiveSegment> remaining = list.stream().filter(h -> !h.getId().equals(id)).toList();
+            return remaining.isEmpty() ? null : remaining;
+        });
+        try {
+            Files.deleteIfExists(roomDir(roomId).resolve(id + ".json"));
+            Files.deleteIfExists(roomDir(roomId).resolve(id + ".gz"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete archive segment " + id, e);
+        }
+    }
+
+    private void loadHeaders() {
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".json")).toList()) {
+                ArchiveSegment header = objectMapper.readValue(file.toFile(), ArchiveSegment.class);
+                headers.computeIfAbsent(header.getRoomId(), r -> new ArrayList<>()).add(header);
+                roomBySegment.put(header.getId(), header.getRoomId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load archive index from " + dir, e);
+        }
+        headers.replaceAll((room, list) -> {
+            list.sort(ORDER);
+            return List.copyOf(list);
+        });
+        System.out.println("🧊 Archive index loaded: " + headers.values().stream().mapToInt(List::size).sum()
+                + " segment(s) in " + headers.size() + " room(s)");
+    }
+
+    private Path roomDir(String roomId) {
+        // room ids are ObjectId hex in practice; anything else is hex-encoded to stay a safe file name
+        String name = roomId.matches("[A-Za-z0-9_-]{1,64}")
+                ? roomId
+                : "x" + HexFormat.of().formatHex(roomId.getBytes(StandardCharsets.UTF_8));
+        return dir.resolve(name);
+    }
+
+    private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, bytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ArchiveSegment headerOf(ArchiveSegment segment) {
+        ArchiveSegment header = new ArchiveSegment();
+        header.setId(segment.getId());
+        header.setRoomId(segment.getRoomId());
+        header.setFrom(segment.getFrom());
+        header.setTo(segment.getTo());
+        header.setCount(segment.getCount());
+        header.setMaxSequence(segment.getMaxSequence());
+        header.setCreatedAt(segment.getCreatedAt());
+        return header;
+    }
+}
@@ -0,0 +1,131 @@
+package com.application.chat.storage.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One segment file, mapped in full. The active segment of a partition is pre-sized and
+ * appended to in place; once it fills up it is sealed and only ever read (or replaced
+ * whole by compaction). The file stays sparse on disk until written.
+ */
+final class LogSegment {
+
+    final long id;
+    final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    // Only touched under the partition's append lock; volatile so readers see sealed sizes
+    private volatile int writePosition;
+    private volatile boolean dirty;
+
+    /** Bytes of records superseded by a later save of the same message id. */
+    final AtomicLong deadBytes = new AtomicLong();
+
+    /** Bytes of tombstones; they only become droppable once no older segment holds their ids. */
+    final AtomicLong tombstoneBytes = new AtomicLong();
+
+    /**
+     * Set when compaction found every tombstone here still needed, so they don't count
+     * toward compacting again; cleared when an older segment of the partition is compacted.
+     */
+    volatile boolean tombstonesPinned;
+
+    private LogSegment(long id, Path path, MappedByteBuffer buffer, int capacity) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /** Opens (creating if needed) a file of at least {@code capacity} bytes and maps it. */
+    static LogSegment open(long id, Path path, int capacity) {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int size = (int) Math.max(capacity, channel.size());
+            // The mapping outlives the channel; it is released when the buffer is collected
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new LogSegment(id, path, buffer, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map segment " + path, e);
+        }
+    }
+
+    interface RecordVisitor {
+        void visit(LogSegment segment, int position, int length);
+    }
+
+    /**
+     * Walks the valid records from the start and leaves the write position after the last
+     * one. A torn record at the tail (crash mid-append) has its header zeroed so that a
+     * later, shorter append cannot be read past. Returns whether the tail was torn.
+     */
+    boolean recover(RecordVisitor visitor) {
+        int position = 0;
+        int length;
+        while ((length = RecordCodec.validRecordLength(buffer, position, capacity)) > 0) {
+            visitor.visit(this, position, length);
+            position += length;
+        }
+        boolean torn = position + RecordCodec.HEADER <= capacity && buffer.getInt(position) != 0;
+        if (torn) {
+            buffer.putLong(position, 0L);
+            buffer.force(position, RecordCodec.HEADER);
+        }
+        writePosition = position;
+        return torn;
+    }
+
+    /** Appends a whole record; returns its position, or -1 when it doesn't fit. */
+    int append(byte[] record) {
+        int position = writePosition;
+        if (position + record.length > capacity) return -1;
+        // Payload and checksum first, length last: a reader never sees a half-written record
+        buffer.put(position + 4, record, 4, record.length - 4);
+        buffer.putInt(position, recordPayloadLength(record));
+        writePosition = position + record.length;
+        dirty = true;
+        return position;
+    }
+
+    int recordLength(int position) {
+        return RecordCodec.HEADER + buffer.getInt(position);
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    int size() {
+        return writePosition;
+    }
+
+    boolean isEmpty() {
+        return writePosition == 0;
+    }
+
+    /** Forces written pages to disk if anything was appended since the last call. */
+    void sync() {
+        if (!dirty) return;
+        dirty = false;
+        buffer.force(0, writePosition);
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete segment " + path, e);
+        }
+    }
+
+    private static int recordPayloadLength(byte[] record) {
+        return ((record[0] & 0xff) << 24) | ((record[1] & 0xff) << 16) | ((record[2] & 0xff) << 8) | (record[3] & 0xff);
+    }
+}
@@ -0,0 +1,739 @@
+package com.application.chat.storage.log;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.storage.MessageRef;
+import com.application.chat.storage.MessageStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 🗄️ Append-only, memory-mapped message log for deployments without Mongo
+ * ({@code chat.storage.messages=log}).
+ *
+ * Rooms hash onto a fixed number of partitions; each partition is a directory of segment
+ * files named by a growing id, and only the newest one is appended to. Every record carries
+ * a CRC, so on startup the segments are replayed in order, a torn tail is cut off, and the
+ * in-heap index is rebuilt. The index holds only locations (partition, segment, offset)
+ * keyed by (roomId, timestamp, insertion); message bodies stay in the mapped files and are
+ * decoded straight from them on read.
+ *
+ * Writes are group-committed: {@link #save} returns once a single background fsync has
+ * covered its record, so concurrent senders share one fsync instead of paying one each.
+ * Saving an existing id appends a new version and deleting appends a small tombstone;
+ * compaction, on its own thread, later rewrites sealed segments that are mostly superseded
+ * versions. A tombstone is kept while an older segment of its partition still holds a
+ * record of the message it deletes (replay would bring that back), and dropped by the first
+ * compaction after the last such record is gone.
+ *
+ * The index is dense, not sparse: every live message has an id entry and a (room, time)
+ * entry, about 250 bytes of heap each (roughly 250 MB per million messages). That buys
+ * lookups by id and room pages without touching the files; a sparse index would have to
+ * scan segments for both, and the room pages are what every chat open reads.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.storage.messages", havingValue = "log")
+public class MessageLogStore implements MessageStore, DisposableBean {
+
+    private static final Comparator<Key> ORDER = Comparator
+            .comparing(Key::timestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(Key::insertion);
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean syncWrites;
+    private final double compactionDeadRatio;
+    private final Partition[] partitions;
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, RoomIndex> byRoom = new ConcurrentHashMap<>();
+    private final AtomicLong insertions = new AtomicLong();
+
+    // Swapping locations after compaction excludes readers, never writers
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private final GroupCommit groupCommit;
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "message-log-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    public MessageLogStore(@Value("${chat.storage.log.dir:data/message-log}") String dir,
+                           @Value("${chat.storage.log.partitions:16}") int partitions,
+                           @Value("${chat.storage.log.segment-bytes:67108864}") int segmentBytes,
+                           @Value("${chat.storage.log.sync-writes:true}") boolean syncWrites,
+                           @Value("${chat.storage.log.compaction-dead-ratio:0.5}") double compactionDeadRatio,
+                           MeterRegistry meterRegistry) {
+        if (partitions < 1 || partitions > Location.MAX_PARTITIONS) {
+            throw new IllegalArgumentException("chat.storage.log.partitions must be 1.." + Location.MAX_PARTITIONS);
+        }
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+        this.syncWrites = syncWrites;
+        this.compactionDeadRatio = compactionDeadRatio;
+        this.partitions = new Partition[partitions];
+
+        long started = System.nanoTime();
+        requireNoStrayPartitions(partitions);
+        for (int i = 0; i < partitions; i++) recover(i);
+        System.out.println("🗄️ Message log recovered " + byId.size() + " message(s) in " + byRoom.size()
+                + " room(s) from " + this.dir.toAbsolutePath() + " in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+
+        this.groupCommit = new GroupCommit(Timer.builder("chat.storage.log.fsync")
+                .description("Group-commit fsync of all partitions")
+                .register(meterRegistry));
+        Gauge.builder("chat.storage.log.segments", this,
+                        s -> Arrays.stream(s.partitions).mapToInt(p -> p.segments.size()).sum())
+                .register(meterRegistry);
+        Gauge.builder("chat.storage.log.messages", byId, Map::size).register(meterRegistry);
+    }
+
+    // =====================================================
+    // ✍️ WRITES
+    // =====================================================
+
+    @Override
+    public ChatMessage save(ChatMessage message) {
+        if (message.getId() == null) message.setId(new ObjectId().toHexString());
+        byte[] record = RecordCodec.encode(message);
+        if (record.length > segmentBytes) throw new RuntimeException("Message too large for a log segment");
+        Partition partition = partitions[partitionOf(message.getRoomId())];
+
+        partition.appendLock.lock();
+        try {
+            LogSegment segment = partition.active;
+            int position = segment.append(record);
+            if (position < 0) {
+                segment = partition.roll();
+                position = segment.append(record);
+            }
+            // Indexed under the append lock, so a sealed segment is always fully indexed
+            index(message, Location.of(partition.number, segment.id, position), record.length);
+        } finally {
+            partition.appendLock.unlock();
+        }
+
+        if (syncWrites) groupCommit.awaitDurable();
+        return message;
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        boolean deleted = false;
+        for (String id : ids) {
+            Entry entry = byId.get(id);
+            if (entry == null) continue;
+            byte[] tombstone = RecordCodec.encodeTombstone(id, entry.roomId);
+            Partition partition = partitions[partitionOf(entry.roomId)];
+            partition.appendLock.lock();
+            try {
+                LogSegment segment = partition.active;
+                if (segment.append(tombstone) < 0) {
+                    segment = partition.roll();
+                    segment.append(tombstone);
+                }
+                segment.tombstoneBytes.addAndGet(tombstone.length);
+                unindex(id);
+            } finally {
+                partition.appendLock.unlock();
+            }
+            deleted = true;
+        }
+        if (deleted && syncWrites) groupCommit.awaitDurable();
+    }
+
+    private void unindex(String messageId) {
+        byId.computeIfPresent(messageId, (id, entry) -> {
+            RoomIndex room = byRoom.get(entry.roomId);
+            if (room != null) {
+                room.byTime.remove(entry.key);
+                room.forget(id);
+            }
+            LogSegment segment = segment(entry.location);
+            if (segment != null) segment.deadBytes.addAndGet(entry.length);
+            return null;
+        });
+    }
+
+    private void index(ChatMessage message, long location, int length) {
+        String roomId = String.valueOf(message.getRoomId());
+        byId.compute(message.getId(), (id, previous) -> {
+            long insertion;
+            if (previous != null) {
+                RoomIndex previousRoom = byRoom.get(previous.roomId);
+                if (previousRoom != null) previousRoom.byTime.remove(previous.key);
+                LogSegment old = segment(previous.location);
+                if (old != null) old.deadBytes.addAndGet(previous.length);
+                // a replaced message keeps its place, like in the other stores
+                insertion = previous.key.insertion();
+            } else {
+                insertion = insertions.incrementAndGet();
+            }
+            Key key = new Key(message.getTimestamp(), insertion);
+            RoomIndex room = byRoom.computeIfAbsent(roomId, r -> new RoomIndex());
+            room.byTime.put(key, location);
+            room.offerSequence(message.getSequence(), id);
+            return new Entry(roomId, key, location, length);
+        });
+    }
+
+    // =====================================================
+    // 📖 READS (decoded from the mapped segments)
+    // =====================================================
+
+    @Override
+    public List<ChatMessage> findByRoomId(String roomId) {
+        return readLocked(() -> {
+            RoomIndex room = byRoom.get(String.valueOf(roomId));
+            return room == null ? List.of() : read(room.byTime.values(), Integer.MAX_VALUE);
+        });
+    }
+
+    @Override
+    public List<ChatMessage> findLatestByRoomId(String roomId, int limit) {
+        return readLocked(() -> {
+            RoomIndex room = byRoom.get(String.valueOf(roomId));
+            return room == null ? List.of() : read(room.byTime.descendingMap().values(), limit);
+        });
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(String roomId, Instant before, int limit) {
+        return readLocked(() -> {
+            RoomIndex room = byRoom.get(String.valueOf(roomId));
+            if (room == null) return List.of();
+            List<Long> locations = new ArrayList<>();
+            Instant last = null;
+            for (Map.Entry<Key, Long> e : olderThan(room, before).descendingMap().entrySet()) {
+                Instant ts = e.getKey().timestamp();
+                if (ts == null) break; // nulls sort first, so nothing timestamped follows
+                if (locations.size() >= limit && !ts.equals(last)) break;
+                locations.add(e.getValue());
+                last = ts;
+            }
+            return read(locations, Integer.MAX_VALUE);
+        });
+    }
+
+    @Override
+    public List<ChatMessage> findOldestBefore(String roomId, Instant before, int limit) {
+        return readLocked(() -> {
+            RoomIndex room = byRoom.get(String.valueOf(roomId));
+            if (room == null) return List.of();
+            List<Long> locations = new ArrayList<>();
+            for (Map.Entry<Key, Long> e : olderThan(room, before).entrySet()) {
+                if (locations.size() >= limit) break;
+                if (e.getKey().timestamp() != null) locations.add(e.getValue());
+            }
+            return read(locations, Integer.MAX_VALUE);
+        });
+    }
+
+    @Override
+    public List<MessageRef> findOldestRefsBefore(String roomId, Instant before, int limit) {
+        // the bodies are in the mapped segments anyway, so this is the same scan
+        return findOldestBefore(roomId, before, limit).stream()
+                .map(m -> new MessageRef(m.getId(), m.getSequence(), m.getAttachmentIds()))
+                .toList();
+    }
+
+    private static ConcurrentNavigableMap<Key, Long> olderThan(RoomIndex room, Instant before) {
+        return before == null ? room.byTime : room.byTime.headMap(new Key(before, Long.MIN_VALUE));
+    }
+
+    @Override
+    public Optional<ChatMessage> findLastBySequence(String roomId) {
+        RoomIndex room = byRoom.get(String.valueOf(roomId));
+        if (room == null) return Optional.empty();
+        if (room.stale) {
+            // the top message was deleted: rescan once (only happens when a room's newest message goes)
+            for (ChatMessage m : findByRoomId(roomId)) room.offerSequence(m.getSequence(), m.getId());
+            room.stale = false;
+        }
+        String id = room.maxSequenceId;
+        return id == null ? Optional.empty() : findAllById(List.of(id)).stream().findFirst();
+    }
+
+    @Override
+    public List<ChatMessage> findAllById(Collection<String> ids) {
+        return readLocked(() -> {
+            List<Long> locations = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Entry entry = byId.get(id);
+                if (entry != null) locations.add(entry.location);
+            }
+            return read(locations, Integer.MAX_VALUE);
+        });
+    }
+
+    /**
+     * Runs a lookup and the decoding of its locations under the swap read lock: compaction
+     * reuses the segment id with shifted offsets, so a location taken before a swap must not
+     * be decoded after it.
+     */
+    private <T> T readLocked(Supplier<T> lookup) {
+        swapLock.readLock().lock();
+        try {
+            return lookup.get();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /** Decodes the records at {@code locations}; the caller holds the swap read lock. */
+    private List<ChatMessage> read(Collection<Long> locations, int limit) {
+        List<ChatMessage> messages = new ArrayList<>(Math.min(limit, locations.size()));
+        for (Long location : locations) {
+            if (messages.size() >= limit) break;
+            LogSegment segment = segment(location);
+            if (segment != null) messages.add(RecordCodec.decode(segment.buffer(), Location.position(location)));
+        }
+        return messages;
+    }
+
+    // =====================================================
+    // 🧹 COMPACTION
+    // =====================================================
+
+    /** Hands a pass to the compactor thread, unless one is still running. */
+    @Scheduled(fixedDelayString = "${chat.storage.log.compaction-interval-ms:600000}")
+    public void scheduleCompaction() {
+        if (!compacting.compareAndSet(false, true)) return;
+        compactor.execute(() -> {
+            try {
+                compact();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Rewrites sealed segments whose superseded records (and droppable tombstones) pass the
+     * configured ratio, oldest first, so tombstones freed by an older rewrite go in the same pass.
+     */
+    void compact() {
+        for (Partition partition : partitions) {
+            for (LogSegment segment : List.copyOf(partition.segments.values())) {
+                if (Thread.currentThread().isInterrupted()) return;
+                if (segment == partition.active || segment.isEmpty()) continue;
+                long droppable = segment.deadBytes.get() + (segment.tombstonesPinned ? 0 : segment.tombstoneBytes.get());
+                if (droppable < segment.size() * compactionDeadRatio) continue;
+                try {
+                    compact(partition, segment);
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ Compaction of " + segment.path + " failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void compact(Partition partition, LogSegment segment) {
+        boolean dropsMessages = segment.deadBytes.get() > 0;
+        Set<String> neededTombstones = neededTombstones(partition, segment);
+
+        // 1. Copy the current versions and the needed tombstones into a temporary file
+        Map<Integer, Integer> moved = new LinkedHashMap<>(); // messages only
+        long keptTombstoneBytes = 0;
+        Path tmp = segment.path.resolveSibling(segment.path.getFileName() + ".tmp");
+        ByteBuffer source = segment.buffer();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int position = 0;
+            int written = 0;
+            while (position < segment.size()) {
+                int length = segment.recordLength(position);
+                String id = RecordCodec.decodeId(source, position);
+                boolean tombstone = RecordCodec.isTombstone(source, position);
+                if (tombstone ? neededTombstones.contains(id) : isCurrent(id, partition.number, segment.id, position)) {
+                    out.write(source.slice(position, length));
+                    if (tombstone) {
+                        keptTombstoneBytes += length;
+                    } else {
+                        moved.put(position, written);
+                    }
+                    written += length;
+                }
+                position += length;
+            }
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        boolean empty = moved.isEmpty() && keptTombstoneBytes == 0;
+
+        // 2. Replace the file; the old mapping stays valid for readers until the swap below
+        LogSegment replacement;
+        try {
+            if (empty) {
+                Files.delete(tmp);
+            } else {
+                Files.move(tmp, segment.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (empty) {
+            replacement = null;
+        } else {
+            replacement = LogSegment.open(segment.id, segment.path, 0);
+            replacement.recover((s, p, l) -> {});
+            replacement.tombstoneBytes.set(keptTombstoneBytes);
+            replacement.tombstonesPinned = true; // every one left is needed until an older segment changes
+        }
+
+        // 3. Point the index at the new offsets
+        swapLock.writeLock().lock();
+        try {
+            if (replacement == null) {
+                partition.segments.remove(segment.id);
+                segment.delete();
+            } else {
+                partition.segments.put(segment.id, replacement);
+                moved.forEach((from, to) -> relocate(replacement, partition.number, from, to));
+            }
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (dropsMessages) {
+            // records gone from here may have been all that kept newer tombstones alive
+            for (LogSegment newer : partition.segments.tailMap(segment.id, false).values()) newer.tombstonesPinned = false;
+        }
+        System.out.println("🧹 Compacted " + segment.path + ": " + segment.size() + " → "
+                + (replacement == null ? 0 : replacement.size()) + " bytes");
+    }
+
+    /**
+     * Ids of the segment's tombstones that an older segment of the partition still holds a
+     * record of. Only older segments with dead bytes are read: a record of a deleted message
+     * is dead, so a segment without any can't hold one.
+     */
+    private Set<String> neededTombstones(Partition partition, LogSegment segment) {
+        if (segment.tombstoneBytes.get() == 0) return Set.of();
+        Set<String> tombstones = new HashSet<>();
+        ByteBuffer source = segment.buffer();
+        for (int position = 0; position < segment.size(); position += segment.recordLength(position)) {
+            if (RecordCodec.isTombstone(source, position)) tombstones.add(RecordCodec.decodeId(source, position));
+        }
+
+        Set<String> needed = new HashSet<>();
+        for (LogSegment older : partition.segments.headMap(segment.id, false).values()) {
+            if (older.deadBytes.get() == 0) continue;
+            ByteBuffer buffer = older.buffer();
+            for (int position = 0; position < older.size(); position += older.recordLength(position)) {
+                if (RecordCodec.isTombstone(buffer, position)) continue;
+                String id = RecordCodec.decodeId(buffer, position);
+                if (tombstones.contains(id)) needed.add(id);
+            }
+        }
+        return needed;
+    }
+
+    private boolean isCurrent(String id, int partition, long segment, int position) {
+        Entry entry = byId.get(id);
+        return entry != null && entry.location == Location.of(partition, segment, position);
+    }
+
+    private void relocate(LogSegment replacement, int partition, int from, int to) {
+        long oldLocation = Location.of(partition, replacement.id, from);
+        long newLocation = Location.of(partition, replacement.id, to);
+        boolean[] current = {false};
+        byId.computeIfPresent(RecordCodec.decodeId(replacement.buffer(), to), (id, entry) -> {
+            if (entry.location != oldLocation) return entry;
+            current[0] = true;
+            RoomIndex room = byRoom.get(entry.roomId);
+            if (room != null) room.byTime.replace(entry.key, oldLocation, newLocation);
+            return new Entry(entry.roomId, entry.key, newLocation, entry.length);
+        });
+        // superseded while we were copying
+        if (!current[0]) replacement.deadBytes.addAndGet(replacement.recordLength(to));
+    }
+
+    // =====================================================
+    // ♻️ RECOVERY
+    // =====================================================
+
+    private void recover(int number) {
+        Path partitionDir = partitionDir(number);
+        try {
+            Files.createDirectories(partitionDir);
+            try (Stream<Path> tmps = Files.list(partitionDir)) {
+                for (Path tmp : tmps.filter(p -> p.toString().endsWith(".tmp")).toList()) {
+                    Files.delete(tmp); // unfinished compaction; the original is still in place
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open message log directory " + partitionDir, e);
+        }
+
+        Partition partition = new Partition(number, partitionDir);
+        partitions[number] = partition; // replay may look up earlier versions in this partition
+        List<Long> ids = segmentIds(partitionDir);
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            Path path = segmentPath(partitionDir, id);
+            boolean last = i == ids.size() - 1;
+            LogSegment segment = LogSegment.open(id, path, last ? segmentBytes : 0);
+            partition.segments.put(id, segment);
+            boolean torn = segment.recover((s, position, length) -> {
+                ChatMessage record = RecordCodec.decode(s.buffer(), position);
+                if (RecordCodec.isTombstone(s.buffer(), position)) {
+                    s.tombstoneBytes.addAndGet(length);
+                    unindex(record.getId());
+                } else {
+                    index(record, Location.of(number, s.id, position), length);
+                }
+            });
+            if (torn) {
+                System.out.println((last ? "♻️ Cut a torn record at the end of " : "⚠️ Records lost after corruption in ")
+                        + path + " @" + segment.size());
+            }
+        }
+
+        // The newest segment is never compacted, so it is always the one to keep appending to
+        if (partition.segments.isEmpty()) {
+            partition.active = LogSegment.open(0, segmentPath(partitionDir, 0), segmentBytes);
+            partition.segments.put(0L, partition.active);
+        } else {
+            partition.active = partition.segments.lastEntry().getValue();
+        }
+    }
+
+    /** Lowering the partition count would silently hide the rooms that lived in the dropped ones. */
+    private void requireNoStrayPartitions(int configured) {
+        if (Files.isDirectory(partitionDir(configured))) {
+            throw new IllegalStateException("Message log at " + dir.toAbsolutePath() + " was written with more than "
+                    + configured + " partitions; raise chat.storage.log.partitions");
+        }
+    }
+
+    private Path partitionDir(int number) {
+        return dir.resolve(String.format("partition-%03d", number));
+    }
+
+    private static List<Long> segmentIds(Path partitionDir) {
+        try (Stream<Path> files = Files.list(partitionDir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(".log"))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - 4)))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path segmentPath(Path partitionDir, long id) {
+        return partitionDir.resolve(String.format("%012d.log", id));
+    }
+
+    // =====================================================
+    // 🔧 INTERNALS
+    // =====================================================
+
+    private int partitionOf(String roomId) {
+        return Math.floorMod(String.valueOf(roomId).hashCode(), partitions.length);
+    }
+
+    private LogSegment segment(long location) {
+        return partitions[Location.partition(location)].segments.get(Location.segment(location));
+    }
+
+    @Override
+    public void destroy() {
+        compactor.shutdownNow();
+        groupCommit.stop();
+        for (Partition partition : partitions) partition.active.sync();
+    }
+
+    private final class Partition {
+        final int number;
+        final Path dir;
+        final ReentrantLock appendLock = new ReentrantLock();
+        final ConcurrentNavigableMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+        volatile LogSegment active;
+
+        Partition(int number, Path dir) {
+            this.number = number;
+            this.dir = dir;
+        }
+
+        /** Seals the full segment (synced before anything lands in the next) and opens a new one. */
+        LogSegment roll() {
+            active.sync();
+            long id = active.id + 1;
+            if (id > Location.MAX_SEGMENT) throw new IllegalStateException("Message log partition " + number + " is out of segment ids");
+            LogSegment next = LogSegment.open(id, segmentPath(dir, id), segmentBytes);
+            segments.put(id, next);
+            active = next;
+            return next;
+        }
+    }
+
+    /**
+     * One background thread fsyncs every partition's active segment whenever a writer is
+     * waiting. Writers that arrive while an fsync is in flight are all covered by the next
+     * one, so the fsync rate is bounded by disk latency, not by message rate. When an fsync
+     * fails, every writer it was meant to cover gets the exception instead of a return.
+     */
+    private final class GroupCommit {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition requestedChanged = lock.newCondition();
+        private final Condition syncedChanged = lock.newCondition();
+        private final Timer fsyncTimer;
+        private final Thread thread;
+        private long requested;
+        private long synced;
+        private long failed;                // highest ticket whose fsync failed
+        private RuntimeException failure;   // why
+        private volatile boolean running = true;
+
+        GroupCommit(Timer fsyncTimer) {
+            this.fsyncTimer = fsyncTimer;
+            this.thread = new Thread(this::run, "message-log-fsync");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void awaitDurable() {
+            lock.lock();
+            try {
+                long ticket = ++requested;
+                requestedChanged.signal();
+                while (synced < ticket && failed < ticket && running) syncedChanged.awaitUninterruptibly();
+                // a later successful fsync also covers this record; only report the failure otherwise
+                if (synced < ticket && failed >= ticket) {
+                    throw new RuntimeException("Message log fsync failed; write is not durable", failure);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run() {
+            while (running) {
+                long target;
+                lock.lock();
+                try {
+                    while (requested == synced && running) requestedChanged.awaitUninterruptibly();
+                    target = requested;
+                } finally {
+                    lock.unlock();
+                }
+                RuntimeException error = null;
+                try {
+                    fsyncTimer.record(() -> {
+                        for (Partition partition : partitions) partition.active.sync();
+                    });
+                } catch (RuntimeException e) {
+                    error = e;
+                    System.out.println("⚠️ Message log fsync failed: " + e.getMessage());
+                }
+                lock.lock();
+                try {
+                    if (error == null) {
+                        synced = target;
+                    } else {
+                        // the waiters up to target are failed; synced stays where it was
+                        failed = target;
+                        failure = error;
+                    }
+                    syncedChanged.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void stop() {
+            lock.lock();
+            try {
+                running = false;
+                requestedChanged.signalAll();
+                syncedChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class RoomIndex {
+        final ConcurrentNavigableMap<Key, Long> byTime = new ConcurrentSkipListMap<>(ORDER);
+        volatile long maxSequence = Long.MIN_VALUE;
+        volatile String maxSequenceId;
+        volatile boolean stale;
+
+        synchronized void offerSequence(Long sequence, String id) {
+            if (sequence != null && sequence >= maxSequence) {
+                maxSequence = sequence;
+                maxSequenceId = id;
+            }
+        }
+
+        synchronized void forget(String id) {
+            if (id.equals(maxSequenceId)) {
+                maxSequence = Long.MIN_VALUE;
+                maxSequenceId = null;
+                stale = true;
+            }
+        }
+    }
+
+    private record Key(Instant timestamp, long insertion) {}
+
+    private record Entry(String roomId, Key key, long location, int length) {}
+
+    /** Packs partition (12 bits), segment id (20 bits) and offset (32 bits) into one long. */
+    static final class Location {
+        static final int MAX_PARTITIONS = 1 << 12;
+        static final long MAX_SEGMENT = (1L << 20) - 1;
+
+        private Location() {}
+
+        static long of(int partition, long segment, int position) {
+            return ((long) partition << 52) | (segment << 32) | (position & 0xffffffffL);
+        }
+
+        static int partition(long location) {
+            return (int) (location >>> 52);
+        }
+
+        static long segment(long location) {
+            return (location >>> 32) & MAX_SEGMENT;
+        }
+
+        static int position(long location) {
+            return (int) location;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.application.chat.storage.log;
+
+import com.application.chat.models.ChatMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary layout of one message record in a segment:
+ *
+ * <pre>
+ * int    payload length (0 = end of segment)
+ * int    CRC32C of the payload
+ * byte[] payload: type, then for a message:
+ *                 id, roomId, sender, receiver, content,
+ *                 timestamp (seconds, nanos), sequence, attachment ids
+ *                 or for a tombstone (deleted message): id, roomId
+ * </pre>
+ *
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes.
+ */
+final class RecordCodec {
+
+    static final int HEADER = 8;
+
+    private static final byte MESSAGE = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final long NO_SECONDS = Long.MIN_VALUE;
+    private static final long NO_SEQUENCE = Long.MIN_VALUE;
+
+    private RecordCodec() {}
+
+    /** Whole record, header included, ready to be appended. */
+    static byte[] encode(ChatMessage m) {
+        byte[][] strings = {
+                utf8(m.getId()), utf8(m.getRoomId()), utf8(m.getSenderUsername()),
+                utf8(m.getReceiverUsername()), utf8(m.getContent())
+        };
+        List<String> attachments = m.getAttachmentIds() == null ? List.of() : m.getAttachmentIds();
+        byte[][] attachmentBytes = new byte[attachments.size()][];
+        for (int i = 0; i < attachmentBytes.length; i++) attachmentBytes[i] = utf8(attachments.get(i));
+
+        int payload = 1 + 8 + 4 + 8 + 4;
+        for (byte[] s : strings) payload += 4 + (s == null ? 0 : s.length);
+        for (byte[] s : attachmentBytes) payload += 4 + (s == null ? 0 : s.length);
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + payload);
+        buf.putInt(payload).putInt(0).put(MESSAGE);
+        for (byte[] s : strings) putString(buf, s);
+        Instant ts = m.getTimestamp();
+        buf.putLong(ts == null ? NO_SECONDS : ts.getEpochSecond()).putInt(ts == null ? 0 : ts.getNano());
+        buf.putLong(m.getSequence() == null ? NO_SEQUENCE : m.getSequence());
+        buf.putInt(attachmentBytes.length);
+        for (byte[] s : attachmentBytes) putString(buf, s);
+
+        byte[] record = buf.array();
+        buf.putInt(4, crc(record, HEADER, payload));
+        return record;
+    }
+
+    /** Record saying the message with this id is gone. */
+    static byte[] encodeTombstone(String id, String roomId) {
+        byte[] idBytes = utf8(id);
+        byte[] roomBytes = utf8(roomId);
+        int payload = 1 + 4 + idBytes.length + 4 + (roomBytes == null ? 0 : roomBytes.length);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + payload);
+        buf.putInt(payload).putInt(0).put(TOMBSTONE);
+        putString(buf, idBytes);
+        putString(buf, roomBytes);
+        byte[] record = buf.array();
+        buf.putInt(4, crc(record, HEADER, payload));
+        return record;
+    }
+
+    static boolean isTombstone(ByteBuffer segment, int position) {
+        return segment.get(position + HEADER) == TOMBSTONE;
+    }
+
+    /**
+     * Length of the valid record at {@code position}, header included, or -1 when there is
+     * none: end of data, a length running past the segment, or a checksum mismatch (a torn
+     * write after a crash).
+     */
+    static int validRecordLength(ByteBuffer segment, int position, int limit) {
+        if (position + HEADER > limit) return -1;
+        int payload = segment.getInt(position);
+        if (payload <= 0 || payload > limit - position - HEADER) return -1;
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(position + HEADER, payload));
+        return (int) crc.getValue() == segment.getInt(position + 4) ? HEADER + payload : -1;
+    }
+
+    /**
+     * Decodes straight from the mapped segment; only the string bytes are copied out.
+     * A tombstone decodes to a message with just its id and roomId.
+     */
+    static ChatMessage decode(ByteBuffer segment, int position) {
+        ByteBuffer buf = segment.slice(position + HEADER, segment.getInt(position));
+        byte type = buf.get();
+        ChatMessage m = new ChatMessage();
+        m.setId(getString(buf));
+        m.setRoomId(getString(buf));
+        if (type == TOMBSTONE) return m;
+        m.setSenderUsername(getString(buf));
+        m.setReceiverUsername(getString(buf));
+        m.setContent(getString(buf));
+        long seconds = buf.getLong();
+        int nanos = buf.getInt();
+        m.setTimestamp(seconds == NO_SECONDS ? null : Instant.ofEpochSecond(seconds, nanos));
+        long sequence = buf.getLong();
+        m.setSequence(sequence == NO_SEQUENCE ? null : sequence);
+        int attachments = buf.getInt();
+        if (attachments > 0) {
+            List<String> ids = new ArrayList<>(attachments);
+            for (int i = 0; i < attachments; i++) ids.add(getString(buf));
+            m.setAttachmentIds(ids);
+        }
+        return m;
+    }
+
+    /** Just the id of the record at {@code position}, message or tombstone. */
+    static String decodeId(ByteBuffer segment, int position) {
+        ByteBuffer buf = segment.slice(position + HEADER, segment.getInt(position));
+        buf.get();
+        return getString(buf);
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buf, byte[] s) {
+        if (s == null) {
+            buf.putInt(-1);
+        } else {
+            buf.putInt(s.length).put(s);
+        }
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,79 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.Mention;
+import com.application.chat.models.RoomReceipt;
+import com.application.chat.models.User;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+
+/**
+ * Defensive copies for the in-memory stores. Mongo hands out a fresh object per read, so
+ * callers are used to mutating what they get back; the in-memory stores must not let
+ * that leak into stored state.
+ */
+final class Copies {
+
+    private Copies() {}
+
+    /** Same id format Mongo assigns, so ids look alike in both modes. */
+    static String newId() {
+        return new ObjectId().toHexString();
+    }
+
+    static ChatMessage copy(ChatMessage m) {
+        ChatMessage c = new ChatMessage(m.getRoomId(), m.getSenderUsername(), m.getReceiverUsername(),
+                m.getContent(), m.getTimestamp());
+        c.setId(m.getId());
+        c.setSequence(m.getSequence());
+        c.setAttachmentIds(m.getAttachmentIds() == null ? null : new ArrayList<>(m.getAttachmentIds()));
+        return c;
+    }
+
+    static ChatRoom copy(ChatRoom r) {
+        ChatRoom c = new ChatRoom();
+        c.setId(r.getId());
+        c.setName(r.getName());
+        c.setPrivate(r.isPrivate());
+        c.setGroup(r.isGroup());
+        c.setAdmins(r.getAdmins() == null ? null : new ArrayList<>(r.getAdmins()));
+        c.setMembers(r.getMembers() == null ? null : new ArrayList<>(r.getMembers()));
+        c.setPairKey(r.getPairKey());
+        c.setRetentionDays(r.getRetentionDays());
+        c.setSequenceFloor(r.getSequenceFloor());
+        c.setVersion(r.getVersion());
+        return c;
+    }
+
+    static User copy(User u) {
+        User c = new User(u.getUsername(), u.getEmail(), u.getPassword());
+        c.setId(u.getId());
+        c.setVersion(u.getVersion());
+        return c;
+    }
+
+    static RoomReceipt copy(RoomReceipt r) {
+        RoomReceipt c = new RoomReceipt();
+        c.setId(r.getId());
+        c.setRoomId(r.getRoomId());
+        c.setUsername(r.getUsername());
+        c.setReadSequence(r.getReadSequence());
+        c.setDeliveredSequence(r.getDeliveredSequence());
+        c.setUpdatedAt(r.getUpdatedAt());
+        return c;
+    }
+
+    static Mention copy(Mention m) {
+        Mention c = new Mention();
+        c.setId(m.getId());
+        c.setUsername(m.getUsername());
+        c.setRoomId(m.getRoomId());
+        c.setMessageId(m.getMessageId());
+        c.setSenderUsername(m.getSenderUsername());
+        c.setSequence(m.getSequence());
+        c.setTimestamp(m.getTimestamp());
+        return c;
+    }
+}
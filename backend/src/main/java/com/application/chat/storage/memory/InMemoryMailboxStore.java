@@ -0,0 +1,63 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.OfflineMailbox;
+import com.application.chat.storage.MailboxStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "memory")
+public class InMemoryMailboxStore implements MailboxStore {
+
+    private final Map<String, OfflineMailbox> mailboxes = new ConcurrentHashMap<>();
+
+    @Override
+    public void push(String username, OfflineMailbox.Entry entry, int maxEntries) {
+        mailboxes.compute(username, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new OfflineMailbox();
+                mailbox.setId(id);
+            }
+            mailbox.getEntries().add(entry);
+            // same as $slice: -maxEntries
+            int excess = mailbox.getEntries().size() - maxEntries;
+            if (excess > 0) mailbox.getEntries().subList(0, excess).clear();
+            mailbox.setTotal(mailbox.getTotal() + 1);
+            mailbox.setUpdatedAt(Instant.now());
+            return mailbox;
+        });
+    }
+
+    @Override
+    public Optional<OfflineMailbox> peek(String username) {
+        // copied under the map's lock for this key, which push and ack also hold
+        OfflineMailbox[] copy = new OfflineMailbox[1];
+        mailboxes.computeIfPresent(username, (id, mailbox) -> {
+            copy[0] = new OfflineMailbox();
+            copy[0].setId(id);
+            copy[0].getEntries().addAll(mailbox.getEntries());
+            copy[0].setTotal(mailbox.getTotal());
+            copy[0].setUpdatedAt(mailbox.getUpdatedAt());
+            return mailbox;
+        });
+        return Optional.ofNullable(copy[0]);
+    }
+
+    @Override
+    public void ack(String username, Collection<String> messageIds, long accounted) {
+        Set<String> delivered = new HashSet<>(messageIds);
+        mailboxes.computeIfPresent(username, (id, mailbox) -> {
+            mailbox.getEntries().removeIf(entry -> delivered.contains(entry.getMessageId()));
+            mailbox.setTotal(mailbox.getTotal() - accounted);
+            return mailbox.getEntries().isEmpty() ? null : mailbox;
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.Mention;
+import com.application.chat.storage.MentionStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "memory")
+public class InMemoryMentionStore implements MentionStore {
+
+    /** Per user, in insertion order (timestamps only grow, like the send path assigns them). */
+    private final Map<String, List<Mention>> byUser = new ConcurrentHashMap<>();
+
+    @Override
+    public void saveAll(Collection<Mention> mentions) {
+        for (Mention mention : mentions) {
+            if (mention.getId() == null) mention.setId(Copies.newId());
+            List<Mention> list = byUser.computeIfAbsent(mention.getUsername(), u -> new ArrayList<>());
+            synchronized (list) {
+                list.add(Copies.copy(mention));
+            }
+        }
+    }
+
+    @Override
+    public List<Mention> findByUsernameBefore(String username, Instant before, int limit) {
+        List<Mention> list = byUser.getOrDefault(username, List.of());
+        List<Mention> page = new ArrayList<>();
+        synchronized (list) {
+            for (int i = list.size() - 1; i >= 0 && page.size() < limit; i--) {
+                Mention m = list.get(i);
+                if (before == null || m.getTimestamp().isBefore(before)) page.add(Copies.copy(m));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        Set<String> doomed = new HashSet<>(ids);
+        for (List<Mention> list : byUser.values()) {
+            synchronized (list) {
+                list.removeIf(m -> doomed.contains(m.getId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.storage.MessageRef;
+import com.application.chat.storage.MessageStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messages kept per room in a skip list ordered by (timestamp, insertion order), which
+ * is the order Mongo returns for a timestamp sort over documents inserted in sequence.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.storage.messages", havingValue = "memory")
+public class InMemoryMessageStore implements MessageStore {
+
+    private static final Comparator<Key> ORDER = Comparator
+            .comparing(Key::timestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(Key::insertion);
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentNavigableMap<Key, ChatMessage>> byRoom = new ConcurrentHashMap<>();
+    private final AtomicLong insertions = new AtomicLong();
+
+    @Override
+    public ChatMessage save(ChatMessage message) {
+        if (message.getId() == null) message.setId(Copies.newId());
+        ChatMessage stored = Copies.copy(message);
+
+        byId.compute(stored.getId(), (id, previous) -> {
+            if (previous != null) room(previous.message.getRoomId()).remove(previous.key);
+            // a replaced document keeps its natural (insertion) position, like in Mongo
+            long insertion = previous != null ? previous.key.insertion() : insertions.incrementAndGet();
+            Key key = new Key(stored.getTimestamp(), insertion);
+            room(stored.getRoomId()).put(key, stored);
+            return new Entry(key, stored);
+        });
+        return message;
+    }
+
+    @Override
+    public List<ChatMessage> findByRoomId(String roomId) {
+        return room(roomId).values().stream().map(Copies::copy).toList();
+    }
+
+    @Override
+    public List<ChatMessage> findLatestByRoomId(String roomId, int limit) {
+        return room(roomId).descendingMap().values().stream().limit(limit).map(Copies::copy).toList();
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(String roomId, Instant before, int limit) {
+        List<ChatMessage> page = new ArrayList<>();
+        Instant last = null;
+        for (ChatMessage m : olderThan(roomId, before).descendingMap().values()) {
+            if (m.getTimestamp() == null) break; // nulls sort first, so nothing timestamped follows
+            if (page.size() >= limit && !m.getTimestamp().equals(last)) break;
+            page.add(Copies.copy(m));
+            last = m.getTimestamp();
+        }
+        return page;
+    }
+
+    @Override
+    public List<ChatMessage> findOldestBefore(String roomId, Instant before, int limit) {
+        return olderThan(roomId, before).values().stream()
+                .filter(m -> m.getTimestamp() != null)
+                .limit(limit)
+                .map(Copies::copy)
+                .toList();
+    }
+
+    @Override
+    public List<MessageRef> findOldestRefsBefore(String roomId, Instant before, int limit) {
+        return olderThan(roomId, before).values().stream()
+                .filter(m -> m.getTimestamp() != null)
+                .limit(limit)
+                .map(m -> new MessageRef(m.getId(), m.getSequence(),
+                        m.getAttachmentIds() == null ? null : List.copyOf(m.getAttachmentIds()))))
+                .toList();
+    }
+
+    @Override
+    public Optional<ChatMessage> findLastBySequence(String roomId) {
+        return room(roomId).values().stream()
+                .filter(m -> m.getSequence() != null)
+                .max(Comparator.comparing(ChatMessage::getSequence))
+                .map(Copies::copy);
+    }
+
+    @Override
+    public List<ChatMessage> findAllById(Collection<String> ids) {
+        List<ChatMessage> messages = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Entry entry = byId.get(id);
+            if (entry != null) messages.add(Copies.copy(entry.message));
+        }
+        return messages;
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        for (String id : ids) {
+            byId.computeIfPresent(id, (key, entry) -> {
+                room(entry.message.getRoomId()).remove(entry.key);
+                return null;
+            });
+        }
+    }
+
+    private ConcurrentNavigableMap<Key, ChatMessage> olderThan(String roomId, Instant before) {
+        ConcurrentNavigableMap<Key, ChatMessage> room = room(roomId);
+        return before == null ? room : room.headMap(new Key(before, Long.MIN_VALUE));
+    }
+
+    private ConcurrentNavigableMap<Key, ChatMessage> room(String roomId) {
+        // null roomIds are legal documents in Mongo too; keep them under their own key
+        return byRoom.computeIfAbsent(String.valueOf(roomId), id -> new ConcurrentSkipListMap<>(ORDER));
+    }
+
+    private record Key(Instant timestamp, long insertion) {}
+
+    private record Entry(Key key, ChatMessage message) {}
+}
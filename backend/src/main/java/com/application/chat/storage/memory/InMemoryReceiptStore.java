@@ -0,0 +1,37 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.RoomReceipt;
+import com.application.chat.storage.ReceiptStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "memory")
+public class InMemoryReceiptStore implements ReceiptStore {
+
+    // roomId -> username -> marks
+    private final Map<String, Map<String, RoomReceipt>> byRoom = new ConcurrentHashMap<>();
+
+    @Override
+    public void upsertMax(Collection<RoomReceipt> receipts) {
+        for (RoomReceipt receipt : receipts) {
+            byRoom.computeIfAbsent(receipt.getRoomId(), r -> new ConcurrentHashMap<>())
+                    .merge(receipt.getUsername(), Copies.copy(receipt), (stored, incoming) -> {
+                        stored.setReadSequence(Math.max(stored.getReadSequence(), incoming.getReadSequence()));
+                        stored.setDeliveredSequence(Math.max(stored.getDeliveredSequence(), incoming.getDeliveredSequence()));
+                        stored.setUpdatedAt(incoming.getUpdatedAt());
+                        return stored;
+                    });
+        }
+    }
+
+    @Override
+    public List<RoomReceipt> findByRoomId(String roomId) {
+        return byRoom.getOrDefault(roomId, Map.of()).values().stream().map(Copies::copy).toList();
+    }
+}
@@ -0,0 +1,112 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.RoomStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rooms with the two indexes the Mongo collection has in practice: the unique sparse
+ * pairKey index and membership. Writes take one lock so the indexes never disagree;
+ * reads are lock-free.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "memory")
+public class InMemoryRoomStore implements RoomStore {
+
+    private final Map<String, ChatRoom> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> byPairKey = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byMember = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized ChatRoom save(ChatRoom room) {
+        String id = room.getId() != null ? room.getId() : Copies.newId();
+        String pairKey = room.getPairKey();
+        if (pairKey != null) {
+            String owner = byPairKey.get(pairKey);
+            if (owner != null && !owner.equals(id)) {
+                throw new DuplicateKeyException("E11000 duplicate key error index: unique_pairKey dup key: " + pairKey);
+            }
+        }
+
+        ChatRoom current = byId.get(id);
+        if (current != null && current.getVersion() != room.getVersion()) {
+            throw new OptimisticLockingFailureException("Room " + id + " was changed concurrently");
+        }
+
+        room.setId(id);
+        room.setVersion(room.getVersion() + 1);
+        ChatRoom stored = Copies.copy(room);
+        ChatRoom previous = byId.put(id, stored);
+        if (previous != null) {
+            if (previous.getPairKey() != null) byPairKey.remove(previous.getPairKey(), id);
+            if (previous.getMembers() != null) {
+                for (String member : previous.getMembers()) {
+                    Set<String> rooms = byMember.get(member);
+                    if (rooms != null) rooms.remove(id);
+                }
+            }
+        }
+        if (pairKey != null) byPairKey.put(pairKey, id);
+        if (stored.getMembers() != null) {
+            for (String member : stored.getMembers()) {
+                byMember.computeIfAbsent(member, m -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+        return room;
+    }
+
+    @Override
+    public Optional<ChatRoom> findById(String id) {
+        return Optional.ofNullable(byId.get(id)).map(Copies::copy);
+    }
+
+    @Override
+    public List<ChatRoom> findAllById(Collection<String> ids) {
+        List<ChatRoom> rooms = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            ChatRoom room = byId.get(id);
+            if (room != null) rooms.add(Copies.copy(room));
+        }
+        return rooms;
+    }
+
+    @Override
+    public Optional<ChatRoom> findByPairKey(String pairKey) {
+        return Optional.ofNullable(byPairKey.get(pairKey)).flatMap(this::findById);
+    }
+
+    @Override
+    public List<ChatRoom> findByMembersContaining(String username) {
+        Set<String> ids = byMember.getOrDefault(username, Set.of());
+        List<ChatRoom> rooms = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            ChatRoom room = byId.get(id);
+            if (room != null) rooms.add(Copies.copy(room));
+        }
+        return rooms;
+    }
+
+    @Override
+    public synchronized void raiseSequenceFloor(String roomId, long sequence) {
+        ChatRoom room = byId.get(roomId);
+        if (room != null && (room.getSequenceFloor() == null || room.getSequenceFloor() < sequence)) {
+            room.setSequenceFloor(sequence);
+            room.setVersion(room.getVersion() + 1);
+        }
+    }
+
+    @Override
+    public List<String> findIdsAfter(String afterId, int limit) {
+        return byId.keySet().stream()
+                .filter(id -> afterId == null || id.compareTo(afterId) > 0)
+                .sorted()
+                .limit(limit)
+                .toList();
+    }
+}
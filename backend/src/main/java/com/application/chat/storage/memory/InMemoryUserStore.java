@@ -0,0 +1,60 @@
+package com.application.chat.storage.memory;
+
+import com.application.chat.models.User;
+import com.application.chat.storage.UserStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "memory")
+public class InMemoryUserStore implements UserStore {
+
+    private final Map<String, User> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> byUsername = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized User save(User user) {
+        if (user.getId() == null) user.setId(Copies.newId());
+        User current = byId.get(user.getId());
+        if (current != null && current.getVersion() != user.getVersion()) {
+            throw new OptimisticLockingFailureException("User " + user.getId() + " was changed concurrently");
+        }
+        user.setVersion(user.getVersion() + 1);
+        User stored = Copies.copy(user);
+        User previous = byId.put(stored.getId(), stored);
+        if (previous != null) {
+            if (previous.getEmail() != null) byEmail.remove(previous.getEmail(), previous.getId());
+            if (previous.getUsername() != null) byUsername.remove(previous.getUsername(), previous.getId());
+        }
+        if (stored.getEmail() != null) byEmail.put(stored.getEmail(), stored.getId());
+        if (stored.getUsername() != null) byUsername.put(stored.getUsername(), stored.getId());
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        return Optional.ofNullable(byId.get(id)).map(Copies::copy);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email)).flatMap(this::findById);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return Optional.ofNullable(byUsername.get(username)).flatMap(this::findById);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return byId.values().stream().map(Copies::copy).toList();
+    }
+}
@@ -0,0 +1,47 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.ArchiveSegment;
+import com.application.chat.storage.ArchiveStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoArchiveStore implements ArchiveStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoArchiveStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public ArchiveSegment save(ArchiveSegment segment) {
+        return mongoTemplate.insert(segment);
+    }
+
+    /** Served by the (roomId, from) index; the compressed payload is left on the server. */
+    @Override
+    public List<ArchiveSegment> findHeadersByRoomId(String roomId) {
+        Query query = Query.query(Criteria.where("roomId").is(roomId)).with(Sort.by("from"));
+        query.fields().exclude("data");
+        return mongoTemplate.find(query, ArchiveSegment.class);
+    }
+
+    @Override
+    public Optional<ArchiveSegment> findById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, ArchiveSegment.class));
+    }
+
+    @Override
+    public void deleteById(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(id)), ArchiveSegment.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 🗂️ Creates the indexes declared on the documents (@CompoundIndex / @Indexed).
+ *
+ * Spring Boot 3 leaves {@code spring.data.mongodb.auto-index-creation} off, so the
+ * annotations alone create nothing and the history, archive, mention and receipt queries
+ * would scan their collections. ensureIndex is a no-op for an index that already exists.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> DOCUMENTS = List.of(
+            ChatMessage.class, ChatRoom.class, ArchiveSegment.class,
+            Mention.class, Attachment.class, RoomReceipt.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (RuntimeException e) {
+                    // e.g. duplicates in the way of a unique index: the app still works, only slower
+                    System.out.println("⚠️ Could not create index " + index.getIndexKeys()
+                            + " on " + mongoTemplate.getCollectionName(type) + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("🗂️ Mongo indexes ensured for " + DOCUMENTS.size() + " collections");
+    }
+}
@@ -0,0 +1,52 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.OfflineMailbox;
+import com.application.chat.storage.MailboxStore;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoMailboxStore implements MailboxStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoMailboxStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** One upsert: $push with $slice keeps the newest entries, $inc counts everything. */
+    @Override
+    public void push(String username, OfflineMailbox.Entry entry, int maxEntries) {
+        Update update = new Update()
+                .push("entries").slice(-maxEntries).each(entry)
+                .inc("total", 1)
+                .set("updatedAt", Instant.now());
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(username)), update, OfflineMailbox.class);
+    }
+
+    @Override
+    public Optional<OfflineMailbox> peek(String username) {
+        return Optional.ofNullable(mongoTemplate.findById(username, OfflineMailbox.class));
+    }
+
+    /** $pull of the delivered entries, then removal only if nothing new arrived meanwhile. */
+    @Override
+    public void ack(String username, Collection<String> messageIds, long accounted) {
+        Update update = new Update()
+                .pull("entries", new Document("messageId", new Document("$in", List.copyOf(messageIds))))
+                .inc("total", -accounted);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(username)), update, OfflineMailbox.class);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(username).and("entries").size(0)), OfflineMailbox.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.Mention;
+import com.application.chat.storage.MentionStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoMentionStore implements MentionStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoMentionStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void saveAll(Collection<Mention> mentions) {
+        if (!mentions.isEmpty()) mongoTemplate.insertAll(mentions);
+    }
+
+    /** Served by the (username, timestamp) index. */
+    @Override
+    public List<Mention> findByUsernameBefore(String username, Instant before, int limit) {
+        Criteria criteria = Criteria.where("username").is(username);
+        if (before != null) criteria = criteria.and("timestamp").lt(before);
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "timestamp")).limit(limit);
+        return mongoTemplate.find(query, Mention.class);
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        if (ids.isEmpty()) return;
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Mention.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.repositories.ChatMessageRepository;
+import com.application.chat.storage.MessageRef;
+import com.application.chat.storage.MessageStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.messages", havingValue = "mongo", matchIfMissing = true)
+public class MongoMessageStore implements MessageStore {
+
+    private final ChatMessageRepository chatMessageRepository;
+
+    public MongoMessageStore(ChatMessageRepository chatMessageRepository) {
+        this.chatMessageRepository = chatMessageRepository;
+    }
+
+    @Override
+    public ChatMessage save(ChatMessage message) {
+        return chatMessageRepository.save(message);
+    }
+
+    @Override
+    public List<ChatMessage> findByRoomId(String roomId) {
+        return chatMessageRepository.findByRoomIdOrderByTimestampAsc(roomId);
+    }
+
+    @Override
+    public List<ChatMessage> findLatestByRoomId(String roomId, int limit) {
+        return chatMessageRepository.findByRoomIdOrderByTimestampDesc(roomId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(String roomId, Instant before, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<ChatMessage> messages = new ArrayList<>(before == null
+                ? chatMessageRepository.findByRoomIdOrderByTimestampDesc(roomId, page)
+                : chatMessageRepository.findByRoomIdAndTimestampBeforeOrderByTimestampDesc(roomId, before, page));
+        if (messages.size() < limit) return messages;
+
+        // Full page: pull in the rest of the oldest timestamp's run so the cursor is lossless
+        Instant oldest = messages.get(messages.size() - 1).getTimestamp();
+        if (oldest == null) return messages;
+        Set<String> seen = new HashSet<>();
+        for (ChatMessage m : messages) seen.add(m.getId());
+        for (ChatMessage m : chatMessageRepository.findByRoomIdAndTimestamp(roomId, oldest)) {
+            if (seen.add(m.getId())) messages.add(m);
+        }
+        return messages;
+    }
+
+    @Override
+    public List<ChatMessage> findOldestBefore(String roomId, Instant before, int limit) {
+        return chatMessageRepository.findByRoomIdAndTimestampBeforeOrderByTimestampAsc(roomId, before, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<MessageRef> findOldestRefsBefore(String roomId, Instant before, int limit) {
+        return chatMessageRepository.findRefsByRoomIdBefore(roomId, before, PageRequest.of(0, limit)).stream()
+                .map(m -> new MessageRef(m.getId(), m.getSequence(), m.getAttachmentIds()))
+                .toList();
+    }
+
+    @Override
+    public Optional<ChatMessage> findLastBySequence(String roomId) {
+        return chatMessageRepository.findTopByRoomIdOrderBySequenceDesc(roomId);
+    }
+
+    @Override
+    public List<ChatMessage> findAllById(Collection<String> ids) {
+        List<ChatMessage> messages = new ArrayList<>();
+        chatMessageRepository.findAllById(ids).forEach(messages::add);
+        return messages;
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        if (!ids.isEmpty()) chatMessageRepository.deleteAllById(ids);
+    }
+}
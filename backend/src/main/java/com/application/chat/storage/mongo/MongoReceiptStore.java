@@ -0,0 +1,50 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.RoomReceipt;
+import com.application.chat.repositories.RoomReceiptRepository;
+import com.application.chat.storage.ReceiptStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoReceiptStore implements ReceiptStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final RoomReceiptRepository roomReceiptRepository;
+
+    public MongoReceiptStore(MongoTemplate mongoTemplate, RoomReceiptRepository roomReceiptRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.roomReceiptRepository = roomReceiptRepository;
+    }
+
+    /** One unordered bulk of $max upserts. */
+    @Override
+    public void upsertMax(Collection<RoomReceipt> receipts) {
+        if (receipts.isEmpty()) return;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RoomReceipt.class);
+        for (RoomReceipt receipt : receipts) {
+            Update update = new Update()
+                    .setOnInsert("roomId", receipt.getRoomId())
+                    .setOnInsert("username", receipt.getUsername())
+                    .max("readSequence", receipt.getReadSequence())
+                    .max("deliveredSequence", receipt.getDeliveredSequence())
+                    .set("updatedAt", receipt.getUpdatedAt());
+            bulk.upsert(Query.query(Criteria.where("_id").is(receipt.getId())), update);
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public List<RoomReceipt> findByRoomId(String roomId) {
+        return roomReceiptRepository.findByRoomId(roomId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.ChatRoom;
+import com.application.chat.repositories.ChatRoomRepository;
+import com.application.chat.storage.RoomStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoRoomStore implements RoomStore {
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoRoomStore(ChatRoomRepository chatRoomRepository, MongoTemplate mongoTemplate) {
+        this.chatRoomRepository = chatRoomRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Compare-and-set on the version, so two writers never produce the same version (ETag). */
+    @Override
+    public ChatRoom save(ChatRoom room) {
+        long expected = room.getVersion();
+        room.setVersion(expected + 1);
+        if (room.getId() == null) return chatRoomRepository.save(room);
+
+        if (expected == 0) {
+            // Not stored yet, or stored before versions existed: the upsert inserts it or replaces
+            // the unversioned copy; a copy someone else already versioned is the duplicate _id
+            Query legacy = Query.query(Criteria.where("id").is(room.getId()).orOperator(
+                    Criteria.where("version").is(0), Criteria.where("version").exists(false)));
+            try {
+                mongoTemplate.findAndReplace(legacy, room, FindAndReplaceOptions.options().upsert());
+                return room;
+            } catch (DuplicateKeyException e) {
+                room.setVersion(expected);
+                if (!isDuplicateId(e)) throw e; // another unique index
+                throw new OptimisticLockingFailureException("Room " + room.getId() + " was changed concurrently");
+            }
+        }
+
+        Query current = Query.query(Criteria.where("id").is(room.getId()).and("version").is(expected));
+        if (mongoTemplate.findAndReplace(current, room) == null) {
+            room.setVersion(expected);
+            throw new OptimisticLockingFailureException("Room " + room.getId() + " was changed concurrently");
+        }
+        return room;
+    }
+
+    private static boolean isDuplicateId(DuplicateKeyException e) {
+        return e.getMessage() != null && e.getMessage().contains("index: _id_ ");
+    }
+
+    @Override
+    public Optional<ChatRoom> findById(String id) {
+        return chatRoomRepository.findById(id);
+    }
+
+    @Override
+    public List<ChatRoom> findAllById(Collection<String> ids) {
+        return chatRoomRepository.findAllById(ids);
+    }
+
+    @Override
+    public Optional<ChatRoom> findByPairKey(String pairKey) {
+        return chatRoomRepository.findByPairKey(pairKey);
+    }
+
+    @Override
+    public List<ChatRoom> findByMembersContaining(String username) {
+        return chatRoomRepository.findByMembersContaining(username);
+    }
+
+    /** Only matches a lower floor, so concurrent sweeps can't lower it and a no-op keeps the version. */
+    @Override
+    public void raiseSequenceFloor(String roomId, long sequence) {
+        Query lower = Query.query(Criteria.where("id").is(roomId).orOperator(
+                Criteria.where("sequenceFloor").lt(sequence), Criteria.where("sequenceFloor").is(null)));
+        mongoTemplate.updateFirst(lower, new Update().set("sequenceFloor", sequence).inc("version", 1), ChatRoom.class);
+    }
+
+    @Override
+    public List<String> findIdsAfter(String afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<ChatRoom> rooms = afterId == null
+                ? chatRoomRepository.findAllByOrderByIdAsc(page)
+                : chatRoomRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+        return rooms.stream().map(ChatRoom::getId).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.application.chat.storage.mongo;
+
+import com.application.chat.models.User;
+import com.application.chat.repositories.UserRepository;
+import com.application.chat.storage.UserStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "chat.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoUserStore implements UserStore {
+
+    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoUserStore(UserRepository userRepository, MongoTemplate mongoTemplate) {
+        this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Compare-and-set on the version, so two writers never produce the same version (ETag). */
+    @Override
+    public User save(User user) {
+        long expected = user.getVersion();
+        user.setVersion(expected + 1);
+        if (user.getId() == null) return userRepository.save(user);
+
+        if (expected == 0) {
+            // Not stored yet, or stored before versions existed: the upsert inserts it or replaces
+            // the unversioned copy; a copy someone else already versioned is the duplicate _id
+            Query legacy = Query.query(Criteria.where("id").is(user.getId()).orOperator(
+                    Criteria.where("version").is(0), Criteria.where("version").exists(false)));
+            try {
+                mongoTemplate.findAndReplace(legacy, user, FindAndReplaceOptions.options().upsert());
+                return user;
+            } catch (DuplicateKeyException e) {
+                user.setVersion(expected);
+                if (!isDuplicateId(e)) throw e; // another unique index
+                throw new OptimisticLockingFailureException("User " + user.getId() + " was changed concurrently");
+            }
+        }
+
+        Query current = Query.query(Criteria.where("id").is(user.getId()).and("version").is(expected));
+        if (mongoTemplate.findAndReplace(current, user) == null) {
+            user.setVersion(expected);
+            throw new OptimisticLockingFailureException("User " + user.getId() + " was changed concurrently");
+        }
+        return user;
+    }
+
+    private static boolean isDuplicateId(DuplicateKeyException e) {
+        return e.getMessage() != null && e.getMessage().contains("index: _id_ ");
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        return userRepository.findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return userRepository.findByEmail(email);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return userRepository.findByUsername(username);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return userRepository.findAll();
+    }
+}
@@ -0,0 +1,60 @@
+package com.application.chat.reactive;
+
+import com.application.chat.config.JwtUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bearer-token check for /chats/** (the servlet app does this with Spring Security).
+ * The resolved username is stored as the {@link #USERNAME} exchange attribute.
+ */
+@Component
+public class JwtWebFilter implements WebFilter {
+
+    public static final String USERNAME = "chatUsername";
+
+    private final JwtUtils jwtUtils;
+    private final ReactiveChatService chatService;
+
+    public JwtWebFilter(JwtUtils jwtUtils, ReactiveChatService chatService) {
+        this.jwtUtils = jwtUtils;
+        this.chatService = chatService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        if (!path.startsWith("/chats") || HttpMethod.OPTIONS.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        String token = header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+        if (token == null || !jwtUtils.validateJwtToken(token)) return unauthorized(exchange);
+
+        return chatService.normalizeUsername(jwtUtils.extractUsername(token))
+                .flatMap(username -> {
+                    exchange.getAttributes().put(USERNAME, username);
+                    return chain.filter(exchange);
+                });
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        System.out.println("❌ Unauthorized Access: Invalid or Missing JWT");
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = exchange.getResponse().bufferFactory()
+                .wrap("{\"error\":\"Unauthorized - Please login again.\"}".getBytes(StandardCharsets.UTF_8));
+        return exchange.getResponse().writeWith(Mono.just(body));
+    }
+}
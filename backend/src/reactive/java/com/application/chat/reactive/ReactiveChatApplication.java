@@ -0,0 +1,22 @@
+package com.application.chat.reactive;
+
+import com.application.chat.config.JwtUtils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Reactive variant of the chat backend: WebFlux + reactive Mongo, same REST and STOMP
+ * contracts for the send, history and room-listing paths. Lives in the {@code reactive}
+ * source set and only borrows the document classes (and JwtUtils) from main.
+ *
+ * Run with {@code ./gradlew bootRunReactive} (port 8081 by default).
+ */
+@SpringBootApplication
+@Import(JwtUtils.class)
+public class ReactiveChatApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveChatApplication.class, args);
+    }
+}
@@ -0,0 +1,53 @@
+package com.application.chat.reactive;
+
+import com.application.chat.models.ChatMessage;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Same routes and payloads as ChatController for the paths ported to the reactive stack.
+ * History streams straight from the Mongo cursor with the client's demand as backpressure.
+ */
+@RestController
+@RequestMapping("/chats")
+public class ReactiveChatController {
+
+    private final ReactiveChatService chatService;
+
+    public ReactiveChatController(ReactiveChatService chatService) {
+        this.chatService = chatService;
+    }
+
+    /** ✅ Get all chat rooms (private + group) for a user. */
+    @GetMapping("/rooms/{username}")
+    public Mono<List<Map<String, Object>>> getUserChatRooms(@PathVariable String username) {
+        return chatService.getAllUserChatRooms(username);
+    }
+
+    /** ✅ Get all messages for a specific room. */
+    @GetMapping("/{roomId}/messages")
+    public Flux<ChatMessage> getMessages(@PathVariable String roomId) {
+        return chatService.getMessages(roomId);
+    }
+
+    /** ✅ Send a message (REST fallback). */
+    @PostMapping("/messages/send")
+    public Mono<ResponseEntity<?>> sendMessage(@RequestBody Map<String, String> body,
+                                               @RequestAttribute(JwtWebFilter.USERNAME) String senderUsername) {
+        ChatMessage msg = new ChatMessage();
+        msg.setRoomId(body.get("roomId"));
+        msg.setSenderUsername(senderUsername);
+        msg.setReceiverUsername(body.get("receiverUsername"));
+        msg.setContent(body.get("content"));
+
+        return chatService.sendMessage(msg)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("error", e.getMessage()))));
+    }
+}
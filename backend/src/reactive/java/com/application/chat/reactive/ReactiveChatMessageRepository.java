@@ -0,0 +1,13 @@
+package com.application.chat.reactive;
+
+import com.application.chat.models.ChatMessage;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveChatMessageRepository extends ReactiveMongoRepository<ChatMessage, String> {
+    Flux<ChatMessage> findByRoomIdOrderByTimestampAsc(String roomId);
+
+    // Highest sequence assigned so far in a room
+    Mono<ChatMessage> findTopByRoomIdOrderBySequenceDesc(String roomId);
+}
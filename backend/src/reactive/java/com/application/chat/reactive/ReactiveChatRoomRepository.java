@@ -0,0 +1,12 @@
+package com.application.chat.reactive;
+
+import com.application.chat.models.ChatRoom;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveChatRoomRepository extends ReactiveMongoRepository<ChatRoom, String> {
+    Flux<ChatRoom> findByMembersContaining(String username);
+
+    Mono<ChatRoom> findByPairKey(String pairKey);
+}
@@ -0,0 +1,188 @@
+package com.application.chat.reactive;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking counterpart of ChatService for the send, history and room-listing paths.
+ * Results mirror the servlet version field for field so both stacks serve the same clients.
+ */
+@Service
+public class ReactiveChatService {
+
+    private final ReactiveChatMessageRepository chatMessageRepository;
+    private final ReactiveChatRoomRepository chatRoomRepository;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveStompBroker broker;
+
+    // roomId -> last sequence, seeded once from Mongo (single node; no room affinity here).
+    // LRU-bounded: an evicted room is simply seeded again on its next send.
+    private final Map<String, Mono<AtomicLong>> sequences;
+
+    public ReactiveChatService(ReactiveChatMessageRepository chatMessageRepository,
+                               ReactiveChatRoomRepository chatRoomRepository,
+                               ReactiveUserRepository userRepository,
+                               ReactiveStompBroker broker,
+                               @Value("${chat.reactive.sequences.max-rooms:20000}") int maxRooms) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatRoomRepository = chatRoomRepository;
+        this.userRepository = userRepository;
+        this.broker = broker;
+        this.sequences = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Mono<AtomicLong>> eldest) {
+                return size() > maxRooms;
+            }
+        });
+    }
+
+    // =====================================================
+    // 💬 MESSAGES
+    // =====================================================
+
+    /** Saves the message and fans it out exactly like ChatSocketController does. */
+    public Mono<ChatMessage> sendMessage(ChatMessage msg) {
+        msg.setTimestamp(Instant.now());
+
+        Mono<String> roomId = msg.getRoomId() != null && !msg.getRoomId().isEmpty()
+                ? Mono.just(msg.getRoomId())
+                : Mono.justOrEmpty(msg.getReceiverUsername())
+                        .filter(receiver -> !receiver.isEmpty())
+                        .flatMap(receiver -> createPrivateChat(msg.getSenderUsername(), receiver))
+                        .map(ChatRoom::getId);
+
+        return Mono.zip(normalizeUsername(msg.getSenderUsername()),
+                        normalizeUsername(msg.getReceiverUsername()).defaultIfEmpty(""))
+                .flatMap(users -> {
+                    msg.setSenderUsername(users.getT1());
+                    msg.setReceiverUsername(users.getT2().isEmpty() ? null : users.getT2());
+                    return roomId;
+                })
+                .switchIfEmpty(Mono.error(new RuntimeException("roomId or receiverUsername required")))
+                .flatMap(id -> {
+                    msg.setRoomId(id);
+                    return nextSequence(id);
+                })
+                .flatMap(sequence -> {
+                    msg.setSequence(sequence);
+                    return chatMessageRepository.save(msg);
+                })
+                .doOnNext(this::broadcast);
+    }
+
+    public Flux<ChatMessage> getMessages(String roomId) {
+        return chatMessageRepository.findByRoomIdOrderByTimestampAsc(roomId);
+    }
+
+    private void broadcast(ChatMessage saved) {
+        broker.publish("/topic/messages/" + saved.getRoomId(), saved);
+        if (saved.getReceiverUsername() != null && !saved.getReceiverUsername().isEmpty()) {
+            broker.publishToUser(saved.getReceiverUsername(), "/queue/private", saved);
+        }
+        broker.publishToUser(saved.getSenderUsername(), "/queue/private", saved);
+    }
+
+    private Mono<Long> nextSequence(String roomId) {
+        Mono<AtomicLong> seed = sequences.computeIfAbsent(roomId, id -> chatMessageRepository.findTopByRoomIdOrderBySequenceDesc(id)
+                .map(last -> new AtomicLong(last.getSequence() != null ? last.getSequence() : 0))
+                .defaultIfEmpty(new AtomicLong())
+                .cache());
+        return seed
+                // a failed seed must not stay cached: drop it so the next send queries again
+                .doOnError(e -> sequences.remove(roomId, seed))
+                .map(AtomicLong::incrementAndGet);
+    }
+
+    // =====================================================
+    // 🔒 ROOMS
+    // =====================================================
+
+    public Mono<ChatRoom> createPrivateChat(String senderUsername, String receiverUsername) {
+        return Mono.zip(normalizeUsername(senderUsername), normalizeUsername(receiverUsername))
+                .flatMap(users -> {
+                    String pairKey = buildPrivateChatName(users.getT1(), users.getT2());
+                    return chatRoomRepository.findByPairKey(pairKey)
+                            .switchIfEmpty(Mono.defer(() -> {
+                                ChatRoom room = new ChatRoom();
+                                room.setName(pairKey);
+                                room.setPairKey(pairKey);
+                                room.setPrivate(true);
+                                room.setGroup(false);
+                                room.setAdmins(Collections.emptyList());
+                                room.setMembers(List.of(users.getT1(), users.getT2()));
+                                // unique pairKey index: a concurrent creator wins, we read theirs
+                                return chatRoomRepository.save(room)
+                                        .onErrorResume(e -> chatRoomRepository.findByPairKey(pairKey));
+                            }));
+                });
+    }
+
+    /** Same shape and de-duplication as ChatService#getAllUserChatRooms. */
+    public Mono<List<Map<String, Object>>> getAllUserChatRooms(String username) {
+        return chatRoomRepository.findByMembersContaining(username)
+                .collectList()
+                .flatMap(rooms -> {
+                    Mono<List<Map<String, Object>>> privates = Flux.fromIterable(rooms)
+                            .filter(ChatRoom::isPrivate)
+                            .concatMap(r -> normalizeUsername(r.getMembers().stream()
+                                            .filter(m -> !m.equalsIgnoreCase(username))
+                                            .findFirst()
+                                            .orElse(username))
+                                    .map(other -> Map.<String, Object>of(
+                                            "id", r.getId(),
+                                            "isGroup", false,
+                                            "displayName", other,
+                                            "members", r.getMembers(),
+                                            "type", "private")))
+                            .collectList();
+
+                    List<Map<String, Object>> groups = rooms.stream()
+                            .filter(ChatRoom::isGroup)
+                            .map(r -> Map.<String, Object>of(
+                                    "id", r.getId(),
+                                    "isGroup", true,
+                                    "displayName", r.getName(),
+                                    "members", r.getMembers(),
+                                    "type", "group"))
+                            .toList();
+
+                    return privates.map(list -> {
+                        List<Map<String, Object>> all = new ArrayList<>(list);
+                        all.addAll(groups);
+                        Set<String> names = new HashSet<>();
+                        return all.stream()
+                                .filter(room -> {
+                                    String name = (String) room.get("displayName");
+                                    return name != null && names.add(name.toLowerCase());
+                                })
+                                .toList();
+                    });
+                });
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    public Mono<String> normalizeUsername(String input) {
+        if (input == null) return Mono.empty();
+        String trimmed = input.trim();
+        if (!trimmed.contains("@")) return Mono.just(trimmed);
+        return userRepository.findByEmail(trimmed).map(User::getUsername).defaultIfEmpty(trimmed);
+    }
+
+    private static String buildPrivateChatName(String a, String b) {
+        List<String> pair = Arrays.asList(a.toLowerCase(), b.toLowerCase());
+        Collections.sort(pair);
+        return String.join("-", pair);
+    }
+}
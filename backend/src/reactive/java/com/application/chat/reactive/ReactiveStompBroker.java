@@ -0,0 +1,53 @@
+package com.application.chat.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory pub/sub for the reactive STOMP endpoint, the counterpart of the SimpleBroker.
+ * One multicast sink per destination; each payload is serialized once and shared by all
+ * subscribers. Slow subscribers are dealt with per session in {@link ReactiveStompHandler}.
+ */
+@Component
+public class ReactiveStompBroker {
+
+    private final ObjectMapper objectMapper;
+
+    // destination -> live subscribers (one sink per destination ever subscribed)
+    private final Map<String, Sinks.Many<byte[]>> destinations = new ConcurrentHashMap<>();
+
+    public ReactiveStompBroker(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Flux<byte[]> subscribe(String destination) {
+        return destinations.computeIfAbsent(destination, d -> Sinks.many().multicast().directBestEffort()).asFlux();
+    }
+
+    public void publish(String destination, Object payload) {
+        Sinks.Many<byte[]> sink = destinations.get(destination);
+        if (sink == null || sink.currentSubscriberCount() == 0) return;
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(payload);
+        } catch (Exception e) {
+            System.out.println("⚠️ Failed to serialize payload for " + destination + ": " + e.getMessage());
+            return;
+        }
+        // Sinks require serialized emission; publishers come from any Mongo callback thread
+        synchronized (sink) {
+            sink.tryEmitNext(json);
+        }
+    }
+
+    /** Same addressing as convertAndSendToUser: /user/{name}/queue/... */
+    public void publishToUser(String username, String destination, Object payload) {
+        publish("/user/" + username + destination, payload);
+    }
+}
@@ -0,0 +1,212 @@
+package com.application.chat.reactive;
+
+import com.application.chat.config.JwtUtils;
+import com.application.chat.models.ChatMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.BufferingStompDecoder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal STOMP 1.2 server over a WebFlux WebSocket, enough for the existing client:
+ * CONNECT (JWT in the {@code token} query parameter, as on /ws-native), SUBSCRIBE /
+ * UNSUBSCRIBE to /topic/** and /user/queue/**, SEND to /app/send-message, DISCONNECT.
+ *
+ * Outbound frames from all subscriptions of a session are merged into one stream with a
+ * bounded buffer ({@code chat.reactive.ws.max-queued}); when a client can't keep up the
+ * oldest frames are dropped instead of blocking a thread or growing the heap.
+ */
+@Component
+public class ReactiveStompHandler implements WebSocketHandler {
+
+    private final ReactiveChatService chatService;
+    private final ReactiveStompBroker broker;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final int maxQueued;
+
+    private final StompEncoder encoder = new StompEncoder();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    public ReactiveStompHandler(ReactiveChatService chatService,
+                                ReactiveStompBroker broker,
+                                JwtUtils jwtUtils,
+                                ObjectMapper objectMapper,
+                                @Value("${chat.reactive.ws.max-queued:500}") int maxQueued) {
+        this.chatService = chatService;
+        this.broker = broker;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.maxQueued = maxQueued;
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        SessionState state = new SessionState(session);
+
+        Mono<Void> inbound = session.receive()
+                .map(message -> state.decoder.decode(message.getPayload().toByteBuffer()))
+                .flatMapIterable(frames -> frames)
+                // one frame at a time per session: keeps SEND order and serializes sink emission
+                .concatMap(frame -> handleFrame(state, frame))
+                .doFinally(signal -> state.close())
+                .then();
+
+        Flux<WebSocketMessage> outbound = state.streams.asFlux()
+                .flatMap(stream -> stream, Integer.MAX_VALUE)
+                .onBackpressureBuffer(maxQueued, dropped -> {}, BufferOverflowStrategy.DROP_OLDEST)
+                .map(frame -> session.textMessage(new String(encoder.encode(frame), StandardCharsets.UTF_8)));
+
+        return Mono.when(inbound, session.send(outbound));
+    }
+
+    // =====================================================
+    // 📥 INBOUND FRAMES
+    // =====================================================
+
+    private Mono<Void> handleFrame(SessionState state, Message<byte[]> frame) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(frame);
+        if (accessor.getMessageType() == SimpMessageType.HEARTBEAT || accessor.getCommand() == null) {
+            return Mono.empty();
+        }
+
+        switch (accessor.getCommand()) {
+            case CONNECT, STOMP -> {
+                return authenticate(state.session)
+                        .map(username -> {
+                            state.username = username;
+                            state.emit(connected());
+                            return true;
+                        })
+                        .defaultIfEmpty(false)
+                        .flatMap(ok -> ok ? Mono.<Void>empty() : Mono.defer(() -> {
+                            state.emit(error("Unauthorized"));
+                            return state.session.close();
+                        }));
+            }
+            case SUBSCRIBE -> subscribe(state, accessor.getSubscriptionId(), accessor.getDestination());
+            case UNSUBSCRIBE -> {
+                Sinks.Empty<Void> cancel = state.subscriptions.remove(accessor.getSubscriptionId());
+                if (cancel != null) cancel.tryEmitEmpty();
+            }
+            case SEND -> {
+                return send(state, accessor.getDestination(), frame.getPayload());
+            }
+            case DISCONNECT -> {
+                return state.session.close();
+            }
+            default -> { }
+        }
+        return Mono.empty();
+    }
+
+    private void subscribe(SessionState state, String subscriptionId, String destination) {
+        if (state.username == null || subscriptionId == null || destination == null) return;
+
+        // /user/queue/private -> this user's own queue, like UserDestinationMessageHandler
+        String resolved = destination.startsWith("/user/")
+                ? "/user/" + state.username + destination.substring("/user".length())
+                : destination;
+
+        Sinks.Empty<Void> cancel = Sinks.empty();
+        state.subscriptions.put(subscriptionId, cancel);
+        state.streams.tryEmitNext(broker.subscribe(resolved)
+                .takeUntilOther(cancel.asMono())
+                .map(payload -> message(subscriptionId, destination, payload)));
+    }
+
+    private Mono<Void> send(SessionState state, String destination, byte[] body) {
+        if (state.username == null || !"/app/send-message".equals(destination)) return Mono.empty();
+        try {
+            ChatMessage message = objectMapper.readValue(body, ChatMessage.class);
+            message.setSenderUsername(state.username);
+            return chatService.sendMessage(message)
+                    .onErrorResume(e -> {
+                        System.err.println("❌ Error handling WebSocket message: " + e.getMessage());
+                        return Mono.empty();
+                    })
+                    .then();
+        } catch (Exception e) {
+            System.err.println("❌ Unreadable WebSocket message: " + e.getMessage());
+            return Mono.empty();
+        }
+    }
+
+    // =====================================================
+    // ⚙️ HELPERS
+    // =====================================================
+
+    private Mono<String> authenticate(WebSocketSession session) {
+        String token = UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri())
+                .build().getQueryParams().getFirst("token");
+        if (token == null || !jwtUtils.validateJwtToken(token)) return Mono.empty();
+        // Tokens carry the email; resolve the username without blocking the event loop
+        return chatService.normalizeUsername(jwtUtils.extractUsername(token));
+    }
+
+    private static Message<byte[]> connected() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+        accessor.setVersion("1.2");
+        accessor.setHeartbeat(0, 0);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<byte[]> message(String subscriptionId, String destination, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setMessageId(Long.toString(messageIds.incrementAndGet(), 36));
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> error(String text) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+        accessor.setMessage(text);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static final class SessionState {
+        final WebSocketSession session;
+        final BufferingStompDecoder decoder = new BufferingStompDecoder(new StompDecoder(), 64 * 1024);
+        // each SUBSCRIBE (and each control frame) contributes one inner stream
+        final Sinks.Many<Flux<Message<byte[]>>> streams = Sinks.many().unicast().onBackpressureBuffer();
+        final Map<String, Sinks.Empty<Void>> subscriptions = new ConcurrentHashMap<>();
+        volatile String username;
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void emit(Message<byte[]> frame) {
+            streams.tryEmitNext(Flux.just(frame));
+        }
+
+        void close() {
+            subscriptions.values().forEach(Sinks.Empty::tryEmitEmpty);
+            subscriptions.clear();
+            streams.tryEmitComplete();
+        }
+    }
+}
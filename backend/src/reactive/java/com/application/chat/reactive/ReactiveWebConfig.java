@@ -0,0 +1,29 @@
+package com.application.chat.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+@Configuration
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    /** Raw WebSocket STOMP endpoint, same path as the servlet app's /ws-native (no SockJS on WebFlux). */
+    @Bean
+    public HandlerMapping stompHandlerMapping(ReactiveStompHandler handler) {
+        return new SimpleUrlHandlerMapping(Map.of("/ws-native", handler), -1);
+    }
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowedOrigins("http://localhost:4200", "http://127.0.0.1:4200")
+                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedHeaders("*")
+                .allowCredentials(true);
+    }
+}
@@ -0,0 +1,43 @@
+package com.application.chat.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void joiningNodeOnlyTakesOverItsShare() {
+        List<String> rooms = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) rooms.add(UUID.randomUUID().toString());
+
+        ConsistentHashRing three = new ConsistentHashRing(List.of("n1:7701", "n2:7701", "n3:7701"), 128);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("n1:7701", "n2:7701", "n3:7701", "n4:7701"), 128);
+
+        Map<String, Integer> load = new HashMap<>();
+        int moved = 0;
+        for (String room : rooms) {
+            String before = three.ownerOf(room);
+            String after = four.ownerOf(room);
+            load.merge(after, 1, Integer::sum);
+            if (!before.equals(after)) {
+                moved++;
+                // rooms only ever move to the new node, never between existing ones
+                assertThat(after).isEqualTo("n4:7701");
+            }
+        }
+
+        // ~1/4 of the rooms move; allow generous slack for hashing variance
+        assertThat(moved).isBetween(1_500, 3_500);
+        assertThat(load.values()).allSatisfy(n -> assertThat(n).isBetween(1_500, 3_500));
+    }
+
+    @Test
+    void ownerIsStableForSameMembership() {
+        ConsistentHashRing a = new ConsistentHashRing(List.of("x", "y"), 64);
+        ConsistentHashRing b = new ConsistentHashRing(List.of("y", "x"), 64);
+        assertThat(a.ownerOf("room-42")).isEqualTo(b.ownerOf("room-42"));
+    }
+}
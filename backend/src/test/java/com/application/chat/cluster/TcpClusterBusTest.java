@@ -0,0 +1,84 @@
+package com.application.chat.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TcpClusterBusTest {
+
+    private TcpClusterBus nodeA;
+    private TcpClusterBus nodeB;
+
+    @AfterEach
+    void tearDown() {
+        if (nodeA != null) nodeA.stop();
+        if (nodeB != null) nodeB.stop();
+    }
+
+    @Test
+    void deliversOnlyToNodesWithInterest() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        String idA = "127.0.0.1:" + portA;
+        String idB = "127.0.0.1:" + portB;
+
+        nodeA = new TcpClusterBus(idA, "127.0.0.1", portA, List.of(idB), 16, 2, 1000, 50);
+        nodeB = new TcpClusterBus(idB, "127.0.0.1", portB, List.of(idA), 16, 2, 1000, 50);
+
+        BlockingQueue<ClusterMessage> receivedByB = new LinkedBlockingQueue<>();
+        nodeA.start(m -> {});
+        nodeB.start(receivedByB::add);
+
+        nodeB.addInterest("/topic/messages/room-1");
+        nodeB.addInterest(ClusterMessage.userInterestKey("bob"));
+        awaitRemoteInterest(nodeA, "/topic/messages/room-1");
+        awaitRemoteInterest(nodeA, "/user/bob");
+
+        nodeA.publish(message("/topic/messages/room-2", "not for B"));
+        nodeA.publish(message("/topic/messages/room-1", "hello"));
+        nodeA.publish(message("/user/bob/queue/private", "hi bob"));
+
+        ClusterMessage first = receivedByB.poll(5, TimeUnit.SECONDS);
+        ClusterMessage second = receivedByB.poll(5, TimeUnit.SECONDS);
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(new String(first.getPayload(), StandardCharsets.UTF_8)).isEqualTo("hello");
+        assertThat(first.getHeaders()).containsEntry("content-type", "application/json");
+        assertThat(second.getDestination()).isEqualTo("/user/bob/queue/private");
+        assertThat(receivedByB.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        nodeB.removeInterest("/topic/messages/room-1");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (nodeA.hasRemoteInterest("/topic/messages/room-1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(nodeA.hasRemoteInterest("/topic/messages/room-1")).isFalse();
+    }
+
+    private static ClusterMessage message(String destination, String body) {
+        return new ClusterMessage(ClusterMessage.interestKeyFor(destination), destination,
+                Map.of("content-type", "application/json"), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitRemoteInterest(ClusterBus bus, String key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!bus.hasRemoteInterest(key) && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertThat(bus.hasRemoteInterest(key)).as("interest in %s reached %s", key, bus.localNodeId()).isTrue();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.application.chat.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackpressureSessionDecoratorTest {
+
+    private static final List<String> REPLACEABLE = List.of("/user/queue/chats", "/topic/typing/");
+
+    private final ExecutorService writers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        writers.shutdownNow();
+    }
+
+    @Test
+    void stalledClientDoesNotDelayOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stalled = new StubSession("stalled", release);
+        StubSession healthy = new StubSession("healthy", null);
+
+        BackpressureSessionDecorator slow = decorate(stalled, SlowConsumerPolicy.DROP_OLDEST);
+        BackpressureSessionDecorator fast = decorate(healthy, SlowConsumerPolicy.DROP_OLDEST);
+
+        int messages = 1_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            TextMessage frame = frame("/topic/messages/room-1", "m" + i);
+            slow.sendMessage(frame);   // same caller thread as the healthy session, like the outbound channel
+            fast.sendMessage(frame);
+        }
+
+        assertThat(healthy.awaitReceived(messages, 5, TimeUnit.SECONDS)).isTrue();
+        long p99Micros = healthy.latencyPercentileMicros(start, 0.99);
+
+        // The healthy client got everything quickly even though the other socket never returned
+        assertThat(p99Micros).isLessThan(TimeUnit.SECONDS.toMicros(1));
+        // The stalled client is bounded instead of growing without limit
+        assertThat(slow.getQueuedMessages()).isLessThanOrEqualTo(50);
+        assertThat(slow.getDroppedCount()).isGreaterThan(0);
+        assertThat(slow.getLagMillis()).isGreaterThanOrEqualTo(0);
+
+        release.countDown();
+    }
+
+    @Test
+    void coalesceKeepsOnlyLatestFramePerDestination() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stalled = new StubSession("stalled", release);
+        BackpressureSessionDecorator session = decorate(stalled, SlowConsumerPolicy.COALESCE);
+
+        for (int i = 0; i < 200; i++) {
+            session.sendMessage(frame("/user/queue/chats", "snapshot-" + i));
+        }
+
+        // Coalescing kicks in past half of the 50-frame limit, so the queue never reaches it
+        assertThat(session.getQueuedMessages()).isLessThanOrEqualTo(25);
+        assertThat(session.getCoalescedCount()).isGreaterThan(0);
+        assertThat(session.getDroppedCount()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void coalesceNeverReplacesChatMessages() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stalled = new StubSession("stalled", release);
+        BackpressureSessionDecorator session = decorate(stalled, SlowConsumerPolicy.COALESCE);
+
+        for (int i = 0; i < 40; i++) {
+            session.sendMessage(frame("/topic/messages/room-1", "m" + i));
+        }
+
+        // One frame is held by the blocked writer, the rest wait; none was replaced
+        assertThat(session.getQueuedMessages()).isGreaterThanOrEqualTo(39);
+        assertThat(session.getCoalescedCount()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void stalledWriteClosesSessionAfterSendTimeLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stalled = new StubSession("stalled", release);
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(
+                stalled, writers, SlowConsumerPolicy.DROP_OLDEST, 50, 1 << 20, 50, REPLACEABLE);
+
+        session.sendMessage(frame("/topic/messages/room-1", "m0"));
+        Thread.sleep(200);
+        session.sendMessage(frame("/topic/messages/room-1", "m1"));
+
+        assertThat(stalled.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalled.closeStatus).isEqualTo(BackpressureSessionDecorator.RESYNC_REQUIRED);
+        release.countDown();
+    }
+
+    @Test
+    void periodicCheckClosesAStalledSessionThatGetsNoMoreFrames() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stalled = new StubSession("stalled", release);
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(
+                stalled, writers, SlowConsumerPolicy.DROP_OLDEST, 50, 1 << 20, 50, REPLACEABLE);
+
+        session.sendMessage(frame("/topic/messages/room-1", "m0"));
+        session.checkStalled(); // within the limit: left alone
+        assertThat(stalled.isOpen()).isTrue();
+
+        Thread.sleep(200);
+        session.checkStalled();
+
+        assertThat(stalled.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalled.closeStatus).isEqualTo(BackpressureSessionDecorator.RESYNC_REQUIRED);
+        release.countDown();
+    }
+
+    @Test
+    void disconnectPolicyClosesWithResyncHint() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stalled = new StubSession("stalled", release);
+        BackpressureSessionDecorator session = decorate(stalled, SlowConsumerPolicy.DISCONNECT);
+
+        for (int i = 0; i < 200; i++) {
+            session.sendMessage(frame("/topic/messages/room-1", "m" + i));
+        }
+        release.countDown();
+
+        assertThat(stalled.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalled.closeStatus).isEqualTo(BackpressureSessionDecorator.RESYNC_REQUIRED);
+    }
+
+    private BackpressureSessionDecorator decorate(WebSocketSession session, SlowConsumerPolicy policy) {
+        return new BackpressureSessionDecorator(session, writers, policy, 50, 1 << 20, 10_000, REPLACEABLE);
+    }
+
+    private static TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n\n" + body + "\u0000");
+    }
+
+    /** Minimal session; blocks every send on {@code gate} when one is given. */
+    private static final class StubSession implements WebSocketSession {
+
+        private final String id;
+        private final CountDownLatch gate;
+        private final List<Long> receivedNanos = Collections.synchronizedList(new ArrayList<>());
+        private final Semaphore received = new Semaphore(0);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile CloseStatus closeStatus;
+        private volatile boolean open = true;
+
+        StubSession(String id, CountDownLatch gate) {
+            this.id = id;
+            this.gate = gate;
+        }
+
+        boolean awaitReceived(int count, long timeout, TimeUnit unit) throws InterruptedException {
+            return received.tryAcquire(count, timeout, unit);
+        }
+
+        long latencyPercentileMicros(long startNanos, double percentile) {
+            List<Long> sorted;
+            synchronized (receivedNanos) { sorted = new ArrayList<>(receivedNanos); }
+            Collections.sort(sorted);
+            long at = sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1));
+            return (at - startNanos) / 1_000;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            receivedNanos.add(System.nanoTime());
+            received.release();
+        }
+
+        @Override public String getId() { return id; }
+        @Override public URI getUri() { return null; }
+        @Override public HttpHeaders getHandshakeHeaders() { return new HttpHeaders(); }
+        @Override public Map<String, Object> getAttributes() { return new HashMap<>(); }
+        @Override public Principal getPrincipal() { return null; }
+        @Override public InetSocketAddress getLocalAddress() { return null; }
+        @Override public InetSocketAddress getRemoteAddress() { return null; }
+        @Override public String getAcceptedProtocol() { return "v12.stomp"; }
+        @Override public void setTextMessageSizeLimit(int messageSizeLimit) {}
+        @Override public int getTextMessageSizeLimit() { return 65536; }
+        @Override public void setBinaryMessageSizeLimit(int messageSizeLimit) {}
+        @Override public int getBinaryMessageSizeLimit() { return 65536; }
+        @Override public List<WebSocketExtension> getExtensions() { return List.of(); }
+        @Override public boolean isOpen() { return open; }
+        @Override public void close() { close(CloseStatus.NORMAL); }
+
+        @Override
+        public void close(CloseStatus status) {
+            open = false;
+            closeStatus = status;
+            closed.countDown();
+        }
+    }
+}
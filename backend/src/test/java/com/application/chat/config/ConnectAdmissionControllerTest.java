@@ -0,0 +1,48 @@
+package com.application.chat.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectAdmissionControllerTest {
+
+    private final ConnectAdmissionController admission =
+            new ConnectAdmissionController(2, 200, 1, 5, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        admission.destroy();
+    }
+
+    @Test
+    void admitsUpToTheLimitAndReleasesEachPermitOnce() {
+        Map<String, Object> first = new HashMap<>();
+        Map<String, Object> second = new HashMap<>();
+
+        assertThat(admission.tryAdmit(first)).isTrue();
+        assertThat(admission.tryAdmit(second)).isTrue();
+        assertThat(admission.tryAdmit(new HashMap<>())).isFalse();
+
+        admission.release(first);
+        admission.release(first); // CONNECT, then the disconnect event
+        assertThat(admission.inflight()).isEqualTo(1);
+        assertThat(admission.tryAdmit(new HashMap<>())).isTrue();
+
+        for (int i = 0; i < 100; i++) assertThat(admission.retryAfterSeconds()).isBetween(1, 5);
+    }
+
+    @Test
+    void permitOfAClientThatNeverConnectsExpires() throws InterruptedException {
+        assertThat(admission.tryAdmit(new HashMap<>())).isTrue();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (admission.inflight() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+
+        assertThat(admission.inflight()).isZero();
+    }
+}
@@ -0,0 +1,43 @@
+package com.application.chat.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void shrinksWhenLatencyRisesAndRecoversWhenItFalls() {
+        GradientLimiter limiter = new GradientLimiter(50, 4, 200, 0.2);
+        for (int i = 0; i < 200; i++) limiter.onSample(10 * MS, 50);
+        int steady = limiter.getLimit();
+
+        for (int i = 0; i < 50; i++) limiter.onSample(100 * MS, 50);
+        int congested = limiter.getLimit();
+        assertThat(congested).isLessThan(steady);
+
+        for (int i = 0; i < 200; i++) limiter.onSample(10 * MS, congested);
+        assertThat(limiter.getLimit()).isGreaterThan(congested);
+    }
+
+    @Test
+    void rejectsBeyondTheLimit() {
+        GradientLimiter limiter = new GradientLimiter(2, 1, 10, 0.2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(MS);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void neverLeavesConfiguredBounds() {
+        GradientLimiter limiter = new GradientLimiter(10, 4, 12, 0.5);
+        for (int i = 0; i < 500; i++) limiter.onSample(i % 2 == 0 ? MS : 500 * MS, 12);
+        assertThat(limiter.getLimit()).isBetween(4, 12);
+    }
+}
@@ -0,0 +1,66 @@
+package com.application.chat.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboundFrameCoalescerTest {
+
+    private final BlockingQueue<String> sentOn = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+    private final ExecutorService outbound = Executors.newSingleThreadExecutor(r -> new Thread(r, "outbound"));
+
+    private final OutboundFrameCoalescer coalescer = new OutboundFrameCoalescer(
+            List.of("/topic/messages/"), 50, 5,
+            (message, timeout) -> {
+                sentOn.add(Thread.currentThread().getName());
+                return sent.add(message);
+            },
+            outbound);
+
+    @AfterEach
+    void tearDown() {
+        coalescer.destroy();
+        outbound.shutdownNow();
+    }
+
+    @Test
+    void dueBatchIsMergedAndSentOnTheOutboundExecutor() throws Exception {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId("s1");
+        connect.setNativeHeader(OutboundFrameCoalescer.BATCH_HEADER, "true");
+        coalescer.inboundInterceptor().preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), null);
+
+        assertThat(coalescer.preSend(frame("{\"n\":1}"), null)).isNull();
+        assertThat(coalescer.preSend(frame("{\"n\":2}"), null)).isNull();
+
+        Message<?> batch = sent.poll(5, TimeUnit.SECONDS);
+        assertThat(batch).isNotNull();
+        assertThat(new String((byte[]) batch.getPayload(), StandardCharsets.UTF_8)).isEqualTo("[{\"n\":1},{\"n\":2}]");
+        assertThat(SimpMessageHeaderAccessor.wrap(batch).getFirstNativeHeader(OutboundFrameCoalescer.BATCH_HEADER)).isEqualTo("2");
+        assertThat(sentOn.poll()).isEqualTo("outbound");
+    }
+
+    private static Message<byte[]> frame(String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/messages/r1");
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,114 @@
+package com.application.chat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StompCodecNegotiatorTest {
+
+    private final StompCodecNegotiator negotiator =
+            new StompCodecNegotiator(new ObjectMapper(), List.of("/topic/messages/"));
+
+    @Test
+    void nativeSessionNegotiatesABinaryCodec() {
+        connect("s1", "application/cbor", true);
+        connect("s2", "text/plain, application/x-jackson-smile", true);
+        connect("s3", null, true);
+
+        assertThat(negotiator.codecFor("s1")).isEqualTo(StompCodec.CBOR);
+        assertThat(negotiator.codecFor("s2")).isEqualTo(StompCodec.SMILE);
+        assertThat(negotiator.codecFor("s3")).isEqualTo(StompCodec.JSON);
+    }
+
+    @Test
+    void sockJsSessionKeepsJson() {
+        connect("s1", "application/cbor", false);
+
+        assertThat(negotiator.codecFor("s1")).isEqualTo(StompCodec.JSON);
+    }
+
+    @Test
+    void convertedObjectIsEncodedOnceAndDecodesToTheSamePayload() throws Exception {
+        connect("s1", "application/cbor", true);
+        connect("s2", "application/cbor", true);
+        Map<String, Object> payload = Map.of("content", "hello", "sequence", 7);
+
+        Message<?> converted = negotiator.brokerConverter().toMessage(payload, broadcastHeaders());
+        Message<?> first = negotiator.preSend(forSession(converted, "s1"), null);
+        Message<?> second = negotiator.preSend(forSession(converted, "s2"), null);
+
+        assertThat(first.getHeaders().get(SimpMessageHeaderAccessor.NATIVE_HEADERS).toString()).contains("application/cbor");
+        assertThat(first.getPayload()).isSameAs(second.getPayload());
+        assertThat(StompCodec.CBOR.getMapper().readValue((byte[]) first.getPayload(), Map.class)).isEqualTo(payload);
+    }
+
+    @Test
+    void relayedJsonIsStreamedIntoTheCodec() throws Exception {
+        connect("s1", "application/x-jackson-smile", true);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/topic/messages/r1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        byte[] json = "{\"content\":\"hi\",\"tags\":[1,2]}".getBytes(StandardCharsets.UTF_8);
+
+        Message<?> relayed = negotiator.brokerInterceptor()
+                .preSend(MessageBuilder.createMessage(json, accessor.getMessageHeaders()), null);
+        Message<?> out = negotiator.preSend(forSession(relayed, "s1"), null);
+
+        assertThat(StompCodec.SMILE.getMapper().readTree((byte[]) out.getPayload()))
+                .isEqualTo(new ObjectMapper().readTree(json));
+    }
+
+    @Test
+    void otherDestinationsAndJsonSessionsAreUntouched() {
+        connect("s1", "application/cbor", true);
+        Message<?> converted = negotiator.brokerConverter().toMessage(Map.of("a", 1), broadcastHeaders());
+
+        Message<?> json = forSession(converted, "s2");
+        assertThat(negotiator.preSend(json, null)).isSameAs(json);
+
+        SimpMessageHeaderAccessor typing = SimpMessageHeaderAccessor.wrap(forSession(converted, "s1"));
+        typing.setDestination("/topic/typing/r1");
+        Message<?> other = MessageBuilder.createMessage(converted.getPayload(), typing.getMessageHeaders());
+        assertThat(negotiator.preSend(other, null)).isSameAs(other);
+    }
+
+    private void connect(String sessionId, String contentType, boolean nativeTransport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeTransport) attributes.put(WebSocketConfig.TRANSPORT_ATTRIBUTE, WebSocketConfig.NATIVE_TRANSPORT);
+        accessor.setSessionAttributes(attributes);
+        if (contentType != null) accessor.setNativeHeader("content-type", contentType);
+        negotiator.inboundInterceptor().preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private static MessageHeaders broadcastHeaders() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/topic/messages/r1");
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    /** What the broker sends one subscriber: the same payload and headers, plus its session. */
+    private static Message<?> forSession(Message<?> message, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.copyHeadersIfAbsent(message.getHeaders());
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
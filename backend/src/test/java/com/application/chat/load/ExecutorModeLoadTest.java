@@ -0,0 +1,97 @@
+package com.application.chat.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the default platform pool of {@code clientInboundChannel} with virtual-thread mode
+ * under a handler that blocks like ours do (Mongo round trip, occasional SMTP call).
+ *
+ * Not part of the regular build; run with {@code ./gradlew loadTest}. Tunables:
+ * -Dload.frames, -Dload.mongoMs, -Dload.smtpMs, -Dload.smtpEvery.
+ */
+@Tag("load")
+class ExecutorModeLoadTest {
+
+    private static final int FRAMES = Integer.getInteger("load.frames", 20_000);
+    private static final int MONGO_MS = Integer.getInteger("load.mongoMs", 5);
+    private static final int SMTP_MS = Integer.getInteger("load.smtpMs", 200);
+    private static final int SMTP_EVERY = Integer.getInteger("load.smtpEvery", 500);
+
+    @Test
+    void compareThroughputAndP99() throws Exception {
+        ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+        // Same sizing Spring applies to clientInboundChannel when nothing is configured
+        platform.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        platform.setMaxPoolSize(Integer.MAX_VALUE);
+        platform.setQueueCapacity(Integer.MAX_VALUE);
+        platform.setThreadNamePrefix("load-platform-");
+        platform.initialize();
+
+        try {
+            run("warmup", platform, FRAMES / 10);
+            Result p = run("platform", platform, FRAMES);
+            Result v = run("virtual", new VirtualThreadTaskExecutor("load-virtual-"), FRAMES);
+
+            System.out.printf("%n%-10s %12s %10s %10s%n", "mode", "frames/s", "p50 ms", "p99 ms");
+            for (Result r : new Result[]{p, v}) {
+                System.out.printf("%-10s %12.0f %10.2f %10.2f%n", r.mode, r.throughput, r.p50Ms, r.p99Ms);
+            }
+            assertThat(p.completed).isTrue();
+            assertThat(v.completed).isTrue();
+        } finally {
+            platform.shutdown();
+        }
+    }
+
+    private Result run(String mode, Executor executor, int frames) throws InterruptedException {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        long[] latencies = new long[frames];
+        CountDownLatch done = new CountDownLatch(frames);
+
+        channel.subscribe(message -> {
+            int i = (Integer) message.getPayload();
+            long sentAt = (Long) message.getHeaders().get("sentAt");
+            simulateBlockingHandler(i);
+            latencies[i] = System.nanoTime() - sentAt;
+            done.countDown();
+        });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            channel.send(MessageBuilder.withPayload(i).setHeader("sentAt", System.nanoTime()).build());
+        }
+        boolean completed = done.await(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(mode, completed,
+                frames / (elapsed / 1e9),
+                latencies[(int) (frames * 0.50)] / 1e6,
+                latencies[(int) Math.min(frames - 1, frames * 0.99)] / 1e6);
+    }
+
+    private static void simulateBlockingHandler(int i) {
+        try {
+            // normalizeUsername + save round trips
+            Thread.sleep(MONGO_MS + ThreadLocalRandom.current().nextInt(Math.max(1, MONGO_MS)));
+            if (SMTP_EVERY > 0 && i % SMTP_EVERY == 0) Thread.sleep(SMTP_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(String mode, boolean completed, double throughput, double p50Ms, double p99Ms) {}
+}
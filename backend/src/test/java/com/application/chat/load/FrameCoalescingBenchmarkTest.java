@@ -0,0 +1,137 @@
+package com.application.chat.load;
+
+import com.application.chat.config.OutboundFrameCoalescer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Frames, bytes and process CPU for a bursty room, one frame per message versus
+ * {@link OutboundFrameCoalescer} batching. Frames are STOMP-encoded as they would be
+ * before hitting the socket.
+ *
+ * Run with {@code ./gradlew loadTest}; -Dload.messages, -Dload.burst, -Dload.burstGapMicros
+ * and -Dload.maxDelayMs tune it.
+ */
+@Tag("load")
+class FrameCoalescingBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("load.messages", 200_000);
+    private static final int BURST = Integer.getInteger("load.burst", 40);
+    private static final int BURST_GAP_MICROS = Integer.getInteger("load.burstGapMicros", 500);
+    private static final int MAX_DELAY_MS = Integer.getInteger("load.maxDelayMs", 5);
+
+    private static final String SESSION = "s-1";
+    private static final String DESTINATION = "/topic/messages/6650c1f2e4b0a1b2c3d4e5f6";
+
+    private final StompEncoder encoder = new StompEncoder();
+
+    @Test
+    void compareDirectAndCoalescedFrames() throws Exception {
+        Result direct = run(false);
+        Result coalesced = run(true);
+
+        System.out.printf("%n%-10s %10s %12s %12s %12s %10s%n",
+                "mode", "messages", "frames", "frames/s", "MB", "cpu ms");
+        direct.print("direct");
+        coalesced.print("coalesced");
+
+        assertThat(coalesced.messages.get()).isEqualTo(MESSAGES);
+        assertThat(coalesced.frames.get()).isLessThan(direct.frames.get());
+    }
+
+    private Result run(boolean coalesce) throws Exception {
+        Result result = new Result();
+        MessageChannel socket = (message, timeout) -> {
+            byte[] frame = encoder.encode(toStomp(message));
+            String batch = StompHeaderAccessor.wrap(message).getFirstNativeHeader(OutboundFrameCoalescer.BATCH_HEADER);
+            result.frames.incrementAndGet();
+            result.bytes.addAndGet(frame.length);
+            result.messages.addAndGet(batch == null ? 1 : Integer.parseInt(batch));
+            return true;
+        };
+
+        OutboundFrameCoalescer coalescer = new OutboundFrameCoalescer(
+                List.of("/topic/messages/"), 50, MAX_DELAY_MS, socket);
+        if (coalesce) coalescer.inboundInterceptor().preSend(connect(), null);
+
+        byte[] payload = ("{\"roomId\":\"6650c1f2e4b0a1b2c3d4e5f6\",\"senderUsername\":\"alice\","
+                + "\"content\":\"" + "x".repeat(80) + "\",\"timestamp\":\"2026-01-01T00:00:00Z\"}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        long cpuStart = processCpuNanos();
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            Message<?> message = outbound(payload, i);
+            Message<?> passed = coalescer.preSend(message, socket);
+            if (passed != null) socket.send(passed);
+            if ((i + 1) % BURST == 0) LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(BURST_GAP_MICROS));
+        }
+        // let the last batch age out
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (result.messages.get() < MESSAGES && System.nanoTime() < deadline) Thread.sleep(1);
+        result.wallNanos = System.nanoTime() - wallStart;
+        result.cpuNanos = processCpuNanos() - cpuStart;
+
+        coalescer.destroy();
+        return result;
+    }
+
+    private static Message<byte[]> connect() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(SESSION);
+        accessor.setNativeHeader(OutboundFrameCoalescer.BATCH_HEADER, "true");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> outbound(byte[] payload, int id) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(SESSION);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(DESTINATION);
+        accessor.setMessageId("m-" + id);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /** Same conversion StompSubProtocolHandler does before encoding. */
+    @SuppressWarnings("unchecked")
+    private static Message<byte[]> toStomp(Message<?> message) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        accessor.updateStompCommandAsServerMessage();
+        return MessageBuilder.createMessage((byte[]) message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static final class Result {
+        final AtomicLong frames = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong messages = new AtomicLong();
+        long wallNanos;
+        long cpuNanos;
+
+        void print(String mode) {
+            double seconds = wallNanos / 1e9;
+            System.out.printf("%-10s %10d %12d %12.0f %12.2f %10d%n", mode, messages.get(), frames.get(),
+                    frames.get() / seconds, bytes.get() / 1e6, TimeUnit.NANOSECONDS.toMillis(cpuNanos));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.application.chat.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Side-by-side load on the servlet app (bootRun, :8080) and the reactive variant
+ * (bootRunReactive, :8081), both pointed at the same database.
+ *
+ * For each stack and concurrency level it drives history, room-listing and REST send
+ * requests and reports throughput, p50/p99 and the server's live thread count from
+ * /actuator/metrics/jvm.threads.live. Skipped unless a token is given:
+ *
+ * {@code ./gradlew loadTest --tests '*StackComparisonLoadTest' -Dload.token=... -Dload.roomId=... -Dload.username=...}
+ * Optional: -Dload.servletUrl, -Dload.reactiveUrl, -Dload.concurrency (e.g. 50,200,1000),
+ * -Dload.requests, -Dload.sendEvery.
+ */
+@Tag("load")
+class StackComparisonLoadTest {
+
+    private static final String TOKEN = System.getProperty("load.token");
+    private static final String ROOM_ID = System.getProperty("load.roomId");
+    private static final String USERNAME = System.getProperty("load.username");
+    private static final String SERVLET_URL = System.getProperty("load.servletUrl", "http://localhost:8080");
+    private static final String REACTIVE_URL = System.getProperty("load.reactiveUrl", "http://localhost:8081");
+    private static final String CONCURRENCY = System.getProperty("load.concurrency", "50,200,1000");
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+    private static final int SEND_EVERY = Integer.getInteger("load.sendEvery", 20);
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.]+)");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @Test
+    void compareServletAndReactive() throws Exception {
+        assumeTrue(TOKEN != null && ROOM_ID != null && USERNAME != null,
+                "needs -Dload.token, -Dload.roomId and -Dload.username and both servers running");
+
+        System.out.printf("%n%-9s %6s %10s %9s %9s %8s %8s%n",
+                "stack", "conc", "req/s", "p50 ms", "p99 ms", "errors", "threads");
+        for (String level : CONCURRENCY.split(",")) {
+            int concurrency = Integer.parseInt(level.trim());
+            for (String[] stack : new String[][]{{"servlet", SERVLET_URL}, {"reactive", REACTIVE_URL}}) {
+                Result r = run(stack[1], concurrency);
+                System.out.printf("%-9s %6d %10.0f %9.2f %9.2f %8d %8s%n", stack[0], concurrency,
+                        r.throughput, r.p50Ms, r.p99Ms, r.errors, r.threads < 0 ? "n/a" : String.valueOf(r.threads));
+                assertThat(r.completed).isTrue();
+            }
+        }
+    }
+
+    private Result run(String baseUrl, int concurrency) throws Exception {
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inflight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        List<Long> threadSamples = new CopyOnWriteArrayList<>();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            long threads = liveThreads(baseUrl);
+            if (threads >= 0) threadSamples.add(threads);
+        }, 0, 500, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int n = 0; n < REQUESTS; n++) {
+                inflight.acquire();
+                callers.execute(() -> {
+                    int i = next.getAndIncrement();
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request(baseUrl, i), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[i] = System.nanoTime() - t0;
+                        inflight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            boolean completed = done.await(10, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+            sampler.shutdownNow();
+
+            Arrays.sort(latencies);
+            long maxThreads = threadSamples.stream().mapToLong(Long::longValue).max().orElse(-1);
+            return new Result(completed, REQUESTS / (elapsed / 1e9),
+                    latencies[REQUESTS / 2] / 1e6, latencies[(int) (REQUESTS * 0.99)] / 1e6,
+                    errors.get(), maxThreads);
+        }
+    }
+
+    /** Mix: mostly history, some room listings, every SEND_EVERY-th request a REST send. */
+    private HttpRequest request(String baseUrl, int i) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + TOKEN);
+        if (SEND_EVERY > 0 && i % SEND_EVERY == 0) {
+            String body = "{\"roomId\":\"" + ROOM_ID + "\",\"content\":\"load " + i + "\"}";
+            return builder.uri(URI.create(baseUrl + "/chats/messages/send"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        String path = i % 3 == 0 ? "/chats/rooms/" + USERNAME : "/chats/" + ROOM_ID + "/messages";
+        return builder.uri(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private long liveThreads(String baseUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/jvm.threads.live"))
+                    .header("Authorization", "Bearer " + TOKEN)
+                    .timeout(Duration.ofSeconds(2))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            Matcher m = METRIC_VALUE.matcher(response.body());
+            return response.statusCode() == 200 && m.find() ? (long) Double.parseDouble(m.group(1)) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private record Result(boolean completed, double throughput, double p50Ms, double p99Ms, int errors, long threads) {}
+}
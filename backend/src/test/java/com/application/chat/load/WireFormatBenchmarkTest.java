@@ -0,0 +1,95 @@
+package com.application.chat.load;
+
+import com.application.chat.models.ChatMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.sockjs.frame.Jackson2SockJsMessageCodec;
+import org.springframework.web.socket.sockjs.frame.SockJsFrame;
+import org.springframework.web.socket.sockjs.frame.SockJsMessageCodec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes on the wire and encode CPU per message for one /topic/messages/{roomId} frame,
+ * SockJS endpoint (/ws) versus raw WebSocket endpoint (/ws-native).
+ *
+ * Run with {@code ./gradlew loadTest}; -Dload.iterations and -Dload.contentLength tune it.
+ */
+@Tag("load")
+class WireFormatBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 200_000);
+    private static final int CONTENT_LENGTH = Integer.getInteger("load.contentLength", 120);
+
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final SockJsMessageCodec sockJsCodec = new Jackson2SockJsMessageCodec();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void compareSockJsAndNativeFrames() throws Exception {
+        Message<byte[]> message = sampleMessage();
+
+        byte[] nativeFrame = encodeNative(message);
+        byte[] sockJsFrame = encodeSockJs(message);
+
+        // warm up both paths before measuring
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            encodeNative(message);
+            encodeSockJs(message);
+        }
+        double nativeNs = cpuNanosPerMessage(() -> encodeNative(message));
+        double sockJsNs = cpuNanosPerMessage(() -> encodeSockJs(message));
+
+        System.out.printf("%n%-12s %10s %14s%n", "endpoint", "bytes", "cpu ns/msg");
+        System.out.printf("%-12s %10d %14.0f%n", "/ws-native", nativeFrame.length, nativeNs);
+        System.out.printf("%-12s %10d %14.0f%n", "/ws (SockJS)", sockJsFrame.length, sockJsNs);
+
+        assertThat(nativeFrame.length).isLessThan(sockJsFrame.length);
+    }
+
+    private Message<byte[]> sampleMessage() throws Exception {
+        ChatMessage chat = new ChatMessage("6650c1f2e4b0a1b2c3d4e5f6", "alice", "bob",
+                "x".repeat(CONTENT_LENGTH) + " \"quoted\" \n newline", Instant.now());
+        byte[] payload = objectMapper.writeValueAsBytes(chat);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination("/topic/messages/6650c1f2e4b0a1b2c3d4e5f6");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setMessageId("kd0qvx2m-42");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private byte[] encodeNative(Message<byte[]> message) {
+        return stompEncoder.encode(message);
+    }
+
+    private byte[] encodeSockJs(Message<byte[]> message) {
+        String stompFrame = new String(stompEncoder.encode(message), StandardCharsets.UTF_8);
+        return SockJsFrame.messageFrame(sockJsCodec, stompFrame).getContentBytes();
+    }
+
+    private static double cpuNanosPerMessage(Runnable encode) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) encode.run();
+        return (threads.getCurrentThreadCpuTime() - start) / (double) ITERATIONS;
+    }
+}
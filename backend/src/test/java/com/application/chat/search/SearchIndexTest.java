@@ -0,0 +1,93 @@
+package com.application.chat.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private static List<String> ids(SearchIndex.Page page) {
+        return page.hits().stream().map(SearchIndex.Hit::messageId).toList();
+    }
+
+    @Test
+    void matchesAllTermsWithinScopeBestFirst() {
+        SearchIndex index = new SearchIndex();
+        index.add("m1", "r1", T0, "Deploy the release tonight");
+        index.add("m2", "r1", T0.plusSeconds(1), "release notes: release RELEASE");
+        index.add("m3", "r1", T0.plusSeconds(2), "lunch?");
+        index.add("m4", "r2", T0.plusSeconds(3), "release notes for the other team");
+        index.add("m5", "r1", T0.plusSeconds(4), "Café opens at nine");
+
+        assertThat(ids(index.search("release", Set.of("r1"), 0, 10))).containsExactly("m2", "m1");
+        assertThat(ids(index.search("notes release", Set.of("r1", "r2"), 0, 10))).containsExactly("m2", "m4");
+        assertThat(ids(index.search("CAFÉ", Set.of("r1"), 0, 10))).containsExactly("m5");
+        assertThat(index.search("release lunch", Set.of("r1"), 0, 10).total()).isZero();
+        assertThat(index.search("release", Set.of("r3"), 0, 10).total()).isZero();
+
+        SearchIndex.Page second = index.search("release", Set.of("r1", "r2"), 1, 1);
+        assertThat(second.total()).isEqualTo(3);
+        assertThat(second.hits()).hasSize(1);
+
+        index.remove("m2");
+        assertThat(ids(index.search("release", Set.of("r1"), 0, 10))).containsExactly("m1");
+        assertThat(index.add("m1", "r1", T0, "duplicate")).isFalse();
+    }
+
+    @Test
+    void snapshotRoundTripKeepsPostingsAndAcceptsNewDocs() throws Exception {
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.add("m" + i, "r" + (i % 7), T0.plusNanos(i), "word" + (i % 50) + " common");
+        }
+        index.remove("m49");
+        Path file = dir.resolve("index.bin");
+        index.save(file);
+
+        SearchIndex loaded = SearchIndex.load(file);
+        Set<String> allRooms = Set.of("r0", "r1", "r2", "r3", "r4", "r5", "r6");
+
+        assertThat(loaded.size()).isEqualTo(2999);
+        assertThat(loaded.search("word49 common", allRooms, 0, 100).total()).isEqualTo(59);
+        assertThat(loaded.search("word7", Set.of("r0"), 0, 100).hits())
+                .allSatisfy(hit -> assertThat(hit.roomId()).isEqualTo("r0"));
+        assertThat(loaded.search("word7", allRooms, 0, 1).hits().get(0).timestamp())
+                .isEqualTo(T0.plusNanos(2957));
+
+        assertThat(loaded.add("fresh", "r0", T0, "word7 afterwards")).isTrue();
+        assertThat(loaded.search("afterwards", allRooms, 0, 10).hits())
+                .extracting(SearchIndex.Hit::messageId).containsExactly("fresh");
+    }
+
+    @Test
+    void compactionDropsDeletedDocsAndKeepsTheRest() {
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < 100; i++) index.add("m" + i, "r1", T0.plusNanos(i), "word" + (i % 10) + " common");
+        assertThat(index.compact(0.1)).isZero();
+
+        index.remove(List.of("m0", "m1", "m2", "m3", "m4"));
+        assertThat(index.compact(0.1)).isZero(); // 5% deleted: not worth it yet
+        for (int i = 10; i < 20; i++) index.remove("m" + i);
+        assertThat(index.compact(0.1)).isEqualTo(15);
+
+        assertThat(index.size()).isEqualTo(85);
+        assertThat(index.contains("m0")).isFalse();
+        assertThat(index.search("word3 common", Set.of("r1"), 0, 100).hits())
+                .extracting(SearchIndex.Hit::messageId).containsExactlyInAnyOrder(
+                        "m23", "m33", "m43", "m53", "m63", "m73", "m83", "m93");
+        // a compacted-out message can be indexed again, after the renumbered ones
+        assertThat(index.add("m0", "r1", T0, "word3")).isTrue();
+        assertThat(index.search("word3", Set.of("r1"), 0, 100).total()).isEqualTo(9);
+    }
+}
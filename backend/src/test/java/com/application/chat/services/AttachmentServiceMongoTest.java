@@ -0,0 +1,134 @@
+package com.application.chat.services;
+
+import com.application.chat.models.Attachment;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.repositories.AttachmentRepository;
+import com.application.chat.repositories.ChatRoomRepository;
+import com.application.chat.storage.mongo.MongoRoomStore;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against a throwaway database on a local (or containerised) Mongo:
+ * {@code CHAT_TEST_MONGO_URI=mongodb://localhost:27017 ./gradlew test}.
+ */
+@EnabledIfEnvironmentVariable(named = "CHAT_TEST_MONGO_URI", matches = ".+")
+class AttachmentServiceMongoTest {
+
+    private static final int CHUNK = 1000;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private AttachmentService service;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getenv("CHAT_TEST_MONGO_URI"));
+        SimpleMongoClientDatabaseFactory factory =
+                new SimpleMongoClientDatabaseFactory(client, "chat_attachment_test_" + System.nanoTime());
+        mongoTemplate = new MongoTemplate(factory);
+        GridFsTemplate gridFsTemplate = new GridFsTemplate(factory, mongoTemplate.getConverter());
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+
+        MongoRoomStore rooms = new MongoRoomStore(repositories.getRepository(ChatRoomRepository.class), mongoTemplate);
+        ChatRoom room = new ChatRoom("room", false, true, "alice", List.of("alice", "bob"));
+        room.setId("room-1");
+        rooms.save(room);
+
+        service = new AttachmentService(gridFsTemplate, mongoTemplate,
+                repositories.getRepository(AttachmentRepository.class), rooms,
+                10_000, CHUNK, 24, List.of("image/png"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void resumableUploadAndRangedDownload() throws Exception {
+        byte[] file = new byte[2500];
+        new Random(7).nextBytes(file);
+
+        Attachment attachment = service.create("alice", "room-1", "photo.png", "image/png", file.length);
+        assertThat(attachment.getChunkCount()).isEqualTo(3);
+
+        // out of order, then "resume" with the one that is missing
+        service.storeChunk(attachment.getId(), "alice", 2, slice(file, 2));
+        attachment = service.storeChunk(attachment.getId(), "alice", 0, slice(file, 0));
+        assertThat(attachment.missingChunks()).containsExactly(1);
+        assertThatThrownBy(() -> service.complete(attachment.getId(), "alice")).hasMessageContaining("Missing");
+
+        service.storeChunk(attachment.getId(), "alice", 1, slice(file, 1));
+        Attachment complete = service.complete(attachment.getId(), "alice");
+        assertThat(complete.getStatus()).isEqualTo(Attachment.Status.COMPLETE);
+
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        service.copyRange(complete, 900, 2100, range);
+        assertThat(range.toByteArray()).isEqualTo(Arrays.copyOfRange(file, 900, 2101));
+
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        service.copyRange(complete, 0, file.length - 1, whole);
+        assertThat(whole.toByteArray()).isEqualTo(file);
+    }
+
+    @Test
+    void deleteAllRemovesTheRecordAndItsChunks() {
+        Attachment attachment = service.create("alice", "room-1", "a.bin", null, 1500);
+        service.storeChunk(attachment.getId(), "alice", 0, new ByteArrayInputStream(new byte[CHUNK]));
+        service.storeChunk(attachment.getId(), "alice", 1, new ByteArrayInputStream(new byte[500]));
+        service.complete(attachment.getId(), "alice");
+
+        service.deleteAll(List.of(attachment.getId(), "unknown"));
+
+        assertThat(mongoTemplate.getCollection("fs.files").countDocuments()).isZero();
+        assertThatThrownBy(() -> service.getOwnedOrReadable(attachment.getId(), "alice"))
+                .hasMessageContaining("not found");
+    }
+
+    @Test
+    void rejectsOversizedUploadsAndChunks() {
+        assertThatThrownBy(() -> service.create("alice", null, "big.bin", null, 10_001))
+                .hasMessageContaining("limit");
+
+        Attachment attachment = service.create("alice", null, "a.bin", null, 1500);
+        assertThatThrownBy(() -> service.storeChunk(attachment.getId(), "alice", 0,
+                new ByteArrayInputStream(new byte[CHUNK + 1])))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(service.getOwnedOrReadable(attachment.getId(), "alice").missingChunks()).containsExactly(0, 1);
+    }
+
+    @Test
+    void rejectsMalformedTypesAndForeignRooms() {
+        assertThatThrownBy(() -> service.create("alice", null, "a.bin", "not a type", 10))
+                .hasMessageContaining("Invalid content type");
+        assertThatThrownBy(() -> service.create("mallory", "room-1", "a.png", "image/png", 10))
+                .hasMessageContaining("Not a member");
+
+        assertThat(service.isInline(service.create("bob", "room-1", "a.png", "image/png", 10))).isTrue();
+        assertThat(service.isInline(service.create("bob", "room-1", "a.html", "text/html", 10))).isFalse();
+    }
+
+    private static ByteArrayInputStream slice(byte[] file, int index) {
+        int from = index * CHUNK;
+        return new ByteArrayInputStream(Arrays.copyOfRange(file, from, Math.min(file.length, from + CHUNK)));
+    }
+}
@@ -0,0 +1,111 @@
+package com.application.chat.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatListPushCoalescerTest {
+
+    private final BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+    private final AtomicInteger version = new AtomicInteger();
+    // ticker effectively off: the test drives flushDue itself
+    private final ChatListPushCoalescer coalescer = new ChatListPushCoalescer(
+            new SimpMessagingTemplate((message, timeout) -> sent.add(message)), 100, 3_600_000, 2, false,
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        coalescer.destroy();
+    }
+
+    private static String destination(Message<?> message) {
+        return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+
+    private List<Message<?>> awaitSent(int count) throws InterruptedException {
+        List<Message<?>> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message<?> message = sent.poll(5, TimeUnit.SECONDS);
+            assertThat(message).as("push %d of %d", i + 1, count).isNotNull();
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    void burstOfChangesBecomesOnePushOfTheLatestState() throws Exception {
+        coalescer.setPayload(username -> username + "@v" + version.get());
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 20; i++) {
+            version.incrementAndGet();
+            coalescer.request("alice");
+            coalescer.request("bob");
+        }
+
+        coalescer.flushDue(start);
+        assertThat(sent.poll(50, TimeUnit.MILLISECONDS)).isNull();
+
+        coalescer.flushDue(start + TimeUnit.MILLISECONDS.toNanos(200));
+        List<Message<?>> pushes = awaitSent(2);
+        assertThat(pushes).extracting(ChatListPushCoalescerTest::destination)
+                .containsExactlyInAnyOrder("/user/alice/queue/chats", "/user/bob/queue/chats");
+        assertThat(pushes).extracting(Message::getPayload).containsExactlyInAnyOrder("alice@v20", "bob@v20");
+
+        // a later change opens a new window
+        coalescer.request("alice");
+        coalescer.flushDue(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(awaitSent(1)).extracting(ChatListPushCoalescerTest::destination)
+                .containsExactly("/user/alice/queue/chats");
+    }
+
+    @Test
+    void slowPayloadDoesNotDelayOtherUsers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        coalescer.setPayload(username -> {
+            if (username.equals("slow")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return username;
+        });
+
+        coalescer.request("slow");
+        coalescer.request("alice");
+        coalescer.flushDue(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertThat(awaitSent(1)).extracting(Message::getPayload).containsExactly("alice");
+
+        // slow's next change waits for its first push instead of racing it
+        coalescer.request("slow");
+        coalescer.flushDue(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+        release.countDown();
+        assertThat(awaitSent(1)).extracting(Message::getPayload).containsExactly("slow");
+        assertThat(sent.poll(50, TimeUnit.MILLISECONDS)).isNull();
+
+        // then goes out once that push has finished
+        Message<?> again = null;
+        for (int i = 1; i <= 100 && again == null; i++) {
+            coalescer.flushDue(System.nanoTime() + TimeUnit.SECONDS.toNanos(i));
+            again = sent.poll(50, TimeUnit.MILLISECONDS);
+        }
+        assertThat(again).isNotNull();
+        assertThat(again.getPayload()).isEqualTo("slow");
+    }
+}
@@ -0,0 +1,44 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static com.application.chat.services.EntityVersionService.ROOM;
+import static com.application.chat.services.EntityVersionService.USER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityVersionServiceTest {
+
+    private static EntityVersionService versions(long ttlMs) {
+        return new EntityVersionService(new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), 1000, ttlMs);
+    }
+
+    @Test
+    void answersFromTheRememberedVersionOnly() {
+        EntityVersionService versions = versions(60_000);
+
+        assertThat(versions.notModified(ROOM, "r1", "\"3\"")).isEmpty(); // never served: must read
+        assertThat(versions.served(ROOM, "r1", 3)).isEqualTo("\"3\"");
+
+        assertThat(versions.notModified(ROOM, "r1", "\"3\"")).contains("\"3\"");
+        assertThat(versions.notModified(ROOM, "r1", "W/\"2\", \"3\"")).contains("\"3\"");
+        assertThat(versions.notModified(USER, "r1", "\"3\"")).isEmpty();
+
+        versions.updated(ROOM, "r1", 4);
+        assertThat(versions.notModified(ROOM, "r1", "\"3\"")).isEmpty();
+
+        // a read that started before the write must not bring version 3 back
+        versions.served(ROOM, "r1", 3);
+        assertThat(versions.notModified(ROOM, "r1", "\"3\"")).isEmpty();
+        assertThat(versions.notModified(ROOM, "r1", "\"4\"")).contains("\"4\"");
+    }
+
+    @Test
+    void expiredEntriesAreRevalidatedAgainstTheStore() throws InterruptedException {
+        EntityVersionService versions = versions(1);
+        versions.served(USER, "u1", 1);
+        Thread.sleep(5);
+        assertThat(versions.notModified(USER, "u1", "\"1\"")).isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package com.application.chat.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MentionMatcherTest {
+
+    private final MentionMatcher matcher = new MentionMatcher(
+            List.of("alice", "Bob", "bob.smith", "al", "mary jane", "ali"));
+
+    @Test
+    void findsMembersOnWordBoundariesIgnoringCase() {
+        assertThat(matcher.find("hey @ALICE and @bob, lunch?")).containsExactlyInAnyOrder("alice", "Bob");
+        assertThat(matcher.find("@al @ali @alice")).containsExactlyInAnyOrder("al", "ali", "alice");
+        assertThat(matcher.find("cc @mary jane")).containsExactly("mary jane");
+        assertThat(matcher.find("mail bob@alice.com or @alicex")).isEmpty();
+        assertThat(matcher.find("no mentions here")).isEmpty();
+    }
+
+    @Test
+    void prefersTheLongestNameAtTheSameMention() {
+        assertThat(matcher.find("ping @bob.smith")).containsExactly("bob.smith");
+        assertThat(matcher.find("ping @bob.")).containsExactly("Bob");
+    }
+
+    @Test
+    void largeRoomsMatchInOnePass() {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) members.add("user" + i);
+        MentionMatcher big = new MentionMatcher(members);
+
+        assertThat(big.find("@user1 @user19999 @user20000 @user123x")).containsExactlyInAnyOrder("user1", "user19999");
+    }
+}
@@ -0,0 +1,85 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.Mention;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMentionStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MentionServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private final InMemoryMentionStore mentionStore = new InMemoryMentionStore();
+    private InMemoryMessageStore hot;
+    private MentionService mentions;
+    private String joined;
+    private String left;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        InMemoryRoomStore rooms = new InMemoryRoomStore();
+        hot = new InMemoryMessageStore();
+        MessageArchiveService archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        RoomStateService roomState = new RoomStateService(new MessageHistoryService(hot, archive, 50, 200), rooms, 50, 1000, 60_000);
+        mentions = new MentionService(roomState, mentionStore, hot, archive, rooms,
+                new SimpMessagingTemplate((message, timeout) -> true), 120, 50, 200);
+
+        joined = rooms.save(new ChatRoom("still in", false, true, "alice", List.of("alice", "bob"))).getId();
+        left = rooms.save(new ChatRoom("left", false, true, "alice", List.of("alice"))).getId();
+    }
+
+    /** A message mentioning bob, {@code second} seconds in. */
+    private ChatMessage mention(String roomId, int second) {
+        ChatMessage m = new ChatMessage(roomId, "alice", null, "@bob " + second, T0.plusSeconds(second));
+        m.setSequence(second);
+        ChatMessage saved = hot.save(m);
+        mentionStore.saveAll(List.of(new Mention("bob", saved)));
+        return saved;
+    }
+
+    @Test
+    void pagesSkipFilteredEntriesAcrossScanBatches() {
+        // oldest first; with pages of 2 the store is read 4 at a time
+        mention(joined, 1);
+        mention(joined, 2);
+        mention(left, 3);
+        ChatMessage deleted = mention(joined, 4);
+        mention(joined, 5);
+        mention(left, 6);
+        mention(left, 7);
+        mention(left, 8);
+        mention(joined, 9);
+        hot.deleteAllById(List.of(deleted.getId()));
+
+        // the first batch yields one visible mention; the page is completed from the second
+        List<ChatMessage> first = mentions.mentionsOf("bob", null, 2);
+        assertThat(first).extracting(ChatMessage::getContent).containsExactly("@bob 9", "@bob 5");
+
+        // the next page starts right after the last message shown, skipping the deleted one
+        List<ChatMessage> second = mentions.mentionsOf("bob", first.get(1).getTimestamp(), 2);
+        assertThat(second).extracting(ChatMessage::getContent).containsExactly("@bob 2", "@bob 1");
+
+        assertThat(mentions.mentionsOf("bob", second.get(1).getTimestamp(), 2)).isEmpty();
+        assertThat(mentionStore.findByUsernameBefore("bob", null, 100))
+                .extracting(Mention::getMessageId).doesNotContain(deleted.getId()).hasSize(8);
+    }
+}
@@ -0,0 +1,87 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageHistoryServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private InMemoryMessageStore hot;
+    private MessageArchiveService archive;
+    private MessageHistoryService history;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        hot = new InMemoryMessageStore();
+        // tiny segments so one archive pass writes several
+        archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        history = new MessageHistoryService(hot, archive, 5, 100);
+    }
+
+    private void send(int second, long sequence) {
+        ChatMessage m = new ChatMessage("r1", "alice", null, "m" + sequence, T0.plusSeconds(second));
+        m.setSequence(sequence);
+        hot.save(m);
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).toList();
+    }
+
+    @Test
+    void pagesReadAcrossHotAndColdTiers() {
+        for (int i = 1; i <= 12; i++) send(i, i);
+
+        long moved = archive.archiveRoom("r1", T0.plusSeconds(9), 3);
+
+        assertThat(moved).isEqualTo(8);
+        assertThat(hot.findByRoomId("r1")).hasSize(4);
+        assertThat(contents(history.all("r1"))).hasSize(12).startsWith("m1").endsWith("m12");
+
+        List<ChatMessage> newest = history.page("r1", null, 5);
+        assertThat(contents(newest)).containsExactly("m8", "m9", "m10", "m11", "m12");
+        List<ChatMessage> older = history.page("r1", newest.get(0).getTimestamp(), 5);
+        assertThat(contents(older)).containsExactly("m3", "m4", "m5", "m6", "m7");
+        assertThat(contents(history.page("r1", older.get(0).getTimestamp(), 5))).containsExactly("m1", "m2");
+    }
+
+    @Test
+    void pagesKeepEqualTimestampsTogether() {
+        send(1, 1);
+        send(2, 2);
+        send(2, 3);
+        send(2, 4);
+        send(3, 5);
+
+        assertThat(contents(history.page("r1", null, 2))).containsExactly("m2", "m3", "m4", "m5");
+    }
+
+    @Test
+    void sequenceSurvivesWhenEveryMessageIsArchived() {
+        for (int i = 1; i <= 3; i++) send(i, i);
+        archive.archiveRoom("r1", T0.plusSeconds(10), 100);
+
+        assertThat(hot.findByRoomId("r1")).isEmpty();
+        assertThat(history.lastSequence("r1")).isEqualTo(3);
+        assertThat(contents(history.latest("r1", 2))).containsExactly("m3", "m2");
+    }
+}
@@ -0,0 +1,162 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.OfflineMailbox;
+import com.application.chat.storage.MailboxStore;
+import com.application.chat.storage.memory.InMemoryMailboxStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpSubscriptionMatcher;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OfflineMailboxServiceTest {
+
+    private final BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+    private final Set<String> online = ConcurrentHashMap.newKeySet();
+    private final InMemoryMailboxStore mailboxes = new InMemoryMailboxStore();
+    private final InMemoryMessageStore messages = new InMemoryMessageStore();
+
+    private OfflineMailboxService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.destroy();
+    }
+
+    private OfflineMailboxService open(MailboxStore mailboxStore) {
+        service = new OfflineMailboxService(mailboxStore, messages,
+                new SimpMessagingTemplate((message, timeout) -> sent.add(message)), new Registry(),
+                new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), 500, 2, 10, 1);
+        return service;
+    }
+
+    private ChatMessage saved(String content, int second) {
+        ChatMessage m = new ChatMessage("room-1", "alice", "bob", content, Instant.parse("2025-01-01T00:00:00Z").plusSeconds(second));
+        return messages.save(m);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ChatMessage> messagesOf(Message<?> frame) {
+        return (List<ChatMessage>) ((Map<String, Object>) frame.getPayload()).get("messages");
+    }
+
+    @Test
+    void offlineReceiverIsDrainedInBatchesAndTheMailboxEmpties() {
+        OfflineMailboxService mailbox = open(mailboxes);
+        for (int i = 1; i <= 3; i++) mailbox.recordIfOffline("bob", saved("m" + i, i));
+
+        mailbox.drain("bob");
+
+        assertThat(sent).hasSize(2);
+        Message<?> first = sent.poll();
+        assertThat(SimpMessageHeaderAccessor.getDestination(first.getHeaders())).isEqualTo("/user/bob/queue/mailbox");
+        assertThat(messagesOf(first)).extracting(ChatMessage::getContent).containsExactly("m1", "m2");
+        assertThat(messagesOf(sent.poll())).extracting(ChatMessage::getContent).containsExactly("m3");
+        assertThat(mailboxes.peek("bob")).isEmpty();
+    }
+
+    @Test
+    void onlineReceiverGetsNoMailboxEntry() {
+        online.add("bob");
+        open(mailboxes).recordIfOffline("bob", saved("hi", 1));
+
+        assertThat(mailboxes.peek("bob")).isEmpty();
+    }
+
+    @Test
+    void receiverWhoCameBackWhileTheEntryWasStoredIsDrainedRightAway() throws Exception {
+        // bob connects (and his subscribe drains an empty mailbox) between the presence check and the push
+        MailboxStore racing = new MailboxStore() {
+            @Override
+            public void push(String username, OfflineMailbox.Entry entry, int maxEntries) {
+                online.add(username);
+                service.drain(username);
+                mailboxes.push(username, entry, maxEntries);
+            }
+
+            @Override
+            public Optional<OfflineMailbox> peek(String username) {
+                return mailboxes.peek(username);
+            }
+
+            @Override
+            public void ack(String username, Collection<String> messageIds, long accounted) {
+                mailboxes.ack(username, messageIds, accounted);
+            }
+        };
+        open(racing).recordIfOffline("bob", saved("late", 1));
+
+        Message<?> frame = sent.poll(5, TimeUnit.SECONDS);
+        assertThat(frame).isNotNull();
+        assertThat(messagesOf(frame)).extracting(ChatMessage::getContent).containsExactly("late");
+    }
+
+    /** Users in {@link #online} are connected to this node. */
+    private final class Registry implements SimpUserRegistry {
+
+        @Override
+        public SimpUser getUser(String userName) {
+            return online.contains(userName) ? new User(userName) : null;
+        }
+
+        @Override
+        public Set<SimpUser> getUsers() {
+            return Set.of();
+        }
+
+        @Override
+        public int getUserCount() {
+            return online.size();
+        }
+
+        @Override
+        public Set<SimpSubscription> findSubscriptions(SimpSubscriptionMatcher matcher) {
+            return Set.of();
+        }
+    }
+
+    private record User(String name) implements SimpUser {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean hasSessions() {
+            return true;
+        }
+
+        @Override
+        public SimpSession getSession(String sessionId) {
+            return null;
+        }
+
+        @Override
+        public Set<SimpSession> getSessions() {
+            return Set.of();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.RoomReceipt;
+import com.application.chat.storage.ReceiptStore;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryReceiptStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReceiptServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final InMemoryReceiptStore stored = new InMemoryReceiptStore();
+    private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+    private volatile boolean storeDown;
+
+    private InMemoryMessageStore hot;
+    private ReceiptService receipts;
+    private String roomId;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        InMemoryRoomStore rooms = new InMemoryRoomStore();
+        hot = new InMemoryMessageStore();
+        MessageArchiveService archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        MessageHistoryService history = new MessageHistoryService(hot, archive, 50, 200);
+        // no cluster bus: every room is local
+        RoomAffinityRouter router = new RoomAffinityRouter(
+                new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), null, mapper, 16);
+
+        ReceiptStore flaky = new ReceiptStore() {
+            @Override
+            public void upsertMax(Collection<RoomReceipt> batch) {
+                if (storeDown) throw new IllegalStateException("store down");
+                stored.upsertMax(batch);
+            }
+
+            @Override
+            public List<RoomReceipt> findByRoomId(String id) {
+                return stored.findByRoomId(id);
+            }
+        };
+
+        roomId = rooms.save(new ChatRoom("g", false, true, "alice", List.of("alice", "bob"))).getId();
+        for (long s = 1; s <= 3; s++) {
+            ChatMessage m = new ChatMessage(roomId, "alice", null, "m" + s, Instant.now());
+            m.setSequence(s);
+            hot.save(m);
+        }
+        receipts = new ReceiptService(flaky, new SimpMessagingTemplate((message, timeout) -> sent.add(message)),
+                rooms, new RoomStateService(history, rooms, 50, 1000, 60_000), history, router);
+    }
+
+    private RoomReceipt receiptOf(String username) {
+        return stored.findByRoomId(roomId).stream()
+                .filter(r -> r.getUsername().equals(username))
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    void acksAreClampedToTheNewestMessage() {
+        receipts.markRead(roomId, "bob", 1_000_000);
+        receipts.flush();
+
+        assertThat(receiptOf("bob").getReadSequence()).isEqualTo(3);
+        assertThat(receiptOf("bob").getDeliveredSequence()).isEqualTo(3);
+    }
+
+    @Test
+    void readImpliesDeliveredAndMarksOnlyMoveUp() {
+        receipts.markDelivered(roomId, "bob", 1);
+        receipts.markRead(roomId, "bob", 2);
+        receipts.markDelivered(roomId, "bob", 1);
+        receipts.flush();
+
+        assertThat(receiptOf("bob").getReadSequence()).isEqualTo(2);
+        assertThat(receiptOf("bob").getDeliveredSequence()).isEqualTo(2);
+        assertThat(sent).hasSize(1);
+    }
+
+    @Test
+    void failedFlushIsRetriedWithTheAcksThatArrivedMeanwhile() {
+        receipts.markRead(roomId, "bob", 2);
+        storeDown = true;
+        receipts.flush();
+        assertThat(stored.findByRoomId(roomId)).isEmpty();
+        assertThat(sent).isEmpty();
+
+        receipts.markDelivered(roomId, "bob", 3);
+        storeDown = false;
+        receipts.flush();
+
+        assertThat(receiptOf("bob").getReadSequence()).isEqualTo(2);
+        assertThat(receiptOf("bob").getDeliveredSequence()).isEqualTo(3);
+    }
+
+    @Test
+    void onlyMembersSeeReceipts() {
+        assertThat(receipts.isMember(roomId, "bob")).isTrue();
+        assertThat(receipts.isMember(roomId, "mallory")).isFalse();
+        assertThat(receipts.getReceipts(roomId, "alice")).isEmpty();
+        assertThatThrownBy(() -> receipts.getReceipts(roomId, "mallory")).hasMessageContaining("Not a member");
+    }
+}
@@ -0,0 +1,123 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.search.MessageSearchService;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetentionServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private InMemoryRoomStore rooms;
+    private InMemoryMessageStore hot;
+    private MessageArchiveService archive;
+    private MessageHistoryService history;
+    private MessageSearchService search;
+    private RetentionService retention;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        rooms = new InMemoryRoomStore();
+        hot = new InMemoryMessageStore();
+        archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        history = new MessageHistoryService(hot, archive, 50, 200);
+        // no cluster bus: every room is local
+        RoomAffinityRouter router = new RoomAffinityRouter(
+                new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), null, mapper, 16);
+        search = new MessageSearchService(rooms, hot, history, archive, router, true,
+                dir.resolve("search").toString(), 20, 100, 500, 0.1, new SimpleMeterRegistry());
+        retention = new RetentionService(rooms, hot, archive, router, new RoomStateService(history, rooms, 50, 1000, 60_000), search,
+                new DefaultListableBeanFactory().getBeanProvider(AttachmentService.class), true, 0, 7, 3, 1_000_000, 1_000, new SimpleMeterRegistry());
+    }
+
+    private ChatRoom group(Integer retentionDays) {
+        ChatRoom room = new ChatRoom("g", false, true, "alice", List.of("alice"));
+        room.setRetentionDays(retentionDays);
+        return rooms.save(room);
+    }
+
+    private void send(String roomId, Duration age, long sequence) {
+        ChatMessage m = new ChatMessage(roomId, "alice", null, "m" + sequence, Instant.now().minus(age));
+        m.setSequence(sequence);
+        hot.save(m);
+    }
+
+    @Test
+    void sweepDeletesExpiredMessagesFromBothTiersAndRaisesTheFloor() {
+        String roomId = group(null).getId();
+        for (int i = 1; i <= 8; i++) send(roomId, Duration.ofDays(20 - i), i);   // 19..12 days old
+        for (int i = 9; i <= 10; i++) send(roomId, Duration.ofHours(11 - i), i); // recent
+        archive.archiveRoom(roomId, Instant.now().minus(Duration.ofDays(15)), 2); // m1..m4 go cold
+
+        retention.sweep();
+
+        assertThat(history.all(roomId)).extracting(ChatMessage::getContent).containsExactly("m9", "m10");
+        assertThat(rooms.findById(roomId).orElseThrow().getSequenceFloor()).isEqualTo(8L);
+    }
+
+    @Test
+    void aCopyLoadedBeforeTheSweepCannotWriteTheOldFloorBack() {
+        String roomId = group(null).getId();
+        ChatRoom stale = rooms.findById(roomId).orElseThrow();
+        send(roomId, Duration.ofDays(30), 1);
+        send(roomId, Duration.ofDays(30), 2);
+
+        retention.sweep();
+
+        stale.setName("renamed");
+        assertThatThrownBy(() -> rooms.save(stale)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(rooms.findById(roomId).orElseThrow().getSequenceFloor()).isEqualTo(2L);
+    }
+
+    @Test
+    void roomOverrideWinsAndZeroKeepsForever() {
+        String keep = group(0).getId();
+        String shortLived = group(1).getId();
+        send(keep, Duration.ofDays(400), 1);
+        send(shortLived, Duration.ofDays(2), 1);
+        send(shortLived, Duration.ofHours(1), 2);
+
+        retention.sweep();
+
+        assertThat(hot.findByRoomId(keep)).hasSize(1);
+        assertThat(hot.findByRoomId(shortLived)).extracting(ChatMessage::getSequence).containsExactly(2L);
+    }
+
+    @Test
+    void purgedMessagesLeaveTheSearchIndex() {
+        String roomId = group(null).getId();
+        send(roomId, Duration.ofDays(30), 1);
+        send(roomId, Duration.ofHours(1), 2);
+        hot.findByRoomId(roomId).forEach(search::index);
+
+        retention.sweep();
+
+        assertThat(search.search("alice", "m1", null, null, null).get("total")).isEqualTo(0L);
+        assertThat(search.search("alice", "m2", null, null, null).get("total")).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomBatchServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private InMemoryRoomStore rooms;
+    private InMemoryMessageStore hot;
+    private RoomStateService state;
+    private RoomBatchService batch;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        rooms = new InMemoryRoomStore();
+        hot = new InMemoryMessageStore();
+        MessageArchiveService archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        MessageHistoryService history = new MessageHistoryService(hot, archive, 50, 200);
+        state = new RoomStateService(history, rooms, 5, 1000, 60_000);
+        // no cluster bus: every room is local
+        RoomAffinityRouter router = new RoomAffinityRouter(
+                new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), state, mapper, 16);
+        batch = new RoomBatchService(rooms, history, state, router, 3, 2, 10, 2, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batch.destroy();
+    }
+
+    private String room(String name, String... members) {
+        return rooms.save(new ChatRoom(name, false, true, members[0], List.of(members))).getId();
+    }
+
+    private ChatMessage send(String roomId, int i) {
+        ChatMessage m = new ChatMessage(roomId, "alice", null, roomId + "-" + i, T0.plusSeconds(i));
+        m.setSequence(i);
+        return hot.save(m);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> contents(Map<String, Object> entry) {
+        return ((List<ChatMessage>) entry.get("messages")).stream().map(ChatMessage::getContent).toList();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadsMemberRoomsWithNewestMessagesOldestFirst() {
+        String mine = room("mine", "alice", "bob");
+        String theirs = room("theirs", "bob");
+        for (int i = 1; i <= 4; i++) {
+            send(mine, i);
+            send(theirs, i);
+        }
+
+        Map<String, Object> result = batch.load("alice", List.of(theirs, mine, "nope", mine), 3);
+
+        List<Map<String, Object>> loaded = (List<Map<String, Object>>) result.get("rooms");
+        assertThat(loaded).hasSize(1);
+        assertThat(((ChatRoom) loaded.get(0).get("room")).getId()).isEqualTo(mine);
+        assertThat(contents(loaded.get(0))).containsExactly(mine + "-2", mine + "-3", mine + "-4");
+        assertThat((List<String>) result.get("missing")).containsExactly(theirs, "nope");
+
+        assertThatThrownBy(() -> batch.load("alice", List.of("a", "b", "c", "d"), null))
+                .hasMessageContaining("At most 3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void answersLoadedRoomsFromTheRecentCache() {
+        String mine = room("mine", "alice");
+        send(mine, 1);
+        state.recentMessages(mine); // loads the room's state on this node
+        ChatMessage cachedOnly = new ChatMessage(mine, "alice", null, "not stored", T0.plusSeconds(2));
+        state.append(cachedOnly);
+
+        Map<String, Object> result = batch.load("alice", List.of(mine), null);
+
+        assertThat(contents(((List<Map<String, Object>>) result.get("rooms")).get(0)))
+                .containsExactly(mine + "-1", "not stored");
+    }
+}
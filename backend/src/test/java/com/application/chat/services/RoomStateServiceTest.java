@@ -0,0 +1,76 @@
+package com.application.chat.services;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomStateServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private InMemoryMessageStore hot;
+    private RoomStateService roomState;
+    private String roomId;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        InMemoryRoomStore rooms = new InMemoryRoomStore();
+        hot = new InMemoryMessageStore();
+        MessageArchiveService archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        roomState = new RoomStateService(new MessageHistoryService(hot, archive, 50, 200), rooms, 50, 1000, 60_000);
+        roomId = rooms.save(new ChatRoom("g", false, true, "alice", List.of("alice"))).getId();
+    }
+
+    private ChatMessage saved(long sequence) {
+        ChatMessage m = new ChatMessage(roomId, "alice", null, "m" + sequence, T0.plusSeconds(sequence));
+        m.setSequence(sequence);
+        return hot.save(m);
+    }
+
+    @Test
+    void appendAfterAReloadKeepsOneCopy() {
+        // state not held (evicted between the save and the append): the reload already sees it
+        ChatMessage first = saved(1);
+        roomState.append(first);
+
+        assertThat(roomState.recentMessages(roomId)).extracting(ChatMessage::getId).containsExactly(first.getId());
+    }
+
+    @Test
+    void sendsThatLandOutOfOrderAreBothKept() {
+        roomState.warm(roomId);
+        ChatMessage sixth = saved(6);
+        ChatMessage fifth = saved(5);
+        roomState.append(sixth);
+        roomState.append(fifth);
+
+        assertThat(roomState.recentMessages(roomId)).extracting(ChatMessage::getSequence).containsExactly(6L, 5L);
+    }
+
+    @Test
+    void roomThatComesBackAfterARebalanceResumesAboveWhatWasHandedOut() {
+        for (int i = 0; i < 3; i++) roomState.nextSequence(roomId); // taken, not stored yet
+
+        roomState.retainOnly(id -> false);
+        roomState.retainOnly(id -> true);
+
+        assertThat(roomState.nextSequence(roomId)).isEqualTo(4);
+    }
+}
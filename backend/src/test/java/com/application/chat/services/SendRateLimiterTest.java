@@ -0,0 +1,56 @@
+package com.application.chat.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SendRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsBurstThenRejects() {
+        SendRateLimiter limiter = new SendRateLimiter(1, 3, 1, 3, 1000, registry);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("alice", SendRateLimiter.Kind.GROUP)).isZero();
+        }
+        assertThat(limiter.tryAcquire("alice", SendRateLimiter.Kind.GROUP)).isPositive();
+        assertThat(registry.get("chat.ratelimit.rejected").tag("kind", "group").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void bucketsAreSeparatePerUserAndKind() {
+        SendRateLimiter limiter = new SendRateLimiter(1, 1, 1, 1, 1000, registry);
+
+        assertThat(limiter.tryAcquire("alice", SendRateLimiter.Kind.GROUP)).isZero();
+        assertThat(limiter.tryAcquire("alice", SendRateLimiter.Kind.GROUP)).isPositive();
+        assertThat(limiter.tryAcquire("alice", SendRateLimiter.Kind.PRIVATE)).isZero();
+        assertThat(limiter.tryAcquire("bob", SendRateLimiter.Kind.GROUP)).isZero();
+    }
+
+    @Test
+    void refilledBucketsAreEvicted() throws Exception {
+        SendRateLimiter limiter = new SendRateLimiter(1000, 1, 1000, 1, 1000, registry);
+
+        limiter.tryAcquire("alice", SendRateLimiter.Kind.GROUP);
+        Thread.sleep(5);
+        limiter.evictIdle();
+
+        assertThat(registry.get("chat.ratelimit.buckets").gauge().value()).isZero();
+    }
+
+    @Test
+    void fullMapRejectsNewUsersUntilTheSweep() throws Exception {
+        SendRateLimiter limiter = new SendRateLimiter(1000, 1, 1000, 1, 1, registry);
+
+        assertThat(limiter.tryAcquire("alice", SendRateLimiter.Kind.GROUP)).isZero();
+        Thread.sleep(5);
+        // alice's bucket is idle by now, but only the sweep removes it
+        assertThat(limiter.tryAcquire("bob", SendRateLimiter.Kind.GROUP)).isPositive();
+
+        limiter.evictIdle();
+        assertThat(limiter.tryAcquire("bob", SendRateLimiter.Kind.GROUP)).isZero();
+    }
+}
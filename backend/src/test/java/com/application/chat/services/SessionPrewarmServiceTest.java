@@ -0,0 +1,89 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionPrewarmServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private InMemoryRoomStore rooms;
+    private InMemoryMessageStore hot;
+    private RoomStateService state;
+    private SessionPrewarmService prewarm;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        rooms = new InMemoryRoomStore();
+        hot = new InMemoryMessageStore();
+        MessageArchiveService archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        MessageHistoryService history = new MessageHistoryService(hot, archive, 50, 200);
+        state = new RoomStateService(history, rooms, 3, 1000, 60_000);
+        // no cluster bus: every room is local
+        RoomAffinityRouter router = new RoomAffinityRouter(
+                new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), state, mapper, 16);
+        prewarm = new SessionPrewarmService(state, router, true, 10, 60_000, 1, 10, 100, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        prewarm.destroy();
+    }
+
+    private static Map<String, Object> chat(String roomId) {
+        return Map.of("id", roomId, "displayName", roomId);
+    }
+
+    @Test
+    void warmsChatListOnceAndLoadsRoomState() {
+        String roomId = rooms.save(new ChatRoom("g", false, true, "alice", List.of("alice"))).getId();
+        ChatMessage hi = new ChatMessage(roomId, "alice", null, "hi", Instant.parse("2025-01-01T00:00:00Z"));
+        hi.setSequence(1);
+        hot.save(hi);
+        prewarm.setChatList(username -> List.of(chat(roomId)));
+
+        assertThat(state.cachedRecent(roomId, 3)).isEmpty();
+        prewarm.warm("alice");
+
+        assertThat(state.cachedRecent(roomId, 3)).hasValueSatisfying(
+                messages -> assertThat(messages).extracting(ChatMessage::getContent).containsExactly("hi"));
+        assertThat(prewarm.takeChatList("alice")).hasValue(List.of(chat(roomId)));
+        assertThat(prewarm.takeChatList("alice")).isEmpty();
+    }
+
+    @Test
+    void changeDuringWarmingDropsTheResult() {
+        prewarm.setChatList(username -> {
+            prewarm.invalidate(username); // a group update lands while the list is being computed
+            return List.of(chat("r1"));
+        });
+
+        prewarm.warm("alice");
+
+        assertThat(prewarm.takeChatList("alice")).isEmpty();
+    }
+}
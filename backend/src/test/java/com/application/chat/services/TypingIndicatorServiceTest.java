@@ -0,0 +1,119 @@
+package com.application.chat.services;
+
+import com.application.chat.cluster.ClusterBus;
+import com.application.chat.cluster.RoomAffinityRouter;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.storage.file.FileArchiveStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypingIndicatorServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+
+    private InMemoryRoomStore rooms;
+    private RoomStateService roomState;
+    private RoomAffinityRouter router;
+    private String roomId;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        rooms = new InMemoryRoomStore();
+        InMemoryMessageStore hot = new InMemoryMessageStore();
+        MessageArchiveService archive = new MessageArchiveService(new FileArchiveStore(dir.toString(), mapper), hot, mapper, 600, 4);
+        MessageHistoryService history = new MessageHistoryService(hot, archive, 50, 200);
+        roomState = new RoomStateService(history, rooms, 50, 1000, 60_000);
+        // no cluster bus: every room is local
+        router = new RoomAffinityRouter(new DefaultListableBeanFactory().getBeanProvider(ClusterBus.class), null, mapper, 16);
+        roomId = rooms.save(new ChatRoom("g", false, true, "alice", List.of("alice", "bob"))).getId();
+    }
+
+    private TypingIndicatorService service(long ttlMs, int maxRooms) {
+        return new TypingIndicatorService(new SimpMessagingTemplate((message, timeout) -> sent.add(message)),
+                roomState, router, ttlMs, maxRooms);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> users(Message<?> message) {
+        return (List<String>) ((Map<String, Object>) message.getPayload()).get("users");
+    }
+
+    @Test
+    void keystrokesAreCoalescedIntoOneFramePerChange() {
+        TypingIndicatorService typing = service(60_000, 100);
+
+        typing.onTyping(roomId, "bob", true);
+        typing.onTyping(roomId, "alice", true);
+        typing.onTyping(roomId, "bob", true);
+        typing.flush();
+        typing.flush(); // nothing changed: nothing sent
+
+        assertThat(sent).hasSize(1);
+        assertThat(users(sent.get(0))).containsExactly("alice", "bob");
+
+        typing.clear(roomId, "bob");
+        typing.flush();
+        assertThat(sent).hasSize(2);
+        assertThat(users(sent.get(1))).containsExactly("alice");
+    }
+
+    @Test
+    void nonMembersAreIgnored() {
+        TypingIndicatorService typing = service(60_000, 100);
+
+        typing.onTyping(roomId, "mallory", true);
+        typing.flush();
+
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void expiredTypersAreDroppedAndTheRoomCanStartAgain() throws Exception {
+        TypingIndicatorService typing = service(50, 100);
+
+        typing.onTyping(roomId, "bob", true);
+        Thread.sleep(100);
+        typing.flush(); // expired before it was ever published
+        typing.flush(); // idle room retired
+
+        typing.onTyping(roomId, "alice", true);
+        Thread.sleep(100);
+        typing.onTyping(roomId, "bob", true);
+        typing.flush();
+
+        assertThat(sent).hasSize(1);
+        assertThat(users(sent.get(0))).containsExactly("bob");
+    }
+
+    @Test
+    void roomsBeyondTheLimitAreNotTracked() {
+        String other = rooms.save(new ChatRoom("h", false, true, "alice", List.of("alice"))).getId();
+        TypingIndicatorService typing = service(60_000, 1);
+
+        typing.onTyping(roomId, "bob", true);
+        typing.onTyping(other, "alice", true);
+        typing.flush();
+
+        assertThat(sent).hasSize(1);
+        assertThat(users(sent.get(0))).containsExactly("bob");
+    }
+}
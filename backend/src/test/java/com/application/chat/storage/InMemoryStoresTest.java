@@ -0,0 +1,112 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.ChatMessage;
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.OfflineMailbox;
+import com.application.chat.models.RoomReceipt;
+import com.application.chat.storage.memory.InMemoryMailboxStore;
+import com.application.chat.storage.memory.InMemoryMessageStore;
+import com.application.chat.storage.memory.InMemoryReceiptStore;
+import com.application.chat.storage.memory.InMemoryRoomStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryStoresTest {
+
+    @Test
+    void pairKeyIsUniqueAndMembershipIsIndexed() {
+        RoomStore rooms = new InMemoryRoomStore();
+        ChatRoom first = new ChatRoom(null, true, false, null, List.of("alice", "bob"));
+        first.setPairKey("alice-bob");
+        rooms.save(first);
+
+        ChatRoom duplicate = new ChatRoom(null, true, false, null, List.of("alice", "bob"));
+        duplicate.setPairKey("alice-bob");
+        assertThatThrownBy(() -> rooms.save(duplicate)).isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(rooms.findByPairKey("alice-bob")).map(ChatRoom::getId).contains(first.getId());
+        assertThat(rooms.findByMembersContaining("bob")).hasSize(1);
+
+        ChatRoom loaded = rooms.findById(first.getId()).orElseThrow();
+        loaded.getMembers().remove("bob");
+        assertThat(rooms.findByMembersContaining("bob")).hasSize(1); // reads are copies
+        rooms.save(loaded);
+        assertThat(rooms.findByMembersContaining("bob")).isEmpty();
+    }
+
+    @Test
+    void staleCopiesCannotOverwriteANewerVersion() {
+        RoomStore rooms = new InMemoryRoomStore();
+        ChatRoom room = rooms.save(new ChatRoom("g", false, true, "alice", List.of("alice")));
+
+        ChatRoom first = rooms.findById(room.getId()).orElseThrow();
+        ChatRoom second = rooms.findById(room.getId()).orElseThrow();
+        first.setRetentionDays(7);
+        assertThat(rooms.save(first).getVersion()).isEqualTo(2);
+
+        second.setRetentionDays(30);
+        assertThatThrownBy(() -> rooms.save(second)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(rooms.findById(room.getId()).orElseThrow().getRetentionDays()).isEqualTo(7);
+    }
+
+    @Test
+    void messagesAreOrderedByTimestampThenInsertion() {
+        MessageStore messages = new InMemoryMessageStore();
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        messages.save(new ChatMessage("r1", "alice", null, "second", t.plusSeconds(1)));
+        messages.save(new ChatMessage("r1", "alice", null, "first", t));
+        messages.save(new ChatMessage("r1", "bob", null, "third", t.plusSeconds(1)));
+        messages.save(new ChatMessage("r2", "bob", null, "other room", t));
+
+        assertThat(messages.findByRoomId("r1")).extracting(ChatMessage::getContent)
+                .containsExactly("first", "second", "third");
+        assertThat(messages.findLatestByRoomId("r1", 2)).extracting(ChatMessage::getContent)
+                .containsExactly("third", "second");
+    }
+
+    @Test
+    void mailboxKeepsNewestEntriesAndCountsAll() {
+        MailboxStore mailboxes = new InMemoryMailboxStore();
+        for (long i = 1; i <= 5; i++) {
+            mailboxes.push("bob", new OfflineMailbox.Entry("m" + i, "r1", i), 3);
+        }
+
+        OfflineMailbox mailbox = mailboxes.peek("bob").orElseThrow();
+        assertThat(mailbox.getEntries()).extracting(OfflineMailbox.Entry::getMessageId)
+                .containsExactly("m3", "m4", "m5");
+        assertThat(mailbox.getTotal()).isEqualTo(5);
+        mailboxes.ack("bob", List.of("m3"), 3);
+        assertThat(mailboxes.peek("bob").orElseThrow().getEntries()).hasSize(2);
+        mailboxes.ack("bob", List.of("m4", "m5"), 2);
+        assertThat(mailboxes.peek("bob")).isEmpty();
+    }
+
+    @Test
+    void receiptsOnlyMoveUp() {
+        ReceiptStore receipts = new InMemoryReceiptStore();
+        receipts.upsertMax(List.of(receipt(10, 12)));
+        receipts.upsertMax(List.of(receipt(7, 15)));
+
+        RoomReceipt stored = receipts.findByRoomId("r1").get(0);
+        assertThat(stored.getReadSequence()).isEqualTo(10);
+        assertThat(stored.getDeliveredSequence()).isEqualTo(15);
+    }
+
+    private static RoomReceipt receipt(long read, long delivered) {
+        RoomReceipt receipt = new RoomReceipt();
+        receipt.setId(RoomReceipt.idFor("r1", "bob"));
+        receipt.setRoomId("r1");
+        receipt.setUsername("bob");
+        receipt.setReadSequence(read);
+        receipt.setDeliveredSequence(delivered);
+        receipt.setUpdatedAt(Instant.now());
+        return receipt;
+    }
+}
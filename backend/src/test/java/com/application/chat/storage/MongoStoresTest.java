@@ -0,0 +1,129 @@
+package com.application.chat.storage;
+
+import com.application.chat.models.ChatRoom;
+import com.application.chat.models.User;
+import com.application.chat.repositories.ChatRoomRepository;
+import com.application.chat.repositories.UserRepository;
+import com.application.chat.storage.mongo.MongoRoomStore;
+import com.application.chat.storage.mongo.MongoUserStore;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against a throwaway database on a local (or containerised) Mongo:
+ * {@code CHAT_TEST_MONGO_URI=mongodb://localhost:27017 ./gradlew test}.
+ */
+@EnabledIfEnvironmentVariable(named = "CHAT_TEST_MONGO_URI", matches = ".+")
+class MongoStoresTest {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private MongoRoomStore rooms;
+    private MongoUserStore users;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getenv("CHAT_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(
+                new SimpleMongoClientDatabaseFactory(client, "chat_store_test_" + System.nanoTime()));
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+        rooms = new MongoRoomStore(repositories.getRepository(ChatRoomRepository.class), mongoTemplate);
+        users = new MongoUserStore(repositories.getRepository(UserRepository.class), mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void concurrentWritersOfALegacyRoomCannotBothWin() throws Exception {
+        // stored before versions existed: no version field at all
+        mongoTemplate.getCollection("chat_rooms").insertOne(new Document("_id", "legacy")
+                .append("name", "g").append("members", List.of("alice")));
+
+        ChatRoom first = rooms.findById("legacy").orElseThrow();
+        ChatRoom second = rooms.findById("legacy").orElseThrow();
+        first.setRetentionDays(7);
+        second.setRetentionDays(30);
+        List<Integer> won = race(() -> { rooms.save(first); return 7; }, () -> { rooms.save(second); return 30; });
+
+        assertThat(won).hasSize(1);
+        ChatRoom stored = rooms.findById("legacy").orElseThrow();
+        assertThat(stored.getVersion()).isEqualTo(1);
+        assertThat(stored.getRetentionDays()).isEqualTo(won.get(0));
+    }
+
+    @Test
+    void staleCopyOfALegacyUserIsRejected() {
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", "u1")
+                .append("username", "alice").append("email", "alice@example.com").append("version", 0L));
+
+        User first = users.findById("u1").orElseThrow();
+        User second = users.findById("u1").orElseThrow();
+        first.setEmail("first@example.com");
+        assertThat(users.save(first).getVersion()).isEqualTo(1);
+
+        second.setEmail("second@example.com");
+        assertThatThrownBy(() -> users.save(second)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(second.getVersion()).isZero();
+        assertThat(users.findById("u1").orElseThrow().getEmail()).isEqualTo("first@example.com");
+    }
+
+    @Test
+    void newDocumentWithAnAssignedIdIsInserted() {
+        ChatRoom room = new ChatRoom("room", false, true, "alice", List.of("alice"));
+        room.setId("room-1");
+        assertThat(rooms.save(room).getVersion()).isEqualTo(1);
+        assertThat(rooms.findById("room-1")).isPresent();
+    }
+
+    /** Runs the writers from one start line; returns what the ones that saved returned. */
+    private static List<Integer> race(Callable<Integer> a, Callable<Integer> b) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Callable<Integer> writer : List.of(a, b)) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return writer.call();
+                    } catch (OptimisticLockingFailureException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Integer> won = new ArrayList<>();
+            for (Future<Integer> f : futures) {
+                Integer result = f.get();
+                if (result != null) won.add(result);
+            }
+            return won;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -19,6 +19,16 @@ export class WsService {
   private chatListSubject = new BehaviorSubject<any[]>([]);
   chatList$ = this.chatListSubject.asObservable();
 
+  private typingSubject = new Subject<{ roomId: string; users: string[] }>();
+  typing$ = this.typingSubject.asObservable();
+
+  private errorSubject = new Subject<{ error: string; retryAfterMs?: number }>();
+  errors$ = this.errorSubject.asObservable();
+
+  /** Fires when offline messages overflowed the mailbox: reload room history. */
+  private resyncSubject = new Subject<void>();
+  resync$ = this.resyncSubject.asObservable();
+
   private activeSubscriptions = new Map<string, any>();
   private reconnectAttempts = 0;
   private readonly baseDelay = 3000;
@@ -37,13 +47,18 @@ export class WsService {
     if (this.connectPromise) return this.connectPromise;
 
     this.connectPromise = new Promise((resolve, reject) => {
-      const socketUrl = `${environment.wsUrl}?token=${token}`;
-      const socket = new SockJS(socketUrl);
+      const native = environment.useNativeWs && typeof WebSocket !== 'undefined';
+      const socket: any = native
+        ? new WebSocket(`${environment.wsNativeUrl}?token=${token}`)
+        : new SockJS(`${environment.wsUrl}?token=${token}`);
       this.stompClient = Stomp.over(socket);
       this.stompClient.debug = () => {};
 
+      // batch:true asks the server to coalesce bursts of room messages into array frames
+      const connectHeaders: any = environment.batchFrames ? { batch: 'true' } : {};
+
       this.stompClient.connect(
-        {},
+        connectHeaders,
         () => {
           this.connected = true;
           this.reconnectAttempts = 0;
@@ -52,6 +67,8 @@ export class WsService {
           setTimeout(() => {
             this.subscribeToPrivateQueue();
             this.subscribeToUserUpdates();
+            this.subscribeToErrors();
+            this.subscribeToMailbox();
           }, 300);
 
           this.connectPromise = null;
@@ -66,7 +83,8 @@ export class WsService {
         }
       );
 
-      (socket as any)._transport?.ws?.addEventListener('close', () => {
+      const rawSocket = native ? socket : socket._transport?.ws;
+      rawSocket?.addEventListener('close', () => {
         this.connected = false;
         this.connectPromise = null;
         this.scheduleReconnect();
@@ -100,6 +118,44 @@ export class WsService {
     this.activeSubscriptions.set(destination, sub);
   }
 
+  /** 📬 Messages that arrived while offline: { batch, batches, messages, resync } */
+  private subscribeToMailbox() {
+    if (!this.stompClient) return;
+
+    const destination = `/user/queue/mailbox`;
+    if (this.activeSubscriptions.has(destination)) return;
+
+    const sub = this.stompClient.subscribe(destination, (msg) => {
+      try {
+        const data = JSON.parse(msg.body);
+        (data.messages ?? []).forEach((m: any) => this.handleIncoming(m));
+        if (data.resync && data.batch === 1) this.resyncSubject.next();
+      } catch (e) {
+        console.error('❌ Error parsing mailbox batch:', e);
+      }
+    });
+
+    this.activeSubscriptions.set(destination, sub);
+  }
+
+  /** 🚦 Server-side rejections, e.g. { error: 'rate_limited', retryAfterMs } */
+  private subscribeToErrors() {
+    if (!this.stompClient) return;
+
+    const destination = `/user/queue/errors`;
+    if (this.activeSubscriptions.has(destination)) return;
+
+    const sub = this.stompClient.subscribe(destination, (msg) => {
+      try {
+        this.errorSubject.next(JSON.parse(msg.body));
+      } catch (e) {
+        console.error('❌ Error parsing error frame:', e);
+      }
+    });
+
+    this.activeSubscriptions.set(destination, sub);
+  }
+
   async subscribeToRoom(roomId: string) {
     if (!roomId) return;
     const destination = `/topic/messages/${roomId}`;
@@ -110,7 +166,12 @@ export class WsService {
     const sub = this.stompClient!.subscribe(destination, (msg) => {
       try {
         const data = JSON.parse(msg.body);
-        this.handleIncoming(data);
+        // A frame with a batch header carries an array of messages
+        if (msg.headers['batch']) {
+          (data as any[]).forEach((m) => this.handleIncoming(m));
+        } else {
+          this.handleIncoming(data);
+        }
       } catch (e) {
         console.error('❌ Error parsing room message:', e);
       }
@@ -119,6 +180,31 @@ export class WsService {
     this.activeSubscriptions.set(destination, sub);
   }
 
+  /** ⌨️ Coalesced "who is typing" frames for a room (one per server flush interval) */
+  async subscribeToTyping(roomId: string) {
+    if (!roomId) return;
+    const destination = `/topic/typing/${roomId}`;
+    if (this.activeSubscriptions.has(destination)) return;
+
+    await this.ensureConnected();
+
+    const sub = this.stompClient!.subscribe(destination, (msg) => {
+      try {
+        this.typingSubject.next(JSON.parse(msg.body));
+      } catch (e) {
+        console.error('❌ Error parsing typing update:', e);
+      }
+    });
+
+    this.activeSubscriptions.set(destination, sub);
+  }
+
+  /** ⌨️ Report typing state — cheap to call on every keystroke */
+  sendTyping(roomId: string, typing: boolean) {
+    if (!this.stompClient || !this.connected || !roomId) return;
+    this.stompClient.send('/app/typing', {}, JSON.stringify({ roomId, typing }));
+  }
+
   private async ensureConnected(): Promise<void> {
     if (this.connected && this.stompClient?.connected) return;
     try {
@@ -2,5 +2,10 @@ export const environment = {
   production: false,
   // adjust this to your backend base URL
   apiUrl: 'http://localhost:8080',
-  wsUrl: 'http://localhost:8080/ws'
+  wsUrl: 'http://localhost:8080/ws',
+  // raw WebSocket STOMP endpoint (no SockJS framing); used when useNativeWs is true
+  wsNativeUrl: 'ws://localhost:8080/ws-native',
+  useNativeWs: false,
+  // ask the server to coalesce bursts of room messages into one frame (array body)
+  batchFrames: false
 };